@@ -1,5 +1,7 @@
 package gr.uoa.di.madgik.resourcecatalogue.service;
 
+import gr.uoa.di.madgik.resourcecatalogue.domain.CatalogueBundle;
+import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
 import org.springframework.security.core.GrantedAuthority;
 
 import java.util.Set;
@@ -34,4 +36,32 @@ public interface AuthoritiesMapper {
      * Update Authorities
      */
     void updateAuthorities();
+
+    /**
+     * Update the Authorities of the users of a single Provider (draft or not).
+     *
+     * @param providerBundle the added or updated Provider
+     */
+    void updateAuthorities(ProviderBundle providerBundle);
+
+    /**
+     * Update the Authorities of the users of a single Catalogue.
+     *
+     * @param catalogueBundle the added or updated Catalogue
+     */
+    void updateAuthorities(CatalogueBundle catalogueBundle);
+
+    /**
+     * Remove the Authorities granted by a deleted Provider (draft or not).
+     *
+     * @param providerBundle the deleted Provider
+     */
+    void removeAuthorities(ProviderBundle providerBundle);
+
+    /**
+     * Remove the Authorities granted by a deleted Catalogue.
+     *
+     * @param catalogueBundle the deleted Catalogue
+     */
+    void removeAuthorities(CatalogueBundle catalogueBundle);
 }
@@ -0,0 +1,52 @@
+package gr.uoa.di.madgik.resourcecatalogue.service;
+
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CascadeJob;
+import org.springframework.security.core.Authentication;
+
+public interface CascadeService {
+    /**
+     * Submit a job applying a state change to all the resources of a Catalogue, or of a Provider, in the
+     * background. The Catalogue or Provider itself is not changed.
+     *
+     * @param operation      the state change
+     * @param catalogueId    Catalogue ID
+     * @param providerId     Provider ID, or null for all the resources of the Catalogue
+     * @param authentication Authentication
+     * @return {@link CascadeJob}
+     */
+    CascadeJob submit(CascadeJob.Operation operation, String catalogueId, String providerId,
+                      Authentication authentication);
+
+    /**
+     * Submit a job applying a state change to all the resources of a Catalogue, or of a Provider, in the
+     * background, and change the Catalogue or Provider itself once all of them are changed. The last step is
+     * skipped if any of the resources could not be changed.
+     *
+     * @param operation      the state change
+     * @param catalogueId    Catalogue ID
+     * @param providerId     Provider ID, or null for all the resources of the Catalogue
+     * @param authentication Authentication
+     * @param then           the change of the Catalogue or Provider itself
+     * @return {@link CascadeJob}
+     */
+    CascadeJob submit(CascadeJob.Operation operation, String catalogueId, String providerId,
+                      Authentication authentication, Runnable then);
+
+    /**
+     * Get a cascade job
+     *
+     * @param id Job ID
+     * @return {@link CascadeJob}
+     */
+    CascadeJob getJob(String id);
+
+    /**
+     * Get the running and the recently finished cascade jobs, latest first
+     *
+     * @param from     offset
+     * @param quantity max number of jobs
+     * @return {@link Paging}
+     */
+    Paging<CascadeJob> getJobs(int from, int quantity);
+}
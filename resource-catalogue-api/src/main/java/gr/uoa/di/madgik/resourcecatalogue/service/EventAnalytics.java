@@ -0,0 +1,26 @@
+package gr.uoa.di.madgik.resourcecatalogue.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event computations that must cover every stored {@link gr.uoa.di.madgik.resourcecatalogue.domain.Event},
+ * without loading all of them in memory at once.
+ */
+public interface EventAnalytics {
+
+    /**
+     * Returns, for every service, the value of the latest event of each user.
+     *
+     * @param eventType event type
+     * @return map of service ids to the latest value of each user
+     */
+    Map<String, List<Float>> getLatestUserValues(String eventType);
+
+    /**
+     * Returns the ids of all the events without a value.
+     *
+     * @return event ids
+     */
+    List<String> getNullEventIds();
+}
@@ -2,11 +2,14 @@ package gr.uoa.di.madgik.resourcecatalogue.service;
 
 import gr.uoa.di.madgik.registry.domain.*;
 import gr.uoa.di.madgik.registry.service.SearchService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BulkLookup;
 
 import javax.validation.constraints.NotNull;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface GenericResourceService {
     /**
@@ -33,6 +36,16 @@ public interface GenericResourceService {
      */
     <T> Browsing<T> getResultsWithoutFacets(FacetFilter filter);
 
+    /**
+     * Streams all the resources of the filter's resource type matching its filters, fetching them lazily in pages.
+     * The results are not limited by the max result window.
+     *
+     * @param filter
+     * @param <T>
+     * @return
+     */
+    <T> Stream<T> stream(FacetFilter filter);
+
     /**
      * @param paging
      * @param resourceTypeName
@@ -85,6 +98,17 @@ public interface GenericResourceService {
      */
     <T> T get(String resourceTypeName, String id);
 
+    /**
+     * Finds many resources at once, searching the given resource types in order and each of them only for the ids
+     * not found in the previous ones. Issues one query per resource type and batch of ids.
+     *
+     * @param ids               resource ids
+     * @param resourceTypeNames resource type names, in order of precedence
+     * @param <T>
+     * @return the resources found by id, and the ids that were not found in any resource type
+     */
+    <T> BulkLookup<T> getBulk(Collection<String> ids, String... resourceTypeNames);
+
     /**
      * @param resourceTypeName
      * @return
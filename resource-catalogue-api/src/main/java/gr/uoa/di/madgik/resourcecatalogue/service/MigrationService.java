@@ -1,6 +1,8 @@
 package gr.uoa.di.madgik.resourcecatalogue.service;
 
+import gr.uoa.di.madgik.registry.domain.Paging;
 import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationJob;
 import org.springframework.security.core.Authentication;
 
 public interface MigrationService {
@@ -16,6 +18,52 @@ public interface MigrationService {
     ProviderBundle changeProviderCatalogue(String providerId, String catalogueId, String newCatalogueId,
                                            Authentication authentication);
 
+    /**
+     * Submit a job migrating a Provider and all its resources to another Catalogue in the background
+     *
+     * @param providerId     Provider ID
+     * @param catalogueId    The Catalogue ID in which the Provider is registered
+     * @param newCatalogueId The new Catalogue ID in which the Provider will be registered
+     * @param dryRun         Only report the resources that would be migrated
+     * @param authentication Authentication
+     * @return {@link MigrationJob}
+     */
+    MigrationJob submit(String providerId, String catalogueId, String newCatalogueId, boolean dryRun,
+                        Authentication authentication);
+
+    /**
+     * Get a migration job
+     *
+     * @param id Job ID
+     * @return {@link MigrationJob}
+     */
+    MigrationJob getJob(String id);
+
+    /**
+     * Get the migration jobs, latest first
+     *
+     * @param from     offset
+     * @param quantity max number of jobs
+     * @return {@link Paging}
+     */
+    Paging<MigrationJob> getJobs(int from, int quantity);
+
+    /**
+     * Cancel a running migration job. The resources already migrated stay in the new Catalogue.
+     *
+     * @param id Job ID
+     * @return {@link MigrationJob}
+     */
+    MigrationJob cancel(String id);
+
+    /**
+     * Retry a failed or cancelled migration job, skipping the resources already migrated
+     *
+     * @param id Job ID
+     * @return {@link MigrationJob}
+     */
+    MigrationJob retry(String id);
+
     /**
      * Update all Project's resources' fields related to a specific resource ID when migrating this resource to another
      * Provider
@@ -0,0 +1,95 @@
+package gr.uoa.di.madgik.resourcecatalogue.service;
+
+import gr.uoa.di.madgik.resourcecatalogue.dto.ServiceType;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Local copy of the ARGO GRNET monitoring service types.
+ */
+public interface MonitoringServiceTypeService {
+
+    /**
+     * Reloads the service types from ARGO. If ARGO cannot be reached, the previously loaded service types are kept.
+     *
+     * @return true if the service types were reloaded
+     */
+    boolean refresh();
+
+    /**
+     * Returns the available service types.
+     *
+     * @return the service types
+     */
+    List<ServiceType> getServiceTypes();
+
+    /**
+     * Returns whether the given service type name is one of the available service types.
+     *
+     * @param name service type name
+     * @return true if the service type exists
+     */
+    boolean contains(String name);
+
+    /**
+     * Returns the state of the local copy.
+     */
+    Status getStatus();
+
+    /**
+     * The state of the local copy of the service types.
+     */
+    final class Status {
+
+        private final int serviceTypes;
+        private final Date loadedAt;
+        private final boolean stale;
+        private final int consecutiveFailures;
+        private final Date lastFailureAt;
+        private final String lastFailure;
+
+        public Status(int serviceTypes, Date loadedAt, boolean stale, int consecutiveFailures, Date lastFailureAt,
+                      String lastFailure) {
+            this.serviceTypes = serviceTypes;
+            this.loadedAt = loadedAt;
+            this.stale = stale;
+            this.consecutiveFailures = consecutiveFailures;
+            this.lastFailureAt = lastFailureAt;
+            this.lastFailure = lastFailure;
+        }
+
+        /**
+         * The number of loaded service types.
+         */
+        public int getServiceTypes() {
+            return serviceTypes;
+        }
+
+        /**
+         * When the service types were last loaded, or null if they have never been loaded.
+         */
+        public Date getLoadedAt() {
+            return loadedAt;
+        }
+
+        public boolean isStale() {
+            return stale;
+        }
+
+        /**
+         * The number of failed refreshes since the last successful one.
+         */
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public Date getLastFailureAt() {
+            return lastFailureAt;
+        }
+
+        public String getLastFailure() {
+            return lastFailure;
+        }
+    }
+}
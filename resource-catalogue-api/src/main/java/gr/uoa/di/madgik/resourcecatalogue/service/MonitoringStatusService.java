@@ -0,0 +1,55 @@
+package gr.uoa.di.madgik.resourcecatalogue.service;
+
+import gr.uoa.di.madgik.resourcecatalogue.dto.MonitoringStatus;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ARGO GRNET monitoring statuses of the Services.
+ */
+public interface MonitoringStatusService {
+
+    /**
+     * Returns the latest monitoring statuses of the given Service.
+     *
+     * @param serviceId the Service id
+     * @return the statuses, or an empty list if the Service is not monitored
+     */
+    List<MonitoringStatus> getStatuses(String serviceId);
+
+    /**
+     * Returns the detailed monitoring statuses of the given Service.
+     *
+     * @param serviceId the Service id
+     * @return the statuses, or an empty list if the Service is not monitored
+     */
+    List<MonitoringStatus> getDetailedStatuses(String serviceId);
+
+    /**
+     * Returns the monitoring statuses of the given Service in the given period.
+     *
+     * @param serviceId the Service id
+     * @param startTime period start, as an ISO-8601 date time
+     * @param endTime   period end, as an ISO-8601 date time
+     * @return the statuses, or an empty list if the Service is not monitored
+     */
+    List<MonitoringStatus> getStatuses(String serviceId, String startTime, String endTime);
+
+    /**
+     * Returns the monitoring availabilities of the given Service in the given period.
+     *
+     * @param serviceId the Service id
+     * @param startTime period start
+     * @param endTime   period end
+     * @return the availabilities, or an empty list if the Service is not monitored
+     */
+    List<MonitoringStatus> getAvailabilities(String serviceId, String startTime, String endTime);
+
+    /**
+     * Returns the latest monitoring status value of every non-public Service.
+     *
+     * @return map of Service ids to their latest status value, or an empty string if it is unknown
+     */
+    Map<String, String> getAllStatusValues();
+}
@@ -6,10 +6,13 @@ import gr.uoa.di.madgik.registry.domain.Resource;
 import gr.uoa.di.madgik.registry.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.registry.service.ResourceCRUDService;
 import gr.uoa.di.madgik.registry.service.SearchService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BulkLookup;
 import org.springframework.security.core.Authentication;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface ResourceService<T> extends ResourceCRUDService<T, Authentication> {
 
@@ -20,6 +23,26 @@ public interface ResourceService<T> extends ResourceCRUDService<T, Authenticatio
      */
     Browsing<T> getAll(FacetFilter filter);
 
+    /**
+     * Streams all the resources matching the filters of the given {@link FacetFilter}, fetching them lazily in pages.
+     * Unlike {@link #getAll(FacetFilter)}, the results are not limited by the max result window. Paging, ordering
+     * and keyword of the filter are not supported.
+     *
+     * @param filter the facet filter
+     * @return a stream of the matching resources, in creation order
+     */
+    Stream<T> stream(FacetFilter filter);
+
+    /**
+     * Streams the resources matching the filters of the given {@link FacetFilter} that follow the given resource in
+     * creation order, to resume a previous {@link #stream(FacetFilter)}.
+     *
+     * @param filter the facet filter
+     * @param after  the id of the last resource received, or null to start from the first one
+     * @return a stream of the matching resources, in creation order
+     */
+    Stream<T> stream(FacetFilter filter, String after);
+
     /**
      * Creates ID for the given resource.
      *
@@ -51,6 +74,14 @@ public interface ResourceService<T> extends ResourceCRUDService<T, Authenticatio
      */
     List<T> getSome(String... ids);
 
+    /**
+     * Get many resources at once, providing their IDs
+     *
+     * @param ids resource IDs
+     * @return {@link BulkLookup}&lt;{@link T}&gt; with the resources found and the IDs that were not found
+     */
+    BulkLookup<T> getBulk(Collection<String> ids);
+
     /**
      * Get a resource, providing one or more key values
      *
@@ -7,6 +7,8 @@ import gr.uoa.di.madgik.resourcecatalogue.domain.User;
 import org.springframework.security.core.Authentication;
 
 import javax.validation.constraints.NotNull;
+import java.util.Collection;
+import java.util.Set;
 
 public interface SecurityService {
 
@@ -187,4 +189,24 @@ public interface SecurityService {
      * @return
      */
     boolean trainingResourceIsActive(String resourceId, String catalogueId);
+
+    /**
+     * Resolves with a single lookup which of the given Providers of a Catalogue the user administers.
+     * Draft Providers are also taken into account.
+     *
+     * @param auth        Authentication
+     * @param providerIds Provider IDs
+     * @param catalogueId Catalogue ID
+     * @return the subset of {@code providerIds} the user is an admin of
+     */
+    Set<String> getAdministeredProviderIds(Authentication auth, Collection<String> providerIds, String catalogueId);
+
+    /**
+     * Resolves with a single lookup which of the given Catalogues the user administers.
+     *
+     * @param auth         Authentication
+     * @param catalogueIds Catalogue IDs
+     * @return the subset of {@code catalogueIds} the user is an admin of
+     */
+    Set<String> getAdministeredCatalogueIds(Authentication auth, Collection<String> catalogueIds);
 }
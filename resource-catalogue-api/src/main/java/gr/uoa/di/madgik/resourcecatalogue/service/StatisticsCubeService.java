@@ -0,0 +1,50 @@
+package gr.uoa.di.madgik.resourcecatalogue.service;
+
+import gr.uoa.di.madgik.resourcecatalogue.dto.MapValues;
+import gr.uoa.di.madgik.resourcecatalogue.dto.PlaceCount;
+import gr.uoa.di.madgik.resourcecatalogue.dto.Value;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService.Interval;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService.Vocabulary;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Precomputed statistics of the services, maintained as services, providers and events are written. Serves the
+ * {@link StatisticsService} methods without scanning all the services or events.
+ */
+public interface StatisticsCubeService {
+
+    Map<String, Integer> visits(String serviceId, Interval by);
+
+    Map<String, Integer> addToProject(String serviceId, Interval by);
+
+    Map<String, Integer> providerVisits(String providerId, Interval by);
+
+    Map<String, Integer> providerAddToProject(String providerId, Interval by);
+
+    Map<String, Float> providerVisitation(String providerId);
+
+    List<PlaceCount> servicesPerPlace(String providerId);
+
+    List<Value> servicesByPlace(String providerId, String place);
+
+    List<MapValues> mapServicesToGeographicalAvailability(String providerId);
+
+    List<MapValues> mapServicesToProviderCountry();
+
+    List<MapValues> mapServicesToVocabulary(String providerId, Vocabulary vocabulary);
+
+    /**
+     * Recomputes all the statistics from the stored services, providers and events.
+     */
+    void rebuild();
+
+    /**
+     * Computes the statistics from the stored services, providers and events and compares them with the
+     * maintained ones.
+     *
+     * @return the differences found, empty if the statistics are consistent
+     */
+    List<String> check();
+}
@@ -0,0 +1,39 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of looking up many resources by id at once.
+ *
+ * @param <T> resource class
+ */
+public class BulkLookup<T> {
+
+    private final Map<String, T> found;
+    private final Set<String> missing;
+
+    public BulkLookup(Map<String, T> found, Set<String> missing) {
+        this.found = Collections.unmodifiableMap(found);
+        this.missing = Collections.unmodifiableSet(missing);
+    }
+
+    /**
+     * @return the resources that were found, by id
+     */
+    public Map<String, T> getFound() {
+        return found;
+    }
+
+    /**
+     * @return the ids that were not found
+     */
+    public Set<String> getMissing() {
+        return missing;
+    }
+
+    public T get(String id) {
+        return found.get(id);
+    }
+}
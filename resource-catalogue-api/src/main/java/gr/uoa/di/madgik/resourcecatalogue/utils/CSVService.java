@@ -6,7 +6,9 @@ import gr.uoa.di.madgik.resourcecatalogue.domain.Vocabulary;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface CSVService {
     /**
@@ -33,6 +35,36 @@ public interface CSVService {
      */
     String listVocabulariesToCSV(List<Vocabulary> list);
 
+    /**
+     * Write Providers to the given output, one row per Provider, as they are consumed from the stream.
+     *
+     * @param providers Provider stream
+     * @param format    Export format
+     * @param out       Output
+     * @return the number of rows written
+     */
+    long writeProviders(Stream<ProviderBundle> providers, ExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * Write Services to the given output, one row per Service, as they are consumed from the stream.
+     *
+     * @param services Service stream
+     * @param format   Export format
+     * @param out      Output
+     * @return the number of rows written
+     */
+    long writeServices(Stream<ServiceBundle> services, ExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * Write Vocabularies to the given output, one row per Vocabulary, as they are consumed from the stream.
+     *
+     * @param vocabularies Vocabulary stream
+     * @param format       Export format
+     * @param out          Output
+     * @return the number of rows written
+     */
+    long writeVocabularies(Stream<Vocabulary> vocabularies, ExportFormat format, OutputStream out) throws IOException;
+
     /**
      * Create a CSV from a list of Vocabularies
      *
@@ -42,15 +74,16 @@ public interface CSVService {
     long generateTimestampFromDate(String date);
 
     /**
-     * Create a CSV from
+     * Create a CSV with the number of Services per Provider approved before the given timestamp. Services are
+     * counted as they are consumed from the stream, so only the per Provider counts are kept in memory.
      *
      * @param timestamp Date in Timestamp
-     * @param providers List of Providers
-     * @param services  List of Services
+     * @param providers Stream of Providers
+     * @param services  Stream of Services
      * @param response  HttpServletResponse
      */
     void computeApprovedServicesBeforeTimestampAndGenerateCSV(long timestamp,
-                                                              List<ProviderBundle> providers,
-                                                              List<ServiceBundle> services,
+                                                              Stream<ProviderBundle> providers,
+                                                              Stream<ServiceBundle> services,
                                                               HttpServletResponse response) throws IOException;
 }
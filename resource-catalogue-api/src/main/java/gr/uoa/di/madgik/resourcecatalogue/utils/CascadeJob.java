@@ -0,0 +1,196 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A state change of a catalogue, or of a provider, applied to all the resources under it. The resources are planned
+ * when the job starts and the ones that could not be changed are reported as failures.
+ */
+public class CascadeJob {
+
+    public enum Operation {
+        SUSPEND, UNSUSPEND, ACTIVATE, DEACTIVATE, DELETE
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private Operation operation;
+    private String catalogueId;
+    private String providerId;
+    private String requestedBy;
+    private volatile Status status = Status.PENDING;
+    private Date created;
+    private volatile Date completed;
+    private volatile String error;
+    private volatile long total;
+    private final AtomicLong done = new AtomicLong();
+    private final List<Failure> failures = Collections.synchronizedList(new ArrayList<>());
+
+    public CascadeJob() {
+    }
+
+    public CascadeJob(String id, Operation operation, String catalogueId, String providerId, String requestedBy) {
+        this.id = id;
+        this.operation = operation;
+        this.catalogueId = catalogueId;
+        this.providerId = providerId;
+        this.requestedBy = requestedBy;
+        this.created = new Date();
+    }
+
+    public boolean isActive() {
+        return status == Status.PENDING || status == Status.RUNNING;
+    }
+
+    public void done() {
+        done.incrementAndGet();
+    }
+
+    public void fail(String resourceType, String resourceId, String error) {
+        failures.add(new Failure(resourceType, resourceId, error));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public String getCatalogueId() {
+        return catalogueId;
+    }
+
+    public void setCatalogueId(String catalogueId) {
+        this.catalogueId = catalogueId;
+    }
+
+    public String getProviderId() {
+        return providerId;
+    }
+
+    public void setProviderId(String providerId) {
+        this.providerId = providerId;
+    }
+
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(String requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public Date getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Date completed) {
+        this.completed = completed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getDone() {
+        return done.get();
+    }
+
+    public long getFailed() {
+        return failures.size();
+    }
+
+    public List<Failure> getFailures() {
+        synchronized (failures) {
+            return new ArrayList<>(failures);
+        }
+    }
+
+    /**
+     * A resource of the job that could not be changed.
+     */
+    public static class Failure {
+
+        private String resourceType;
+        private String resourceId;
+        private String error;
+
+        public Failure() {
+        }
+
+        public Failure(String resourceType, String resourceId, String error) {
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+            this.error = error;
+        }
+
+        public String getResourceType() {
+            return resourceType;
+        }
+
+        public void setResourceType(String resourceType) {
+            this.resourceType = resourceType;
+        }
+
+        public String getResourceId() {
+            return resourceId;
+        }
+
+        public void setResourceId(String resourceId) {
+            this.resourceId = resourceId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
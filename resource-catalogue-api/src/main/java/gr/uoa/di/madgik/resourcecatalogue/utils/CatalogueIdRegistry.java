@@ -0,0 +1,37 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.CatalogueBundle;
+
+/**
+ * In-memory set of the ids of all approved and active Catalogues, used to tell whether an id is already prefixed
+ * with the id of its Catalogue.
+ */
+public interface CatalogueIdRegistry {
+
+    /**
+     * Checks whether the part of the given id before the first '.' is a known Catalogue id.
+     *
+     * @param id resource id
+     * @return true if the id is prefixed with a Catalogue id
+     */
+    boolean hasCatalogueIdPrefix(String id);
+
+    /**
+     * Adds or removes the id of the given Catalogue, depending on whether it is approved and active.
+     *
+     * @param catalogueBundle CatalogueBundle
+     */
+    void update(CatalogueBundle catalogueBundle);
+
+    /**
+     * Removes the given Catalogue id.
+     *
+     * @param catalogueId Catalogue ID
+     */
+    void remove(String catalogueId);
+
+    /**
+     * Rebuilds the whole registry from the store.
+     */
+    void refresh();
+}
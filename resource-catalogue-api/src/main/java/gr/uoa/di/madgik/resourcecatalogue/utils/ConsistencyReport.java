@@ -0,0 +1,101 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Result of comparing the internal resources of one resource type with their public instances.
+ */
+public class ConsistencyReport {
+
+    private Long id;
+    private Date created;
+    private String resourceType;
+    private int checked;
+    private int missing;
+    private int stale;
+    private int orphaned;
+    private int repaired;
+    private List<String> logs = new ArrayList<>();
+
+    public ConsistencyReport() {
+    }
+
+    public ConsistencyReport(String resourceType, Date created) {
+        this.resourceType = resourceType;
+        this.created = created;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public int getChecked() {
+        return checked;
+    }
+
+    public void setChecked(int checked) {
+        this.checked = checked;
+    }
+
+    public int getMissing() {
+        return missing;
+    }
+
+    public void setMissing(int missing) {
+        this.missing = missing;
+    }
+
+    public int getStale() {
+        return stale;
+    }
+
+    public void setStale(int stale) {
+        this.stale = stale;
+    }
+
+    public int getOrphaned() {
+        return orphaned;
+    }
+
+    public void setOrphaned(int orphaned) {
+        this.orphaned = orphaned;
+    }
+
+    public int getRepaired() {
+        return repaired;
+    }
+
+    public void setRepaired(int repaired) {
+        this.repaired = repaired;
+    }
+
+    public List<String> getLogs() {
+        return logs;
+    }
+
+    public void setLogs(List<String> logs) {
+        this.logs = logs;
+    }
+}
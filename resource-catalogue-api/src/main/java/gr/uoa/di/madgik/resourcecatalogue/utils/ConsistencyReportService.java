@@ -0,0 +1,27 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.List;
+
+/**
+ * History of the internal to public consistency reports.
+ */
+public interface ConsistencyReportService {
+
+    /**
+     * Returns the stored reports, latest first.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param from         offset
+     * @param quantity     max number of reports
+     * @return the reports
+     */
+    List<ConsistencyReport> getReports(String resourceType, int from, int quantity);
+
+    /**
+     * Returns the number of stored reports.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @return the number of reports
+     */
+    int count(String resourceType);
+}
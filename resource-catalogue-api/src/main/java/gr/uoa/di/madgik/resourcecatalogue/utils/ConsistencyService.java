@@ -0,0 +1,16 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.List;
+
+/**
+ * Checks the consistency of the internal resources with their public instances, and keeps the reports.
+ */
+public interface ConsistencyService {
+
+    /**
+     * Compares the internal resources of every resource type with their public instances and stores the reports.
+     *
+     * @return the reports, one per resource type
+     */
+    List<ConsistencyReport> checkConsistency();
+}
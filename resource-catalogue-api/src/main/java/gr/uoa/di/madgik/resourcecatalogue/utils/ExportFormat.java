@@ -0,0 +1,33 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+/**
+ * Formats in which resources can be exported.
+ */
+public enum ExportFormat {
+
+    /**
+     * One row per resource with a fixed set of columns.
+     */
+    CSV("text/csv", "csv"),
+
+    /**
+     * One json object per line, holding the whole resource.
+     */
+    JSONL("application/x-ndjson", "jsonl");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
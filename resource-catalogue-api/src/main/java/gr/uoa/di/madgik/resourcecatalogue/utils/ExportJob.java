@@ -0,0 +1,149 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.Date;
+
+/**
+ * An export running in the background. When completed, its artifact can be downloaded until it expires.
+ */
+public class ExportJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private String resourceType;
+    private Boolean published;
+    private ExportFormat format;
+    private boolean gzip;
+    private String requestedBy;
+    private volatile Status status = Status.PENDING;
+    private volatile long rows;
+    private volatile long size;
+    private Date created;
+    private volatile Date completed;
+    private volatile String error;
+
+    public ExportJob() {
+    }
+
+    public ExportJob(String id, String resourceType, Boolean published, ExportFormat format, boolean gzip,
+                     String requestedBy) {
+        this.id = id;
+        this.resourceType = resourceType;
+        this.published = published;
+        this.format = format;
+        this.gzip = gzip;
+        this.requestedBy = requestedBy;
+        this.created = new Date();
+    }
+
+    /**
+     * @return the file name of the artifact
+     */
+    public String getFileName() {
+        return String.format("%s-%s.%s%s", resourceType, id, format.getExtension(), gzip ? ".gz" : "");
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public Boolean getPublished() {
+        return published;
+    }
+
+    public void setPublished(Boolean published) {
+        this.published = published;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(ExportFormat format) {
+        this.format = format;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(String requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the number of rows written so far
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * @return the size of the artifact in bytes, once completed
+     */
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public Date getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Date completed) {
+        this.completed = completed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
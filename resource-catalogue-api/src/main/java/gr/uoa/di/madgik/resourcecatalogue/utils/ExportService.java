@@ -0,0 +1,55 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+public interface ExportService {
+
+    /**
+     * Streams all the resources of the given type to the output, fetching them page by page.
+     *
+     * @param resourceType resource type (provider, service, vocabulary)
+     * @param published    filter on published, or null for all
+     * @param format       export format
+     * @param after        id of the last row received, to resume an interrupted export, or null
+     * @param out          output
+     * @return the number of rows written
+     */
+    long export(String resourceType, Boolean published, ExportFormat format, String after, OutputStream out)
+            throws IOException;
+
+    /**
+     * Starts an export in the background, writing its artifact to the export directory.
+     *
+     * @param resourceType resource type (provider, service, vocabulary)
+     * @param published    filter on published, or null for all
+     * @param format       export format
+     * @param gzip         whether to compress the artifact
+     * @param requestedBy  email of the user requesting the export
+     * @return the submitted job
+     */
+    ExportJob submit(String resourceType, Boolean published, ExportFormat format, boolean gzip, String requestedBy);
+
+    /**
+     * @param id job id
+     * @return the job
+     * @throws ResourceNotFoundException if there is no such job
+     */
+    ExportJob getJob(String id);
+
+    /**
+     * @return all the jobs whose artifacts have not expired, latest first
+     */
+    List<ExportJob> getJobs();
+
+    /**
+     * @param id job id
+     * @return the artifact of a completed job
+     * @throws ResourceNotFoundException if there is no such job or it is not completed
+     */
+    Path getArtifact(String id);
+}
@@ -0,0 +1,35 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+/**
+ * In-memory dictionary of resource ids to their display names, used to label facet values.
+ */
+public interface FacetLabelDictionary {
+
+    /**
+     * Returns the label of the given id.
+     *
+     * @param id resource id
+     * @return the label, or null if the id is unknown
+     */
+    String getLabel(String id);
+
+    /**
+     * Adds or replaces the label of the given id.
+     *
+     * @param id    resource id
+     * @param label resource name
+     */
+    void putLabel(String id, String label);
+
+    /**
+     * Removes the label of the given id.
+     *
+     * @param id resource id
+     */
+    void removeLabel(String id);
+
+    /**
+     * Rebuilds the whole dictionary from the store.
+     */
+    void refresh();
+}
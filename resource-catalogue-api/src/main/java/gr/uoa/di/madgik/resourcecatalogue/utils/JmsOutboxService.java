@@ -0,0 +1,26 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+/**
+ * The outbox of the JMS messages, published in the order they were stored.
+ */
+public interface JmsOutboxService {
+
+    /**
+     * Marks the stored messages with a sequence number greater than or equal to the given one as unpublished,
+     * so that they are published again, in order.
+     *
+     * @param fromSequence the sequence number of the first message to publish again
+     * @return the number of messages to be published again
+     */
+    int replay(long fromSequence);
+
+    /**
+     * Returns the number of messages that have not been published yet.
+     */
+    long countPending();
+
+    /**
+     * Returns the sequence number of the last published message, or null if no message has been published.
+     */
+    Long getLastPublishedSequence();
+}
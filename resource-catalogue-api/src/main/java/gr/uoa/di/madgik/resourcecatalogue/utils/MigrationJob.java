@@ -0,0 +1,169 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The migration of a provider and all its resources to another catalogue, one step per resource. A dry run only
+ * reports the steps.
+ */
+public class MigrationJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private String id;
+    private String providerId;
+    private String catalogueId;
+    private String newCatalogueId;
+    private boolean dryRun;
+    private String requestedBy;
+    // the instance running the job
+    private volatile String owner;
+    private volatile Status status = Status.PENDING;
+    private volatile boolean cancelRequested;
+    private Date created;
+    private volatile Date completed;
+    private volatile String error;
+    private List<MigrationStep> steps = new ArrayList<>();
+
+    public MigrationJob() {
+    }
+
+    public MigrationJob(String id, String providerId, String catalogueId, String newCatalogueId, boolean dryRun,
+                        String requestedBy) {
+        this.id = id;
+        this.providerId = providerId;
+        this.catalogueId = catalogueId;
+        this.newCatalogueId = newCatalogueId;
+        this.dryRun = dryRun;
+        this.requestedBy = requestedBy;
+        this.created = new Date();
+    }
+
+    public boolean isActive() {
+        return status == Status.PENDING || status == Status.RUNNING;
+    }
+
+    public long getTotal() {
+        return steps.size();
+    }
+
+    public long getDone() {
+        return count(MigrationStep.Status.DONE);
+    }
+
+    public long getFailed() {
+        return count(MigrationStep.Status.FAILED);
+    }
+
+    private long count(MigrationStep.Status stepStatus) {
+        return steps.stream().filter(step -> step.getStatus() == stepStatus).count();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getProviderId() {
+        return providerId;
+    }
+
+    public void setProviderId(String providerId) {
+        this.providerId = providerId;
+    }
+
+    public String getCatalogueId() {
+        return catalogueId;
+    }
+
+    public void setCatalogueId(String catalogueId) {
+        this.catalogueId = catalogueId;
+    }
+
+    public String getNewCatalogueId() {
+        return newCatalogueId;
+    }
+
+    public void setNewCatalogueId(String newCatalogueId) {
+        this.newCatalogueId = newCatalogueId;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(String requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public Date getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(Date completed) {
+        this.completed = completed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<MigrationStep> getSteps() {
+        return steps;
+    }
+
+    public void setSteps(List<MigrationStep> steps) {
+        this.steps = steps;
+    }
+}
@@ -0,0 +1,66 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+/**
+ * The migration of a single resource to another catalogue. Its status is the checkpoint of the migration job.
+ */
+public class MigrationStep {
+
+    public enum Status {
+        PENDING, DONE, FAILED
+    }
+
+    private String resourceType;
+    private String oldId;
+    private String newId;
+    private volatile Status status = Status.PENDING;
+    private volatile String error;
+
+    public MigrationStep() {
+    }
+
+    public MigrationStep(String resourceType, String oldId, String newId) {
+        this.resourceType = resourceType;
+        this.oldId = oldId;
+        this.newId = newId;
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public String getOldId() {
+        return oldId;
+    }
+
+    public void setOldId(String oldId) {
+        this.oldId = oldId;
+    }
+
+    public String getNewId() {
+        return newId;
+    }
+
+    public void setNewId(String newId) {
+        this.newId = newId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
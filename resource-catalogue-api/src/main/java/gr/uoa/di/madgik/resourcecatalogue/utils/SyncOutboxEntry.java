@@ -0,0 +1,124 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.Date;
+
+/**
+ * A synchronization of a resource that has not reached the remote host yet.
+ */
+public class SyncOutboxEntry {
+
+    private String resourceType;
+    private String resourceId;
+    private String action;
+    private String payload;
+    private String payloadClass;
+    private int attempts;
+    private Date nextAttempt;
+    private String lastError;
+    private Date created;
+    private Date updated;
+    private long version;
+
+    public SyncOutboxEntry() {
+    }
+
+    public String getResourceType() {
+        return resourceType;
+    }
+
+    public void setResourceType(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(String resourceId) {
+        this.resourceId = resourceId;
+    }
+
+    /**
+     * One of 'add', 'update', 'delete' or 'verify'.
+     */
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    /**
+     * The resource, serialized as json.
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getPayloadClass() {
+        return payloadClass;
+    }
+
+    public void setPayloadClass(String payloadClass) {
+        this.payloadClass = payloadClass;
+    }
+
+    /**
+     * The number of failed attempts since the entry was last enqueued or replayed.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttempt() {
+        return nextAttempt;
+    }
+
+    public void setNextAttempt(Date nextAttempt) {
+        this.nextAttempt = nextAttempt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public Date getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(Date updated) {
+        this.updated = updated;
+    }
+
+    /**
+     * Increased every time the entry is superseded by a newer synchronization of the same resource.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
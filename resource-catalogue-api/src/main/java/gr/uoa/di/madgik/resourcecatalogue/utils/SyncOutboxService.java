@@ -0,0 +1,47 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import java.util.List;
+
+/**
+ * The synchronizations that have not reached the remote host yet.
+ */
+public interface SyncOutboxService {
+
+    /**
+     * Returns the pending synchronizations, optionally filtered by resource type and id.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param resourceId   the resource id, or null for all of them
+     * @param from         offset
+     * @param quantity     max number of entries
+     * @return the entries, with the oldest first
+     */
+    List<SyncOutboxEntry> getEntries(String resourceType, String resourceId, int from, int quantity);
+
+    /**
+     * Returns the number of pending synchronizations, optionally filtered by resource type and id.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param resourceId   the resource id, or null for all of them
+     * @return the number of entries
+     */
+    int count(String resourceType, String resourceId);
+
+    /**
+     * Resets the attempts of the pending synchronizations, so that they are retried on the next run.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param resourceId   the resource id, or null for all of them
+     * @return the number of entries to be retried
+     */
+    int replay(String resourceType, String resourceId);
+
+    /**
+     * Discards the pending synchronizations.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param resourceId   the resource id, or null for all of them
+     * @return the number of discarded entries
+     */
+    int delete(String resourceType, String resourceId);
+}
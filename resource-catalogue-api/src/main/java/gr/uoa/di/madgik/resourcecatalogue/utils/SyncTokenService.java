@@ -0,0 +1,19 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+/**
+ * Provides the token used to authenticate the synchronizations to the remote host.
+ */
+public interface SyncTokenService {
+
+    /**
+     * Returns the token, or null if it could not be read.
+     */
+    String getToken();
+
+    /**
+     * Reads the token again.
+     *
+     * @return true if the token was read
+     */
+    boolean reload();
+}
@@ -0,0 +1,135 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.registry.service.ServiceException;
+import gr.uoa.di.madgik.resourcecatalogue.service.EventAnalytics;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.search.*;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.metrics.TopHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Computes event analytics with aggregations on the 'event' index, so that no event is transferred in full.
+ */
+@Component
+@Primary
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ElasticEventAnalytics implements EventAnalytics {
+
+    private static final Logger logger = LogManager.getLogger(ElasticEventAnalytics.class);
+    private static final String INDEX = "event";
+    private static final int PAGE_SIZE = 1000;
+
+    private final RestHighLevelClient client;
+
+    ElasticEventAnalytics(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Map<String, List<Float>> getLatestUserValues(String eventType) {
+        Map<String, List<Float>> allServiceEvents = new HashMap<>();
+        List<CompositeValuesSourceBuilder<?>> sources = Arrays.asList(
+                new TermsValuesSourceBuilder("service").field("service"),
+                // events stored without a user are counted once per service, as when all the events are loaded
+                new TermsValuesSourceBuilder("user").field("event_user").missingBucket(true));
+        Map<String, Object> afterKey = null;
+        try {
+            do {
+                CompositeAggregationBuilder serviceUsers = AggregationBuilders
+                        .composite("service_users", sources)
+                        .size(PAGE_SIZE)
+                        .subAggregation(AggregationBuilders.topHits("latest")
+                                .size(1)
+                                .sort("instant", SortOrder.DESC)
+                                .fetchSource(false)
+                                .docValueField("value"));
+                if (afterKey != null) {
+                    serviceUsers.aggregateAfter(afterKey);
+                }
+                SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                        .query(QueryBuilders.termQuery("type", eventType))
+                        .size(0)
+                        .aggregation(serviceUsers);
+                SearchResponse response = client.search(new SearchRequest(INDEX).source(searchSourceBuilder), RequestOptions.DEFAULT);
+
+                CompositeAggregation aggregation = response.getAggregations().get("service_users");
+                for (CompositeAggregation.Bucket bucket : aggregation.getBuckets()) {
+                    String service = (String) bucket.getKey().get("service");
+                    TopHits latest = bucket.getAggregations().get("latest");
+                    Float value = null;
+                    for (SearchHit hit : latest.getHits().getHits()) {
+                        DocumentField field = hit.getFields().get("value");
+                        if (field != null && field.getValue() != null) {
+                            value = ((Number) field.getValue()).floatValue();
+                        }
+                    }
+                    allServiceEvents.computeIfAbsent(service, s -> new ArrayList<>()).add(value);
+                }
+                afterKey = aggregation.getBuckets().isEmpty() ? null : aggregation.afterKey();
+            } while (afterKey != null);
+        } catch (IOException e) {
+            throw new ServiceException(e.getMessage());
+        }
+        return allServiceEvents;
+    }
+
+    @Override
+    public List<String> getNullEventIds() {
+        List<String> ids = new ArrayList<>();
+        final Scroll scroll = new Scroll(TimeValue.timeValueSeconds(10L));
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder()
+                .query(QueryBuilders.boolQuery().mustNot(QueryBuilders.existsQuery("value")))
+                .size(PAGE_SIZE)
+                .docValueField("resource_internal_id")
+                .fetchSource(false);
+        SearchRequest searchRequest = new SearchRequest(INDEX).scroll(scroll).source(searchSourceBuilder);
+        try {
+            SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+            String scrollId = searchResponse.getScrollId();
+            SearchHit[] searchHits = searchResponse.getHits().getHits();
+            while (searchHits != null && searchHits.length > 0) {
+                for (SearchHit hit : searchHits) {
+                    DocumentField id = hit.getFields().get("resource_internal_id");
+                    if (id != null) {
+                        ids.add((String) id.getValue());
+                    }
+                }
+                SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId);
+                scrollRequest.scroll(scroll);
+                searchResponse = client.scroll(scrollRequest, RequestOptions.DEFAULT);
+                scrollId = searchResponse.getScrollId();
+                searchHits = searchResponse.getHits().getHits();
+            }
+
+            ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+            clearScrollRequest.addScrollId(scrollId);
+            if (!client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT).isSucceeded()) {
+                logger.error("clear scroll request failed...");
+            }
+        } catch (IOException e) {
+            throw new ServiceException(e.getMessage());
+        }
+        return ids;
+    }
+}
@@ -1,51 +1,34 @@
 package gr.uoa.di.madgik.resourcecatalogue.manager;
 
-import gr.uoa.di.madgik.registry.domain.FacetFilter;
-import gr.uoa.di.madgik.registry.domain.Paging;
-import gr.uoa.di.madgik.registry.domain.Resource;
-import gr.uoa.di.madgik.registry.service.ParserService;
-import gr.uoa.di.madgik.registry.service.SearchService;
 import gr.uoa.di.madgik.registry.service.ServiceException;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Event;
-import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
-import gr.uoa.di.madgik.resourcecatalogue.domain.Service;
-import gr.uoa.di.madgik.resourcecatalogue.domain.ServiceBundle;
 import gr.uoa.di.madgik.resourcecatalogue.dto.MapValues;
 import gr.uoa.di.madgik.resourcecatalogue.dto.PlaceCount;
 import gr.uoa.di.madgik.resourcecatalogue.dto.Value;
-import gr.uoa.di.madgik.resourcecatalogue.service.*;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsCubeService;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
-import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
-import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
-import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
-import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
-import org.elasticsearch.search.aggregations.bucket.histogram.ParsedDateHistogram;
-import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.DateRangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.Range;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.joda.time.DateTime;
-import org.postgresql.jdbc.PgArray;
 import org.springframework.context.annotation.Primary;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
-import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Component;
 
-import javax.sql.DataSource;
 import java.io.IOException;
-import java.sql.SQLException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Component
 @Primary
@@ -53,245 +36,108 @@ import java.util.stream.Collectors;
 @EnableScheduling
 public class ElasticStatisticsManager implements StatisticsService {
 
-    private static final Logger logger = LogManager.getLogger(ElasticStatisticsManager.class);
     private final RestHighLevelClient client;
-    private final Analytics analyticsService;
-    private final ProviderService providerService;
-    private final SearchService searchService;
-    private final ParserService parserService;
-    private final ServiceBundleService<ServiceBundle> serviceBundleManager;
-    private final VocabularyService vocabularyService;
-    private final DataSource dataSource;
+    private final StatisticsCubeService statisticsCube;
 
     @org.springframework.beans.factory.annotation.Value("${elastic.index.max_result_window:10000}")
     private int maxQuantity;
 
-    ElasticStatisticsManager(RestHighLevelClient client, Analytics analyticsService,
-                             ProviderService providerService,
-                             SearchService searchService, ParserService parserService,
-                             ServiceBundleService<ServiceBundle> serviceBundleManager, VocabularyService vocabularyService,
-                             DataSource dataSource) {
+    ElasticStatisticsManager(RestHighLevelClient client, StatisticsCubeService statisticsCube) {
         this.client = client;
-        this.analyticsService = analyticsService;
-        this.providerService = providerService;
-        this.searchService = searchService;
-        this.parserService = parserService;
-        this.serviceBundleManager = serviceBundleManager;
-        this.vocabularyService = vocabularyService;
-        this.dataSource = dataSource;
-    }
-
-    private ParsedDateHistogram histogram(String id, String eventType, Interval by) {
-
-        String dateFormat;
-        String aggregationName;
-        DateHistogramInterval dateHistogramInterval;
-
-        switch (StatisticsService.Interval.fromString(by.getKey())) {
-            case DAY:
-                dateFormat = "yyyy-MM-dd";
-                aggregationName = "day";
-                dateHistogramInterval = DateHistogramInterval.DAY;
-                break;
-            case WEEK:
-                dateFormat = "yyyy-MM-dd";
-                aggregationName = "week";
-                dateHistogramInterval = DateHistogramInterval.WEEK;
-                break;
-            case YEAR:
-                dateFormat = "yyyy";
-                aggregationName = "year";
-                dateHistogramInterval = DateHistogramInterval.YEAR;
-                break;
-            default:
-                dateFormat = "yyyy-MM";
-                aggregationName = "month";
-                dateHistogramInterval = DateHistogramInterval.MONTH;
-        }
-
-        DateHistogramAggregationBuilder dateHistogramAggregationBuilder = AggregationBuilders
-                .dateHistogram(aggregationName)
-                .field("instant")
-                .calendarInterval(dateHistogramInterval)
-                .format(dateFormat)
-                .subAggregation(AggregationBuilders.terms("value").field("value"));
-
-        SearchRequest search = new SearchRequest("event");
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-        search.searchType(SearchType.DEFAULT);
-        searchSourceBuilder.query(getEventQueryBuilder(id, eventType));
-        searchSourceBuilder.aggregation(dateHistogramAggregationBuilder);
-        search.source(searchSourceBuilder);
-
-        SearchResponse response = null;
-        try {
-            response = client.search(search, RequestOptions.DEFAULT);
-        } catch (IOException e) {
-            throw new ServiceException(e.getMessage());
-        }
-
-        return response
-                .getAggregations()
-                .get(aggregationName);
-    }
-
-    private QueryBuilder getEventQueryBuilder(String serviceId, String eventType) {
-        Date date = new Date();
-        Calendar c = Calendar.getInstance();
-        c.setTimeInMillis(0);
-        return QueryBuilders.boolQuery()
-                .filter(QueryBuilders.termsQuery("service", serviceId))
-                .filter(QueryBuilders.rangeQuery("instant").from(c.getTime().getTime()).to(date.getTime()))
-                .filter(QueryBuilders.termsQuery("type", eventType));
+        this.statisticsCube = statisticsCube;
     }
 
     @Override
     public Map<String, Integer> addToProject(String id, Interval by) {
-        final long[] totalDocCounts = new long[2]; //0 - not added, 1 - added
-        List<? extends Histogram.Bucket> buckets = histogram(id, Event.UserActionType.ADD_TO_PROJECT.getKey(), by).getBuckets();
-        return new TreeMap<>(buckets.stream().collect(
-                Collectors.toMap(
-                        MultiBucketsAggregation.Bucket::getKeyAsString,
-                        bucket -> {
-                            Terms subTerm = bucket.getAggregations().get("value");
-                            if (subTerm.getBuckets() != null) {
-                                totalDocCounts[0] += subTerm.getBuckets().stream().mapToLong(
-                                        subBucket -> subBucket.getKeyAsNumber().intValue() == 0 ? subBucket.getDocCount() : 0
-                                ).sum();
-                                totalDocCounts[1] += subTerm.getBuckets().stream().mapToLong(
-                                        subBucket -> subBucket.getKeyAsNumber().intValue() == 1 ? subBucket.getDocCount() : 0
-                                ).sum();
-                            }
-                            return (int) Math.max(totalDocCounts[1] - totalDocCounts[0], 0);
-                        }
-                )
-        ));
+        return statisticsCube.addToProject(id, by);
     }
 
     @Override
     public Map<String, Integer> providerAddToProject(String id, Interval by) {
-        Map<String, Integer> providerAddToProject = serviceBundleManager.getResources(id, null)
-                .stream()
-                .flatMap(s -> addToProject(s.getId(), by).entrySet().stream())
-                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.summingInt(Map.Entry::getValue)));
-
-        return new TreeMap<>(providerAddToProject);
+        return statisticsCube.providerAddToProject(id, by);
     }
 
     @Override
     public Map<String, Integer> visits(String id, Interval by) {
-        List<? extends Histogram.Bucket> buckets = histogram(id, Event.UserActionType.VISIT.getKey(), by).getBuckets();
-        final long[] totalDocCounts = new long[buckets.size()];
-        final int[] j = {-1}; // bucket counter
-        return new TreeMap<>(buckets.stream().collect(
-                Collectors.toMap(
-                        MultiBucketsAggregation.Bucket::getKeyAsString,
-                        bucket -> {
-                            j[0]++;
-                            Terms subTerm = bucket.getAggregations().get("value");
-                            if (subTerm.getBuckets() != null) {
-                                for (int i = 0; i < subTerm.getBuckets().size(); i++) {
-                                    Double key = (Double) subTerm.getBuckets().get(i).getKey();
-                                    Integer keyToInt = key.intValue();
-                                    int totalVistisOnBucket = keyToInt * Integer.parseInt(String.valueOf(subTerm.getBuckets().get(i).getDocCount()));
-                                    totalDocCounts[j[0]] += totalVistisOnBucket;
-                                }
-                            }
-                            return (int) Math.max(totalDocCounts[j[0]], 0);
-                        }
-                )
-        ));
-
-        // alternatively - fetching data from matomo
-//        try {
-//            return analyticsService.getVisitsForLabel("/service/" + id, by);
-//        } catch (Exception e) {
-//            logger.error("Could not find Matomo analytics", e);
-//        }
-//        return new HashMap<>();
+        return statisticsCube.visits(id, by);
     }
 
     @Override
     public Map<String, Integer> providerVisits(String id, Interval by) {
-        Map<String, Integer> results = new HashMap<>();
-        for (Service service : serviceBundleManager.getResources(id, null)) {
-            Set<Map.Entry<String, Integer>> entrySet = visits(service.getId(), by).entrySet();
-            for (Map.Entry<String, Integer> entry : entrySet) {
-                if (!results.containsKey(entry.getKey())) {
-                    results.put(entry.getKey(), entry.getValue());
-                } else {
-                    results.put(entry.getKey(), results.get(entry.getKey()) + entry.getValue());
-                }
-            }
-        }
-        return results;
+        return statisticsCube.providerVisits(id, by);
     }
 
     @Override
     public Map<String, Float> providerVisitation(String id, Interval by) {
-        Map<String, Integer> counts = serviceBundleManager.getResources(id, null).stream().collect(Collectors.toMap(
-                Service::getName,
-                s -> visits(s.getId(), by).values().stream().mapToInt(Integer::intValue).sum()
-        ));
-        int grandTotal = counts.values().stream().mapToInt(Integer::intValue).sum();
-        return counts.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, v -> ((float) v.getValue()) / grandTotal));
+        return statisticsCube.providerVisitation(id);
     }
 
     public Map<DateTime, Map<String, Long>> events(Event.UserActionType type, Date from, Date to, Interval by) {
-        Map<DateTime, Map<String, Long>> results = new LinkedHashMap<>();
-        Paging<Resource> resources = searchService.cqlQuery(
-                String.format("type=\"%s\" AND creation_date > %s AND creation_date < %s",
-                        type, from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli()), "event",
-                maxQuantity, 0, "creation_date", "ASC");
-        List<Event> events = resources
-                .getResults()
-                .stream()
-                .map(resource -> parserService.deserialize(resource, Event.class))
-                .collect(Collectors.toList());
-
-
+        List<DateTime> starts = new ArrayList<>();
+        DateRangeAggregationBuilder intervals = AggregationBuilders.dateRange("intervals").field("instant");
         DateTime start = new DateTime(from);
         DateTime stop = new DateTime(to);
-
-        Map<DateTime, List<Event>> eventsByDate = new LinkedHashMap<>();
-
-        start.plusWeeks(1);
         while (start.getMillis() <= stop.getMillis()) {
             DateTime endDate = addInterval(start, by);
-            List<Event> weekEvents = new LinkedList<>();
-
-            events = events
-                    .stream()
-                    .map(event -> {
-                        if (endDate.isAfter(event.getInstant())) {
-                            weekEvents.add(event);
-                            return null;
-                        } else
-                            return event;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-//            weekEvents.sort(Comparator.comparing(Event::getService));
-            eventsByDate.put(start, weekEvents);
+            // each event is counted in the first interval ending after it
+            if (starts.isEmpty()) {
+                intervals.addUnboundedTo(String.valueOf(starts.size()), endDate.getMillis());
+            } else {
+                intervals.addRange(String.valueOf(starts.size()), start.getMillis(), endDate.getMillis());
+            }
+            starts.add(start);
             start = endDate;
         }
 
-        for (Map.Entry<DateTime, List<Event>> weekEntry : eventsByDate.entrySet()) {
-            Map<String, Long> weekResults = weekEntry.getValue()
-                    .stream()
-                    .collect(Collectors.groupingBy(Event::getService, Collectors.counting()));
-
-            weekResults = weekResults.entrySet().stream()
-                    .sorted(Map.Entry.comparingByKey())
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
-                            (oldValue, newValue) -> oldValue, LinkedHashMap::new));
+        List<Map<String, Long>> counts = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            counts.add(new TreeMap<>());
+        }
+        if (!starts.isEmpty()) {
+            QueryBuilder query = QueryBuilders.boolQuery()
+                    .filter(QueryBuilders.termQuery("type", type.getKey()))
+                    .filter(QueryBuilders.rangeQuery("creation_date")
+                            .gt(from.toInstant().toEpochMilli())
+                            .lt(to.toInstant().toEpochMilli()));
+            // page over the services, keeping the number of buckets of each response bounded
+            int pageSize = Math.max(1, maxQuantity / starts.size());
+            Map<String, Object> afterKey = null;
+            do {
+                CompositeAggregationBuilder services = AggregationBuilders
+                        .composite("services", Collections.singletonList(new TermsValuesSourceBuilder("service").field("service")))
+                        .size(pageSize)
+                        .subAggregation(intervals);
+                if (afterKey != null) {
+                    services.aggregateAfter(afterKey);
+                }
+                SearchRequest search = new SearchRequest("event");
+                search.source(new SearchSourceBuilder().query(query).size(0).aggregation(services));
+                SearchResponse response;
+                try {
+                    response = client.search(search, RequestOptions.DEFAULT);
+                } catch (IOException e) {
+                    throw new ServiceException(e.getMessage());
+                }
 
-            results.put(weekEntry.getKey(), weekResults);
+                CompositeAggregation aggregation = response.getAggregations().get("services");
+                for (CompositeAggregation.Bucket serviceBucket : aggregation.getBuckets()) {
+                    String service = (String) serviceBucket.getKey().get("service");
+                    Range range = serviceBucket.getAggregations().get("intervals");
+                    for (Range.Bucket bucket : range.getBuckets()) {
+                        if (bucket.getDocCount() > 0) {
+                            counts.get(Integer.parseInt(bucket.getKeyAsString())).put(service, bucket.getDocCount());
+                        }
+                    }
+                }
+                afterKey = aggregation.getBuckets().isEmpty() ? null : aggregation.afterKey();
+            } while (afterKey != null);
         }
 
-
+        Map<DateTime, Map<String, Long>> results = new LinkedHashMap<>();
+        for (int i = 0; i < starts.size(); i++) {
+            results.put(starts.get(i), new LinkedHashMap<>(counts.get(i)));
+        }
         return results;
-
     }
 
     private DateTime addInterval(DateTime date, Interval by) {
@@ -317,258 +163,26 @@ public class ElasticStatisticsManager implements StatisticsService {
 
     @Override
     public List<PlaceCount> servicesPerPlace(String providerId) {
-        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-        MapSqlParameterSource in = new MapSqlParameterSource();
-
-        in.addValue("resource_organisation", providerId);
-        String query = "SELECT unnest(geographical_availabilities) AS geographical_availability, count(unnest(geographical_availabilities)) AS count FROM service_view WHERE active = true ";
-
-        if (providerId != null) {
-            query += " AND :resource_organisation=resource_organisation";
-        }
-        query += " GROUP BY unnest(geographical_availabilities);";
-
-        List<Map<String, Object>> records = namedParameterJdbcTemplate.queryForList(query, in);
-        Map<String, Integer> mapCounts = new HashMap<>();
-        List<PlaceCount> placeCounts = new ArrayList<>();
-
-        for (Map<String, Object> record : records) {
-            if (record.get("geographical_availability").toString().equalsIgnoreCase("EU")) {
-                for (String geographical_availability : vocabularyService.getRegion("EU")) {
-                    int count = Integer.parseInt(record.get("count").toString());
-                    if (mapCounts.containsKey(geographical_availability)) {
-                        count += mapCounts.get(geographical_availability);
-                    }
-                    mapCounts.put(geographical_availability, count);
-                }
-            } else if (record.get("geographical_availability").toString().equalsIgnoreCase("WW")) {
-                for (String geographical_availability : vocabularyService.getRegion("WW")) {
-                    int count = Integer.parseInt(record.get("count").toString());
-                    if (mapCounts.containsKey(geographical_availability)) {
-                        count += mapCounts.get(geographical_availability);
-                    }
-                    mapCounts.put(geographical_availability, count);
-                }
-            } else {
-                mapCounts.put(record.get("geographical_availability").toString(), Integer.parseInt(record.get("count").toString()));
-            }
-        }
-
-        for (Map.Entry<String, Integer> entry : mapCounts.entrySet()) {
-            placeCounts.add(new PlaceCount(entry.getKey(), entry.getValue()));
-        }
-
-        return placeCounts;
+        return statisticsCube.servicesPerPlace(providerId);
     }
 
     @Override
     public List<Value> servicesByPlace(String providerId, String place) {
-        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-        MapSqlParameterSource in = new MapSqlParameterSource();
-
-        in.addValue("resource_organisation", providerId);
-        in.addValue("geographical_availabilities", place);
-        String query = "SELECT resource_internal_id, name FROM service_view WHERE active=true ";
-
-        if (providerId != null) {
-            query += " AND :resource_organisation=resource_organisation";
-        }
-
-        if (place != null) {
-            Set<String> geographical_availabilities = new HashSet<>(Arrays.asList(vocabularyService.getRegion("EU")));
-
-            if (!place.equalsIgnoreCase("WW")) {
-                query += " AND ( :geographical_availabilities=ANY(geographical_availabilities) ";
-
-                // if Place belongs to EU then search for EU as well
-                if (geographical_availabilities.contains(place) || place.equalsIgnoreCase("EU")) {
-                    query += " OR 'EU'=ANY(geographical_availabilities) ";
-                }
-                // always search for WW (because every Place belongs to WW)
-                query += " OR 'WW'=ANY(geographical_availabilities) )";
-            }
-        }
-
-        List<Map<String, Object>> records = namedParameterJdbcTemplate.queryForList(query, in);
-        List<Value> placeServices;
-
-        placeServices = records
-                .stream()
-                .map(record -> new Value(record.get("resource_internal_id").toString(), record.get("name").toString()))
-                .collect(Collectors.toList());
-        return placeServices;
+        return statisticsCube.servicesByPlace(providerId, place);
     }
 
     @Override
     public List<MapValues> mapServicesToGeographicalAvailability(String providerId) {
-        Map<String, Set<Value>> placeServices = new HashMap<>();
-        String[] world = vocabularyService.getRegion("WW");
-        String[] eu = vocabularyService.getRegion("EU");
-        for (String place : world) {
-            placeServices.put(place, new HashSet<>());
-        }
-        placeServices.put("OT", new HashSet<>());
-        placeServices.put("EL", new HashSet<>());
-        placeServices.put("UK", new HashSet<>());
-
-        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-        MapSqlParameterSource in = new MapSqlParameterSource();
-        in.addValue("resource_organisation", providerId);
-
-        String query = "SELECT resource_internal_id, name, geographical_availabilities FROM service_view WHERE active=true ";
-        if (providerId != null) {
-            query += " AND :resource_organisation=resource_organisation";
-        }
-
-        List<Map<String, Object>> records = namedParameterJdbcTemplate.queryForList(query, in);
-
-        try {
-            for (Map<String, Object> entry : records) {
-                Value value = new Value();
-                value.setId(entry.get("resource_internal_id").toString());
-                value.setName(entry.get("name").toString());
-                PgArray pgArray = ((PgArray) entry.get("geographical_availabilities"));
-
-                for (String place : ((String[]) pgArray.getArray())) {
-                    String[] expandedPlaces;
-                    if (place.equalsIgnoreCase("WW")) {
-                        expandedPlaces = world;
-                    } else if (place.equalsIgnoreCase("EU")) {
-                        expandedPlaces = eu;
-                    } else {
-                        expandedPlaces = new String[]{place};
-                    }
-                    for (String p : expandedPlaces) {
-                        if (placeServices.get(p) == null) {
-                            continue;
-                        }
-                        Set<Value> values = placeServices.get(p);
-                        values.add(value);
-                        placeServices.put(p, values);
-                    }
-                }
-            }
-        } catch (SQLException throwables) {
-            logger.error(throwables);
-        }
-
-        return toListMapValues(placeServices);
+        return statisticsCube.mapServicesToGeographicalAvailability(providerId);
     }
 
     @Override
     public List<MapValues> mapServicesToProviderCountry() {
-        Map<String, Set<Value>> mapValues = new HashMap<>();
-        for (String place : vocabularyService.getRegion("WW")) {
-            mapValues.put(place, new HashSet<>());
-        }
-        mapValues.put("OT", new HashSet<>());
-        mapValues.put("EL", new HashSet<>());
-        mapValues.put("UK", new HashSet<>());
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-
-        Map<String, Set<String>> providerCountries = providerCountriesMap();
-
-        List<ServiceBundle> allServices = serviceBundleManager.getAll(ff, null).getResults();
-        for (ServiceBundle serviceBundle : allServices) {
-            Value value = new Value(serviceBundle.getId(), serviceBundle.getService().getName());
-
-            Set<String> countries = new HashSet<>(providerCountries.get(serviceBundle.getService().getResourceOrganisation()));
-            for (String country : countries) {
-                if (mapValues.get(country) == null) {
-                    continue;
-                }
-                Set<Value> values = mapValues.get(country);
-                values.add(value);
-                mapValues.put(country, values);
-            }
-        }
-
-        return toListMapValues(mapValues);
+        return statisticsCube.mapServicesToProviderCountry();
     }
 
     @Override
     public List<MapValues> mapServicesToVocabulary(String providerId, Vocabulary vocabulary) {
-        Map<String, Set<Value>> vocabularyServices = new HashMap<>();
-
-        NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
-        MapSqlParameterSource in = new MapSqlParameterSource();
-        in.addValue("resource_organisation", providerId);
-
-        String query = "SELECT resource_internal_id, name, " + vocabulary.getKey()
-                + " FROM service_view WHERE active=true ";
-        if (providerId != null) {
-            query += " AND :resource_organisation=resource_organisation";
-        }
-
-        List<Map<String, Object>> records = namedParameterJdbcTemplate.queryForList(query, in);
-
-        try {
-            for (Map<String, Object> entry : records) {
-                Value value = new Value();
-                value.setId(entry.get("resource_internal_id").toString());
-                value.setName(entry.get("name").toString());
-
-                // TODO: refactor this code and Vocabulary enum
-                String[] vocabularyValues;
-                if (vocabulary != Vocabulary.ORDER_TYPE) { // because order type is not multivalued
-                    PgArray pgArray = ((PgArray) entry.get(vocabulary.getKey()));
-                    vocabularyValues = ((String[]) pgArray.getArray());
-                } else {
-                    vocabularyValues = new String[]{((String) entry.get(vocabulary.getKey()))};
-                }
-
-                for (String voc : vocabularyValues) {
-                    Set<Value> values;
-                    if (vocabularyServices.containsKey(voc)) {
-                        values = vocabularyServices.get(voc);
-                    } else {
-                        values = new HashSet<>();
-                    }
-                    values.add(value);
-                    vocabularyServices.put(voc, values);
-                }
-            }
-        } catch (SQLException throwables) {
-            logger.error(throwables);
-        }
-
-        return toListMapValues(vocabularyServices);
-    }
-
-    private Map<String, Set<String>> providerCountriesMap() {
-        Map<String, Set<String>> providerCountries = new HashMap<>();
-        String[] world = vocabularyService.getRegion("WW");
-        String[] eu = vocabularyService.getRegion("EU");
-
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-
-        for (ProviderBundle providerBundle : providerService.getAll(ff, null).getResults()) {
-            Set<String> countries = new HashSet<>();
-            String country = providerBundle.getProvider().getLocation().getCountry();
-            if (country.equalsIgnoreCase("WW")) {
-                countries.addAll(Arrays.asList(world));
-            } else if (country.equalsIgnoreCase("EU")) {
-                countries.addAll(Arrays.asList(eu));
-            } else {
-                countries.add(country);
-            }
-            providerCountries.put(providerBundle.getId(), countries);
-        }
-        return providerCountries;
-    }
-
-    private List<MapValues> toListMapValues(Map<String, Set<Value>> mapSetValues) {
-        List<MapValues> mapValuesList = new ArrayList<>();
-        for (Map.Entry<String, Set<Value>> entry : mapSetValues.entrySet()) {
-            if (!entry.getValue().isEmpty()) {
-                MapValues mapValues = new MapValues();
-                mapValues.setKey(entry.getKey());
-                mapValues.setValues(new ArrayList<>(entry.getValue()));
-                mapValuesList.add(mapValues);
-            }
-        }
-        return mapValuesList;
+        return statisticsCube.mapServicesToVocabulary(providerId, vocabulary);
     }
 }
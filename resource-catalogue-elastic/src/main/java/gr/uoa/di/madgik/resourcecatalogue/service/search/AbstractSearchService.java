@@ -7,6 +7,7 @@ import gr.uoa.di.madgik.resourcecatalogue.utils.FacetFilterUtils;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.DisMaxQueryBuilder;
+import org.elasticsearch.index.query.Operator;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -15,8 +16,29 @@ import static org.elasticsearch.index.query.QueryBuilders.*;
 
 public abstract class AbstractSearchService extends ElasticSearchService implements SearchService {
 
+    /**
+     * Name of the trigram subfield of the search fields, used by {@link KeywordQueryStrategy#NGRAM}.
+     */
+    public static final String NGRAM_SUBFIELD = "ngram";
+    public static final int NGRAM_SIZE = 3;
+
+    private final KeywordQueryStrategy keywordQueryStrategy;
+    private final Set<String> ngramFields;
+
     public AbstractSearchService(RestHighLevelClient client) {
+        this(client, KeywordQueryStrategy.REGEXP, Collections.emptyList());
+    }
+
+    /**
+     * @param keywordQueryStrategy The strategy used to match the keywords against the search fields.
+     * @param ngramFields          The search fields that have a trigram subfield. Only these are searched through
+     *                             their subfield when the strategy is {@link KeywordQueryStrategy#NGRAM}.
+     */
+    public AbstractSearchService(RestHighLevelClient client, KeywordQueryStrategy keywordQueryStrategy,
+                                 Collection<String> ngramFields) {
         super(client);
+        this.keywordQueryStrategy = keywordQueryStrategy;
+        this.ngramFields = new HashSet<>(ngramFields);
     }
 
     /**
@@ -66,7 +88,7 @@ public abstract class AbstractSearchService extends ElasticSearchService impleme
             List<String> longKeywords = new ArrayList<>();
             List<String> shortKeywords = new ArrayList<>();
             if (keyword.split("[\\s-_,./;:'\\[\\]]").length == 1) {
-                qBuilder.should(createMatchQuery(searchFields, Collections.singletonList(keyword), 1f, 0.5f));
+                qBuilder.should(createKeywordQuery(searchFields, Collections.singletonList(keyword), 1f, 0.5f));
             } else {
                 for (char delimiter : " -_,./;:'[]".toCharArray()) {
                     if (keyword.contains("" + delimiter)) {
@@ -83,12 +105,12 @@ public abstract class AbstractSearchService extends ElasticSearchService impleme
 
             // create fuzzy query for long keywords
             if (!longKeywords.isEmpty()) {
-                qBuilder.should(createMatchQuery(searchFields, longKeywords, 1f, 0.2f));
+                qBuilder.should(createKeywordQuery(searchFields, longKeywords, 1f, 0.2f));
             }
 
             // create fuzzy query for short keywords
             if (!shortKeywords.isEmpty()) {
-                qBuilder.should(createMatchQuery(searchFields, shortKeywords, 0.2f, 0.1f));
+                qBuilder.should(createKeywordQuery(searchFields, shortKeywords, 0.2f, 0.1f));
             }
 
             qBuilder.minimumShouldMatch(1);
@@ -112,6 +134,71 @@ public abstract class AbstractSearchService extends ElasticSearchService impleme
         return qb;
     }
 
+    /**
+     * Creates a query for the keywords in all given search fields, using the configured {@link KeywordQueryStrategy}.
+     *
+     * @param fields     The search fields.
+     * @param keywords   The search keywords.
+     * @param boost      A multiplier for the score of the query (parameter of the {@link DisMaxQueryBuilder}).
+     * @param tieBreaker (parameter of the {@link DisMaxQueryBuilder})
+     * @return {@link DisMaxQueryBuilder}
+     */
+    protected DisMaxQueryBuilder createKeywordQuery(List<Object> fields, List<String> keywords, Float boost, Float tieBreaker) {
+        if (keywordQueryStrategy == KeywordQueryStrategy.NGRAM) {
+            return createNgramQuery(fields, keywords, boost, tieBreaker);
+        }
+        return createMatchQuery(fields, keywords, boost, tieBreaker);
+    }
+
+    /**
+     * Creates a query for the keywords in all given search fields, using the trigram subfields of the fields that
+     * have one. Every keyword costs one case-insensitive term query per such field and a single multi_match over
+     * their trigram subfields. Keywords shorter than a trigram fall back to a case-insensitive wildcard on the raw
+     * fields. Fields without a trigram subfield are matched as in {@link #createMatchQuery}.
+     *
+     * @param fields     The search fields.
+     * @param keywords   The search keywords.
+     * @param boost      A multiplier for the score of the query (parameter of the {@link DisMaxQueryBuilder}).
+     * @param tieBreaker (parameter of the {@link DisMaxQueryBuilder})
+     * @return {@link DisMaxQueryBuilder}
+     */
+    protected DisMaxQueryBuilder createNgramQuery(List<Object> fields, List<String> keywords, Float boost, Float tieBreaker) {
+        DisMaxQueryBuilder qb = disMaxQuery();
+        List<String> subfieldFields = new ArrayList<>();
+        List<String> otherFields = new ArrayList<>();
+        for (Object field : fields) {
+            if (ngramFields.contains((String) field)) {
+                subfieldFields.add((String) field);
+            } else {
+                otherFields.add((String) field);
+            }
+        }
+        String[] trigramFields = subfieldFields.stream()
+                .map(field -> String.format("%s.%s", field, NGRAM_SUBFIELD))
+                .toArray(String[]::new);
+        for (String keyword : keywords) {
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            for (String field : subfieldFields) {
+                qb.add(termQuery(field, keyword).caseInsensitive(true));
+            }
+            if (trigramFields.length > 0 && keyword.length() >= NGRAM_SIZE) {
+                qb.add(multiMatchQuery(keyword, trigramFields).operator(Operator.AND));
+            } else {
+                for (String field : subfieldFields) {
+                    qb.add(wildcardQuery(field, "*" + keyword + "*").caseInsensitive(true));
+                }
+            }
+            for (String field : otherFields) {
+                addMatchQueries(qb, field, keyword);
+            }
+        }
+        qb.boost(boost);
+        qb.tieBreaker(tieBreaker);
+        return qb;
+    }
+
     /**
      * Creates a query for the keywords in all given search fields.
      *
@@ -130,16 +217,7 @@ public abstract class AbstractSearchService extends ElasticSearchService impleme
                     String possibleInput = keyword.replace(nextLetter, "[^\\s\\p{L}\\p{N}]");
                     qb.add(regexpQuery((String) field, ".*" + possibleInput + ".*"));
                 }*/
-                qb.add(matchQuery((String) field, keyword.toLowerCase()));
-                qb.add(matchQuery((String) field, keyword.toUpperCase()));
-                qb.add(regexpQuery((String) field, ".*" + keyword + ".*"));
-                qb.add(regexpQuery((String) field, ".*" + keyword.toLowerCase() + ".*"));
-                qb.add(regexpQuery((String) field, ".*" + keyword.toUpperCase() + ".*"));
-
-                // Create Camel Case query
-                keyword = keyword.substring(0, 1).toUpperCase() + keyword.substring(1).toLowerCase();
-                qb.add(matchQuery((String) field, keyword));
-                qb.add(regexpQuery((String) field, ".*" + keyword + ".*"));
+                addMatchQueries(qb, (String) field, keyword);
             }
         }
         qb.boost(boost);
@@ -147,6 +225,19 @@ public abstract class AbstractSearchService extends ElasticSearchService impleme
         return qb;
     }
 
+    private static void addMatchQueries(DisMaxQueryBuilder qb, String field, String keyword) {
+        qb.add(matchQuery(field, keyword.toLowerCase()));
+        qb.add(matchQuery(field, keyword.toUpperCase()));
+        qb.add(regexpQuery(field, ".*" + keyword + ".*"));
+        qb.add(regexpQuery(field, ".*" + keyword.toLowerCase() + ".*"));
+        qb.add(regexpQuery(field, ".*" + keyword.toUpperCase() + ".*"));
+
+        // Create Camel Case query
+        keyword = keyword.substring(0, 1).toUpperCase() + keyword.substring(1).toLowerCase();
+        qb.add(matchQuery(field, keyword));
+        qb.add(regexpQuery(field, ".*" + keyword + ".*"));
+    }
+
     /**
      * Creates a phrase query for all the given phrases in all the given search fields.
      *
@@ -0,0 +1,23 @@
+package gr.uoa.di.madgik.resourcecatalogue.service.search;
+
+/**
+ * Strategies for matching the search keyword against the search fields.
+ */
+public enum KeywordQueryStrategy {
+
+    /**
+     * Matches keywords anywhere in the field using leading-wildcard regular expressions on the raw fields.
+     * Works on any index, but regular expressions are the slowest queries Elasticsearch can run.
+     */
+    REGEXP,
+
+    /**
+     * Matches keywords anywhere in the field using the trigram subfields of the search fields.
+     * Requires the subfields to be created at index time (see {@link NgramSearchFieldsInitializer}).
+     */
+    NGRAM;
+
+    public static KeywordQueryStrategy fromString(String strategy) {
+        return strategy == null || strategy.isEmpty() ? REGEXP : valueOf(strategy.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,172 @@
+package gr.uoa.di.madgik.resourcecatalogue.service.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.close.CloseIndexRequest;
+import org.elasticsearch.action.admin.indices.open.OpenIndexRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.GetMappingsRequest;
+import org.elasticsearch.client.indices.GetMappingsResponse;
+import org.elasticsearch.client.indices.PutMappingRequest;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.reindex.BulkByScrollResponse;
+import org.elasticsearch.index.reindex.UpdateByQueryRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.*;
+
+import static gr.uoa.di.madgik.resourcecatalogue.service.search.AbstractSearchService.NGRAM_SIZE;
+import static gr.uoa.di.madgik.resourcecatalogue.service.search.AbstractSearchService.NGRAM_SUBFIELD;
+
+/**
+ * Adds the trigram subfields needed by {@link KeywordQueryStrategy#NGRAM} to the search fields of every index behind
+ * the 'resourceTypes' alias. The registry creates the indices itself, so the analyzer and the subfields are added
+ * to the existing indices, which are then updated in place to index the new subfields. Adding the analyzer closes
+ * the index for a moment, so the indices are only changed when 'catalogue.search.ngram-migration' is enabled, and
+ * an index is closed only if it lacks the analyzer. Otherwise, the indices missing the subfields are only reported.
+ */
+@Component
+public class NgramSearchFieldsInitializer {
+
+    private static final Logger logger = LogManager.getLogger(NgramSearchFieldsInitializer.class);
+    private static final String ALIAS = "resourceTypes";
+    private static final String ANALYZER = "trigram";
+
+    private final RestHighLevelClient client;
+    private final KeywordQueryStrategy keywordQueryStrategy;
+    private final List<String> searchFields;
+    private final boolean migrate;
+
+    NgramSearchFieldsInitializer(RestHighLevelClient client,
+                                 @Value("${catalogue.search.keyword-strategy:regexp}") String keywordQueryStrategy,
+                                 @Value("${catalogue.search.ngram-fields:resource_internal_id,name,title}") String[] searchFields,
+                                 @Value("${catalogue.search.ngram-migration:false}") boolean migrate) {
+        this.client = client;
+        this.keywordQueryStrategy = KeywordQueryStrategy.fromString(keywordQueryStrategy);
+        this.searchFields = Arrays.asList(searchFields);
+        this.migrate = migrate;
+    }
+
+    @PostConstruct
+    void init() {
+        if (keywordQueryStrategy != KeywordQueryStrategy.NGRAM) {
+            return;
+        }
+        try {
+            GetMappingsResponse mappings = client.indices().getMapping(new GetMappingsRequest().indices(ALIAS), RequestOptions.DEFAULT);
+            Map<String, Map<String, Object>> missing = new TreeMap<>();
+            for (Map.Entry<String, MappingMetadata> index : mappings.mappings().entrySet()) {
+                Map<String, Object> updatedProperties = missingNgramSubfields(index.getValue());
+                if (!updatedProperties.isEmpty()) {
+                    missing.put(index.getKey(), updatedProperties);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            if (!migrate) {
+                logger.warn("Indices {} have no n-gram search fields, so keyword search will not match parts of " +
+                        "values in them. Start once with 'catalogue.search.ngram-migration=true' to add them.",
+                        missing.keySet());
+                return;
+            }
+            for (Map.Entry<String, Map<String, Object>> index : missing.entrySet()) {
+                addNgramSubfields(index.getKey(), index.getValue());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not create the n-gram search fields. Keyword search will only match whole values.", e);
+        }
+    }
+
+    /**
+     * Returns the definitions of the search fields of an index with the n-gram subfield added, for the fields that
+     * do not have it yet.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> missingNgramSubfields(MappingMetadata mapping) {
+        Map<String, Object> properties = (Map<String, Object>) mapping.sourceAsMap().get("properties");
+        Map<String, Object> updatedProperties = new HashMap<>();
+        if (properties == null) {
+            return updatedProperties;
+        }
+        for (String field : searchFields) {
+            Map<String, Object> definition = (Map<String, Object>) properties.get(field);
+            if (definition == null || !"keyword".equals(definition.get("type"))) {
+                continue;
+            }
+            Map<String, Object> subfields = new HashMap<>();
+            if (definition.get("fields") != null) {
+                subfields.putAll((Map<String, Object>) definition.get("fields"));
+            }
+            if (subfields.containsKey(NGRAM_SUBFIELD)) {
+                continue;
+            }
+            Map<String, Object> ngram = new HashMap<>();
+            ngram.put("type", "text");
+            ngram.put("analyzer", ANALYZER);
+            subfields.put(NGRAM_SUBFIELD, ngram);
+
+            Map<String, Object> updated = new HashMap<>(definition);
+            updated.put("fields", subfields);
+            updatedProperties.put(field, updated);
+        }
+        return updatedProperties;
+    }
+
+    private void addNgramSubfields(String index, Map<String, Object> updatedProperties) throws IOException {
+        logger.info("Adding n-gram subfields {} to index '{}'", updatedProperties.keySet(), index);
+        ensureAnalyzer(index);
+        PutMappingRequest putMapping = new PutMappingRequest(index);
+        putMapping.source(Collections.singletonMap("properties", updatedProperties));
+        client.indices().putMapping(putMapping, RequestOptions.DEFAULT);
+
+        // re-index the documents in place, so that the new subfields get populated
+        UpdateByQueryRequest updateByQuery = new UpdateByQueryRequest(index);
+        updateByQuery.setConflicts("proceed");
+        client.updateByQueryAsync(updateByQuery, RequestOptions.DEFAULT, new ActionListener<BulkByScrollResponse>() {
+            @Override
+            public void onResponse(BulkByScrollResponse response) {
+                logger.info("Populated n-gram subfields of {} documents of index '{}'", response.getUpdated(), index);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.error("Could not populate n-gram subfields of index '{}'", index, e);
+            }
+        });
+    }
+
+    /**
+     * Analysis settings can only change on closed indices, so the index is briefly closed if the analyzer is missing.
+     */
+    private void ensureAnalyzer(String index) throws IOException {
+        GetSettingsResponse settings = client.indices().getSettings(new GetSettingsRequest().indices(index), RequestOptions.DEFAULT);
+        if (settings.getSetting(index, String.format("index.analysis.analyzer.%s.tokenizer", ANALYZER)) != null) {
+            return;
+        }
+        Settings analysis = Settings.builder()
+                .put(String.format("index.analysis.tokenizer.%s.type", ANALYZER), "ngram")
+                .put(String.format("index.analysis.tokenizer.%s.min_gram", ANALYZER), NGRAM_SIZE)
+                .put(String.format("index.analysis.tokenizer.%s.max_gram", ANALYZER), NGRAM_SIZE)
+                .putList(String.format("index.analysis.tokenizer.%s.token_chars", ANALYZER), "letter", "digit")
+                .put(String.format("index.analysis.analyzer.%s.type", ANALYZER), "custom")
+                .put(String.format("index.analysis.analyzer.%s.tokenizer", ANALYZER), ANALYZER)
+                .putList(String.format("index.analysis.analyzer.%s.filter", ANALYZER), "lowercase", "asciifolding")
+                .build();
+        client.indices().close(new CloseIndexRequest(index), RequestOptions.DEFAULT);
+        try {
+            client.indices().putSettings(new UpdateSettingsRequest(index).settings(analysis), RequestOptions.DEFAULT);
+        } finally {
+            client.indices().open(new OpenIndexRequest(index), RequestOptions.DEFAULT);
+        }
+    }
+}
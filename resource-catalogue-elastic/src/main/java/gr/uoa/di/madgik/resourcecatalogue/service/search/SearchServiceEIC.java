@@ -5,7 +5,9 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.springframework.beans.factory.annotation.Value;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -14,8 +16,10 @@ public class SearchServiceEIC extends AbstractSearchService implements SearchSer
 
     private static final Logger logger = LogManager.getLogger(SearchServiceEIC.class);
 
-    public SearchServiceEIC(RestHighLevelClient elasticsearchClient) {
-        super(elasticsearchClient);
+    public SearchServiceEIC(RestHighLevelClient elasticsearchClient,
+                            @Value("${catalogue.search.keyword-strategy:regexp}") String keywordQueryStrategy,
+                            @Value("${catalogue.search.ngram-fields:resource_internal_id,name,title}") String[] ngramFields) {
+        super(elasticsearchClient, KeywordQueryStrategy.fromString(keywordQueryStrategy), Arrays.asList(ngramFields));
     }
 
     @Override
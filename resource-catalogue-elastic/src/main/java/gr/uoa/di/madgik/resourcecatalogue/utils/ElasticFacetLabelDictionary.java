@@ -0,0 +1,145 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.search.*;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Label dictionary built from the names/titles of all the documents of the 'resourceTypes' alias. It is loaded once,
+ * kept up to date by the resource write hooks and fully rebuilt on a configurable interval.
+ */
+@Primary
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class ElasticFacetLabelDictionary implements FacetLabelDictionary {
+
+    private static final Logger logger = LogManager.getLogger(ElasticFacetLabelDictionary.class);
+    private final RestHighLevelClient client;
+    private volatile Map<String, String> labels;
+
+    ElasticFacetLabelDictionary(RestHighLevelClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public String getLabel(String id) {
+        return getLabels().get(id);
+    }
+
+    @Override
+    public synchronized void putLabel(String id, String label) {
+        if (id == null || label == null || labels == null) {
+            return;
+        }
+        Map<String, String> copy = new HashMap<>(labels);
+        copy.put(id, label);
+        labels = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public synchronized void removeLabel(String id) {
+        if (id == null || labels == null || !labels.containsKey(id)) {
+            return;
+        }
+        Map<String, String> copy = new HashMap<>(labels);
+        copy.remove(id);
+        labels = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${catalogue.facet-labels.refresh-interval:600000}",
+            fixedDelayString = "${catalogue.facet-labels.refresh-interval:600000}")
+    public synchronized void refresh() {
+        try {
+            labels = Collections.unmodifiableMap(getIdNameFields());
+        } catch (IOException | ElasticsearchStatusException e) {
+            logger.warn(e.getMessage(), e);
+            if (labels == null) {
+                labels = Collections.emptyMap();
+            }
+        }
+    }
+
+    private Map<String, String> getLabels() {
+        Map<String, String> ret = labels;
+        if (ret == null) {
+            synchronized (this) {
+                if (labels == null) {
+                    refresh();
+                }
+                ret = labels;
+            }
+        }
+        return ret;
+    }
+
+    private Map<String, String> getIdNameFields() throws IOException, ElasticsearchStatusException {
+        Map<String, String> idNameMap = new HashMap<>();
+
+        final Scroll scroll = new Scroll(TimeValue.timeValueSeconds(10L));
+        SearchRequest searchRequest = new SearchRequest("resourceTypes");
+        searchRequest.scroll(scroll);
+        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+        searchSourceBuilder
+                .size(10000)
+                .docValueField("resource_internal_id")
+                .docValueField("name")
+                .docValueField("title")
+                .fetchSource(false);
+        searchRequest.source(searchSourceBuilder);
+
+        SearchResponse searchResponse = client.search(searchRequest, RequestOptions.DEFAULT);
+        String scrollId = searchResponse.getScrollId();
+        SearchHit[] searchHits = searchResponse.getHits().getHits();
+
+        while (searchHits != null && searchHits.length > 0) {
+
+            for (SearchHit hit : searchHits) {
+                if (hit.getFields().containsKey("resource_internal_id")) {
+                    String id = (String) hit.getFields().get("resource_internal_id").getValues().get(0);
+                    if (hit.getFields().containsKey("name")) {
+                        idNameMap.put(id, (String) hit.getFields().get("name").getValues().get(0));
+                    } else if (hit.getFields().containsKey("title")) {
+                        idNameMap.put(id, (String) hit.getFields().get("title").getValues().get(0));
+                    }
+                } else {
+                    logger.error("Could not create id - name value. \nHit: {}", hit);
+                }
+            }
+
+            SearchScrollRequest scrollRequest = new SearchScrollRequest(scrollId);
+            scrollRequest.scroll(scroll);
+            searchResponse = client.scroll(scrollRequest, RequestOptions.DEFAULT);
+            scrollId = searchResponse.getScrollId();
+            searchHits = searchResponse.getHits().getHits();
+        }
+
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.addScrollId(scrollId);
+        ClearScrollResponse clearScrollResponse = client.clearScroll(clearScrollRequest, RequestOptions.DEFAULT);
+        boolean succeeded = clearScrollResponse.isSucceeded();
+        if (!succeeded) {
+            logger.error("clear scroll request failed...");
+        }
+
+        logger.debug("Loaded {} facet labels", idNameMap.size());
+        return idNameMap;
+    }
+}
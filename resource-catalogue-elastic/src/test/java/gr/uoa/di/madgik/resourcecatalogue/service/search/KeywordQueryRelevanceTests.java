@@ -0,0 +1,192 @@
+package gr.uoa.di.madgik.resourcecatalogue.service.search;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compares the resources matched by the n-gram keyword query against the ones matched by the regexp keyword query,
+ * over the corpus in 'search-corpus.tsv'. The queries are evaluated in memory, following the semantics of the
+ * queries on keyword fields and of the trigram analyzer created by {@link NgramSearchFieldsInitializer}.
+ */
+public class KeywordQueryRelevanceTests {
+
+    private static final List<String> FIELDS = List.of("resource_internal_id", "name", "title");
+    private static final List<String> KEYWORDS = List.of("data", "Data", "DATA", "research data", "zenodo", "EGI",
+            "cloud-storage", "Virtual", "notebooks", "ai", "GPU", "b2", "open science", "\"research data\"",
+            "repository", "eosc.egi", "registry", "machine learning", "bio", "unknown");
+
+    private static List<Map<String, String>> corpus;
+
+    @BeforeAll
+    static void loadCorpus() throws IOException {
+        corpus = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                KeywordQueryRelevanceTests.class.getResourceAsStream("/search-corpus.tsv"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] values = line.split("\t");
+                Map<String, String> document = new HashMap<>();
+                for (int i = 0; i < FIELDS.size(); i++) {
+                    document.put(FIELDS.get(i), values[i]);
+                }
+                corpus.add(document);
+            }
+        }
+    }
+
+    @Test
+    public void ngramQueryMatchesEveryResourceTheRegexpQueryMatches() {
+        KeywordSearchService regexp = new KeywordSearchService(KeywordQueryStrategy.REGEXP, FIELDS);
+        KeywordSearchService ngram = new KeywordSearchService(KeywordQueryStrategy.NGRAM, FIELDS);
+
+        for (String keyword : KEYWORDS) {
+            Set<String> expected = search(regexp, keyword);
+            Set<String> actual = search(ngram, keyword);
+            assertTrue(actual.containsAll(expected),
+                    String.format("'%s' missed %s", keyword, difference(expected, actual)));
+        }
+    }
+
+    @Test
+    public void ngramQueryMatchesKeywordsRegardlessOfCase() {
+        KeywordSearchService ngram = new KeywordSearchService(KeywordQueryStrategy.NGRAM, FIELDS);
+
+        assertEquals(search(ngram, "research data"), search(ngram, "RESEARCH DATA"));
+        assertEquals(Set.of("eosc.openaire.zenodo"), search(ngram, "zENODO"));
+        assertEquals(Set.of("eosc.gwdg.gpu"), search(ngram, "gpu"));
+        assertEquals(Set.of(), search(ngram, "unknown"));
+    }
+
+    @Test
+    public void fieldsWithoutTrigramSubfieldKeepTheRegexpQuery() {
+        KeywordSearchService ngram = new KeywordSearchService(KeywordQueryStrategy.NGRAM, List.of("name"));
+        KeywordSearchService regexp = new KeywordSearchService(KeywordQueryStrategy.REGEXP, FIELDS);
+
+        List<QueryBuilder> queries = leaves(ngram.createQueryBuilder(filter("repository")));
+        assertTrue(queries.stream().anyMatch(query -> query instanceof MultiMatchQueryBuilder
+                && ((MultiMatchQueryBuilder) query).fields().keySet().equals(Set.of("name.ngram"))));
+        assertTrue(queries.stream().anyMatch(query -> query instanceof RegexpQueryBuilder
+                && ((RegexpQueryBuilder) query).fieldName().equals("title")));
+        assertTrue(queries.stream().noneMatch(query -> query instanceof RegexpQueryBuilder
+                && ((RegexpQueryBuilder) query).fieldName().equals("name")));
+
+        for (String keyword : KEYWORDS) {
+            assertTrue(search(ngram, keyword).containsAll(search(regexp, keyword)), keyword);
+        }
+    }
+
+    private static Set<String> search(KeywordSearchService searchService, String keyword) {
+        QueryBuilder query = searchService.createQueryBuilder(filter(keyword));
+        return corpus.stream()
+                .filter(document -> matches(query, document))
+                .map(document -> document.get("resource_internal_id"))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static FacetFilter filter(String keyword) {
+        FacetFilter filter = new FacetFilter();
+        filter.setKeyword(keyword);
+        return filter;
+    }
+
+    private static Set<String> difference(Set<String> expected, Set<String> actual) {
+        Set<String> missing = new TreeSet<>(expected);
+        missing.removeAll(actual);
+        return missing;
+    }
+
+    private static List<QueryBuilder> leaves(QueryBuilder query) {
+        List<QueryBuilder> leaves = new ArrayList<>();
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            bool.should().forEach(clause -> leaves.addAll(leaves(clause)));
+            bool.must().forEach(clause -> leaves.addAll(leaves(clause)));
+        } else if (query instanceof DisMaxQueryBuilder) {
+            ((DisMaxQueryBuilder) query).innerQueries().forEach(clause -> leaves.addAll(leaves(clause)));
+        } else {
+            leaves.add(query);
+        }
+        return leaves;
+    }
+
+    private static boolean matches(QueryBuilder query, Map<String, String> document) {
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            return bool.must().stream().allMatch(clause -> matches(clause, document))
+                    && (bool.should().isEmpty() || bool.should().stream().anyMatch(clause -> matches(clause, document)));
+        } else if (query instanceof DisMaxQueryBuilder) {
+            return ((DisMaxQueryBuilder) query).innerQueries().stream().anyMatch(clause -> matches(clause, document));
+        } else if (query instanceof MatchAllQueryBuilder) {
+            return true;
+        } else if (query instanceof MatchQueryBuilder) {
+            MatchQueryBuilder match = (MatchQueryBuilder) query;
+            return match.value().equals(document.get(match.fieldName()));
+        } else if (query instanceof MatchPhraseQueryBuilder) {
+            MatchPhraseQueryBuilder match = (MatchPhraseQueryBuilder) query;
+            return match.value().equals(document.get(match.fieldName()));
+        } else if (query instanceof TermQueryBuilder) {
+            TermQueryBuilder term = (TermQueryBuilder) query;
+            String value = document.get(term.fieldName());
+            return term.caseInsensitive() ? term.value().toString().equalsIgnoreCase(value) : term.value().equals(value);
+        } else if (query instanceof RegexpQueryBuilder) {
+            RegexpQueryBuilder regexp = (RegexpQueryBuilder) query;
+            return Pattern.matches(regexp.value(), document.get(regexp.fieldName()));
+        } else if (query instanceof WildcardQueryBuilder) {
+            WildcardQueryBuilder wildcard = (WildcardQueryBuilder) query;
+            String regex = Arrays.stream(wildcard.value().split("\\*", -1))
+                    .map(part -> part.isEmpty() ? "" : Pattern.quote(part))
+                    .collect(Collectors.joining(".*"));
+            int flags = wildcard.caseInsensitive() ? Pattern.CASE_INSENSITIVE : 0;
+            return Pattern.compile(regex, flags).matcher(document.get(wildcard.fieldName())).matches();
+        } else if (query instanceof MultiMatchQueryBuilder) {
+            MultiMatchQueryBuilder multiMatch = (MultiMatchQueryBuilder) query;
+            Set<String> keywordTrigrams = trigrams(multiMatch.value().toString());
+            return multiMatch.fields().keySet().stream()
+                    .map(field -> document.get(field.substring(0, field.length() - AbstractSearchService.NGRAM_SUBFIELD.length() - 1)))
+                    .anyMatch(value -> trigrams(value).containsAll(keywordTrigrams));
+        }
+        throw new IllegalArgumentException("Unsupported query: " + query.getName());
+    }
+
+    /**
+     * The tokens produced by the trigram analyzer: trigrams of the letter and digit runs of the value, lowercased.
+     */
+    private static Set<String> trigrams(String value) {
+        Set<String> trigrams = new HashSet<>();
+        for (String token : value.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            for (int i = 0; i + AbstractSearchService.NGRAM_SIZE <= token.length(); i++) {
+                trigrams.add(token.substring(i, i + AbstractSearchService.NGRAM_SIZE));
+            }
+        }
+        return trigrams;
+    }
+
+    private static class KeywordSearchService extends AbstractSearchService {
+
+        KeywordSearchService(KeywordQueryStrategy keywordQueryStrategy, Collection<String> ngramFields) {
+            super(mock(RestHighLevelClient.class), keywordQueryStrategy, ngramFields);
+        }
+
+        @Override
+        public BoolQueryBuilder customFilters(BoolQueryBuilder qBuilder, Map<String, List<Object>> allFilters) {
+            return qBuilder;
+        }
+    }
+}
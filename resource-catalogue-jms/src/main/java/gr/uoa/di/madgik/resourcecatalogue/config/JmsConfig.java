@@ -2,9 +2,11 @@ package gr.uoa.di.madgik.resourcecatalogue.config;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jms.annotation.EnableJms;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
 @EnableJms
+@EnableScheduling
 public class JmsConfig {
 
 }
@@ -0,0 +1,290 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Identifiable;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox of the JMS messages, stored in the 'jms_outbox' table. Messages are stored through the caller's connection,
+ * so they are committed or rolled back together with the resource change of any surrounding transaction, and are
+ * published afterwards by the {@link JmsOutboxRelay} in the order of their sequence numbers. Published messages are
+ * kept for the configured retention period, so that they can be replayed.
+ * <p>
+ * Transactions commit in any order, so a message is given its sequence number by the relay when it is about to be
+ * published, not when it is stored: a message stored by a transaction that commits late is published after the
+ * ones already published, instead of being skipped or published out of order. Only one node relays at a time, the
+ * one holding the lease in the 'jms_outbox_relay' table.
+ */
+@Component
+public class JmsOutbox implements JmsOutboxService {
+
+    private static final Logger logger = LogManager.getLogger(JmsOutbox.class);
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS jms_outbox (" +
+            "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+            "sequence_number BIGINT UNIQUE, " +
+            "destination VARCHAR(255) NOT NULL, " +
+            "topic BOOLEAN NOT NULL, " +
+            "resource_id VARCHAR(255), " +
+            "payload TEXT NOT NULL, " +
+            "payload_class VARCHAR(255) NOT NULL, " +
+            "created TIMESTAMP NOT NULL, " +
+            "published TIMESTAMP, " +
+            "last_error TEXT)";
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS jms_outbox_published " +
+            "ON jms_outbox (published, sequence_number, id)";
+    private static final String CREATE_LEASE_TABLE = "CREATE TABLE IF NOT EXISTS jms_outbox_relay (" +
+            "id INT PRIMARY KEY, " +
+            "owner VARCHAR(255) NOT NULL, " +
+            "expires TIMESTAMP NOT NULL)";
+
+    private static final RowMapper<Entry> ROW_MAPPER = (rs, rowNum) -> new Entry(rs.getLong("id"),
+            rs.getObject("sequence_number") != null ? rs.getLong("sequence_number") : null, rs.getString("destination"), rs.getBoolean("topic"), rs.getString("resource_id"),
+            rs.getString("payload"), rs.getString("payload_class"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final long retention;
+
+    public JmsOutbox(DataSource dataSource,
+                     @Value("${jms.outbox.retention:604800000}") long retention) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    void createTable() {
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_TABLE);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_INDEX);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_LEASE_TABLE);
+    }
+
+    /**
+     * Takes, or renews, the lease of the relay. The lease is taken if it is free, expired or already held by the
+     * given owner.
+     *
+     * @param owner    the id of the relay instance
+     * @param duration the duration of the lease in ms
+     * @return true if the given owner holds the lease
+     */
+    boolean acquireLease(String owner, long duration) {
+        long now = System.currentTimeMillis();
+        MapSqlParameterSource params = new MapSqlParameterSource("owner", owner)
+                .addValue("now", new Timestamp(now))
+                .addValue("expires", new Timestamp(now + duration));
+        if (jdbcTemplate.update("UPDATE jms_outbox_relay SET owner = :owner, expires = :expires " +
+                "WHERE id = 1 AND (owner = :owner OR expires < :now)", params) > 0) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update("INSERT INTO jms_outbox_relay (id, owner, expires) " +
+                    "VALUES (1, :owner, :expires)", params) > 0;
+        } catch (DuplicateKeyException e) {
+            // held by another relay
+            return false;
+        }
+    }
+
+    /**
+     * Gives up the lease of the relay, if held by the given owner.
+     */
+    void releaseLease(String owner) {
+        jdbcTemplate.update("UPDATE jms_outbox_relay SET expires = :expired WHERE owner = :owner",
+                new MapSqlParameterSource("owner", owner).addValue("expired", new Timestamp(0)));
+    }
+
+    /**
+     * Stores a message to be published.
+     *
+     * @param destination the destination name
+     * @param topic       true if the destination is a topic, false if it is a queue
+     * @param message     the message, serialized as json
+     * @throws IllegalArgumentException if the message cannot be serialized
+     */
+    public void append(String destination, boolean topic, Object message) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(String.format("Could not serialize the JMS message to '%s'",
+                    destination), e);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("destination", destination)
+                .addValue("topic", topic)
+                .addValue("resourceId", message instanceof Identifiable ? ((Identifiable) message).getId() : null)
+                .addValue("payload", payload)
+                .addValue("payloadClass", message.getClass().getName())
+                .addValue("now", new Timestamp(System.currentTimeMillis()));
+        jdbcTemplate.update("INSERT INTO jms_outbox (destination, topic, resource_id, payload, payload_class, " +
+                "created) VALUES (:destination, :topic, :resourceId, :payload, :payloadClass, :now)", params);
+    }
+
+    /**
+     * Returns the unpublished messages, giving the next sequence numbers to the ones that have none yet. Must only be
+     * called by the relay holding the lease.
+     *
+     * @param limit max number of messages
+     * @return the messages, ordered by sequence number
+     */
+    List<Entry> getPending(int limit) {
+        // messages being published again keep their sequence numbers and go first
+        List<Entry> pending = jdbcTemplate.query("SELECT * FROM jms_outbox WHERE published IS NULL " +
+                "ORDER BY sequence_number NULLS LAST, id LIMIT :limit", new MapSqlParameterSource("limit", limit),
+                ROW_MAPPER);
+        List<Entry> sequenced = new ArrayList<>(pending.size());
+        Long last = null;
+        for (Entry entry : pending) {
+            if (entry.getSequenceNumber() == null) {
+                if (last == null) {
+                    last = jdbcTemplate.getJdbcTemplate().queryForObject(
+                            "SELECT coalesce(max(sequence_number), 0) FROM jms_outbox", Long.class);
+                }
+                entry = entry.withSequenceNumber(++last);
+                jdbcTemplate.update("UPDATE jms_outbox SET sequence_number = :sequenceNumber " +
+                        "WHERE id = :id AND sequence_number IS NULL", new MapSqlParameterSource("id", entry.getId())
+                        .addValue("sequenceNumber", entry.getSequenceNumber()));
+            }
+            sequenced.add(entry);
+        }
+        return sequenced;
+    }
+
+    /**
+     * Marks the given messages as published.
+     */
+    void published(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids)
+                .addValue("now", new Timestamp(System.currentTimeMillis()));
+        jdbcTemplate.update("UPDATE jms_outbox SET published = :now, last_error = NULL WHERE id IN (:ids)", params);
+    }
+
+    /**
+     * Marks a message that can never be published as published, keeping the reason, so that it does not block the
+     * messages following it. It can still be replayed.
+     */
+    void discarded(Entry entry, String error) {
+        MapSqlParameterSource params = new MapSqlParameterSource("id", entry.getId())
+                .addValue("error", error)
+                .addValue("now", new Timestamp(System.currentTimeMillis()));
+        jdbcTemplate.update("UPDATE jms_outbox SET published = :now, last_error = :error WHERE id = :id", params);
+    }
+
+    /**
+     * Deserializes the message of an entry.
+     */
+    Object readPayload(Entry entry) throws ClassNotFoundException, JsonProcessingException {
+        return objectMapper.readValue(entry.getPayload(), Class.forName(entry.getPayloadClass()));
+    }
+
+    @Override
+    public int replay(long fromSequence) {
+        int replayed = jdbcTemplate.update("UPDATE jms_outbox SET published = NULL, last_error = NULL " +
+                "WHERE sequence_number >= :fromSequence", new MapSqlParameterSource("fromSequence", fromSequence));
+        logger.info("Replaying {} JMS messages from sequence number {}", replayed, fromSequence);
+        return replayed;
+    }
+
+    @Override
+    public long countPending() {
+        Long count = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT count(*) FROM jms_outbox WHERE published IS NULL", Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public Long getLastPublishedSequence() {
+        return jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT max(sequence_number) FROM jms_outbox WHERE published IS NOT NULL", Long.class);
+    }
+
+    /**
+     * Deletes the published messages older than the retention period.
+     */
+    @Scheduled(initialDelayString = "${jms.outbox.cleanup-interval:3600000}",
+            fixedDelayString = "${jms.outbox.cleanup-interval:3600000}")
+    public void cleanup() {
+        MapSqlParameterSource params = new MapSqlParameterSource("before",
+                new Timestamp(System.currentTimeMillis() - retention));
+        int deleted = jdbcTemplate.update("DELETE FROM jms_outbox WHERE published < :before", params);
+        if (deleted > 0) {
+            logger.debug("Deleted {} published JMS messages", deleted);
+        }
+    }
+
+    /**
+     * A stored message.
+     */
+    static final class Entry {
+
+        private final long id;
+        private final Long sequenceNumber;
+        private final String destination;
+        private final boolean topic;
+        private final String resourceId;
+        private final String payload;
+        private final String payloadClass;
+
+        Entry(long id, Long sequenceNumber, String destination, boolean topic, String resourceId, String payload,
+              String payloadClass) {
+            this.id = id;
+            this.sequenceNumber = sequenceNumber;
+            this.destination = destination;
+            this.topic = topic;
+            this.resourceId = resourceId;
+            this.payload = payload;
+            this.payloadClass = payloadClass;
+        }
+
+        Entry withSequenceNumber(long sequenceNumber) {
+            return new Entry(id, sequenceNumber, destination, topic, resourceId, payload, payloadClass);
+        }
+
+        long getId() {
+            return id;
+        }
+
+        Long getSequenceNumber() {
+            return sequenceNumber;
+        }
+
+        String getDestination() {
+            return destination;
+        }
+
+        boolean isTopic() {
+            return topic;
+        }
+
+        String getResourceId() {
+            return resourceId;
+        }
+
+        String getPayload() {
+            return payload;
+        }
+
+        String getPayloadClass() {
+            return payloadClass;
+        }
+    }
+}
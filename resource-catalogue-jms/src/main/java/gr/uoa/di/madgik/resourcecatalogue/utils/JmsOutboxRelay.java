@@ -0,0 +1,185 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.*;
+
+/**
+ * Publishes the messages of the {@link JmsOutbox} in the order of their sequence numbers. Consecutive messages to
+ * the same kind of destination are sent in batches, through a single session. When a message cannot be sent, the
+ * relay stops and retries from that message on its next run, so a message is never published before the ones
+ * preceding it. Every message carries its sequence number in the 'sequence' property and the id of its resource
+ * in the 'JMSXGroupID' property, so that the messages of a resource are consumed in order.
+ * <p>
+ * The relay runs on every node, but only the one holding the lease of the outbox publishes. The lease is renewed
+ * before every batch and taken over by another node once it expires.
+ */
+@Component
+public class JmsOutboxRelay {
+
+    private static final Logger logger = LogManager.getLogger(JmsOutboxRelay.class);
+
+    private final JmsOutbox outbox;
+    private final JmsTemplate jmsTopicTemplate;
+    private final JmsTemplate jmsQueueTemplate;
+    private final int batchSize;
+    private final long lease;
+    private final String instanceId = UUID.randomUUID().toString();
+    private boolean failing = false;
+
+    public JmsOutboxRelay(JmsOutbox outbox, JmsTemplate jmsTopicTemplate, JmsTemplate jmsQueueTemplate,
+                          @Value("${jms.outbox.batch-size:100}") int batchSize,
+                          @Value("${jms.outbox.lease:30000}") long lease) {
+        this.outbox = outbox;
+        this.jmsTopicTemplate = jmsTopicTemplate;
+        this.jmsQueueTemplate = jmsQueueTemplate;
+        this.batchSize = batchSize;
+        this.lease = lease;
+    }
+
+    @PreDestroy
+    void releaseLease() {
+        outbox.releaseLease(instanceId);
+    }
+
+    /**
+     * Publishes the pending messages, until none is left or one cannot be sent, if this node holds the lease.
+     *
+     * @return the number of published messages
+     */
+    @Scheduled(initialDelayString = "${jms.outbox.relay-interval:1000}",
+            fixedDelayString = "${jms.outbox.relay-interval:1000}")
+    public synchronized int relay() {
+        int total = 0;
+        List<JmsOutbox.Entry> batch;
+        do {
+            if (!outbox.acquireLease(instanceId, lease)) {
+                break;
+            }
+            batch = outbox.getPending(batchSize);
+            int published = publish(batch);
+            total += published;
+            if (published < batch.size()) {
+                break;
+            }
+        } while (batch.size() == batchSize);
+        if (total > 0) {
+            logger.debug("Published {} JMS messages", total);
+        }
+        return total;
+    }
+
+    private int publish(List<JmsOutbox.Entry> batch) {
+        int published = 0;
+        int from = 0;
+        while (from < batch.size()) {
+            // consecutive messages to the same kind of destination share a session
+            boolean topic = batch.get(from).isTopic();
+            int to = from + 1;
+            while (to < batch.size() && batch.get(to).isTopic() == topic) {
+                to++;
+            }
+            List<JmsOutbox.Entry> run = batch.subList(from, to);
+            int handled = send(topic ? jmsTopicTemplate : jmsQueueTemplate, run);
+            published += handled;
+            if (handled < run.size()) {
+                break;
+            }
+            from = to;
+        }
+        if (published == batch.size() && failing) {
+            failing = false;
+            logger.info("JMS messages are being published again");
+        }
+        return published;
+    }
+
+    /**
+     * Sends the given messages in a single session, stopping at the first one that cannot be sent, and marks the
+     * sent ones as published. Messages that cannot be deserialized are discarded.
+     *
+     * @return the number of sent or discarded messages
+     */
+    private int send(JmsTemplate template, List<JmsOutbox.Entry> entries) {
+        List<JmsOutbox.Entry> sendable = new ArrayList<>();
+        List<Object> payloads = new ArrayList<>();
+        for (JmsOutbox.Entry entry : entries) {
+            try {
+                payloads.add(outbox.readPayload(entry));
+                sendable.add(entry);
+            } catch (ClassNotFoundException | JsonProcessingException e) {
+                // a message that can never be sent must not block the ones following it
+                logger.error("Discarding the JMS message with sequence number {} to '{}'",
+                        entry.getSequenceNumber(), entry.getDestination(), e);
+                outbox.discarded(entry, e.getMessage());
+            }
+        }
+        if (sendable.isEmpty()) {
+            return entries.size();
+        }
+        List<Long> sent = new ArrayList<>();
+        try {
+            template.execute(session -> {
+                Map<String, MessageProducer> producers = new HashMap<>();
+                List<Long> uncommitted = new ArrayList<>();
+                try {
+                    for (int i = 0; i < sendable.size(); i++) {
+                        JmsOutbox.Entry entry = sendable.get(i);
+                        MessageProducer producer = producers.get(entry.getDestination());
+                        if (producer == null) {
+                            Destination destination = template.getDestinationResolver()
+                                    .resolveDestinationName(session, entry.getDestination(), template.isPubSubDomain());
+                            producer = session.createProducer(destination);
+                            producers.put(entry.getDestination(), producer);
+                        }
+                        producer.send(createMessage(template, session, entry, payloads.get(i)),
+                                template.getDeliveryMode(), template.getPriority(), template.getTimeToLive());
+                        if (session.getTransacted()) {
+                            uncommitted.add(entry.getId());
+                        } else {
+                            sent.add(entry.getId());
+                        }
+                    }
+                    JmsUtils.commitIfNecessary(session);
+                    sent.addAll(uncommitted);
+                } finally {
+                    producers.values().forEach(JmsUtils::closeMessageProducer);
+                }
+                return null;
+            }, true);
+        } catch (JmsException e) {
+            if (!failing) {
+                failing = true;
+                logger.warn("Could not publish the JMS message with sequence number {}, retrying on the next run: {}",
+                        sendable.get(sent.size()).getSequenceNumber(), e.getMessage());
+            }
+        } finally {
+            outbox.published(sent);
+        }
+        return entries.size() - sendable.size() + sent.size();
+    }
+
+    private static Message createMessage(JmsTemplate template, Session session, JmsOutbox.Entry entry,
+                                         Object payload) throws JMSException {
+        Message message = Objects.requireNonNull(template.getMessageConverter()).toMessage(payload, session);
+        message.setLongProperty("sequence", entry.getSequenceNumber());
+        if (entry.getResourceId() != null) {
+            message.setStringProperty("JMSXGroupID", entry.getResourceId());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,208 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.Identifiable;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
+import org.springframework.jms.support.converter.MessageType;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JmsOutboxTests {
+
+    private static BrokerService broker;
+
+    private JdbcDataSource dataSource;
+    private JmsOutbox outbox;
+    private JmsTemplate queueTemplate;
+    private String queue;
+
+    @BeforeAll
+    public static void startBroker() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("outbox");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.start();
+    }
+
+    @AfterAll
+    public static void stopBroker() throws Exception {
+        broker.stop();
+    }
+
+    @BeforeEach
+    public void createOutbox() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        outbox = new JmsOutbox(dataSource, 604800000);
+        outbox.createTable();
+        queueTemplate = template(new ActiveMQConnectionFactory("vm://outbox?create=false"));
+        queue = "resource." + UUID.randomUUID();
+    }
+
+    @Test
+    public void publishesInOrderWithSequenceAndGroup() throws JMSException {
+        JmsService jmsService = new DefaultJmsService(outbox);
+        jmsService.convertAndSendQueue(queue, new TestResource("a", "first"));
+        jmsService.convertAndSendQueue(queue, new TestResource("b", "first"));
+        jmsService.convertAndSendQueue(queue, new TestResource("a", "second"));
+        assertEquals(3, outbox.countPending());
+
+        // a batch size smaller than the pending messages publishes them in more than one batch
+        assertEquals(3, relay(queueTemplate, 2).relay());
+
+        assertEquals(0, outbox.countPending());
+        assertEquals(3, outbox.getLastPublishedSequence());
+        assertReceived(1, "a", "first");
+        assertReceived(2, "b", "first");
+        assertReceived(3, "a", "second");
+    }
+
+    @Test
+    public void keepsMessagesWhileTheBrokerIsUnavailable() throws JMSException {
+        outbox.append(queue, false, new TestResource("a", "first"));
+        outbox.append(queue, false, new TestResource("a", "second"));
+
+        JmsTemplate unavailable = template(new ActiveMQConnectionFactory("vm://unavailable?create=false"));
+        assertEquals(0, relay(unavailable, 100).relay());
+        assertEquals(2, outbox.countPending());
+        assertNull(outbox.getLastPublishedSequence());
+
+        assertEquals(2, relay(queueTemplate, 100).relay());
+        assertReceived(1, "a", "first");
+        assertReceived(2, "a", "second");
+    }
+
+    @Test
+    public void replaysFromSequence() throws JMSException {
+        outbox.append(queue, false, new TestResource("a", "first"));
+        outbox.append(queue, false, new TestResource("b", "first"));
+        outbox.append(queue, false, new TestResource("c", "first"));
+        JmsOutboxRelay relay = relay(queueTemplate, 100);
+        assertEquals(3, relay.relay());
+        assertReceived(1, "a", "first");
+        assertReceived(2, "b", "first");
+        assertReceived(3, "c", "first");
+
+        assertEquals(2, outbox.replay(2));
+        assertEquals(2, outbox.countPending());
+        assertEquals(2, relay.relay());
+        assertReceived(2, "b", "first");
+        assertReceived(3, "c", "first");
+    }
+
+    @Test
+    public void onlyTheRelayHoldingTheLeasePublishes() throws JMSException {
+        outbox.append(queue, false, new TestResource("a", "first"));
+        JmsOutboxRelay leader = relay(queueTemplate, 100);
+        JmsOutboxRelay follower = relay(queueTemplate, 100);
+
+        assertEquals(1, leader.relay());
+        outbox.append(queue, false, new TestResource("a", "second"));
+        assertEquals(0, follower.relay());
+        assertEquals(1, outbox.countPending());
+
+        leader.releaseLease();
+        assertEquals(1, follower.relay());
+        assertEquals(0, leader.relay());
+        assertReceived(1, "a", "first");
+        assertReceived(2, "a", "second");
+    }
+
+    @Test
+    public void numbersMessagesInTheOrderTheirTransactionsCommit() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO jms_outbox " +
+                    "(destination, topic, resource_id, payload, payload_class, created) VALUES (?, ?, ?, ?, ?, ?)")) {
+                statement.setString(1, queue);
+                statement.setBoolean(2, false);
+                statement.setString(3, "a");
+                statement.setString(4, "{\"id\":\"a\",\"name\":\"committed last\"}");
+                statement.setString(5, TestResource.class.getName());
+                statement.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+                statement.executeUpdate();
+            }
+            outbox.append(queue, false, new TestResource("b", "committed first"));
+
+            JmsOutboxRelay relay = relay(queueTemplate, 100);
+            assertEquals(1, relay.relay());
+            assertReceived(1, "b", "committed first");
+
+            connection.commit();
+            assertEquals(1, relay.relay());
+            assertReceived(2, "a", "committed last");
+        }
+    }
+
+    private JmsOutboxRelay relay(JmsTemplate template, int batchSize) {
+        return new JmsOutboxRelay(outbox, template, template, batchSize, 30000);
+    }
+
+    private void assertReceived(long sequence, String id, String name) throws JMSException {
+        Message message = queueTemplate.receive(queue);
+        assertNotNull(message);
+        assertEquals(sequence, message.getLongProperty("sequence"));
+        assertEquals(id, message.getStringProperty("JMSXGroupID"));
+        TestResource resource = (TestResource) queueTemplate.getMessageConverter().fromMessage(message);
+        assertEquals(id, resource.getId());
+        assertEquals(name, resource.getName());
+    }
+
+    private static JmsTemplate template(ConnectionFactory connectionFactory) {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setTargetType(MessageType.TEXT);
+        converter.setTypeIdPropertyName("_type");
+        JmsTemplate template = new JmsTemplate(connectionFactory);
+        template.setMessageConverter(converter);
+        template.setReceiveTimeout(5000);
+        return template;
+    }
+
+    public static class TestResource implements Identifiable {
+
+        private String id;
+        private String name;
+
+        public TestResource() {
+        }
+
+        TestResource(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
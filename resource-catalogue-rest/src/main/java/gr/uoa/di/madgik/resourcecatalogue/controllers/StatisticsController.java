@@ -3,7 +3,9 @@ package gr.uoa.di.madgik.resourcecatalogue.controllers;
 import gr.uoa.di.madgik.resourcecatalogue.dto.MapValues;
 import gr.uoa.di.madgik.resourcecatalogue.dto.PlaceCount;
 import gr.uoa.di.madgik.resourcecatalogue.dto.Value;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsCubeService;
 import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +13,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,10 +26,12 @@ import java.util.Map;
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final StatisticsCubeService statisticsCube;
 
     @Autowired
-    StatisticsController(StatisticsService statisticsService) {
+    StatisticsController(StatisticsService statisticsService, StatisticsCubeService statisticsCube) {
         this.statisticsService = statisticsService;
+        this.statisticsCube = statisticsCube;
     }
 
     @Deprecated(forRemoval = true)
@@ -149,4 +154,19 @@ public class StatisticsController {
         String id = prefix + "/" + suffix;
         return new ResponseEntity<>(statisticsService.addToProject(id, by), HttpStatus.OK);
     }
+
+    @Operation(summary = "Recomputes all the statistics from the stored resources and events.")
+    @PostMapping(path = "rebuild")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Void> rebuild() {
+        statisticsCube.rebuild();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @Operation(summary = "Compares the statistics with the ones computed from the stored resources and events, returning the differences.")
+    @GetMapping(path = "check", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<String>> check() {
+        return new ResponseEntity<>(statisticsCube.check(), HttpStatus.OK);
+    }
 }
@@ -1,8 +1,8 @@
 package gr.uoa.di.madgik.resourcecatalogue.controllers.publicresources;
 
 import gr.uoa.di.madgik.resourcecatalogue.domain.Bundle;
-import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.resourcecatalogue.service.GenericResourceService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BulkLookup;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -36,16 +37,19 @@ public class PublicController {
     @GetMapping(path = "public/resources/ids", produces = {MediaType.APPLICATION_JSON_VALUE})
     public ResponseEntity<List<?>> getSomeResources(@RequestParam("ids") String[] ids) {
         String[] resourceTypeNames = new String[]{"service", "training_resource"};
-        List<?> someResources = new ArrayList<>();
+        List<BulkLookup<Bundle<?>>> lookups = new ArrayList<>();
+        for (String resourceType : resourceTypeNames) {
+            lookups.add(genericResourceService.getBulk(Arrays.asList(ids), resourceType));
+        }
+        List<Bundle<?>> someResources = new ArrayList<>();
         for (String id : ids) {
-            for (String resourceType : resourceTypeNames) {
-                try {
-                    someResources.add(genericResourceService.get(resourceType, id));
-                } catch (ResourceNotFoundException e) {
+            for (BulkLookup<Bundle<?>> lookup : lookups) {
+                if (lookup.get(id) != null) {
+                    someResources.add(lookup.get(id));
                 }
             }
         }
-        List<?> ret = someResources.stream().map(r -> ((Bundle<?>) r).getPayload()).collect(Collectors.toList());
+        List<?> ret = someResources.stream().map(r -> r.getPayload()).collect(Collectors.toList());
         return new ResponseEntity<>(ret, HttpStatus.OK);
     }
 
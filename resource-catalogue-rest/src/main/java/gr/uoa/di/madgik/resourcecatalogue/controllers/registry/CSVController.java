@@ -1,35 +1,39 @@
 package gr.uoa.di.madgik.resourcecatalogue.controllers.registry;
 
 import gr.uoa.di.madgik.registry.domain.FacetFilter;
-import gr.uoa.di.madgik.registry.domain.Paging;
 import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
 import gr.uoa.di.madgik.resourcecatalogue.domain.ServiceBundle;
 import gr.uoa.di.madgik.resourcecatalogue.domain.User;
-import gr.uoa.di.madgik.resourcecatalogue.domain.Vocabulary;
 import gr.uoa.di.madgik.resourcecatalogue.service.ProviderService;
 import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
-import gr.uoa.di.madgik.resourcecatalogue.service.VocabularyService;
 import gr.uoa.di.madgik.resourcecatalogue.utils.CSVService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportFormat;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportJob;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @Profile("beyond")
 @RestController
@@ -38,58 +42,61 @@ import java.util.List;
 public class CSVController {
 
     private static Logger logger = LogManager.getLogger(CSVController.class);
-    private final ServiceBundleService serviceBundleService;
+    private final ServiceBundleService<ServiceBundle> serviceBundleService;
     private final ProviderService providerService;
-    private final VocabularyService vocabularyService;
     private final CSVService csvService;
-
-    @Value("${elastic.index.max_result_window:10000}")
-    private int maxQuantity;
+    private final ExportService exportService;
 
     @Autowired
-    CSVController(ServiceBundleService service, ProviderService provider, VocabularyService vocabulary, CSVService csvService) {
+    CSVController(ServiceBundleService<ServiceBundle> service, ProviderService provider, CSVService csvService, ExportService exportService) {
         this.serviceBundleService = service;
         this.providerService = provider;
-        this.vocabularyService = vocabulary;
         this.csvService = csvService;
+        this.exportService = exportService;
     }
 
     @Operation(summary = "Downloads a csv file with Provider entries")
     @GetMapping(path = "providers", produces = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
-    public ResponseEntity<String> providersToCSV(@RequestParam(required = false) Boolean published,
-                                                 @Parameter(hidden = true) Authentication auth,
-                                                 HttpServletResponse response) {
-        Paging<ProviderBundle> providers = providerService.getAll(createFacetFilter(published), auth);
-        String csvData = csvService.listProvidersToCSV(providers.getResults());
-        response.setHeader("Content-disposition", "attachment; filename=" + "providers.csv");
+    public void providersToCSV(@RequestParam(required = false) Boolean published,
+                               @RequestParam(defaultValue = "CSV") ExportFormat format,
+                               @Parameter(description = "Compress the file with gzip")
+                               @RequestParam(defaultValue = "false") boolean gzip,
+                               @Parameter(description = "Id of the last row received, to resume an interrupted download")
+                               @RequestParam(required = false) String after,
+                               @Parameter(hidden = true) Authentication auth,
+                               HttpServletResponse response) throws IOException {
+        export("provider", "providers", published, format, gzip, after, response);
         logger.info("User {} downloaded Providers CSV list", User.of(auth).getEmail());
-        return ResponseEntity.ok(csvData);
     }
 
     @Operation(summary = "Downloads a csv file with Service entries")
     @GetMapping(path = "services", produces = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
-    public ResponseEntity<String> servicesToCSV(@RequestParam(required = false) Boolean published,
-                                                @Parameter(hidden = true) Authentication auth,
-                                                HttpServletResponse response) {
-        Paging<ServiceBundle> serviceBundles = serviceBundleService.getAll(createFacetFilter(published), auth);
-        String csvData = csvService.listServicesToCSV(serviceBundles.getResults());
-        response.setHeader("Content-disposition", "attachment; filename=" + "services.csv");
+    public void servicesToCSV(@RequestParam(required = false) Boolean published,
+                              @RequestParam(defaultValue = "CSV") ExportFormat format,
+                              @Parameter(description = "Compress the file with gzip")
+                              @RequestParam(defaultValue = "false") boolean gzip,
+                              @Parameter(description = "Id of the last row received, to resume an interrupted download")
+                              @RequestParam(required = false) String after,
+                              @Parameter(hidden = true) Authentication auth,
+                              HttpServletResponse response) throws IOException {
+        export("service", "services", published, format, gzip, after, response);
         logger.info("User {} downloaded Services CSV list", User.of(auth).getEmail());
-        return ResponseEntity.ok(csvData);
     }
 
     @Operation(summary = "Downloads a csv file with Vocabulary entries")
     @GetMapping(path = "vocabularies", produces = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
-    public ResponseEntity<String> vocabulariesToCSV(@Parameter(hidden = true) Authentication auth,
-                                                    HttpServletResponse response) {
-        Paging<Vocabulary> vocabularies = vocabularyService.getAll(createFacetFilter(null), auth);
-        String csvData = csvService.listVocabulariesToCSV(vocabularies.getResults());
-        response.setHeader("Content-disposition", "attachment; filename=" + "vocabularies.csv");
+    public void vocabulariesToCSV(@RequestParam(defaultValue = "CSV") ExportFormat format,
+                                  @Parameter(description = "Compress the file with gzip")
+                                  @RequestParam(defaultValue = "false") boolean gzip,
+                                  @Parameter(description = "Id of the last row received, to resume an interrupted download")
+                                  @RequestParam(required = false) String after,
+                                  @Parameter(hidden = true) Authentication auth,
+                                  HttpServletResponse response) throws IOException {
+        export("vocabulary", "vocabularies", null, format, gzip, after, response);
         logger.info("User {} downloaded Vocabularies CSV list", User.of(auth).getEmail());
-        return ResponseEntity.ok(csvData);
     }
 
     @Operation(summary = "Downloads a csv file with the number of approved services per provider and country, before a specific date")
@@ -100,18 +107,77 @@ public class CSVController {
                                                         @Parameter(hidden = true) Authentication auth,
                                                         HttpServletResponse response) throws IOException {
         long timestamp = csvService.generateTimestampFromDate(date);
-        List<ProviderBundle> providers = providerService.getAll(createFacetFilter(false), auth).getResults();
-        List<ServiceBundle> services = serviceBundleService.getAll(createFacetFilter(false), auth).getResults();
-        csvService.computeApprovedServicesBeforeTimestampAndGenerateCSV(timestamp, providers, services, response);
+        try (Stream<ProviderBundle> providers = providerService.stream(createFacetFilter(false));
+             Stream<ServiceBundle> services = serviceBundleService.stream(createFacetFilter(false))) {
+            csvService.computeApprovedServicesBeforeTimestampAndGenerateCSV(timestamp, providers, services, response);
+        }
+    }
+
+    @Operation(summary = "Starts exporting all the resources of a type in the background. The file can be downloaded when the job completes.")
+    @PostMapping(path = "jobs", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<ExportJob> submitExportJob(@Parameter(description = "provider, service or vocabulary")
+                                                     @RequestParam String resourceType,
+                                                     @RequestParam(required = false) Boolean published,
+                                                     @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                     @RequestParam(defaultValue = "true") boolean gzip,
+                                                     @Parameter(hidden = true) Authentication auth) {
+        ExportJob job = exportService.submit(resourceType, published, format, gzip, User.of(auth).getEmail());
+        return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Returns the export jobs whose files have not expired, latest first.")
+    @GetMapping(path = "jobs", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<List<ExportJob>> getExportJobs() {
+        return ResponseEntity.ok(exportService.getJobs());
+    }
+
+    @Operation(summary = "Returns an export job.")
+    @GetMapping(path = "jobs/{id}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<ExportJob> getExportJob(@PathVariable String id) {
+        return ResponseEntity.ok(exportService.getJob(id));
+    }
 
-//        for (Map.Entry<String, Integer> entry : providerToServiceCountApprovedBeforeTimestamp.entrySet()) {
-//            logger.info(providerIdToName.get(entry.getKey()) + " : " + providerIdToCountry.get(entry.getKey()) + " : " + entry.getValue());
-//        }
+    @Operation(summary = "Downloads the file of a completed export job. Supports range requests, to resume interrupted downloads.")
+    @GetMapping(path = "jobs/{id}/download", produces = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<org.springframework.core.io.Resource> downloadExport(@PathVariable String id,
+                                                                               @Parameter(hidden = true) Authentication auth) {
+        ExportJob job = exportService.getJob(id);
+        Path artifact = exportService.getArtifact(id);
+        logger.info("User {} downloaded export [{}]", User.of(auth).getEmail(), id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFileName())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(job.isGzip() ? MediaType.parseMediaType("application/gzip")
+                        : MediaType.parseMediaType(job.getFormat().getContentType()))
+                .body(new FileSystemResource(artifact));
+    }
+
+    /**
+     * Streams the resources to the response as they are fetched, so the download starts immediately.
+     */
+    private void export(String resourceType, String fileName, Boolean published, ExportFormat format, boolean gzip,
+                        String after, HttpServletResponse response) throws IOException {
+        String file = fileName + "." + format.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + file);
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+            exportService.export(resourceType, published, format, after, compressed);
+            compressed.finish();
+        } else {
+            exportService.export(resourceType, published, format, after, out);
+        }
+        out.flush();
     }
 
     private FacetFilter createFacetFilter(Boolean published) {
         FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
         if (published != null) {
             ff.addFilter("published", published);
         }
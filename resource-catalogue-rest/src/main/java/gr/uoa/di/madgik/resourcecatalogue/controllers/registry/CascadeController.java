@@ -0,0 +1,38 @@
+package gr.uoa.di.madgik.resourcecatalogue.controllers.registry;
+
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.resourcecatalogue.service.CascadeService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CascadeJob;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("cascade")
+@Tag(name = "cascade", description = "Progress of the changes applied to all the resources of Catalogues and Providers")
+public class CascadeController {
+
+    private final CascadeService cascadeService;
+
+    CascadeController(CascadeService cascadeService) {
+        this.cascadeService = cascadeService;
+    }
+
+    @Operation(summary = "Returns the running and the recently finished cascade jobs, latest first.")
+    @GetMapping(path = "jobs", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<Paging<CascadeJob>> getJobs(@RequestParam(defaultValue = "0") int from,
+                                                      @RequestParam(defaultValue = "10") int quantity) {
+        return ResponseEntity.ok(cascadeService.getJobs(from, quantity));
+    }
+
+    @Operation(summary = "Returns the progress of a cascade job and the resources it could not change.")
+    @GetMapping(path = "jobs/{id}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<CascadeJob> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(cascadeService.getJob(id));
+    }
+}
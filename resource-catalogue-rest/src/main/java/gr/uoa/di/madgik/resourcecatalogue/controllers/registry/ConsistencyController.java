@@ -0,0 +1,57 @@
+package gr.uoa.di.madgik.resourcecatalogue.controllers.registry;
+
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.resourcecatalogue.domain.User;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ConsistencyReport;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ConsistencyReportService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ConsistencyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("consistency")
+@Tag(name = "consistency", description = "Inspect the consistency of the internal and public resources")
+public class ConsistencyController {
+
+    private static final Logger logger = LogManager.getLogger(ConsistencyController.class);
+
+    private final ConsistencyService consistencyService;
+    private final ConsistencyReportService reportService;
+
+    ConsistencyController(ConsistencyService consistencyService,
+                          ConsistencyReportService reportService) {
+        this.consistencyService = consistencyService;
+        this.reportService = reportService;
+    }
+
+    @Operation(summary = "Returns the stored consistency reports, latest first, optionally filtered by resource type.")
+    @GetMapping(path = "reports", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Paging<ConsistencyReport>> getReports(@Parameter(description = "e.g. provider, service, training_resource")
+                                                                @RequestParam(required = false) String resourceType,
+                                                                @RequestParam(defaultValue = "0") int from,
+                                                                @RequestParam(defaultValue = "10") int quantity) {
+        List<ConsistencyReport> reports = reportService.getReports(resourceType, from, quantity);
+        int total = reportService.count(resourceType);
+        return ResponseEntity.ok(new Paging<>(total, from, from + reports.size(), reports, new ArrayList<>()));
+    }
+
+    @Operation(summary = "Checks the consistency of all the resources now and stores the reports.")
+    @PostMapping(path = "check", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<ConsistencyReport>> check(@Parameter(hidden = true) Authentication auth) {
+        logger.info("User '{}' started a consistency check", User.of(auth).getEmail());
+        return ResponseEntity.ok(consistencyService.checkConsistency());
+    }
+}
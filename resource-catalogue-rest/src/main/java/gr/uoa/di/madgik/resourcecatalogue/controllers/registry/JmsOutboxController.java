@@ -0,0 +1,60 @@
+package gr.uoa.di.madgik.resourcecatalogue.controllers.registry;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.User;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
+import gr.uoa.di.madgik.resourcecatalogue.utils.JmsOutboxService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("jms/outbox")
+@Tag(name = "jms outbox", description = "Inspect and replay the published JMS messages")
+public class JmsOutboxController {
+
+    private static final Logger logger = LogManager.getLogger(JmsOutboxController.class);
+
+    private final Optional<JmsOutboxService> jmsOutboxService;
+
+    JmsOutboxController(Optional<JmsOutboxService> jmsOutboxService) {
+        this.jmsOutboxService = jmsOutboxService;
+    }
+
+    @Operation(summary = "Returns the number of pending messages and the sequence number of the last published one.")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        JmsOutboxService outbox = getOutbox();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pending", outbox.countPending());
+        status.put("lastPublishedSequence", outbox.getLastPublishedSequence());
+        return ResponseEntity.ok(status);
+    }
+
+    @Operation(summary = "Publishes again, in order, the messages starting from the given sequence number.")
+    @PostMapping(path = "replay", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Integer> replay(@RequestParam long fromSequence,
+                                          @Parameter(hidden = true) Authentication auth) {
+        int replayed = getOutbox().replay(fromSequence);
+        logger.info("User '{}' replayed {} JMS messages from sequence number {}",
+                User.of(auth).getEmail(), replayed, fromSequence);
+        return ResponseEntity.ok(replayed);
+    }
+
+    private JmsOutboxService getOutbox() {
+        return jmsOutboxService.orElseThrow(() -> new ResourceException("JMS is not enabled", HttpStatus.NOT_FOUND));
+    }
+}
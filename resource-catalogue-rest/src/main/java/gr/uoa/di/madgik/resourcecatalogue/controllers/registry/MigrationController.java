@@ -0,0 +1,67 @@
+package gr.uoa.di.madgik.resourcecatalogue.controllers.registry;
+
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.resourcecatalogue.service.MigrationService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationJob;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("migration")
+@Tag(name = "migration", description = "Migrate Providers and their resources to other Catalogues")
+public class MigrationController {
+
+    private final MigrationService migrationService;
+
+    MigrationController(MigrationService migrationService) {
+        this.migrationService = migrationService;
+    }
+
+    @Operation(summary = "Submits a job migrating a Provider and all its resources to another Catalogue. " +
+            "A dry run only reports the resources that would be migrated.")
+    @PostMapping(path = "jobs", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<MigrationJob> submit(@RequestParam String catalogueId, @RequestParam String providerId,
+                                               @RequestParam String newCatalogueId,
+                                               @RequestParam(defaultValue = "false") boolean dryRun,
+                                               @Parameter(hidden = true) Authentication auth) {
+        MigrationJob job = migrationService.submit(providerId, catalogueId, newCatalogueId, dryRun, auth);
+        return new ResponseEntity<>(job, dryRun ? HttpStatus.OK : HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Returns the migration jobs, latest first.")
+    @GetMapping(path = "jobs", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<Paging<MigrationJob>> getJobs(@RequestParam(defaultValue = "0") int from,
+                                                        @RequestParam(defaultValue = "10") int quantity) {
+        return ResponseEntity.ok(migrationService.getJobs(from, quantity));
+    }
+
+    @Operation(summary = "Returns the status of a migration job and of each of its resources.")
+    @GetMapping(path = "jobs/{id}", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<MigrationJob> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(migrationService.getJob(id));
+    }
+
+    @Operation(summary = "Cancels a running migration job. The resources already migrated are not moved back.")
+    @PostMapping(path = "jobs/{id}/cancel", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<MigrationJob> cancel(@PathVariable String id) {
+        return ResponseEntity.ok(migrationService.cancel(id));
+    }
+
+    @Operation(summary = "Retries a failed or cancelled migration job, skipping the resources already migrated.")
+    @PostMapping(path = "jobs/{id}/retry", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT')")
+    public ResponseEntity<MigrationJob> retry(@PathVariable String id) {
+        return new ResponseEntity<>(migrationService.retry(id), HttpStatus.ACCEPTED);
+    }
+}
@@ -19,7 +19,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
-import java.util.Collection;
+import java.util.*;
 
 @Profile("beyond")
 @ControllerAdvice
@@ -50,16 +50,18 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (t != null && !securityService.hasRole(auth, "ROLE_ADMIN") && !securityService.hasRole(auth, "ROLE_EPOT")) {
             logger.trace("User is not Admin nor EPOT: attempting to remove sensitive information");
+            Collection<T> objects;
             if (Collection.class.isAssignableFrom(t.getClass())) {
-                for (T object : ((Collection<T>) t)) {
-                    modifyContent(object, auth);
-                }
+                objects = (Collection<T>) t;
             } else if (Paging.class.isAssignableFrom(t.getClass())) {
-                for (T object : ((Paging<T>) t).getResults()) {
-                    modifyContent(object, auth);
-                }
+                objects = ((Paging<T>) t).getResults();
             } else {
-                modifyContent(t, auth);
+                objects = Collections.singletonList(t);
+            }
+            AdminRights adminRights = new AdminRights(auth);
+            adminRights.resolve(objects);
+            for (T object : objects) {
+                modifyContent(object, adminRights);
             }
             logger.debug("Final Object: {}", t);
         }
@@ -67,118 +69,118 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
         return t;
     }
 
-    protected void modifyContent(T t, Authentication auth) {
+    protected void modifyContent(T t, AdminRights adminRights) {
         if (t instanceof CatalogueBundle) {
-            modifyCatalogueBundle(t, auth);
+            modifyCatalogueBundle(t, adminRights);
         } else if (t instanceof Catalogue) {
-            modifyCatalogue(t, auth);
+            modifyCatalogue(t, adminRights);
         } else if (t instanceof ProviderBundle) {
-            modifyProviderBundle(t, auth);
+            modifyProviderBundle(t, adminRights);
         } else if (t instanceof Provider) {
-            modifyProvider(t, auth);
+            modifyProvider(t, adminRights);
         } else if (t instanceof ServiceBundle) {
-            modifyServiceBundle(t, auth);
+            modifyServiceBundle(t, adminRights);
         } else if (t instanceof Service) {
-            modifyService(t, auth);
+            modifyService(t, adminRights);
         } else if (t instanceof TrainingResourceBundle) {
-            modifyTrainingResourceBundle(t, auth);
+            modifyTrainingResourceBundle(t, adminRights);
         } else if (t instanceof TrainingResource) {
-            modifyTrainingResource(t, auth);
+            modifyTrainingResource(t, adminRights);
         } else if (t instanceof InteroperabilityRecordBundle) {
-            modifyInteroperabilityRecordBundle(t, auth);
+            modifyInteroperabilityRecordBundle(t, adminRights);
         } else if (t instanceof LoggingInfo) {
             modifyLoggingInfo(t);
         }
     }
 
-    private void modifyService(T service, Authentication auth) {
-        if (!this.securityService.isResourceProviderAdmin(auth, ((Service) service).getId(), ((Service) service).getCatalogueId())) {
+    private void modifyService(T service, AdminRights adminRights) {
+        if (!adminRights.isResourceProviderAdmin(getProviderIds((Service) service), ((Service) service).getCatalogueId())) {
             ((Service) service).setMainContact(null);
             ((Service) service).setSecurityContactEmail(null);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private void modifyServiceBundle(T serviceBundle, Authentication auth) {
+    private void modifyServiceBundle(T serviceBundle, AdminRights adminRights) {
         modifyLoggingInfoList((T) ((ServiceBundle) serviceBundle).getLoggingInfo());
         modifyLoggingInfo((T) ((ServiceBundle) serviceBundle).getLatestAuditInfo());
         modifyLoggingInfo((T) ((ServiceBundle) serviceBundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((ServiceBundle) serviceBundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isResourceProviderAdmin(auth, ((ServiceBundle) serviceBundle).getId(), ((ServiceBundle) serviceBundle).getService().getCatalogueId())) {
+        if (!adminRights.isResourceProviderAdmin(getProviderIds(((ServiceBundle) serviceBundle).getService()), ((ServiceBundle) serviceBundle).getService().getCatalogueId())) {
             ((ServiceBundle) serviceBundle).getService().setMainContact(null);
             ((ServiceBundle) serviceBundle).getService().setSecurityContactEmail(null);
             ((ServiceBundle) serviceBundle).getMetadata().setTerms(null);
         }
     }
 
-    private void modifyTrainingResource(T trainingResource, Authentication auth) {
-        if (!this.securityService.isResourceProviderAdmin(auth, ((TrainingResource) trainingResource).getId(), ((TrainingResource) trainingResource).getCatalogueId())) {
+    private void modifyTrainingResource(T trainingResource, AdminRights adminRights) {
+        if (!adminRights.isResourceProviderAdmin(getProviderIds((TrainingResource) trainingResource), ((TrainingResource) trainingResource).getCatalogueId())) {
             ((TrainingResource) trainingResource).setContact(null);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private void modifyTrainingResourceBundle(T trainingResourceBundle, Authentication auth) {
+    private void modifyTrainingResourceBundle(T trainingResourceBundle, AdminRights adminRights) {
         modifyLoggingInfoList((T) ((TrainingResourceBundle) trainingResourceBundle).getLoggingInfo());
         modifyLoggingInfo((T) ((TrainingResourceBundle) trainingResourceBundle).getLatestAuditInfo());
         modifyLoggingInfo((T) ((TrainingResourceBundle) trainingResourceBundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((TrainingResourceBundle) trainingResourceBundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isResourceProviderAdmin(auth, ((TrainingResourceBundle) trainingResourceBundle).getId(), ((TrainingResourceBundle) trainingResourceBundle).getTrainingResource().getCatalogueId())) {
+        if (!adminRights.isResourceProviderAdmin(getProviderIds(((TrainingResourceBundle) trainingResourceBundle).getTrainingResource()), ((TrainingResourceBundle) trainingResourceBundle).getTrainingResource().getCatalogueId())) {
             ((TrainingResourceBundle) trainingResourceBundle).getTrainingResource().setContact(null);
             ((TrainingResourceBundle) trainingResourceBundle).getMetadata().setTerms(null);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private void modifyInteroperabilityRecordBundle(T interoperabilityRecordBundle, Authentication auth) {
+    private void modifyInteroperabilityRecordBundle(T interoperabilityRecordBundle, AdminRights adminRights) {
         modifyLoggingInfoList((T) ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getLoggingInfo());
         modifyLoggingInfo((T) ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getLatestAuditInfo());
         modifyLoggingInfo((T) ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isResourceProviderAdmin(auth, ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getId(), ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getInteroperabilityRecord().getCatalogueId())) {
+        if (!adminRights.isResourceProviderAdmin(getProviderIds(((InteroperabilityRecordBundle) interoperabilityRecordBundle).getInteroperabilityRecord()), ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getInteroperabilityRecord().getCatalogueId())) {
             ((InteroperabilityRecordBundle) interoperabilityRecordBundle).getMetadata().setTerms(null);
         }
     }
 
-    private void modifyProvider(T provider, Authentication auth) {
-        if (!this.securityService.isProviderAdmin(auth, ((Provider) provider).getId(), ((Provider) provider).getCatalogueId())) {
+    private void modifyProvider(T provider, AdminRights adminRights) {
+        if (!adminRights.isProviderAdmin(((Provider) provider).getId(), ((Provider) provider).getCatalogueId())) {
             ((Provider) provider).setMainContact(null);
             ((Provider) provider).setUsers(null);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private void modifyProviderBundle(T bundle, Authentication auth) {
+    private void modifyProviderBundle(T bundle, AdminRights adminRights) {
         modifyLoggingInfoList((T) ((ProviderBundle) bundle).getLoggingInfo());
         modifyLoggingInfo((T) ((ProviderBundle) bundle).getLatestAuditInfo());
         modifyLoggingInfo((T) ((ProviderBundle) bundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((ProviderBundle) bundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isProviderAdmin(auth, ((ProviderBundle) bundle).getId(), ((Bundle<Provider>) bundle).getPayload().getCatalogueId())) {
+        if (!adminRights.isProviderAdmin(((ProviderBundle) bundle).getId(), ((Bundle<Provider>) bundle).getPayload().getCatalogueId())) {
             ((ProviderBundle) bundle).getProvider().setMainContact(null);
             ((ProviderBundle) bundle).getProvider().setUsers(null);
             ((ProviderBundle) bundle).getMetadata().setTerms(null);
         }
     }
 
-    private void modifyCatalogue(T catalogue, Authentication auth) {
-        if (!this.securityService.isCatalogueAdmin(auth, ((Catalogue) catalogue).getId(), true)) {
+    private void modifyCatalogue(T catalogue, AdminRights adminRights) {
+        if (!adminRights.isCatalogueAdmin(((Catalogue) catalogue).getId())) {
             ((Catalogue) catalogue).setMainContact(null);
             ((Catalogue) catalogue).setUsers(null);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private void modifyCatalogueBundle(T bundle, Authentication auth) {
+    private void modifyCatalogueBundle(T bundle, AdminRights adminRights) {
         modifyLoggingInfoList((T) ((CatalogueBundle) bundle).getLoggingInfo());
         modifyLoggingInfo((T) ((CatalogueBundle) bundle).getLatestAuditInfo());
         modifyLoggingInfo((T) ((CatalogueBundle) bundle).getLatestUpdateInfo());
         modifyLoggingInfo((T) ((CatalogueBundle) bundle).getLatestOnboardingInfo());
 
-        if (!this.securityService.isCatalogueAdmin(auth, ((CatalogueBundle) bundle).getId(), true)) {
+        if (!adminRights.isCatalogueAdmin(((CatalogueBundle) bundle).getId())) {
             ((CatalogueBundle) bundle).getCatalogue().setMainContact(null);
             ((CatalogueBundle) bundle).getCatalogue().setUsers(null);
             ((CatalogueBundle) bundle).getMetadata().setTerms(null);
@@ -209,4 +211,150 @@ public class SecureResponseAdvice<T> implements ResponseBodyAdvice<T> {
             }
         }
     }
+
+    private static List<String> getProviderIds(Service service) {
+        List<String> providerIds = new ArrayList<>();
+        providerIds.add(service.getResourceOrganisation());
+        if (service.getResourceProviders() != null) {
+            providerIds.addAll(service.getResourceProviders());
+        }
+        return providerIds;
+    }
+
+    private static List<String> getProviderIds(TrainingResource trainingResource) {
+        List<String> providerIds = new ArrayList<>();
+        providerIds.add(trainingResource.getResourceOrganisation());
+        if (trainingResource.getResourceProviders() != null) {
+            providerIds.addAll(trainingResource.getResourceProviders());
+        }
+        return providerIds;
+    }
+
+    private static List<String> getProviderIds(InteroperabilityRecord interoperabilityRecord) {
+        return Collections.singletonList(interoperabilityRecord.getProviderId());
+    }
+
+    /**
+     * Admin rights of the current user, resolved in bulk for all the objects of a response and memoized for the
+     * duration of the request.
+     */
+    protected class AdminRights {
+
+        private final Authentication auth;
+        private final boolean anonymous;
+        private final Map<String, Boolean> providerAdmin = new HashMap<>();
+        private final Map<String, Boolean> catalogueAdmin = new HashMap<>();
+
+        AdminRights(Authentication auth) {
+            this.auth = auth;
+            this.anonymous = auth == null || securityService.hasRole(auth, "ROLE_ANONYMOUS");
+        }
+
+        /**
+         * Collects the Providers and Catalogues referenced by the given objects and resolves the rights of the user
+         * on all of them with one lookup per Catalogue.
+         */
+        void resolve(Collection<T> objects) {
+            if (anonymous) {
+                return;
+            }
+            Map<String, Set<String>> providersPerCatalogue = new HashMap<>();
+            Set<String> catalogues = new HashSet<>();
+            for (T t : objects) {
+                if (t instanceof CatalogueBundle) {
+                    catalogues.add(((CatalogueBundle) t).getId());
+                } else if (t instanceof Catalogue) {
+                    catalogues.add(((Catalogue) t).getId());
+                } else if (t instanceof ProviderBundle) {
+                    addProviders(providersPerCatalogue, ((ProviderBundle) t).getProvider().getCatalogueId(),
+                            Collections.singletonList(((ProviderBundle) t).getId()));
+                } else if (t instanceof Provider) {
+                    addProviders(providersPerCatalogue, ((Provider) t).getCatalogueId(),
+                            Collections.singletonList(((Provider) t).getId()));
+                } else if (t instanceof ServiceBundle) {
+                    addProviders(providersPerCatalogue, ((ServiceBundle) t).getService().getCatalogueId(),
+                            getProviderIds(((ServiceBundle) t).getService()));
+                } else if (t instanceof Service) {
+                    addProviders(providersPerCatalogue, ((Service) t).getCatalogueId(), getProviderIds((Service) t));
+                } else if (t instanceof TrainingResourceBundle) {
+                    addProviders(providersPerCatalogue, ((TrainingResourceBundle) t).getTrainingResource().getCatalogueId(),
+                            getProviderIds(((TrainingResourceBundle) t).getTrainingResource()));
+                } else if (t instanceof TrainingResource) {
+                    addProviders(providersPerCatalogue, ((TrainingResource) t).getCatalogueId(),
+                            getProviderIds((TrainingResource) t));
+                } else if (t instanceof InteroperabilityRecordBundle) {
+                    addProviders(providersPerCatalogue, ((InteroperabilityRecordBundle) t).getInteroperabilityRecord().getCatalogueId(),
+                            getProviderIds(((InteroperabilityRecordBundle) t).getInteroperabilityRecord()));
+                }
+            }
+            for (Map.Entry<String, Set<String>> entry : providersPerCatalogue.entrySet()) {
+                resolveProviders(entry.getValue(), entry.getKey());
+            }
+            resolveCatalogues(catalogues);
+        }
+
+        boolean isProviderAdmin(String providerId, String catalogueId) {
+            if (anonymous || providerId == null) {
+                return false;
+            }
+            String key = getKey(providerId, catalogueId);
+            if (!providerAdmin.containsKey(key)) {
+                resolveProviders(Collections.singleton(providerId), catalogueId);
+            }
+            return providerAdmin.get(key);
+        }
+
+        boolean isResourceProviderAdmin(List<String> providerIds, String catalogueId) {
+            return providerIds.stream().anyMatch(providerId -> isProviderAdmin(providerId, catalogueId));
+        }
+
+        boolean isCatalogueAdmin(String catalogueId) {
+            if (anonymous || catalogueId == null) {
+                return false;
+            }
+            if (!catalogueAdmin.containsKey(catalogueId)) {
+                resolveCatalogues(Collections.singleton(catalogueId));
+            }
+            return catalogueAdmin.get(catalogueId);
+        }
+
+        private void resolveProviders(Set<String> providerIds, String catalogueId) {
+            Set<String> administered = new HashSet<>();
+            try {
+                administered = securityService.getAdministeredProviderIds(auth, providerIds, catalogueId);
+            } catch (RuntimeException e) {
+                logger.warn("Could not resolve Provider admin rights", e);
+            }
+            for (String providerId : providerIds) {
+                providerAdmin.put(getKey(providerId, catalogueId), administered.contains(providerId));
+            }
+        }
+
+        private void resolveCatalogues(Set<String> catalogueIds) {
+            if (catalogueIds.isEmpty()) {
+                return;
+            }
+            Set<String> administered = new HashSet<>();
+            try {
+                administered = securityService.getAdministeredCatalogueIds(auth, catalogueIds);
+            } catch (RuntimeException e) {
+                logger.warn("Could not resolve Catalogue admin rights", e);
+            }
+            for (String catalogueId : catalogueIds) {
+                catalogueAdmin.put(catalogueId, administered.contains(catalogueId));
+            }
+        }
+
+        private void addProviders(Map<String, Set<String>> providersPerCatalogue, String catalogueId, List<String> providerIds) {
+            for (String providerId : providerIds) {
+                if (providerId != null && !providerAdmin.containsKey(getKey(providerId, catalogueId))) {
+                    providersPerCatalogue.computeIfAbsent(catalogueId, k -> new HashSet<>()).add(providerId);
+                }
+            }
+        }
+
+        private String getKey(String providerId, String catalogueId) {
+            return String.format("%s/%s", catalogueId, providerId);
+        }
+    }
 }
@@ -1,8 +1,5 @@
 package gr.uoa.di.madgik.resourcecatalogue.controllers.registry;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
 import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.registry.domain.Paging;
 import gr.uoa.di.madgik.registry.exception.ResourceNotFoundException;
@@ -15,8 +12,8 @@ import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
 import gr.uoa.di.madgik.resourcecatalogue.service.GenericResourceService;
 import gr.uoa.di.madgik.resourcecatalogue.service.HelpdeskService;
 import gr.uoa.di.madgik.resourcecatalogue.service.MonitoringService;
-import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
-import gr.uoa.di.madgik.resourcecatalogue.utils.CreateArgoGrnetHttpRequest;
+import gr.uoa.di.madgik.resourcecatalogue.service.MonitoringServiceTypeService;
+import gr.uoa.di.madgik.resourcecatalogue.service.MonitoringStatusService;
 import gr.uoa.di.madgik.resourcecatalogue.utils.FacetFilterUtils;
 import gr.uoa.di.madgik.resourcecatalogue.validators.HelpdeskValidator;
 import gr.uoa.di.madgik.resourcecatalogue.validators.MonitoringValidator;
@@ -26,9 +23,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -41,7 +36,6 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.time.OffsetDateTime;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -54,14 +48,9 @@ public class ServiceExtensionsController {
     private static final Logger logger = LogManager.getLogger(ServiceExtensionsController.class);
     private final HelpdeskService helpdeskService;
     private final MonitoringService monitoringService;
-    private final ServiceBundleService serviceBundleService;
-    @Value("${argo.grnet.monitoring.availability}")
-    private String monitoringAvailability;
-    @Value("${argo.grnet.monitoring.status}")
-    private String monitoringStatus;
-    @Value("${argo.grnet.monitoring.token}")
-    private String monitoringToken;
     private final GenericResourceService genericResourceService;
+    private final MonitoringStatusService monitoringStatusService;
+    private final MonitoringServiceTypeService monitoringServiceTypeService;
 
     @InitBinder("helpdesk")
     protected void initHelpdeskBinder(WebDataBinder binder) {
@@ -76,12 +65,14 @@ public class ServiceExtensionsController {
     @Autowired
     ServiceExtensionsController(HelpdeskService helpdeskService,
                                 MonitoringService monitoringService,
-                                ServiceBundleService serviceBundleService,
-                                GenericResourceService genericResourceService) {
+                                GenericResourceService genericResourceService,
+                                MonitoringStatusService monitoringStatusService,
+                                MonitoringServiceTypeService monitoringServiceTypeService) {
         this.helpdeskService = helpdeskService;
         this.monitoringService = monitoringService;
-        this.serviceBundleService = serviceBundleService;
         this.genericResourceService = genericResourceService;
+        this.monitoringStatusService = monitoringStatusService;
+        this.monitoringServiceTypeService = monitoringServiceTypeService;
     }
 
     //SECTION: HELPDESK
@@ -305,6 +296,21 @@ public class ServiceExtensionsController {
         return new ResponseEntity<>(monitoringService.getAvailableServiceTypes(), HttpStatus.OK);
     }
 
+    @Operation(summary = "Returns the state of the local copy of the Monitoring serviceTypes")
+    @GetMapping(path = "/monitoring/serviceTypes/status", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<MonitoringServiceTypeService.Status> getServiceTypesStatus() {
+        return new ResponseEntity<>(monitoringServiceTypeService.getStatus(), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Reloads the local copy of the Monitoring serviceTypes from ARGO")
+    @PostMapping(path = "/monitoring/serviceTypes/refresh", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<MonitoringServiceTypeService.Status> refreshServiceTypes() {
+        monitoringServiceTypeService.refresh();
+        return new ResponseEntity<>(monitoringServiceTypeService.getStatus(), HttpStatus.OK);
+    }
+
     @Operation(summary = "Creates a new Monitoring.")
     @PostMapping(path = "/monitoring", produces = {MediaType.APPLICATION_JSON_VALUE})
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_EPOT') or @securityService.isResourceProviderAdmin(#auth, #monitoring.serviceId, #catalogueId)")
@@ -377,19 +383,7 @@ public class ServiceExtensionsController {
                                                             @RequestParam String start_time,
                                                             @RequestParam String end_time) {
         String serviceId = prefix + "/" + suffix;
-        //TODO: test if url works
-        String url = monitoringAvailability + serviceId + "?start_time=" + start_time + "&end_time=" + end_time;
-        String response = CreateArgoGrnetHttpRequest.createHttpRequest(url, monitoringToken);
-        List<MonitoringStatus> serviceMonitoringStatuses;
-        if (response != null) {
-            JSONObject obj = new JSONObject(response);
-            Gson gson = new Gson();
-            JsonElement jsonObj = gson.fromJson(String.valueOf(obj), JsonElement.class);
-            JsonArray results = jsonObj.getAsJsonObject().get("endpoints").getAsJsonArray().get(0).getAsJsonObject().get("results").getAsJsonArray();
-            serviceMonitoringStatuses = monitoringService.createMonitoringAvailabilityObject(results);
-            return serviceMonitoringStatuses;
-        }
-        return null;
+        return monitoringStatusService.getAvailabilities(serviceId, start_time, end_time);
     }
 
     @GetMapping(path = "/monitoring/monitoringStatus/{prefix}/{suffix}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
@@ -397,24 +391,10 @@ public class ServiceExtensionsController {
                                                       @Parameter(description = "The right part of the ID after the '/'") @PathVariable("suffix") String suffix,
                                                       @RequestParam(defaultValue = "false") Boolean allStatuses) {
         String serviceId = prefix + "/" + suffix;
-        //TODO: test if url works
-        String url = monitoringStatus + serviceId;
-        if (allStatuses != null) {
-            if (allStatuses) {
-                url += "?view=details";
-            }
+        if (allStatuses != null && allStatuses) {
+            return monitoringStatusService.getDetailedStatuses(serviceId);
         }
-        String response = CreateArgoGrnetHttpRequest.createHttpRequest(url, monitoringToken);
-        List<MonitoringStatus> serviceMonitoringStatuses;
-        if (response != null) {
-            JSONObject obj = new JSONObject(response);
-            Gson gson = new Gson();
-            JsonElement jsonObj = gson.fromJson(String.valueOf(obj), JsonElement.class);
-            JsonArray statuses = jsonObj.getAsJsonObject().get("endpoints").getAsJsonArray().get(0).getAsJsonObject().get("statuses").getAsJsonArray();
-            serviceMonitoringStatuses = monitoringService.createMonitoringStatusObject(statuses);
-            return serviceMonitoringStatuses;
-        }
-        return null;
+        return monitoringStatusService.getStatuses(serviceId);
     }
 
     @GetMapping(path = "/monitoring/monitoringStatusOnSpecificPeriod/{prefix}/{suffix}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
@@ -425,40 +405,12 @@ public class ServiceExtensionsController {
         String serviceId = prefix + "/" + suffix;
         OffsetDateTime odtFrom = OffsetDateTime.parse(from + "T00:00:01Z");
         OffsetDateTime odtTo = OffsetDateTime.parse(to + "T23:59:59Z");
-        //TODO: test if url works
-        String url = monitoringStatus + serviceId + "?start_time=" + odtFrom + "&end_time=" + odtTo;
-        String response = CreateArgoGrnetHttpRequest.createHttpRequest(url, monitoringToken);
-        List<MonitoringStatus> serviceMonitoringStatuses;
-        if (response != null) {
-            JSONObject obj = new JSONObject(response);
-            Gson gson = new Gson();
-            JsonElement jsonObj = gson.fromJson(String.valueOf(obj), JsonElement.class);
-            JsonArray statuses = jsonObj.getAsJsonObject().get("endpoints").getAsJsonArray().get(0).getAsJsonObject().get("statuses").getAsJsonArray();
-            serviceMonitoringStatuses = monitoringService.createMonitoringStatusObject(statuses);
-            return serviceMonitoringStatuses;
-        }
-        return null;
+        return monitoringStatusService.getStatuses(serviceId, odtFrom.toString(), odtTo.toString());
     }
 
     @GetMapping(path = "/monitoring/monitoringStatus/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
     public Map<String, String> getMonitoringStatusForAllServices() {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(10000);
-        ff.addFilter("published", false);
-        List<ServiceBundle> allServices = serviceBundleService.getAll(ff, null).getResults();
-        Map<String, String> serviceStatusMap = new HashMap<>();
-        for (ServiceBundle serviceBundle : allServices) {
-            serviceStatusMap.put(serviceBundle.getId(), getServiceMonitoringStatusValue(serviceBundle.getId()));
-        }
-        return serviceStatusMap;
-    }
-
-    private String getServiceMonitoringStatusValue(String serviceId) {
-        try {
-            return getMonitoringStatus(serviceId.split("/")[0], serviceId.split("/")[1], false).get(0).getValue();
-        } catch (NullPointerException e) {
-            return "";
-        }
+        return monitoringStatusService.getAllStatusValues();
     }
 
     // Create a Public MonitoringBundle if something went bad during its creation
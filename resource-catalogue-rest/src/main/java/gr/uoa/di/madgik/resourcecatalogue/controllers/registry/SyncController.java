@@ -0,0 +1,80 @@
+package gr.uoa.di.madgik.resourcecatalogue.controllers.registry;
+
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.resourcecatalogue.domain.User;
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncOutboxEntry;
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncOutboxService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncTokenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("sync")
+@Tag(name = "sync", description = "Inspect and replay the pending synchronizations")
+public class SyncController {
+
+    private static final Logger logger = LogManager.getLogger(SyncController.class);
+
+    private final SyncOutboxService syncOutboxService;
+    private final SyncTokenService syncTokenService;
+
+    SyncController(SyncOutboxService syncOutboxService, SyncTokenService syncTokenService) {
+        this.syncOutboxService = syncOutboxService;
+        this.syncTokenService = syncTokenService;
+    }
+
+    @Operation(summary = "Returns the pending synchronizations, optionally filtered by resource type and id.")
+    @GetMapping(path = "outbox", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Paging<SyncOutboxEntry>> getOutbox(@Parameter(description = "e.g. provider, service, trainingResource, datasource")
+                                                             @RequestParam(required = false) String resourceType,
+                                                             @RequestParam(required = false) String id,
+                                                             @RequestParam(defaultValue = "0") int from,
+                                                             @RequestParam(defaultValue = "10") int quantity) {
+        List<SyncOutboxEntry> entries = syncOutboxService.getEntries(resourceType, id, from, quantity);
+        int total = syncOutboxService.count(resourceType, id);
+        return ResponseEntity.ok(new Paging<>(total, from, from + entries.size(), entries, new ArrayList<>()));
+    }
+
+    @Operation(summary = "Retries the pending synchronizations on the next run, resetting their attempts.")
+    @PostMapping(path = "outbox/replay", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Integer> replay(@RequestParam(required = false) String resourceType,
+                                          @RequestParam(required = false) String id,
+                                          @Parameter(hidden = true) Authentication auth) {
+        int replayed = syncOutboxService.replay(resourceType, id);
+        logger.info("User '{}' replayed {} pending synchronizations [resourceType={}, id={}]",
+                User.of(auth).getEmail(), replayed, resourceType, id);
+        return ResponseEntity.ok(replayed);
+    }
+
+    @Operation(summary = "Discards the pending synchronizations.")
+    @DeleteMapping(path = "outbox", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Integer> discard(@RequestParam(required = false) String resourceType,
+                                           @RequestParam(required = false) String id,
+                                           @Parameter(hidden = true) Authentication auth) {
+        int deleted = syncOutboxService.delete(resourceType, id);
+        logger.info("User '{}' discarded {} pending synchronizations [resourceType={}, id={}]",
+                User.of(auth).getEmail(), deleted, resourceType, id);
+        return ResponseEntity.ok(deleted);
+    }
+
+    @Operation(summary = "Reads the synchronization token from its file again.")
+    @PostMapping(path = "token/reload", produces = {MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Boolean> reloadToken() {
+        return ResponseEntity.ok(syncTokenService.reload());
+    }
+}
@@ -8,49 +8,49 @@ import gr.uoa.di.madgik.resourcecatalogue.domain.User;
 import gr.uoa.di.madgik.resourcecatalogue.service.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Keeps an in-memory index of the users of every Provider and Catalogue. The index is updated incrementally by
+ * the write hooks of Providers and Catalogues and fully reconciled against the store in the background, so that
+ * resolving the authorities of a user never touches the store.
+ */
 @Component
 public class InMemoryAuthoritiesMapper implements AuthoritiesMapper {
 
     private static final Logger logger = LoggerFactory.getLogger(InMemoryAuthoritiesMapper.class);
-    private Set<String> providerUsers = new HashSet<>();
-    private Set<String> catalogueUsers = new HashSet<>();
+    private volatile UserIndex providerUsers = UserIndex.EMPTY;
+    private volatile UserIndex catalogueUsers = UserIndex.EMPTY;
     private final Map<String, Set<SimpleGrantedAuthority>> adminsAndEpot = new HashMap<>();
-    private final int maxQuantity;
 
     private final ProviderService providerService;
 
     private final CatalogueService catalogueService;
     private final DraftResourceService<ProviderBundle> pendingProviderService;
-    private final SecurityService securityService;
     private final ResourceCatalogueProperties catalogueProperties;
 
-    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Keys changed incrementally while a full reconcile is running. Guarded by {@code this}.
+     */
+    private Set<String> changedProviders;
+    private Set<String> changedCatalogues;
 
-    public InMemoryAuthoritiesMapper(@Value("${elastic.index.max_result_window:10000}") int maxQuantity,
-                                     ResourceCatalogueProperties catalogueProperties,
+    public InMemoryAuthoritiesMapper(ResourceCatalogueProperties catalogueProperties,
                                      ProviderService manager,
                                      CatalogueService catalogueService,
-                                     DraftResourceService<ProviderBundle> pendingProviderService,
-                                     SecurityService securityService) {
+                                     DraftResourceService<ProviderBundle> pendingProviderService) {
         this.catalogueProperties = catalogueProperties;
         this.providerService = manager;
         this.catalogueService = catalogueService;
         this.pendingProviderService = pendingProviderService;
-        this.securityService = securityService;
-        this.maxQuantity = maxQuantity;
         if (catalogueProperties.getAdmins().isEmpty()) {
             throw new ServiceException("No Admins Provided");
         }
@@ -97,92 +97,135 @@ public class InMemoryAuthoritiesMapper implements AuthoritiesMapper {
         }
     }
 
+    /**
+     * Rebuilds the whole index from the store. Runs periodically as a safety net for changes that bypassed the
+     * write hooks (e.g. changes made by other instances of the catalogue).
+     */
     @Override
+    @Scheduled(initialDelayString = "${catalogue.authorities.reconcile-interval:300000}",
+            fixedDelayString = "${catalogue.authorities.reconcile-interval:300000}")
     public void updateAuthorities() {
         long time = System.nanoTime();
+        synchronized (this) {
+            changedProviders = new HashSet<>();
+            changedCatalogues = new HashSet<>();
+        }
         FacetFilter ff = new FacetFilter();
         ff.addFilter("published", false);
-        ff.setQuantity(maxQuantity);
 
-        List<ProviderBundle> providers = new ArrayList<>();
+        Map<String, Set<String>> providerEmails = new HashMap<>();
         try {
-            providers.addAll(providerService.getAll(ff, securityService.getAdminAccess()).getResults());
+            providerService.stream(ff).forEach(providerBundle ->
+                    providerEmails.put(getKey(providerBundle), getUserEmails(providerBundle.getProvider().getUsers())));
         } catch (Exception e) {
             logger.warn("There are no Provider entries in DB");
         }
 
         try {
-            providers.addAll(pendingProviderService.getAll(ff, securityService.getAdminAccess()).getResults());
+            pendingProviderService.stream(ff).forEach(providerBundle ->
+                    providerEmails.put(getKey(providerBundle), getUserEmails(providerBundle.getProvider().getUsers())));
         } catch (Exception e) {
             logger.warn("There are no Draft Provider entries in DB");
         }
 
-        List<CatalogueBundle> catalogues = new ArrayList<>();
+        Map<String, Set<String>> catalogueEmails = new HashMap<>();
         ff.getFilter().remove("published");
         try {
-            catalogues.addAll(catalogueService.getAll(ff, securityService.getAdminAccess()).getResults());
+            catalogueService.stream(ff).forEach(catalogueBundle ->
+                    catalogueEmails.put(catalogueBundle.getId(), getUserEmails(catalogueBundle.getCatalogue().getUsers())));
         } catch (Exception e) {
             logger.warn("There are no Catalogue entries in DB");
         }
 
-        lock.lock();
-        providerUsers = getProviderUserEmails(providers);
-        catalogueUsers = getCatalogueUserEmails(catalogues);
-        lock.unlock();
+        synchronized (this) {
+            // keep the incremental changes that happened while the store was being read
+            providerUsers = new UserIndex(providerEmails).withChangesFrom(providerUsers, changedProviders);
+            catalogueUsers = new UserIndex(catalogueEmails).withChangesFrom(catalogueUsers, changedCatalogues);
+            changedProviders = null;
+            changedCatalogues = null;
+        }
         logger.debug("Update Authorities took {} ms", (System.nanoTime() - time) / 1000000);
     }
 
     @Override
-    public Set<GrantedAuthority> getAuthorities(String email) {
-        long time = System.nanoTime();
-        updateAuthorities();
+    public synchronized void updateAuthorities(ProviderBundle providerBundle) {
+        if (providerBundle == null || providerBundle.getMetadata() != null && providerBundle.getMetadata().isPublished()) {
+            return;
+        }
+        String key = getKey(providerBundle);
+        providerUsers = providerUsers.with(key, getUserEmails(providerBundle.getProvider().getUsers()));
+        if (changedProviders != null) {
+            changedProviders.add(key);
+        }
+    }
+
+    @Override
+    public synchronized void updateAuthorities(CatalogueBundle catalogueBundle) {
+        if (catalogueBundle == null) {
+            return;
+        }
+        catalogueUsers = catalogueUsers.with(catalogueBundle.getId(),
+                getUserEmails(catalogueBundle.getCatalogue().getUsers()));
+        if (changedCatalogues != null) {
+            changedCatalogues.add(catalogueBundle.getId());
+        }
+    }
+
+    @Override
+    public synchronized void removeAuthorities(ProviderBundle providerBundle) {
+        if (providerBundle == null || providerBundle.getMetadata() != null && providerBundle.getMetadata().isPublished()) {
+            return;
+        }
+        String key = getKey(providerBundle);
+        providerUsers = providerUsers.without(key);
+        if (changedProviders != null) {
+            changedProviders.add(key);
+        }
+    }
+
+    @Override
+    public synchronized void removeAuthorities(CatalogueBundle catalogueBundle) {
+        if (catalogueBundle == null) {
+            return;
+        }
+        catalogueUsers = catalogueUsers.without(catalogueBundle.getId());
+        if (changedCatalogues != null) {
+            changedCatalogues.add(catalogueBundle.getId());
+        }
+    }
 
+    @Override
+    public Set<GrantedAuthority> getAuthorities(String email) {
         Set<GrantedAuthority> authorities = new HashSet<>();
+        String lowerCaseEmail = email.toLowerCase();
 
-        try {
-            if (!lock.tryLock(10, TimeUnit.SECONDS)) {
-                throw new InsufficientAuthenticationException("Could not authorize user. Try again...");
-            }
-            if (providerUsers.contains(email.toLowerCase())) {
-                authorities.add(new SimpleGrantedAuthority("ROLE_PROVIDER"));
-            }
-            if (catalogueUsers.contains(email.toLowerCase())) {
-                authorities.add(new SimpleGrantedAuthority("ROLE_CATALOGUE_ADMIN"));
-            }
-        } catch (InterruptedException e) {
-            logger.error(e.getMessage(), e);
-            throw new RuntimeException(e);
-        } finally {
-            lock.unlock();
+        if (providerUsers.contains(lowerCaseEmail)) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_PROVIDER"));
+        }
+        if (catalogueUsers.contains(lowerCaseEmail)) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_CATALOGUE_ADMIN"));
         }
-        if (adminsAndEpot.containsKey(email.toLowerCase())) {
-            authorities.addAll(adminsAndEpot.get(email.toLowerCase()));
+        if (adminsAndEpot.containsKey(lowerCaseEmail)) {
+            authorities.addAll(adminsAndEpot.get(lowerCaseEmail));
         }
-        logger.debug("Get Authorities took {} ms", (System.nanoTime() - time) / 1000000);
         return authorities;
     }
 
-    private Set<String> getProviderUserEmails(List<ProviderBundle> providerBundles) {
-        return providerBundles
-                .stream()
-                .flatMap(p -> (p.getProvider().getUsers() != null ? p.getProvider().getUsers() : new ArrayList<User>())
-                        .stream()
-                        .filter(Objects::nonNull)
-                        .map(User::getEmail)
-                        .filter(Objects::nonNull)
-                        .map(String::toLowerCase))
-                .filter(u -> u != null && !Objects.equals("", u))
-                .collect(Collectors.toSet());
+    /**
+     * Draft and approved Providers share their id, so a Draft Provider transformed to a Provider keeps its entry.
+     */
+    private static String getKey(ProviderBundle providerBundle) {
+        return String.format("%s.%s", providerBundle.getProvider().getCatalogueId(), providerBundle.getId());
     }
 
-    private Set<String> getCatalogueUserEmails(List<CatalogueBundle> catalogueBundles) {
-        return catalogueBundles
+    private static Set<String> getUserEmails(List<User> users) {
+        return (users != null ? users : new ArrayList<User>())
                 .stream()
-                .flatMap(p -> (p.getCatalogue().getUsers() != null ? p.getCatalogue().getUsers() : new ArrayList<User>())
-                        .stream()
-                        .filter(Objects::nonNull)
-                        .map(User::getEmail)
-                        .map(String::toLowerCase))
+                .filter(Objects::nonNull)
+                .map(User::getEmail)
+                .filter(Objects::nonNull)
+                .map(String::toLowerCase)
+                .filter(u -> !Objects.equals("", u))
                 .collect(Collectors.toSet());
     }
 
@@ -192,4 +235,72 @@ public class InMemoryAuthoritiesMapper implements AuthoritiesMapper {
             roles.get(role.getKey()).add(role.getValue());
         }
     }
+
+    /**
+     * Immutable mapping of resources to the emails of their users, along with the number of resources each email
+     * belongs to. Every change produces a new instance, so readers never need to lock.
+     */
+    private static final class UserIndex {
+
+        private static final UserIndex EMPTY = new UserIndex(Collections.emptyMap());
+
+        private final Map<String, Set<String>> emailsByResource;
+        private final Map<String, Integer> resourcesByEmail;
+
+        private UserIndex(Map<String, Set<String>> emailsByResource) {
+            this.emailsByResource = emailsByResource;
+            this.resourcesByEmail = new HashMap<>();
+            for (Set<String> emails : emailsByResource.values()) {
+                for (String email : emails) {
+                    resourcesByEmail.merge(email, 1, Integer::sum);
+                }
+            }
+        }
+
+        private UserIndex(Map<String, Set<String>> emailsByResource, Map<String, Integer> resourcesByEmail) {
+            this.emailsByResource = emailsByResource;
+            this.resourcesByEmail = resourcesByEmail;
+        }
+
+        private boolean contains(String email) {
+            return resourcesByEmail.containsKey(email);
+        }
+
+        private UserIndex with(String key, Set<String> emails) {
+            Map<String, Set<String>> resources = new HashMap<>(emailsByResource);
+            Map<String, Integer> counts = new HashMap<>(resourcesByEmail);
+            decrement(counts, resources.put(key, emails));
+            for (String email : emails) {
+                counts.merge(email, 1, Integer::sum);
+            }
+            return new UserIndex(resources, counts);
+        }
+
+        private UserIndex without(String key) {
+            if (!emailsByResource.containsKey(key)) {
+                return this;
+            }
+            Map<String, Set<String>> resources = new HashMap<>(emailsByResource);
+            Map<String, Integer> counts = new HashMap<>(resourcesByEmail);
+            decrement(counts, resources.remove(key));
+            return new UserIndex(resources, counts);
+        }
+
+        private UserIndex withChangesFrom(UserIndex current, Set<String> changedKeys) {
+            UserIndex ret = this;
+            for (String key : changedKeys) {
+                Set<String> emails = current.emailsByResource.get(key);
+                ret = emails != null ? ret.with(key, emails) : ret.without(key);
+            }
+            return ret;
+        }
+
+        private static void decrement(Map<String, Integer> counts, Set<String> emails) {
+            if (emails != null) {
+                for (String email : emails) {
+                    counts.computeIfPresent(email, (k, v) -> v > 1 ? v - 1 : null);
+                }
+            }
+        }
+    }
 }
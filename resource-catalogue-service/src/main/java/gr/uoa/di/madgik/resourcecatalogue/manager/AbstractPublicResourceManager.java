@@ -1,9 +1,7 @@
 package gr.uoa.di.madgik.resourcecatalogue.manager;
 
-import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.resourcecatalogue.domain.*;
-import gr.uoa.di.madgik.resourcecatalogue.service.CatalogueService;
-import gr.uoa.di.madgik.resourcecatalogue.service.SecurityService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CatalogueIdRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
@@ -14,21 +12,18 @@ import java.util.Set;
 public abstract class AbstractPublicResourceManager<T extends Identifiable> extends ResourceManager<T> {
 
     @Autowired
-    private SecurityService securityService;
-    @Autowired
-    private CatalogueService catalogueService;
+    private CatalogueIdRegistry catalogueIdRegistry;
 
     public AbstractPublicResourceManager(Class<T> typeParameterClass) {
         super(typeParameterClass);
     }
 
-    protected List<String> appendCatalogueId(List<String> items, String catalogueId, List<String> allCatalogueIds) {
+    protected List<String> appendCatalogueId(List<String> items, String catalogueId) {
         Set<String> transformed = new HashSet<>();
         if (items != null && !items.isEmpty()) {
             for (String item : items) {
                 if (!item.equals("")) {
-                    boolean result = checkIfItemContainsAnyOfTheCatalogueIds(item, allCatalogueIds);
-                    if (!result) {
+                    if (!catalogueIdRegistry.hasCatalogueIdPrefix(item)) {
                         item = catalogueId + "." + item;
                     }
                     transformed.add(item);
@@ -39,7 +34,6 @@ public abstract class AbstractPublicResourceManager<T extends Identifiable> exte
     }
 
     protected void updateServiceIdsToPublic(ServiceBundle serviceBundle) {
-        List<String> allCatalogueIds = getAllCatalogueIds();
         // Resource Organisation
         serviceBundle.getService().setResourceOrganisation(
                 String.format("%s.%s",
@@ -50,22 +44,19 @@ public abstract class AbstractPublicResourceManager<T extends Identifiable> exte
         serviceBundle.getService().setResourceProviders(
                 appendCatalogueId(
                         serviceBundle.getService().getResourceProviders(),
-                        serviceBundle.getService().getCatalogueId(),
-                        allCatalogueIds));
+                        serviceBundle.getService().getCatalogueId()));
 
         // Related Resources
         serviceBundle.getService().setRelatedResources(
                 appendCatalogueId(
                         serviceBundle.getService().getRelatedResources(),
-                        serviceBundle.getService().getCatalogueId(),
-                        allCatalogueIds));
+                        serviceBundle.getService().getCatalogueId()));
 
         // Required Resources
         serviceBundle.getService().setRequiredResources(
                 appendCatalogueId(
                         serviceBundle.getService().getRequiredResources(),
-                        serviceBundle.getService().getCatalogueId(),
-                        allCatalogueIds));
+                        serviceBundle.getService().getCatalogueId()));
     }
 
     protected void updateDatasourceIdsToPublic(DatasourceBundle datasourceBundle) {
@@ -93,7 +84,6 @@ public abstract class AbstractPublicResourceManager<T extends Identifiable> exte
     }
 
     protected void updateTrainingResourceIdsToPublic(TrainingResourceBundle trainingResourceBundle) {
-        List<String> allCatalogueIds = getAllCatalogueIds();
         // Resource Organisation
         trainingResourceBundle.getTrainingResource().setResourceOrganisation(
                 String.format("%s.%s",
@@ -104,19 +94,16 @@ public abstract class AbstractPublicResourceManager<T extends Identifiable> exte
         trainingResourceBundle.getTrainingResource().setResourceProviders(
                 appendCatalogueId(
                         trainingResourceBundle.getTrainingResource().getResourceProviders(),
-                        trainingResourceBundle.getTrainingResource().getCatalogueId(),
-                        allCatalogueIds));
+                        trainingResourceBundle.getTrainingResource().getCatalogueId()));
 
         // EOSC Related Services
         trainingResourceBundle.getTrainingResource().setEoscRelatedServices(
                 appendCatalogueId(
                         trainingResourceBundle.getTrainingResource().getEoscRelatedServices(),
-                        trainingResourceBundle.getTrainingResource().getCatalogueId(),
-                        allCatalogueIds));
+                        trainingResourceBundle.getTrainingResource().getCatalogueId()));
     }
 
     protected void updateResourceInteroperabilityRecordIdsToPublic(ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle) {
-        List<String> allCatalogueIds = getAllCatalogueIds();
         // Resource Organisation
         resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().setResourceId(
                 String.format("%s.%s",
@@ -126,32 +113,6 @@ public abstract class AbstractPublicResourceManager<T extends Identifiable> exte
         resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().setInteroperabilityRecordIds(
                 appendCatalogueId(
                         resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getInteroperabilityRecordIds(),
-                        resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getCatalogueId(),
-                        allCatalogueIds));
-    }
-
-    protected List<String> getAllCatalogueIds() {
-        List<String> catalogueIds = new ArrayList<>();
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(1000);
-        ff.addFilter("status", "approved catalogue");
-        ff.addFilter("active", "true");
-        List<CatalogueBundle> allCatalogues = catalogueService.getAll(ff, securityService.getAdminAccess()).getResults();
-        for (CatalogueBundle catalogueBundle : allCatalogues) {
-            catalogueIds.add(catalogueBundle.getId());
-        }
-        return catalogueIds;
-    }
-
-    protected boolean checkIfItemContainsAnyOfTheCatalogueIds(String item, List<String> allCatalogueIds) {
-        boolean containsCatalogueId = false;
-        String[] parts = item.split("\\.");
-        for (String catalogueId : allCatalogueIds) {
-            if (parts[0].equals(catalogueId)) {
-                containsCatalogueId = true;
-                break;
-            }
-        }
-        return containsCatalogueId;
+                        resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getCatalogueId()));
     }
 }
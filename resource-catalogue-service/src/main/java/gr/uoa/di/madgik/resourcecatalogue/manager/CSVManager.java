@@ -1,73 +1,123 @@
 package gr.uoa.di.madgik.resourcecatalogue.manager;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import gr.uoa.di.madgik.resourcecatalogue.domain.*;
 import gr.uoa.di.madgik.resourcecatalogue.utils.CSVService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportFormat;
 import org.springframework.http.HttpHeaders;
 
 import javax.servlet.http.HttpServletResponse;
-import java.io.IOException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @org.springframework.stereotype.Service
 public class CSVManager implements CSVService {
 
-    public String listProvidersToCSV(List<ProviderBundle> list) {
-        List<Provider> providers = new ArrayList<>();
-        for (ProviderBundle providerBundle : list) {
-            providers.add(providerBundle.getProvider());
-        }
-        providers.sort(Comparator.comparing(Provider::getId));
+    private static final String[] PROVIDER_HEADER = {"id", "name"};
+    private static final String[] SERVICE_HEADER = {"id", "name"};
+    private static final String[] VOCABULARY_HEADER = {"id", "name", "description", "parentId", "type", "extras"};
 
-        StringBuilder csv = new StringBuilder();
-        csv.append("id,name\n"); // CSV header
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
-        for (Provider provider : providers) {
-            csv.append(formatCSVField(provider.getId())).append(",");
-            csv.append(formatCSVField(provider.getName())).append("\n");
-        }
-
-        return csv.toString();
+    public String listProvidersToCSV(List<ProviderBundle> list) {
+        return writeToString(list.stream().sorted(Comparator.comparing(providerBundle -> providerBundle.getProvider().getId())),
+                PROVIDER_HEADER, CSVManager::providerRow);
     }
 
     public String listServicesToCSV(List<ServiceBundle> list) {
-        List<Service> services = new ArrayList<>();
-        for (ServiceBundle serviceBundle : list) {
-            services.add(serviceBundle.getService());
-        }
-        services.sort(Comparator.comparing(Service::getId));
+        return writeToString(list.stream().sorted(Comparator.comparing(serviceBundle -> serviceBundle.getService().getId())),
+                SERVICE_HEADER, CSVManager::serviceRow);
+    }
 
-        StringBuilder csv = new StringBuilder();
-        csv.append("id,name\n"); // CSV header
+    public String listVocabulariesToCSV(List<Vocabulary> list) {
+        return writeToString(list.stream().sorted(Comparator.comparing(Vocabulary::getId)),
+                VOCABULARY_HEADER, CSVManager::vocabularyRow);
+    }
 
-        for (Service service : services) {
-            csv.append(formatCSVField(service.getId())).append(",");
-            csv.append(formatCSVField(service.getName())).append("\n");
-        }
+    @Override
+    public long writeProviders(Stream<ProviderBundle> providers, ExportFormat format, OutputStream out) throws IOException {
+        return write(providers, format, out, PROVIDER_HEADER, CSVManager::providerRow);
+    }
 
-        return csv.toString();
+    @Override
+    public long writeServices(Stream<ServiceBundle> services, ExportFormat format, OutputStream out) throws IOException {
+        return write(services, format, out, SERVICE_HEADER, CSVManager::serviceRow);
     }
 
-    public String listVocabulariesToCSV(List<Vocabulary> list) {
-        list.sort(Comparator.comparing(Vocabulary::getId));
+    @Override
+    public long writeVocabularies(Stream<Vocabulary> vocabularies, ExportFormat format, OutputStream out) throws IOException {
+        return write(vocabularies, format, out, VOCABULARY_HEADER, CSVManager::vocabularyRow);
+    }
 
-        StringBuilder csv = new StringBuilder();
-        csv.append("id,name,description,parentId,type,extras\n"); // CSV header
+    private static String[] providerRow(ProviderBundle providerBundle) {
+        Provider provider = providerBundle.getProvider();
+        return new String[]{provider.getId(), provider.getName()};
+    }
+
+    private static String[] serviceRow(ServiceBundle serviceBundle) {
+        Service service = serviceBundle.getService();
+        return new String[]{service.getId(), service.getName()};
+    }
 
-        for (Vocabulary vocabulary : list) {
-            csv.append(formatCSVField(vocabulary.getId())).append(",");
-            csv.append(formatCSVField(vocabulary.getName())).append(",");
-            csv.append(formatCSVField(vocabulary.getDescription())).append(",");
-            csv.append(formatCSVField(vocabulary.getParentId())).append(",");
+    private static String[] vocabularyRow(Vocabulary vocabulary) {
+        // extras are not exported
+        return new String[]{vocabulary.getId(), vocabulary.getName(), vocabulary.getDescription(),
+                vocabulary.getParentId(), vocabulary.getType()};
+    }
 
-            csv.append(formatCSVField(vocabulary.getType())).append("\n");
+    /**
+     * Writes the items as they are consumed from the stream. Only the current item and the buffer of the writer
+     * are held in memory, and the buffer is flushed to the output whenever it fills up. The output is not closed.
+     */
+    private <T> long write(Stream<T> items, ExportFormat format, OutputStream out, String[] header,
+                           Function<T, String[]> row) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writeRow(writer, header);
         }
+        long rows = 0;
+        Iterator<T> iterator = items.iterator();
+        while (iterator.hasNext()) {
+            T item = iterator.next();
+            if (format == ExportFormat.CSV) {
+                writeRow(writer, row.apply(item));
+            } else {
+                objectMapper.writeValue(writer, item);
+                writer.write('\n');
+            }
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private <T> String writeToString(Stream<T> items, String[] header, Function<T, String[]> row) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(items, ExportFormat.CSV, out, header, row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by ByteArrayOutputStream
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
 
-        return csv.toString();
+    private static void writeRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(formatCSVField(fields[i]));
+        }
+        writer.write('\n');
     }
 
     public long generateTimestampFromDate(String date) {
@@ -87,18 +137,18 @@ public class CSVManager implements CSVService {
     }
 
     public void computeApprovedServicesBeforeTimestampAndGenerateCSV(long timestamp,
-                                                                     List<ProviderBundle> providers,
-                                                                     List<ServiceBundle> services,
+                                                                     Stream<ProviderBundle> providers,
+                                                                     Stream<ServiceBundle> services,
                                                                      HttpServletResponse response) throws IOException {
         Map<String, String> providerIdToCountry = new TreeMap<>();
         Map<String, String> providerIdToName = new TreeMap<>();
         Map<String, Integer> providerToServiceCountApprovedBeforeTimestamp = new TreeMap<>();
-        List<String> providerOfServicesWithMalformedLoggingInfo = new ArrayList<>();
-        for (ProviderBundle provider : providers) {
+        Set<String> providerOfServicesWithMalformedLoggingInfo = new LinkedHashSet<>();
+        providers.forEach(provider -> {
             providerIdToName.put(provider.getId(), provider.getProvider().getName());
             providerIdToCountry.put(provider.getId(), provider.getProvider().getLocation().getCountry());
-        }
-        for (ServiceBundle service : services) {
+        });
+        services.forEach(service -> {
             boolean approvedFound = false;
             boolean rejectedFound = false;
             String resourceOrganisation = service.getService().getResourceOrganisation();
@@ -112,29 +162,25 @@ public class CSVManager implements CSVService {
                         approvedFound = true;
                         long dateInMillis = Long.parseLong(loggingInfo.getDate());
                         if (dateInMillis < timestamp) {
-                            providerToServiceCountApprovedBeforeTimestamp.put(resourceOrganisation,
-                                    providerToServiceCountApprovedBeforeTimestamp.getOrDefault(resourceOrganisation, 0) + 1);
+                            providerToServiceCountApprovedBeforeTimestamp.merge(resourceOrganisation, 1, Integer::sum);
                         }
                         break;
                     }
                 } catch (Exception e) {
-                    if (!providerOfServicesWithMalformedLoggingInfo.contains(resourceOrganisation)
-                            && service.getStatus().equals("approved resource")) {
+                    if (service.getStatus().equals("approved resource")) {
                         providerOfServicesWithMalformedLoggingInfo.add(resourceOrganisation);
                     }
                 }
             }
             // for old registries with no or malformed status
             if (!approvedFound && !rejectedFound) {
-                providerToServiceCountApprovedBeforeTimestamp.put(resourceOrganisation,
-                        providerToServiceCountApprovedBeforeTimestamp.getOrDefault(resourceOrganisation, 0) + 1);
+                providerToServiceCountApprovedBeforeTimestamp.merge(resourceOrganisation, 1, Integer::sum);
             }
-        }
+        });
 
         // for old registries with no or malformed logging info
         for (String resourceOrganisation : providerOfServicesWithMalformedLoggingInfo) {
-            providerToServiceCountApprovedBeforeTimestamp.put(resourceOrganisation,
-                    providerToServiceCountApprovedBeforeTimestamp.getOrDefault(resourceOrganisation, 0) + 1);
+            providerToServiceCountApprovedBeforeTimestamp.merge(resourceOrganisation, 1, Integer::sum);
         }
 
         listNumberOfServicesPerProviderCountryToCSV(providerIdToCountry, providerIdToName,
@@ -154,30 +200,19 @@ public class CSVManager implements CSVService {
                 })
                 .toList();
 
-        // Create CSV content
-        StringBuilder csvContent = new StringBuilder();
-        csvContent.append("Provider Name,Country,Service Count\n");
-        for (Map.Entry<String, Integer> entry : sortedEntries) {
-            String providerName = formatCSVField(providerIdToName.get(entry.getKey()));
-            String country = formatCSVField(providerIdToCountry.get(entry.getKey()));
-            String serviceCount = entry.getValue().toString();
-
-            csvContent.append(providerName)
-                    .append(',')
-                    .append(country)
-                    .append(',')
-                    .append(serviceCount)
-                    .append('\n');
-        }
-
         // Set the response headers
         response.setContentType("text/csv");
         response.setCharacterEncoding(StandardCharsets.UTF_8.name());
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"services_per_country.csv\"");
 
         // Write the CSV content to the response
-        response.getWriter().write(csvContent.toString());
-        response.getWriter().flush();
+        PrintWriter writer = response.getWriter();
+        writeRow(writer, new String[]{"Provider Name", "Country", "Service Count"});
+        for (Map.Entry<String, Integer> entry : sortedEntries) {
+            writeRow(writer, new String[]{providerIdToName.get(entry.getKey()),
+                    providerIdToCountry.get(entry.getKey()), entry.getValue().toString()});
+        }
+        writer.flush();
     }
 
     private static String formatCSVField(String field) {
@@ -0,0 +1,483 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.registry.service.ResourceService;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
+import gr.uoa.di.madgik.resourcecatalogue.service.CascadeService;
+import gr.uoa.di.madgik.resourcecatalogue.service.RegistrationMailService;
+import gr.uoa.di.madgik.resourcecatalogue.service.SynchronizerService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BundleChangeEvent;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CascadeJob;
+import gr.uoa.di.madgik.resourcecatalogue.utils.JmsService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ProviderResourcesCommonMethods;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ResourceCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Applies the state changes of catalogues and providers to all the resources under them. The affected resources
+ * are planned with one query per resource type, changed in parallel and written directly to the registry, and the
+ * events of their public copies are sent together once all of them are written. Since the managers are bypassed, a
+ * {@link BundleChangeEvent} is published for every resource written or deleted, to keep the in-memory indices
+ * up to date.
+ * <p>
+ * Jobs and the locks ordering the jobs of a catalogue are kept in memory, so they are local to the instance that
+ * accepted the job: jobs of the same catalogue submitted to different instances may run concurrently, and a job is
+ * lost if its instance restarts.
+ */
+@Service
+public class CascadeManager implements CascadeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CascadeManager.class);
+    // max number of parent ids in the query of their sub-resources
+    private static final int MAX_QUERY_IDS = 500;
+
+    private final Map<String, Kind> kinds = new LinkedHashMap<>();
+    private final SearchService searchService;
+    private final ResourceService resourceService;
+    private final ProviderResourcesCommonMethods commonMethods;
+    private final JmsService jmsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RegistrationMailService registrationMailService;
+    private final SynchronizerService<Provider> providerSync;
+    private final SynchronizerService<gr.uoa.di.madgik.resourcecatalogue.domain.Service> serviceSync;
+    private final SynchronizerService<TrainingResource> trainingResourceSync;
+    private final int parallelism;
+    private final int history;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // running and recently finished jobs, oldest first
+    private final Map<String, CascadeJob> jobs = new LinkedHashMap<>();
+    // jobs of the same catalogue run one after the other, in the order they were submitted
+    private final Map<String, ReentrantLock> catalogueLocks = new ConcurrentHashMap<>();
+
+    public CascadeManager(@Lazy ProviderManager providerManager,
+                          @Lazy ServiceBundleManager serviceBundleManager,
+                          @Lazy TrainingResourceManager trainingResourceManager,
+                          @Lazy InteroperabilityRecordManager interoperabilityRecordManager,
+                          @Lazy DatasourceManager datasourceManager,
+                          @Lazy HelpdeskManager helpdeskManager,
+                          @Lazy MonitoringManager monitoringManager,
+                          @Lazy ResourceInteroperabilityRecordManager resourceInteroperabilityRecordManager,
+                          SearchService searchService, ResourceService resourceService,
+                          @Lazy ProviderResourcesCommonMethods commonMethods, JmsService jmsService,
+                          ApplicationEventPublisher eventPublisher,
+                          @Lazy RegistrationMailService registrationMailService,
+                          @Qualifier("providerSync") SynchronizerService<Provider> providerSync,
+                          @Qualifier("serviceSync") SynchronizerService<gr.uoa.di.madgik.resourcecatalogue.domain.Service> serviceSync,
+                          @Qualifier("trainingResourceSync") SynchronizerService<TrainingResource> trainingResourceSync,
+                          @Value("${catalogue.cascade.parallelism:8}") int parallelism,
+                          @Value("${catalogue.cascade.history:100}") int history) {
+        this.searchService = searchService;
+        this.resourceService = resourceService;
+        this.commonMethods = commonMethods;
+        this.jmsService = jmsService;
+        this.eventPublisher = eventPublisher;
+        this.registrationMailService = registrationMailService;
+        this.providerSync = providerSync;
+        this.serviceSync = serviceSync;
+        this.trainingResourceSync = trainingResourceSync;
+        this.parallelism = parallelism;
+        this.history = history;
+
+        // providers and their resources are matched by the id of their provider, the rest by the id of their resource
+        addKind(new Kind("provider", providerManager, null, null,
+                bundle -> "approved provider".equals(((ProviderBundle) bundle).getStatus())));
+        addKind(new Kind("service", serviceBundleManager, "resource_organisation", null,
+                bundle -> "approved resource".equals(((ServiceBundle) bundle).getStatus())));
+        addKind(new Kind("training_resource", trainingResourceManager, "resource_organisation", null,
+                bundle -> "approved resource".equals(((TrainingResourceBundle) bundle).getStatus())));
+        addKind(new Kind("interoperability_record", interoperabilityRecordManager, "provider_id", null,
+                bundle -> "approved interoperability record".equals(((InteroperabilityRecordBundle) bundle).getStatus())));
+        addKind(new Kind("datasource", datasourceManager, "service_id",
+                bundle -> ((DatasourceBundle) bundle).getDatasource().getServiceId(),
+                bundle -> "approved datasource".equals(((DatasourceBundle) bundle).getStatus())));
+        addKind(new Kind("helpdesk", helpdeskManager, "service_id",
+                bundle -> ((HelpdeskBundle) bundle).getHelpdesk().getServiceId(), bundle -> true));
+        addKind(new Kind("monitoring", monitoringManager, "service_id",
+                bundle -> ((MonitoringBundle) bundle).getMonitoring().getServiceId(), bundle -> true));
+        // resource interoperability records are not activated along with their resources
+        addKind(new Kind("resource_interoperability_record", resourceInteroperabilityRecordManager, "resource_id",
+                bundle -> ((ResourceInteroperabilityRecordBundle) bundle).getResourceInteroperabilityRecord().getResourceId(),
+                bundle -> false));
+    }
+
+    private void addKind(Kind kind) {
+        kinds.put(kind.name, kind);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public CascadeJob submit(CascadeJob.Operation operation, String catalogueId, String providerId,
+                             Authentication authentication) {
+        return submit(operation, catalogueId, providerId, authentication, null);
+    }
+
+    @Override
+    public CascadeJob submit(CascadeJob.Operation operation, String catalogueId, String providerId,
+                             Authentication authentication, Runnable then) {
+        CascadeJob job = new CascadeJob(UUID.randomUUID().toString(), operation, catalogueId, providerId,
+                authentication != null ? User.of(authentication).getEmail() : null);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            Iterator<CascadeJob> oldest = jobs.values().iterator();
+            while (jobs.size() > history && oldest.hasNext()) {
+                if (!oldest.next().isActive()) {
+                    oldest.remove();
+                }
+            }
+        }
+        ReentrantLock lock = catalogueLocks.computeIfAbsent(catalogueId, id -> new ReentrantLock(true));
+        executor.execute(() -> {
+            lock.lock();
+            try {
+                run(job, authentication, then);
+            } finally {
+                lock.unlock();
+            }
+        });
+        logger.info("User [{}] submitted cascade job [{}] to {} the resources of {} [{}]", job.getRequestedBy(),
+                job.getId(), operation, providerId != null ? "Provider" : "Catalogue",
+                providerId != null ? providerId : catalogueId);
+        return job;
+    }
+
+    @Override
+    public CascadeJob getJob(String id) {
+        CascadeJob job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            throw new ResourceNotFoundException(id, "cascade job");
+        }
+        return job;
+    }
+
+    @Override
+    public Paging<CascadeJob> getJobs(int from, int quantity) {
+        List<CascadeJob> all;
+        synchronized (jobs) {
+            all = new ArrayList<>(jobs.values());
+        }
+        Collections.reverse(all);
+        List<CascadeJob> results = all.subList(Math.min(from, all.size()), Math.min(from + quantity, all.size()));
+        return new Paging<>(all.size(), from, from + results.size(), new ArrayList<>(results), new ArrayList<>());
+    }
+
+    /**
+     * Plans and applies a job. Resources are deleted starting from the sub-resources, so that a resource is never
+     * left without its parent if the job stops, and changed starting from the providers otherwise. The catalogue or
+     * provider itself is changed last, and only if all the resources under it were changed.
+     */
+    void run(CascadeJob job, Authentication authentication, Runnable then) {
+        job.setStatus(CascadeJob.Status.RUNNING);
+        List<Notification> events = Collections.synchronizedList(new ArrayList<>());
+        try {
+            Map<String, List<Target>> plan = plan(job);
+            job.setTotal(plan.values().stream().mapToLong(List::size).sum());
+            List<String> order = new ArrayList<>(plan.keySet());
+            if (job.getOperation() == CascadeJob.Operation.DELETE) {
+                Collections.reverse(order);
+            }
+            for (String kind : order) {
+                apply(job, plan.get(kind), events, authentication);
+            }
+            if (then != null && job.getFailed() == 0) {
+                finish(job, then);
+            }
+            if (job.getFailed() > 0) {
+                job.setError(String.format("%d of %d resources could not be changed", job.getFailed(), job.getTotal()));
+                job.setStatus(CascadeJob.Status.FAILED);
+            } else {
+                job.setStatus(CascadeJob.Status.COMPLETED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setError("Interrupted");
+            job.setStatus(CascadeJob.Status.FAILED);
+        } catch (RuntimeException e) {
+            logger.error("Cascade job [{}] failed", job.getId(), e);
+            job.setError(e.getMessage());
+            job.setStatus(CascadeJob.Status.FAILED);
+        } finally {
+            send(job, events);
+            job.setCompleted(new Date());
+        }
+        logger.info("Cascade job [{}] to {} the resources of Catalogue [{}] and Provider [{}] finished with status {}, " +
+                        "{} of {} resources changed", job.getId(), job.getOperation(), job.getCatalogueId(),
+                job.getProviderId(), job.getStatus(), job.getDone(), job.getTotal());
+    }
+
+    private void finish(CascadeJob job, Runnable then) {
+        String type = job.getProviderId() != null ? "provider" : "catalogue";
+        String id = job.getProviderId() != null ? job.getProviderId() : job.getCatalogueId();
+        try {
+            then.run();
+        } catch (RuntimeException e) {
+            logger.error("Cascade job [{}] could not {} {} [{}]", job.getId(), job.getOperation(), type, id, e);
+            job.fail(type, id, e.getMessage());
+        }
+    }
+
+    /**
+     * Finds the resources affected by a job, with one query per resource type. The sub-resources of services and
+     * training resources are affected along with them, the public copies along with their resources.
+     *
+     * @return the affected resources by type
+     */
+    Map<String, List<Target>> plan(CascadeJob job) {
+        boolean activation = isActivation(job);
+        Map<String, List<Target>> plan = new LinkedHashMap<>();
+        Set<String> parentIds = new HashSet<>();
+        for (Kind kind : kinds.values()) {
+            List<Target> targets = new ArrayList<>();
+            if (kind.parentId == null) {
+                if (kind.ownerField == null && job.getProviderId() != null) {
+                    // the provider itself is changed by the caller
+                    continue;
+                }
+                List<String> owners = job.getProviderId() == null ? null
+                        : List.of(job.getProviderId(), job.getCatalogueId() + "." + job.getProviderId());
+                for (Target target : find(kind, job.getCatalogueId(), owners)) {
+                    if (!activation || kind.approved.test(target.bundle)) {
+                        targets.add(target);
+                    }
+                }
+                if (kind.name.equals("service") || kind.name.equals("training_resource")) {
+                    targets.forEach(target -> parentIds.add(target.bundle.getId()));
+                }
+            } else if (!parentIds.isEmpty()) {
+                List<String> parents = new ArrayList<>(parentIds);
+                for (int i = 0; i < parents.size(); i += MAX_QUERY_IDS) {
+                    // all the sub-resources of a catalogue are fetched at once
+                    List<String> owners = job.getProviderId() == null ? null
+                            : parents.subList(i, Math.min(i + MAX_QUERY_IDS, parents.size()));
+                    for (Target target : find(kind, job.getCatalogueId(), owners)) {
+                        if (parentIds.contains(kind.parentId.apply(target.bundle))
+                                && (!activation || kind.approved.test(target.bundle))) {
+                            targets.add(target);
+                        }
+                    }
+                    if (owners == null) {
+                        break;
+                    }
+                }
+            }
+            plan.put(kind.name, targets);
+        }
+        return plan;
+    }
+
+    private List<Target> find(Kind kind, String catalogueId, List<String> owners) {
+        FacetFilter ff = new FacetFilter();
+        ff.addFilter("catalogue_id", catalogueId);
+        if (owners != null) {
+            ff.addFilter(kind.ownerField, new ArrayList<Object>(owners));
+        }
+        return ResourceCursor.stream(searchService, kind.name, ff)
+                .map(resource -> new Target(kind, resource, kind.manager.deserialize(resource)))
+                .toList();
+    }
+
+    private void apply(CascadeJob job, List<Target> targets, List<Notification> events, Authentication authentication)
+            throws InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Target target : targets) {
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        apply(job, target, events, authentication);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        } finally {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Cascade job [{}] failed to change a resource", job.getId(), e.getCause());
+                }
+            }
+        }
+    }
+
+    private void apply(CascadeJob job, Target planned, List<Notification> events, Authentication authentication) {
+        Bundle<?> bundle = planned.bundle;
+        try {
+            // the resource may have been changed since the job was planned, so its latest version is changed instead
+            Target target = reload(planned);
+            if (target == null || (isActivation(job) && !target.kind.approved.test(target.bundle))) {
+                logger.debug("Skipping {} [{}], deleted or changed since the job was planned", planned.kind.name,
+                        bundle.getId());
+                job.done();
+                return;
+            }
+            bundle = target.bundle;
+            switch (job.getOperation()) {
+                case SUSPEND, UNSUSPEND -> {
+                    boolean suspend = job.getOperation() == CascadeJob.Operation.SUSPEND;
+                    if (bundle.isSuspended() != suspend) {
+                        commonMethods.suspendResource(bundle, suspend, authentication);
+                        write(target, events);
+                    }
+                }
+                case ACTIVATE, DEACTIVATE -> {
+                    boolean active = job.getOperation() == CascadeJob.Operation.ACTIVATE;
+                    List<LoggingInfo> loggingInfoList = commonMethods.createActivationLoggingInfo(bundle, active,
+                            authentication);
+                    bundle.setLoggingInfo(loggingInfoList);
+                    bundle.setLatestUpdateInfo(loggingInfoList.get(loggingInfoList.size() - 1));
+                    bundle.setActive(active);
+                    write(target, events);
+                }
+                case DELETE -> delete(target, events);
+            }
+            job.done();
+        } catch (RuntimeException e) {
+            logger.error("Cascade job [{}] could not {} {} [{}]", job.getId(), job.getOperation(), planned.kind.name,
+                    bundle.getId(), e);
+            job.fail(planned.kind.name, bundle.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a planned resource again, right before changing it.
+     *
+     * @return the resource as it is now, or null if it no longer exists
+     */
+    private Target reload(Target target) {
+        Resource resource = resourceService.getResource(target.resource.getId());
+        if (resource == null) {
+            return null;
+        }
+        return new Target(target.kind, resource, target.kind.manager.deserialize(resource));
+    }
+
+    private static boolean isActivation(CascadeJob job) {
+        return job.getOperation() == CascadeJob.Operation.ACTIVATE
+                || job.getOperation() == CascadeJob.Operation.DEACTIVATE;
+    }
+
+    private void write(Target target, List<Notification> events) {
+        logger.debug("Updating {} [{}]", target.kind.name, target.bundle.getId());
+        target.resource.setPayload(serialize(target.kind.manager, target.bundle));
+        resourceService.updateResource(target.resource);
+        eventPublisher.publishEvent(BundleChangeEvent.written(target.bundle));
+        if (isPublished(target.bundle)) {
+            events.add(new Notification(target.kind.name + ".update", target.bundle));
+        }
+    }
+
+    private void delete(Target target, List<Notification> events) {
+        Bundle<?> bundle = target.bundle;
+        logger.debug("Deleting {} [{}]", target.kind.name, bundle.getId());
+        resourceService.deleteResource(target.resource.getId());
+        eventPublisher.publishEvent(BundleChangeEvent.deleted(bundle));
+        if (isPublished(bundle)) {
+            events.add(new Notification(target.kind.name + ".delete", bundle));
+            return;
+        }
+        if (bundle instanceof ProviderBundle providerBundle) {
+            registrationMailService.notifyProviderAdmins(providerBundle);
+            providerSync.syncDelete(providerBundle.getProvider());
+        } else if (bundle instanceof ServiceBundle serviceBundle) {
+            serviceSync.syncDelete(serviceBundle.getService());
+        } else if (bundle instanceof TrainingResourceBundle trainingResourceBundle) {
+            trainingResourceSync.syncDelete(trainingResourceBundle.getTrainingResource());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Bundle<?>> String serialize(ResourceManager<T> manager, Bundle<?> bundle) {
+        return manager.serialize((T) bundle);
+    }
+
+    private static boolean isPublished(Bundle<?> bundle) {
+        return bundle.getMetadata() != null && bundle.getMetadata().isPublished();
+    }
+
+    private void send(CascadeJob job, List<Notification> events) {
+        synchronized (events) {
+            logger.debug("Sending {} events of cascade job [{}]", events.size(), job.getId());
+            for (Notification event : events) {
+                try {
+                    jmsService.convertAndSendTopic(event.topic, event.bundle);
+                } catch (RuntimeException e) {
+                    logger.warn("Could not send '{}' of [{}] for cascade job [{}]: {}", event.topic,
+                            event.bundle.getId(), job.getId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static class Kind {
+        private final String name;
+        private final ResourceManager<? extends Bundle<?>> manager;
+        // the field matching the provider, or the parent resource, of a resource
+        private final String ownerField;
+        // the parent resource id of a sub-resource, null for providers and their resources
+        private final Function<Bundle<?>, String> parentId;
+        // whether a resource is activated along with its provider
+        private final Predicate<Bundle<?>> approved;
+
+        private Kind(String name, ResourceManager<? extends Bundle<?>> manager, String ownerField,
+                     Function<Bundle<?>, String> parentId, Predicate<Bundle<?>> approved) {
+            this.name = name;
+            this.manager = manager;
+            this.ownerField = ownerField;
+            this.parentId = parentId;
+            this.approved = approved;
+        }
+    }
+
+    static class Target {
+        private final Kind kind;
+        private final Resource resource;
+        private final Bundle<?> bundle;
+
+        private Target(Kind kind, Resource resource, Bundle<?> bundle) {
+            this.kind = kind;
+            this.resource = resource;
+            this.bundle = bundle;
+        }
+
+        Bundle<?> getBundle() {
+            return bundle;
+        }
+    }
+
+    private static class Notification {
+        private final String topic;
+        private final Bundle<?> bundle;
+
+        private Notification(String topic, Bundle<?> bundle) {
+            this.topic = topic;
+            this.bundle = bundle;
+        }
+    }
+}
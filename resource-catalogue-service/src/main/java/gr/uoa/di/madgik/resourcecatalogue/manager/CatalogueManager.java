@@ -3,12 +3,12 @@ package gr.uoa.di.madgik.resourcecatalogue.manager;
 import gr.uoa.di.madgik.registry.domain.Browsing;
 import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.registry.domain.Resource;
-import gr.uoa.di.madgik.registry.service.ResourceCRUDService;
 import gr.uoa.di.madgik.resourcecatalogue.domain.*;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ValidationException;
 import gr.uoa.di.madgik.resourcecatalogue.service.*;
 import gr.uoa.di.madgik.resourcecatalogue.utils.Auditable;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CascadeJob;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ObjectUtils;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ProviderResourcesCommonMethods;
 import gr.uoa.di.madgik.resourcecatalogue.validators.FieldValidator;
@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -37,20 +38,14 @@ public class CatalogueManager extends ResourceManager<CatalogueBundle> implement
     private final IdCreator idCreator;
     private final FieldValidator fieldValidator;
     private final RegistrationMailService registrationMailService;
-    private final ProviderService providerService;
-    private final ServiceBundleService serviceBundleService;
-    private final TrainingResourceService trainingResourceService;
-    private final InteroperabilityRecordService interoperabilityRecordService;
+    private final CascadeService cascadeService;
     private final ProviderResourcesCommonMethods commonMethods;
 
     @Value("${catalogue.id}")
     private String catalogueId;
 
     public CatalogueManager(IdCreator idCreator,
-                            @Lazy ProviderService providerService,
-                            @Lazy ServiceBundleService serviceBundleService,
-                            @Lazy TrainingResourceService trainingResourceService,
-                            @Lazy InteroperabilityRecordService interoperabilityRecordService,
+                            @Lazy CascadeService cascadeService,
                             @Lazy FieldValidator fieldValidator,
                             @Lazy SecurityService securityService,
                             @Lazy VocabularyService vocabularyService,
@@ -62,10 +57,7 @@ public class CatalogueManager extends ResourceManager<CatalogueBundle> implement
         this.idCreator = idCreator;
         this.fieldValidator = fieldValidator;
         this.registrationMailService = registrationMailService;
-        this.providerService = providerService;
-        this.serviceBundleService = serviceBundleService;
-        this.trainingResourceService = trainingResourceService;
-        this.interoperabilityRecordService = interoperabilityRecordService;
+        this.cascadeService = cascadeService;
         this.commonMethods = commonMethods;
     }
 
@@ -242,21 +234,13 @@ public class CatalogueManager extends ResourceManager<CatalogueBundle> implement
             throw new ValidationException(String.format("You cannot delete [%s] Catalogue.", catalogueId));
         }
 
-        // Delete Catalogue along with all its related Resources
-        logger.info("Deleting all Catalogue's Providers...");
-        deleteCatalogueResources(id, providerService, securityService.getAdminAccess());
-
-        logger.info("Deleting all Catalogue's Services...");
-        deleteCatalogueResources(id, serviceBundleService, securityService.getAdminAccess());
-
-        logger.info("Deleting all Catalogue's Training Resources...");
-        deleteCatalogueResources(id, trainingResourceService, securityService.getAdminAccess());
-
-        logger.info("Deleting all Catalogue's Interoperability Records...");
-        deleteCatalogueResources(id, interoperabilityRecordService, securityService.getAdminAccess());
-
-        logger.info("Deleting Catalogue...");
-        super.delete(catalogueBundle);
+        // Delete Catalogue along with all its related Resources, the Catalogue itself last
+        logger.info("Deleting all Catalogue's Providers and Resources...");
+        cascadeService.submit(CascadeJob.Operation.DELETE, id, null,
+                SecurityContextHolder.getContext().getAuthentication(), () -> {
+                    logger.info("Deleting Catalogue...");
+                    super.delete(catalogueBundle);
+                });
     }
 
     @Override
@@ -278,22 +262,6 @@ public class CatalogueManager extends ResourceManager<CatalogueBundle> implement
                 .collect(Collectors.toList());
     }
 
-    private <T, I extends ResourceCRUDService<T, Authentication>> void deleteCatalogueResources(String id, I service, Authentication auth) {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        ff.addFilter("catalogue_id", id);
-        // Get all Catalogue's Resources
-        List<T> allResources = service.getAll(ff, auth).getResults();
-        for (T resource : allResources) {
-            try {
-                logger.info("Deleting resource: {}", resource);
-                service.delete(resource);
-            } catch (gr.uoa.di.madgik.registry.exception.ResourceNotFoundException e) {
-                logger.error(e.getMessage(), e);
-            }
-        }
-    }
-
     private void adminDifferences(CatalogueBundle updatedCatalogue, CatalogueBundle existingCatalogue) {
         List<String> existingAdmins = new ArrayList<>();
         List<String> newAdmins = new ArrayList<>();
@@ -418,13 +386,7 @@ public class CatalogueManager extends ResourceManager<CatalogueBundle> implement
         super.update(catalogueBundle, auth);
 
         // Suspend Catalogue's resources
-        List<ProviderBundle> providers = providerService.getAll(createFacetFilter(id), auth).getResults();
-
-        if (providers != null && !providers.isEmpty()) {
-            for (ProviderBundle providerBundle : providers) {
-                providerService.suspend(providerBundle.getId(), suspend, auth);
-            }
-        }
+        cascadeService.submit(suspend ? CascadeJob.Operation.SUSPEND : CascadeJob.Operation.UNSUSPEND, id, null, auth);
 
         return catalogueBundle;
     }
@@ -443,12 +405,4 @@ public class CatalogueManager extends ResourceManager<CatalogueBundle> implement
                 catalogue.getCatalogue().getId(), catalogue.getCatalogue().getName(), actionType);
         return super.update(catalogue, auth);
     }
-
-    private FacetFilter createFacetFilter(String catalogueId) {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(10000);
-        ff.addFilter("published", false);
-        ff.addFilter("catalogue_id", catalogueId);
-        return ff;
-    }
 }
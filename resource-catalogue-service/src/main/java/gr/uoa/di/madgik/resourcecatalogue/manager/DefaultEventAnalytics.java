@@ -0,0 +1,71 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.registry.service.ParserService;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Event;
+import gr.uoa.di.madgik.resourcecatalogue.service.EventAnalytics;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ResourceCursor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Computes event analytics in a single pass over all the events, reading them lazily with a {@link ResourceCursor}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class DefaultEventAnalytics implements EventAnalytics {
+
+    private final SearchService searchService;
+    private final ParserService parserService;
+
+    DefaultEventAnalytics(SearchService searchService, ParserService parserService) {
+        this.searchService = searchService;
+        this.parserService = parserService;
+    }
+
+    @Override
+    public Map<String, List<Float>> getLatestUserValues(String eventType) {
+        Map<String, Map<String, Event>> latestUserEvents = new HashMap<>();
+        forEachEvent(String.format("type=\"%s\"", eventType), event -> latestUserEvents
+                .computeIfAbsent(event.getService(), service -> new HashMap<>())
+                .merge(event.getUser(), event, (a, b) -> a.getInstant() >= b.getInstant() ? a : b));
+
+        Map<String, List<Float>> allServiceEvents = new HashMap<>();
+        for (Map.Entry<String, Map<String, Event>> entry : latestUserEvents.entrySet()) {
+            List<Float> values = new ArrayList<>();
+            for (Event event : entry.getValue().values()) {
+                values.add(event.getValue());
+            }
+            allServiceEvents.put(entry.getKey(), values);
+        }
+        return allServiceEvents;
+    }
+
+    @Override
+    public List<String> getNullEventIds() {
+        List<String> ids = new ArrayList<>();
+        forEachEvent(null, event -> {
+            if (event.getValue() == null) {
+                ids.add(event.getId());
+            }
+        });
+        return ids;
+    }
+
+    /**
+     * Passes every event matching the query to the given action, in ascending creation date order. Events created
+     * in the same millisecond are paged by id, so none is skipped however many they are.
+     *
+     * @param query  cql query, or null for all the events
+     * @param action event consumer
+     */
+    public void forEachEvent(String query, Consumer<Event> action) {
+        ResourceCursor.stream(new ResourceCursor(searchService, "event", query, ResourceCursor.DEFAULT_PAGE_SIZE))
+                .map(resource -> parserService.deserialize(resource, Event.class))
+                .forEach(action);
+    }
+}
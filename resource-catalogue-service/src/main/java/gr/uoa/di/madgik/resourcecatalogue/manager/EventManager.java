@@ -1,12 +1,12 @@
 package gr.uoa.di.madgik.resourcecatalogue.manager;
 
-import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.registry.domain.Paging;
 import gr.uoa.di.madgik.registry.domain.Resource;
 import gr.uoa.di.madgik.registry.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.registry.service.ParserService;
 import gr.uoa.di.madgik.registry.service.SearchService;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Event;
+import gr.uoa.di.madgik.resourcecatalogue.service.EventAnalytics;
 import gr.uoa.di.madgik.resourcecatalogue.service.EventService;
 import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
 import gr.uoa.di.madgik.resourcecatalogue.utils.AuthenticationInfo;
@@ -28,26 +28,25 @@ public class EventManager extends ResourceManager<Event> implements EventService
     private static final Logger logger = LoggerFactory.getLogger(EventManager.class);
     private final ParserService parserService;
     private final ServiceBundleService serviceBundleService;
+    private final EventAnalytics eventAnalytics;
 
     @Autowired
     public EventManager(ParserService parserService,
-                        @Lazy ServiceBundleService serviceBundleService) {
+                        @Lazy ServiceBundleService serviceBundleService,
+                        @Lazy EventAnalytics eventAnalytics) {
         super(Event.class);
         this.parserService = parserService;
         this.serviceBundleService = serviceBundleService;
+        this.eventAnalytics = eventAnalytics;
     }
 
     @Scheduled(cron = "0 0 1 * * *")
     void deleteNullEvents() {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        List<Event> events = getAll(ff, null).getResults();
         List<Event> toDelete = new ArrayList<>();
-        for (Event event : events) {
-            if (event.getValue() == null) {
-                toDelete.add(event);
-                logger.debug("Null event to delete: {}", event);
-            }
+        for (String id : eventAnalytics.getNullEventIds()) {
+            Event event = get(id);
+            toDelete.add(event);
+            logger.debug("Null event to delete: {}", event);
         }
         int size = toDelete.size();
         deleteEvents(toDelete);
@@ -131,39 +130,7 @@ public class EventManager extends ResourceManager<Event> implements EventService
 
     @Override
     public Map<String, List<Float>> getAllServiceEventValues(String eventType, Authentication authentication) {
-        Map<String, List<Float>> allServiceEvents = new HashMap<>();
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        ff.addFilter("type", eventType);
-        Map<String, Object> order = new HashMap<>();
-        Map<String, Object> sort = new HashMap<>();
-        order.put("order", "desc");
-        sort.put("instant", order);
-        ff.setOrderBy(sort);
-        List<Event> events = getAll(ff, authentication).getResults();
-        List<String> serviceList = events.stream().map(Event::getService).distinct().collect(Collectors.toList());
-
-        // for each service
-        for (String service : serviceList) {
-            List<Event> serviceEvents = events.stream()
-                    .filter(e -> e.getService().equals(service))
-                    .collect(Collectors.toList());
-
-            Map<String, Event> userEventsMap = new HashMap<>();
-
-            // for each event, save only the latest user events (events order is descending on field 'instant')
-            for (Event event : serviceEvents) {
-                userEventsMap.putIfAbsent(event.getUser(), event);
-            }
-
-            List<Float> eventsValues = userEventsMap.values()
-                    .stream()
-                    .map(Event::getValue)
-                    .collect(Collectors.toList());
-            allServiceEvents.put(service, eventsValues);
-        }
-
-        return allServiceEvents;
+        return eventAnalytics.getLatestUserValues(eventType);
     }
 
     private List<Event> pagingToList(Paging<Resource> resources) {
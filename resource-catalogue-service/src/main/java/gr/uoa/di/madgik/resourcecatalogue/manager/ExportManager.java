@@ -0,0 +1,237 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
+import gr.uoa.di.madgik.resourcecatalogue.domain.ServiceBundle;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Vocabulary;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
+import gr.uoa.di.madgik.resourcecatalogue.service.ProviderService;
+import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
+import gr.uoa.di.madgik.resourcecatalogue.service.VocabularyService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CSVService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportFormat;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportJob;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports resources page by page, either directly to an output or in the background to an artifact in the export
+ * directory. Artifacts are kept for the configured retention and are then deleted, along with their jobs.
+ */
+@Component
+public class ExportManager implements ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportManager.class);
+    private static final String PART_SUFFIX = ".part";
+
+    private final ProviderService providerService;
+    private final ServiceBundleService<ServiceBundle> serviceBundleService;
+    private final VocabularyService vocabularyService;
+    private final CSVService csvService;
+    private final Path directory;
+    private final long retention;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    public ExportManager(ProviderService providerService,
+                         ServiceBundleService<ServiceBundle> serviceBundleService,
+                         VocabularyService vocabularyService,
+                         CSVService csvService,
+                         @Value("${catalogue.export.directory:${java.io.tmpdir}/catalogue-exports}") String directory,
+                         @Value("${catalogue.export.retention:86400000}") long retention,
+                         @Value("${catalogue.export.max-concurrent-jobs:2}") int maxConcurrentJobs) {
+        this.providerService = providerService;
+        this.serviceBundleService = serviceBundleService;
+        this.vocabularyService = vocabularyService;
+        this.csvService = csvService;
+        this.directory = Paths.get(directory);
+        this.retention = retention;
+        this.permits = new Semaphore(maxConcurrentJobs);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public long export(String resourceType, Boolean published, ExportFormat format, String after, OutputStream out)
+            throws IOException {
+        FacetFilter ff = new FacetFilter();
+        if (published != null) {
+            ff.addFilter("published", published);
+        }
+        switch (resourceType) {
+            case "provider":
+                try (Stream<ProviderBundle> providers = providerService.stream(ff, after)) {
+                    return csvService.writeProviders(providers, format, out);
+                }
+            case "service":
+                try (Stream<ServiceBundle> services = serviceBundleService.stream(ff, after)) {
+                    return csvService.writeServices(services, format, out);
+                }
+            case "vocabulary":
+                try (Stream<Vocabulary> vocabularies = vocabularyService.stream(ff, after)) {
+                    return csvService.writeVocabularies(vocabularies, format, out);
+                }
+            default:
+                throw new IllegalArgumentException(String.format("Resources of type '%s' cannot be exported", resourceType));
+        }
+    }
+
+    @Override
+    public ExportJob submit(String resourceType, Boolean published, ExportFormat format, boolean gzip,
+                            String requestedBy) {
+        if (!Set.of("provider", "service", "vocabulary").contains(resourceType)) {
+            throw new IllegalArgumentException(String.format("Resources of type '%s' cannot be exported", resourceType));
+        }
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), resourceType, published, format, gzip, requestedBy);
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job));
+        logger.info("User '{}' submitted export job [{}] of '{}' resources", requestedBy, job.getId(), resourceType);
+        return job;
+    }
+
+    private void run(ExportJob job) {
+        Path artifact = directory.resolve(job.getFileName());
+        Path part = directory.resolve(job.getFileName() + PART_SUFFIX);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, e);
+            return;
+        }
+        try {
+            job.setStatus(ExportJob.Status.RUNNING);
+            Files.createDirectories(directory);
+            try (OutputStream out = open(part, job.isGzip())) {
+                job.setRows(export(job.getResourceType(), job.getPublished(), job.getFormat(), null,
+                        new RowCountingOutputStream(out, job)));
+            }
+            Files.move(part, artifact, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.setSize(Files.size(artifact));
+            job.setCompleted(new Date());
+            job.setStatus(ExportJob.Status.COMPLETED);
+            logger.info("Export job [{}] wrote {} rows to '{}'", job.getId(), job.getRows(), artifact);
+        } catch (IOException | RuntimeException e) {
+            fail(job, e);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignore) {
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static OutputStream open(Path file, boolean gzip) throws IOException {
+        OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+        return gzip ? new GZIPOutputStream(out, 8192) : out;
+    }
+
+    private static void fail(ExportJob job, Exception e) {
+        logger.error("Export job [{}] failed", job.getId(), e);
+        job.setError(e.getMessage());
+        job.setCompleted(new Date());
+        job.setStatus(ExportJob.Status.FAILED);
+    }
+
+    @Override
+    public ExportJob getJob(String id) {
+        ExportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException(id, "export job");
+        }
+        return job;
+    }
+
+    @Override
+    public List<ExportJob> getJobs() {
+        List<ExportJob> all = new ArrayList<>(jobs.values());
+        all.sort(Comparator.comparing(ExportJob::getCreated).reversed());
+        return all;
+    }
+
+    @Override
+    public Path getArtifact(String id) {
+        ExportJob job = getJob(id);
+        Path artifact = directory.resolve(job.getFileName());
+        if (job.getStatus() != ExportJob.Status.COMPLETED || !Files.exists(artifact)) {
+            throw new ResourceNotFoundException(String.format("Export job [%s] has no artifact, its status is %s",
+                    id, job.getStatus()));
+        }
+        return artifact;
+    }
+
+    /**
+     * Deletes the artifacts older than the retention, including those left over by previous runs, and forgets
+     * their jobs.
+     */
+    @Scheduled(initialDelayString = "${catalogue.export.cleanup-interval:3600000}",
+            fixedDelayString = "${catalogue.export.cleanup-interval:3600000}")
+    public void deleteExpired() {
+        long expiry = System.currentTimeMillis() - retention;
+        jobs.values().removeIf(job -> job.getCompleted() != null && job.getCompleted().getTime() < expiry);
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toMillis() < expiry) {
+                    Files.deleteIfExists(file);
+                    logger.debug("Deleted expired export artifact '{}'", file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete the expired export artifacts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reports the progress of a job by counting the lines written, which is approximate for csv values spanning
+     * multiple lines. The exact number of rows is set when the job completes.
+     */
+    private static class RowCountingOutputStream extends FilterOutputStream {
+
+        private final ExportJob job;
+        private long lines = 0;
+
+        private RowCountingOutputStream(OutputStream out, ExportJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (b == '\n') {
+                job.setRows(++lines);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+            job.setRows(lines);
+        }
+    }
+}
@@ -1,27 +1,39 @@
 package gr.uoa.di.madgik.resourcecatalogue.manager;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import gr.uoa.di.madgik.registry.domain.*;
 import gr.uoa.di.madgik.registry.domain.index.IndexField;
 import gr.uoa.di.madgik.registry.service.*;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Identifiable;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.resourcecatalogue.service.GenericResourceService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BulkLookup;
 import gr.uoa.di.madgik.resourcecatalogue.utils.DefaultFacetLabelService;
 import gr.uoa.di.madgik.resourcecatalogue.utils.FacetLabelService;
 import gr.uoa.di.madgik.resourcecatalogue.utils.LoggingUtils;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ReflectUtils;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ResourceCursor;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ResourceIdQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class GenericManager implements GenericResourceService {
@@ -36,6 +48,21 @@ public class GenericManager implements GenericResourceService {
     protected int maxQuantity;
     private Map<String, List<String>> browseByMap;
     private Map<String, Map<String, String>> labelsMap;
+    private Map<String, Set<String>> aliasesMap;
+
+    @Value("${catalogue.search-cache.enabled:true}")
+    private boolean resultCacheEnabled;
+    @Value("${catalogue.search-cache.max-weight:20000}")
+    private long resultCacheMaxWeight;
+    @Value("${catalogue.search-cache.max-page-size:100}")
+    private int resultCacheMaxPageSize;
+    @Value("${catalogue.search-cache.ttl:60000}")
+    private long resultCacheTtl;
+    /**
+     * Raw search results along with their labelled facets, keyed by the canonical form of the {@link FacetFilter}.
+     * Results are deserialized on every hit, so callers are free to modify what they get back.
+     */
+    private Cache<String, CachedResults> resultCache;
 
     protected GenericManager(SearchService searchService,
                              ResourceService resourceService,
@@ -49,10 +76,21 @@ public class GenericManager implements GenericResourceService {
         this.facetLabelService = facetLabelService;
     }
 
+    @PostConstruct
+    void initResultCache() {
+        resultCache = CacheBuilder.newBuilder()
+                .maximumWeight(resultCacheMaxWeight)
+                .weigher((String key, CachedResults value) -> value.weight())
+                .expireAfterWrite(resultCacheTtl, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
     @PostConstruct
     void initResourceTypesBrowseFields() { // TODO: move this to a bean to avoid running multiple times ??
         browseByMap = new TreeMap<>();
         labelsMap = new TreeMap<>();
+        aliasesMap = new TreeMap<>();
         Map<String, Set<String>> aliasGroupBrowse = new TreeMap<>();
         Map<String, Map<String, String>> aliasGroupLabels = new TreeMap<>();
         for (ResourceType rt : resourceTypeService.getAllResourceType()) {
@@ -99,6 +137,16 @@ public class GenericManager implements GenericResourceService {
                 }
             }
 
+            Set<String> aliases = new TreeSet<>();
+            aliases.add(rt.getName());
+            if (rt.getAliasGroup() != null) {
+                aliases.add(rt.getAliasGroup());
+            }
+            if (rt.getAliases() != null) {
+                aliases.addAll(rt.getAliases());
+            }
+            aliasesMap.put(rt.getName(), aliases);
+
             labelsMap.put(rt.getName(), labels);
             browseByMap.put(rt.getName(), new ArrayList<>(browseSet));
             logger.debug("Generating browse fields for [{}]", rt.getName());
@@ -185,17 +233,119 @@ public class GenericManager implements GenericResourceService {
         return (T) parserPool.deserialize(res, getClassFromResourceType(res.getResourceTypeName()));
     }
 
+    @Override
+    public <T> BulkLookup<T> getBulk(Collection<String> ids, String... resourceTypeNames) {
+        Map<String, T> found = new LinkedHashMap<>();
+        Set<String> missing = ids.stream()
+                .filter(id -> id != null && !id.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String resourceTypeName : resourceTypeNames) {
+            if (missing.isEmpty()) {
+                break;
+            }
+            Class<?> clazz = getClassFromResourceType(resourceTypeName);
+            for (Resource res : ResourceIdQuery.search(searchService, resourceTypeName, missing)) {
+                T item = (T) parserPool.deserialize(res, clazz);
+                found.putIfAbsent(((Identifiable) item).getId(), item);
+            }
+            missing.removeAll(found.keySet());
+        }
+        return new BulkLookup<>(found, missing);
+    }
+
     @Override
     public <T> Browsing<T> getResults(FacetFilter filter) {
         Set<String> browseBy = new HashSet<>(filter.getBrowseBy());
         browseBy.addAll(browseByMap.get(filter.getResourceType()));
         filter.setBrowseBy(new ArrayList<>(browseBy));
-        Browsing<T> browsing;
-        browsing = convertToBrowsing(searchService.search(filter), filter.getResourceType());
-        browsing.setFacets(facetLabelService.generateLabels(browsing.getFacets()));
+
+        if (!resultCacheEnabled || filter.getQuantity() > resultCacheMaxPageSize) {
+            Browsing<T> browsing;
+            browsing = convertToBrowsing(searchService.search(filter), filter.getResourceType());
+            browsing.setFacets(facetLabelService.generateLabels(browsing.getFacets()));
+            return browsing;
+        }
+
+        String key = createCacheKey(filter);
+        CachedResults cached = resultCache.getIfPresent(key);
+        if (cached == null) {
+            Paging<Resource> paging = searchService.search(filter);
+            List<Facet> facets = facetLabelService.generateLabels(paging.getFacets());
+            cached = new CachedResults(paging, serializeFacets(facets));
+            resultCache.put(key, cached);
+        }
+        Browsing<T> browsing = convertToBrowsing(cached.paging, filter.getResourceType());
+        browsing.setFacets(deserializeFacets(cached.facets));
         return browsing;
     }
 
+    @Override
+    public <T> Stream<T> stream(FacetFilter filter) {
+        return ResourceCursor.stream(searchService, filter.getResourceType(), filter)
+                .map(res -> (T) parserPool.deserialize(res, getClassFromResourceType(res.getResourceTypeName())));
+    }
+
+    /**
+     * Evicts the cached search results of the given resource type, as well as the results of its aliases.
+     *
+     * @param resourceTypeName the resource type that changed, or null if it is unknown
+     */
+    public void invalidateResults(String resourceTypeName) {
+        if (resultCache == null) {
+            return;
+        }
+        Set<String> resourceTypes = resourceTypeName != null ? aliasesMap.get(resourceTypeName) : null;
+        if (resourceTypes == null) {
+            resultCache.invalidateAll();
+        } else {
+            resultCache.asMap().keySet().removeIf(key -> resourceTypes.contains(key.substring(0, key.indexOf('|'))));
+        }
+    }
+
+    public CacheStats getResultCacheStats() {
+        return resultCache.stats();
+    }
+
+    @Scheduled(initialDelayString = "${catalogue.search-cache.stats-interval:3600000}",
+            fixedDelayString = "${catalogue.search-cache.stats-interval:3600000}")
+    void logResultCacheStats() {
+        if (resultCacheEnabled) {
+            CacheStats stats = resultCache.stats();
+            logger.info("Search result cache: entries={}, hits={}, misses={}, hitRate={}, evictions={}",
+                    resultCache.size(), stats.hitCount(), stats.missCount(),
+                    String.format("%.2f", stats.hitRate()), stats.evictionCount());
+        }
+    }
+
+    private static String createCacheKey(FacetFilter filter) {
+        StringJoiner key = new StringJoiner("|");
+        key.add(String.valueOf(filter.getResourceType()));
+        key.add(String.valueOf(filter.getKeyword()));
+        key.add(String.valueOf(filter.getFilter() != null ? new TreeMap<>(filter.getFilter()) : null));
+        key.add(String.valueOf(filter.getOrderBy() != null ? new TreeMap<>(filter.getOrderBy()) : null));
+        key.add(String.valueOf(filter.getFrom()));
+        key.add(String.valueOf(filter.getQuantity()));
+        key.add(String.valueOf(new TreeSet<>(filter.getBrowseBy())));
+        return key.toString();
+    }
+
+    private byte[] serializeFacets(List<Facet> facets) {
+        try {
+            return objectMapper.writeValueAsBytes(facets);
+        } catch (IOException e) {
+            throw new ServiceException(e);
+        }
+    }
+
+    private List<Facet> deserializeFacets(byte[] facets) {
+        try {
+            return objectMapper.readValue(facets, new TypeReference<List<Facet>>() {
+            });
+        } catch (IOException e) {
+            throw new ServiceException(e);
+        }
+    }
+
     public <T> Browsing<T> getResultsWithoutFacets(FacetFilter filter) {
         return convertToBrowsing(searchService.search(filter), filter.getResourceType());
     }
@@ -328,4 +478,18 @@ public class GenericManager implements GenericResourceService {
         return null;
     }
 
+    private static final class CachedResults {
+
+        private final Paging<Resource> paging;
+        private final byte[] facets;
+
+        private CachedResults(Paging<Resource> paging, byte[] facets) {
+            this.paging = paging;
+            this.facets = facets;
+        }
+
+        private int weight() {
+            return 1 + (paging.getResults() != null ? paging.getResults().size() : 0);
+        }
+    }
 }
@@ -1,24 +1,52 @@
 package gr.uoa.di.madgik.resourcecatalogue.manager;
 
 import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.registry.domain.Paging;
 import gr.uoa.di.madgik.registry.domain.Resource;
 import gr.uoa.di.madgik.registry.service.ResourceService;
 import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ValidationException;
+import gr.uoa.di.madgik.resourcecatalogue.service.AuthoritiesMapper;
 import gr.uoa.di.madgik.resourcecatalogue.service.MigrationService;
 import gr.uoa.di.madgik.resourcecatalogue.service.SecurityService;
 import gr.uoa.di.madgik.resourcecatalogue.utils.JmsService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationJob;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationJobStore;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationStep;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
 
+/**
+ * Migrates providers and their resources to other catalogues. A migration runs as a job with a step per resource,
+ * whose progress is stored so that a failed or interrupted job can be retried from where it stopped. Jobs run on
+ * the instance that submitted or retried them, which keeps their heartbeat, and any instance fails the jobs whose
+ * heartbeat stopped.
+ */
 @Service
 public class MigrationManager implements MigrationService {
 
     private static final Logger logger = LoggerFactory.getLogger(MigrationManager.class);
+    private static final String PROVIDER = "provider";
+    private static final String SERVICE = "service";
+    private static final String TRAINING_RESOURCE = "training_resource";
+    private static final String INTEROPERABILITY_RECORD = "interoperability_record";
+    private static final List<String> RESOURCE_TYPES = List.of(PROVIDER, SERVICE, TRAINING_RESOURCE, INTEROPERABILITY_RECORD);
 
     private final ServiceBundleManager serviceBundleManager;
     private final PublicServiceManager publicServiceManager;
@@ -34,6 +62,14 @@ public class MigrationManager implements MigrationService {
     private final MonitoringManager monitoringManager;
     private final JmsService jmsService;
     private final SecurityService securityService;
+    private final MigrationJobStore migrationJobStore;
+    private final AuthoritiesMapper authoritiesMapper;
+    private final int parallelism;
+    private final long heartbeat;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // jobs pending or running on this instance
+    private final Map<String, MigrationJob> jobs = new ConcurrentHashMap<>();
 
     @Value("${catalogue.id}")
     private String catalogueId;
@@ -48,7 +84,10 @@ public class MigrationManager implements MigrationService {
                             ResourceInteroperabilityRecordManager resourceInteroperabilityRecordManager,
                             PublicResourceInteroperabilityRecordManager publicResourceInteroperabilityRecordManager,
                             HelpdeskManager helpdeskManager, MonitoringManager monitoringManager,
-                            JmsService jmsService, SecurityService securityService) {
+                            JmsService jmsService, SecurityService securityService,
+                            MigrationJobStore migrationJobStore, @Lazy AuthoritiesMapper authoritiesMapper,
+                            @Value("${catalogue.migration.parallelism:4}") int parallelism,
+                            @Value("${catalogue.migration.heartbeat:30000}") long heartbeat) {
         this.serviceBundleManager = serviceBundleManager;
         this.publicServiceManager = publicServiceManager;
         this.trainingResourceManager = trainingResourceManager;
@@ -63,115 +102,324 @@ public class MigrationManager implements MigrationService {
         this.monitoringManager = monitoringManager;
         this.jmsService = jmsService;
         this.securityService = securityService;
+        this.migrationJobStore = migrationJobStore;
+        this.authoritiesMapper = authoritiesMapper;
+        this.parallelism = parallelism;
+        this.heartbeat = heartbeat;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogue.migration.heartbeat:30000}")
+    void heartbeat() {
+        if (!jobs.isEmpty()) {
+            migrationJobStore.heartbeat(instanceId);
+        }
+        failOrphaned();
+    }
+
+    /**
+     * Fails the jobs of the instances that stopped, which missed three heartbeats.
+     */
+    @PostConstruct
+    void failOrphaned() {
+        int interrupted = migrationJobStore.failOrphaned(3 * heartbeat);
+        if (interrupted > 0) {
+            logger.warn("{} migration jobs were interrupted because their instance stopped and can be retried", interrupted);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
     }
 
     public ProviderBundle changeProviderCatalogue(String providerId, String catalogueId, String newCatalogueId, Authentication authentication) {
         logger.info("User [{}] is updating the catalogueId of the Provider [{}] and all its Resources to [{}]",
                 User.of(authentication).getFullName(), providerId, newCatalogueId);
-        // Provider
         ProviderBundle providerBundle = providerService.get(catalogueId, providerId, authentication);
+        MigrationJob job = create(providerId, catalogueId, newCatalogueId, false, authentication);
+        run(job);
+        if (job.getStatus() != MigrationJob.Status.COMPLETED) {
+            throw new ResourceException(String.format("Migration job [%s] did not complete: %s", job.getId(),
+                    job.getError()), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
         providerBundle.getProvider().setCatalogueId(newCatalogueId);
+        return providerBundle;
+    }
 
-        Resource resource = providerService.getResource(providerBundle.getId(), catalogueId);
-        resource.setPayload(providerService.serialize(providerBundle));
-        logger.debug("Migrating Provider: {} of Catalogue: {} to Catalogue: {}", providerBundle.getId(), catalogueId, newCatalogueId);
-        resourceService.updateResource(resource);
+    @Override
+    public MigrationJob submit(String providerId, String catalogueId, String newCatalogueId, boolean dryRun,
+                               Authentication authentication) {
+        providerService.get(catalogueId, providerId, authentication);
+        MigrationJob job = create(providerId, catalogueId, newCatalogueId, dryRun, authentication);
+        if (!dryRun) {
+            executor.execute(() -> run(job));
+        }
+        logger.info("User [{}] submitted migration job [{}] of the Provider [{}] from Catalogue [{}] to [{}], " +
+                        "dry run: {}", User.of(authentication).getFullName(), job.getId(), providerId, catalogueId,
+                newCatalogueId, dryRun);
+        return job;
+    }
 
-        // Public Provider
+    @Override
+    public MigrationJob getJob(String id) {
+        MigrationJob job = jobs.get(id);
+        if (job == null) {
+            job = migrationJobStore.get(id);
+        }
+        if (job == null) {
+            throw new ResourceNotFoundException(id, "migration job");
+        }
+        return job;
+    }
+
+    @Override
+    public Paging<MigrationJob> getJobs(int from, int quantity) {
+        List<MigrationJob> results = migrationJobStore.getJobs(from, quantity);
+        // running jobs report their live progress
+        results.replaceAll(job -> jobs.getOrDefault(job.getId(), job));
+        return new Paging<>(migrationJobStore.count(), from, from + results.size(), results, new ArrayList<>());
+    }
+
+    @Override
+    public MigrationJob cancel(String id) {
+        MigrationJob job = jobs.get(id);
+        if (job == null) {
+            throw new ValidationException(String.format("Migration job [%s] is not running", getJob(id).getId()));
+        }
+        job.setCancelRequested(true);
+        logger.info("Cancelling migration job [{}]", id);
+        return job;
+    }
+
+    @Override
+    public MigrationJob retry(String id) {
+        MigrationJob job = getJob(id);
+        if (job.isDryRun() || job.isActive() || job.getStatus() == MigrationJob.Status.COMPLETED) {
+            throw new ValidationException(String.format("Migration job [%s] cannot be retried, its status is %s%s",
+                    id, job.getStatus(), job.isDryRun() ? " (dry run)" : ""));
+        }
+        job.setOwner(instanceId);
+        job.setStatus(MigrationJob.Status.PENDING);
+        job.setCancelRequested(false);
+        job.setCompleted(null);
+        job.setError(null);
         try {
-            ProviderBundle publicProviderBundle = providerService.get(catalogueId, catalogueId + "." + providerId, authentication);
-            String oldPublicId = publicProviderBundle.getProvider().getId();
-            publicProviderBundle.getProvider().setId(newCatalogueId + "." + providerId);
-            publicProviderBundle.getProvider().setCatalogueId(newCatalogueId);
-
-            Resource publicResource = providerService.getResource(oldPublicId, catalogueId);
-            publicResource.setPayload(providerService.serialize(publicProviderBundle));
-            logger.info("Migrating Public Provider: {} from Catalogue: {} to Catalogue: {}", publicProviderBundle.getId(), catalogueId, newCatalogueId);
-            resourceService.updateResource(publicResource);
-            jmsService.convertAndSendTopic("provider.update", publicProviderBundle);
-        } catch (RuntimeException e) {
-            logger.error("Error migrating Public Provider", e);
+            migrationJobStore.update(job);
+        } catch (DuplicateKeyException e) {
+            throw alreadyMigrating(job.getProviderId(), job.getCatalogueId());
         }
+        for (MigrationStep step : job.getSteps()) {
+            if (step.getStatus() == MigrationStep.Status.FAILED) {
+                step.setStatus(MigrationStep.Status.PENDING);
+                step.setError(null);
+                migrationJobStore.update(job.getId(), step);
+            }
+        }
+        jobs.put(job.getId(), job);
+        executor.execute(() -> run(job));
+        logger.info("Retrying migration job [{}], {} of {} resources are already migrated", id, job.getDone(),
+                job.getTotal());
+        return job;
+    }
 
-        // Update provider's resources' catalogue
-        changeServiceCatalogue(providerId, catalogueId, newCatalogueId, authentication);
-        changeTrainingResourceCatalogue(providerId, catalogueId, newCatalogueId, authentication);
-        changeInteroperabilityRecordCatalogue(providerId, catalogueId, newCatalogueId, authentication);
+    /**
+     * Creates and stores a job with a step for each resource of the provider. Dry runs are completed right away.
+     */
+    private MigrationJob create(String providerId, String catalogueId, String newCatalogueId, boolean dryRun,
+                                Authentication authentication) {
+        if (catalogueId.equals(newCatalogueId)) {
+            throw new ValidationException(String.format("Provider [%s] is already registered in Catalogue [%s]",
+                    providerId, catalogueId));
+        }
+        MigrationJob job = new MigrationJob(UUID.randomUUID().toString(), providerId, catalogueId, newCatalogueId,
+                dryRun, User.of(authentication).getEmail());
+        job.setOwner(instanceId);
+        job.setSteps(plan(providerId, catalogueId, newCatalogueId, authentication));
+        if (dryRun) {
+            job.setStatus(MigrationJob.Status.COMPLETED);
+            job.setCompleted(new Date());
+            migrationJobStore.save(job);
+            return job;
+        }
+        try {
+            migrationJobStore.save(job);
+        } catch (DuplicateKeyException e) {
+            throw alreadyMigrating(providerId, catalogueId);
+        }
+        jobs.put(job.getId(), job);
+        return job;
+    }
 
-        return providerBundle;
+    private ValidationException alreadyMigrating(String providerId, String catalogueId) {
+        return new ValidationException(String.format("Provider [%s] is already being migrated by job [%s]",
+                providerId, migrationJobStore.getActiveJobId(providerId, catalogueId)), HttpStatus.CONFLICT);
+    }
+
+    private List<MigrationStep> plan(String providerId, String catalogueId, String newCatalogueId,
+                                     Authentication authentication) {
+        List<MigrationStep> steps = new ArrayList<>();
+        steps.add(new MigrationStep(PROVIDER, providerId, providerId));
+        String publicProviderId = catalogueId + "." + providerId;
+        if (providerService.getResource(publicProviderId, catalogueId) != null) {
+            steps.add(new MigrationStep(PROVIDER, publicProviderId, newCatalogueId + "." + providerId));
+        }
+        for (ServiceBundle serviceBundle : serviceBundleManager.getResourceBundles(catalogueId, providerId, authentication).getResults()) {
+            steps.add(step(SERVICE, serviceBundle.getId(), catalogueId, newCatalogueId));
+        }
+        for (TrainingResourceBundle trainingResourceBundle : trainingResourceManager.getResourceBundles(catalogueId, providerId, authentication).getResults()) {
+            steps.add(step(TRAINING_RESOURCE, trainingResourceBundle.getId(), catalogueId, newCatalogueId));
+        }
+        for (InteroperabilityRecordBundle interoperabilityRecordBundle : interoperabilityRecordManager.getInteroperabilityRecordBundles(catalogueId, providerId, authentication).getResults()) {
+            steps.add(step(INTEROPERABILITY_RECORD, interoperabilityRecordBundle.getId(), catalogueId, newCatalogueId));
+        }
+        return steps;
+    }
+
+    private static MigrationStep step(String resourceType, String id, String catalogueId, String newCatalogueId) {
+        // the ids of public resources start with their catalogue id
+        if (id.startsWith(catalogueId + ".")) {
+            return new MigrationStep(resourceType, id, newCatalogueId + id.substring(catalogueId.length()));
+        }
+        return new MigrationStep(resourceType, id, id);
     }
 
-    private void changeServiceCatalogue(String providerId, String catalogueId, String newCatalogueId, Authentication authentication) {
-        List<ServiceBundle> serviceBundles = serviceBundleManager.getResourceBundles(catalogueId, providerId, authentication).getResults();
-        // Services
-        String jmsTopic = "service.update";
-        boolean sendJMS;
-        for (ServiceBundle serviceBundle : serviceBundles) {
-            sendJMS = false;
-            String oldResourceId = serviceBundle.getId();
-            if (serviceBundle.getService().getId().startsWith(catalogueId)) {
-                // if Service is Public, update its id
-                sendJMS = true;
-                String id = serviceBundle.getId().replaceFirst(catalogueId, newCatalogueId);
-                serviceBundle.getService().setId(id);
+    /**
+     * Migrates the pending steps of a job, type by type and in parallel within each type. The next type is started
+     * only if every resource of the previous ones was migrated, so that no resource is moved before its provider.
+     */
+    void run(MigrationJob job) {
+        job.setStatus(MigrationJob.Status.RUNNING);
+        migrationJobStore.update(job);
+        try {
+            for (String resourceType : RESOURCE_TYPES) {
+                List<MigrationStep> pending = job.getSteps().stream()
+                        .filter(step -> step.getResourceType().equals(resourceType))
+                        .filter(step -> step.getStatus() != MigrationStep.Status.DONE)
+                        .toList();
+                execute(job, pending);
+                if (job.isCancelRequested() || job.getFailed() > 0) {
+                    break;
+                }
             }
-            serviceBundle.getService().setCatalogueId(newCatalogueId);
-            Resource resource = serviceBundleManager.getResource(oldResourceId, catalogueId);
-            resource.setPayload(serviceBundleManager.serialize(serviceBundle));
-            logger.debug("Migrating Service: {} of Catalogue: {} to Catalogue: {}", serviceBundle.getId(), catalogueId, newCatalogueId);
-            resourceService.updateResource(resource);
-            if (sendJMS) {
-                jmsService.convertAndSendTopic(jmsTopic, serviceBundle);
+            if (job.getFailed() > 0) {
+                job.setError(String.format("%d of %d resources could not be migrated", job.getFailed(), job.getTotal()));
+                job.setStatus(MigrationJob.Status.FAILED);
+            } else if (job.isCancelRequested()) {
+                job.setStatus(MigrationJob.Status.CANCELLED);
+            } else {
+                job.setStatus(MigrationJob.Status.COMPLETED);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.setError("Interrupted");
+            job.setStatus(MigrationJob.Status.FAILED);
+        } catch (RuntimeException e) {
+            logger.error("Migration job [{}] failed", job.getId(), e);
+            job.setError(e.getMessage());
+            job.setStatus(MigrationJob.Status.FAILED);
+        } finally {
+            job.setCompleted(new Date());
+            migrationJobStore.update(job);
+            jobs.remove(job.getId());
         }
+        logger.info("Migration job [{}] of the Provider [{}] to Catalogue [{}] finished with status {}, {} of {} " +
+                        "resources migrated", job.getId(), job.getProviderId(), job.getNewCatalogueId(), job.getStatus(),
+                job.getDone(), job.getTotal());
     }
 
-    private void changeTrainingResourceCatalogue(String providerId, String catalogueId, String newCatalogueId, Authentication authentication) {
-        List<TrainingResourceBundle> trainingResourceBundles = trainingResourceManager.getResourceBundles(catalogueId, providerId, authentication).getResults();
-        // Training Resources
-        String jmsTopic = "training_resource.update";
-        boolean sendJMS;
-        for (TrainingResourceBundle trainingResourceBundle : trainingResourceBundles) {
-            sendJMS = false;
-            String oldResourceId = trainingResourceBundle.getId();
-            if (trainingResourceBundle.getTrainingResource().getId().startsWith(catalogueId)) {
-                // if Training Resource is Public, update its id
-                sendJMS = true;
-                String id = trainingResourceBundle.getId().replaceFirst(catalogueId, newCatalogueId);
-                trainingResourceBundle.getTrainingResource().setId(id);
+    private void execute(MigrationJob job, List<MigrationStep> steps) throws InterruptedException {
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (MigrationStep step : steps) {
+                if (job.isCancelRequested()) {
+                    break;
+                }
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        execute(job, step);
+                    } finally {
+                        permits.release();
+                    }
+                }));
             }
-            trainingResourceBundle.getTrainingResource().setCatalogueId(newCatalogueId);
-            Resource resource = trainingResourceManager.getResource(oldResourceId, catalogueId);
-            resource.setPayload(trainingResourceManager.serialize(trainingResourceBundle));
-            logger.debug("Migrating Training Resource: {} of Catalogue: {} to Catalogue: {}", trainingResourceBundle.getId(), catalogueId, newCatalogueId);
-            resourceService.updateResource(resource);
-            if (sendJMS) {
-                jmsService.convertAndSendTopic(jmsTopic, trainingResourceBundle);
+        } finally {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Migration job [{}] failed to run a step", job.getId(), e.getCause());
+                }
             }
         }
     }
 
-    private void changeInteroperabilityRecordCatalogue(String providerId, String catalogueId, String newCatalogueId, Authentication authentication) {
-        List<InteroperabilityRecordBundle> interoperabilityRecordBundles = interoperabilityRecordManager.getInteroperabilityRecordBundles(catalogueId, providerId, authentication).getResults();
-        String jmsTopic = "interoperability_record.update";
-        boolean sendJMS;
-        for (InteroperabilityRecordBundle interoperabilityRecordBundle : interoperabilityRecordBundles) {
-            sendJMS = false;
-            String oldResourceId = interoperabilityRecordBundle.getId();
-            if (interoperabilityRecordBundle.getInteroperabilityRecord().getId().startsWith(catalogueId)) {
-                // if Interoperability Record is Public, update its id
-                sendJMS = true;
-                String id = interoperabilityRecordBundle.getId().replaceFirst(catalogueId, newCatalogueId);
-                interoperabilityRecordBundle.getInteroperabilityRecord().setId(id);
+    private void execute(MigrationJob job, MigrationStep step) {
+        try {
+            switch (step.getResourceType()) {
+                case PROVIDER -> migrate(providerService,
+                        (bundle, catalogue) -> bundle.getProvider().setCatalogueId(catalogue), "provider.update", job, step);
+                case SERVICE -> migrate(serviceBundleManager,
+                        (bundle, catalogue) -> bundle.getService().setCatalogueId(catalogue), "service.update", job, step);
+                case TRAINING_RESOURCE -> migrate(trainingResourceManager,
+                        (bundle, catalogue) -> bundle.getTrainingResource().setCatalogueId(catalogue),
+                        "training_resource.update", job, step);
+                case INTEROPERABILITY_RECORD -> migrate(interoperabilityRecordManager,
+                        (bundle, catalogue) -> bundle.getInteroperabilityRecord().setCatalogueId(catalogue),
+                        "interoperability_record.update", job, step);
+                default -> throw new IllegalArgumentException(String.format("Resources of type '%s' cannot be migrated",
+                        step.getResourceType()));
             }
-            interoperabilityRecordBundle.getInteroperabilityRecord().setCatalogueId(newCatalogueId);
-            Resource resource = interoperabilityRecordManager.getResource(oldResourceId, catalogueId);
-            resource.setPayload(interoperabilityRecordManager.serialize(interoperabilityRecordBundle));
-            logger.debug("Migrating Interoperability Record: {} of Catalogue: {} to Catalogue: {}", interoperabilityRecordBundle.getId(), catalogueId, newCatalogueId);
-            resourceService.updateResource(resource);
-            if (sendJMS) {
-                jmsService.convertAndSendTopic(jmsTopic, interoperabilityRecordBundle);
+            step.setStatus(MigrationStep.Status.DONE);
+            step.setError(null);
+        } catch (RuntimeException e) {
+            logger.error("Could not migrate {} [{}] of migration job [{}]", step.getResourceType(), step.getOldId(),
+                    job.getId(), e);
+            step.setStatus(MigrationStep.Status.FAILED);
+            step.setError(e.getMessage());
+        }
+        try {
+            migrationJobStore.update(job.getId(), step);
+        } catch (RuntimeException e) {
+            // the step is found migrated when the job is retried
+            logger.warn("Could not store the status of {} [{}] of migration job [{}]: {}", step.getResourceType(),
+                    step.getOldId(), job.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Moves a resource to the new catalogue, and updates its id if it is public. A resource that is no longer in
+     * the old catalogue but is found in the new one has already been migrated, so retrying a step is harmless.
+     */
+    private <T extends Bundle<?>> void migrate(ResourceManager<T> manager, BiConsumer<T, String> setCatalogueId,
+                                               String jmsTopic, MigrationJob job, MigrationStep step) {
+        Resource resource = manager.getResource(step.getOldId(), job.getCatalogueId());
+        if (resource == null) {
+            if (manager.getResource(step.getNewId(), job.getNewCatalogueId()) != null) {
+                logger.debug("{} [{}] is already migrated to Catalogue [{}]", step.getResourceType(), step.getNewId(),
+                        job.getNewCatalogueId());
+                return;
             }
+            throw new ResourceNotFoundException(step.getOldId(), step.getResourceType());
+        }
+        T bundle = manager.deserialize(resource);
+        bundle.getPayload().setId(step.getNewId());
+        setCatalogueId.accept(bundle, job.getNewCatalogueId());
+        resource.setPayload(manager.serialize(bundle));
+        logger.debug("Migrating {}: {} of Catalogue: {} to Catalogue: {}", step.getResourceType(), step.getOldId(),
+                job.getCatalogueId(), job.getNewCatalogueId());
+        resourceService.updateResource(resource);
+        if (bundle instanceof ProviderBundle providerBundle) {
+            // the authorities are kept per catalogue, so the old catalogue must stop granting the provider's roles
+            ProviderBundle previous = ObjectUtils.clone(providerBundle);
+            previous.getProvider().setId(step.getOldId());
+            previous.getProvider().setCatalogueId(job.getCatalogueId());
+            authoritiesMapper.removeAuthorities(previous);
+            authoritiesMapper.updateAuthorities(providerBundle);
+        }
+        if (!step.getOldId().equals(step.getNewId())) {
+            jmsService.convertAndSendTopic(jmsTopic, bundle);
         }
     }
 
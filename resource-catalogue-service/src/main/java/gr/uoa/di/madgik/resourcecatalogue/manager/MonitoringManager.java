@@ -9,15 +9,11 @@ import gr.uoa.di.madgik.resourcecatalogue.dto.ServiceType;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ValidationException;
 import gr.uoa.di.madgik.resourcecatalogue.service.*;
-import gr.uoa.di.madgik.resourcecatalogue.utils.CreateArgoGrnetHttpRequest;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ObjectUtils;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ProviderResourcesCommonMethods;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ResourceValidationUtils;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.Authentication;
 
@@ -35,11 +31,7 @@ public class MonitoringManager extends ResourceManager<MonitoringBundle> impleme
     private final SecurityService securityService;
     private final RegistrationMailService registrationMailService;
     private final ProviderResourcesCommonMethods commonMethods;
-
-    @Value("${argo.grnet.monitoring.token}")
-    private String monitoringToken;
-    @Value("${argo.grnet.monitoring.service.types}")
-    private String monitoringServiceTypes;
+    private final MonitoringServiceTypeRegistry serviceTypeRegistry;
 
     private final IdCreator idCreator;
 
@@ -50,6 +42,7 @@ public class MonitoringManager extends ResourceManager<MonitoringBundle> impleme
                              @Lazy SecurityService securityService,
                              @Lazy RegistrationMailService registrationMailService,
                              ProviderResourcesCommonMethods commonMethods,
+                             MonitoringServiceTypeRegistry serviceTypeRegistry,
                              IdCreator idCreator) {
         super(MonitoringBundle.class);
         this.serviceBundleService = serviceBundleService;
@@ -58,6 +51,7 @@ public class MonitoringManager extends ResourceManager<MonitoringBundle> impleme
         this.securityService = securityService;
         this.registrationMailService = registrationMailService;
         this.commonMethods = commonMethods;
+        this.serviceTypeRegistry = serviceTypeRegistry;
         this.idCreator = idCreator;
     }
 
@@ -187,19 +181,7 @@ public class MonitoringManager extends ResourceManager<MonitoringBundle> impleme
     }
 
     public List<ServiceType> getAvailableServiceTypes() {
-        List<ServiceType> serviceTypeList = new ArrayList<>();
-        String response = CreateArgoGrnetHttpRequest.createHttpRequest(monitoringServiceTypes, monitoringToken);
-        JSONObject obj = new JSONObject(response);
-        JSONArray arr = obj.getJSONArray("data");
-        for (int i = 0; i < arr.length(); i++) {
-            String date = arr.getJSONObject(i).get("date").toString();
-            String name = arr.getJSONObject(i).get("name").toString();
-            String title = arr.getJSONObject(i).get("title").toString();
-            String description = arr.getJSONObject(i).get("description").toString();
-            ServiceType serviceType = new ServiceType(date, name, title, description);
-            serviceTypeList.add(serviceType);
-        }
-        return serviceTypeList;
+        return serviceTypeRegistry.getServiceTypes();
     }
 
     @Override
@@ -209,15 +191,14 @@ public class MonitoringManager extends ResourceManager<MonitoringBundle> impleme
     }
 
     public void serviceTypeValidation(Monitoring monitoring) {
-        List<ServiceType> serviceTypeList = getAvailableServiceTypes();
-        List<String> serviceTypeNames = new ArrayList<>();
-        for (ServiceType type : serviceTypeList) {
-            serviceTypeNames.add(type.getName());
-        }
         for (MonitoringGroup monitoringGroup : monitoring.getMonitoringGroups()) {
             String serviceType = monitoringGroup.getServiceType();
-            if (!serviceTypeNames.contains(serviceType)) {
-                throw new ValidationException(String.format("The serviceType you provided is wrong. Available serviceTypes are: '%s'", serviceTypeList));
+            if (!serviceTypeRegistry.contains(serviceType)) {
+                List<String> serviceTypeNames = new ArrayList<>();
+                for (ServiceType type : serviceTypeRegistry.getServiceTypes()) {
+                    serviceTypeNames.add(type.getName());
+                }
+                throw new ValidationException(String.format("The serviceType you provided is wrong. Available serviceTypes are: '%s'", serviceTypeNames));
             }
         }
     }
@@ -225,31 +206,11 @@ public class MonitoringManager extends ResourceManager<MonitoringBundle> impleme
 
     // Argo GRNET Monitoring Status methods
     public List<MonitoringStatus> createMonitoringAvailabilityObject(JsonArray results) {
-        List<MonitoringStatus> monitoringStatuses = new ArrayList<>();
-        for (int i = 0; i < results.size(); i++) {
-            String date = results.get(i).getAsJsonObject().get("date").getAsString();
-            String availability = results.get(i).getAsJsonObject().get("availability").getAsString();
-            String reliability = results.get(i).getAsJsonObject().get("reliability").getAsString();
-            String unknown = results.get(i).getAsJsonObject().get("unknown").getAsString();
-            String uptime = results.get(i).getAsJsonObject().get("uptime").getAsString();
-            String downtime = results.get(i).getAsJsonObject().get("downtime").getAsString();
-            MonitoringStatus monitoringStatus =
-                    new MonitoringStatus(date, availability, reliability, unknown, uptime, downtime);
-            monitoringStatuses.add(monitoringStatus);
-        }
-        return monitoringStatuses;
+        return MonitoringStatusAggregator.createAvailabilities(results);
     }
 
     public List<MonitoringStatus> createMonitoringStatusObject(JsonArray results) {
-        List<MonitoringStatus> monitoringStatuses = new ArrayList<>();
-        for (int i = 0; i < results.size(); i++) {
-            String timestamp = results.get(i).getAsJsonObject().get("timestamp").getAsString();
-            String value = results.get(i).getAsJsonObject().get("value").getAsString();
-            MonitoringStatus monitoringStatus =
-                    new MonitoringStatus(timestamp, value);
-            monitoringStatuses.add(monitoringStatus);
-        }
-        return monitoringStatuses;
+        return MonitoringStatusAggregator.createStatuses(results);
     }
 
     public MonitoringBundle createPublicResource(MonitoringBundle monitoringBundle, Authentication auth) {
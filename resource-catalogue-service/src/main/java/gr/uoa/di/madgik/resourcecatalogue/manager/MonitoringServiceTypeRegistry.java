@@ -0,0 +1,188 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import gr.uoa.di.madgik.resourcecatalogue.dto.ServiceType;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
+import gr.uoa.di.madgik.resourcecatalogue.service.MonitoringServiceTypeService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ArgoGrnetClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Local copy of the ARGO GRNET monitoring service types. It is loaded after startup and refreshed on a configurable
+ * interval. When ARGO cannot be reached, the last successfully loaded service types keep being served and the
+ * failure is recorded in the {@link MonitoringServiceTypeService.Status Status} of the registry.
+ */
+@Component
+public class MonitoringServiceTypeRegistry implements MonitoringServiceTypeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitoringServiceTypeRegistry.class);
+    /**
+     * Minimum time between two loads triggered by lookups, while no service types have been loaded yet.
+     */
+    private static final long ON_DEMAND_RETRY_DELAY = 60000;
+
+    private final ArgoGrnetClient argoGrnetClient;
+    private final String serviceTypesUrl;
+    private final long maxAge;
+
+    private volatile Snapshot snapshot;
+    private volatile long lastFailureAt;
+    private volatile String lastFailure;
+    private volatile int consecutiveFailures;
+
+    public MonitoringServiceTypeRegistry(ArgoGrnetClient argoGrnetClient,
+                                         @Value("${argo.grnet.monitoring.service.types}") String serviceTypesUrl,
+                                         @Value("${catalogue.monitoring.service-types.max-age:86400000}") long maxAge) {
+        this.argoGrnetClient = argoGrnetClient;
+        this.serviceTypesUrl = serviceTypesUrl;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Loads the service types once the application has started, in the background, so that a slow or unreachable
+     * ARGO does not delay the startup. Lookups made before they are loaded load them on demand.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    /**
+     * Reloads the service types from ARGO. If ARGO cannot be reached or responds with no service types, the
+     * previously loaded service types are kept.
+     *
+     * @return true if the service types were reloaded
+     */
+    @Override
+    @Scheduled(initialDelayString = "${catalogue.monitoring.service-types.refresh-interval:3600000}",
+            fixedDelayString = "${catalogue.monitoring.service-types.refresh-interval:3600000}")
+    public synchronized boolean refresh() {
+        try {
+            List<ServiceType> serviceTypes = parseServiceTypes(argoGrnetClient.get(serviceTypesUrl));
+            if (serviceTypes.isEmpty()) {
+                throw new ResourceException("ARGO returned no service types", HttpStatus.BAD_GATEWAY);
+            }
+            snapshot = new Snapshot(serviceTypes);
+            consecutiveFailures = 0;
+            logger.debug("Loaded {} monitoring service types", serviceTypes.size());
+            return true;
+        } catch (RuntimeException e) {
+            lastFailureAt = System.currentTimeMillis();
+            lastFailure = e.getMessage();
+            consecutiveFailures++;
+            Snapshot current = snapshot;
+            if (current == null) {
+                logger.error("Could not load the monitoring service types: {}", e.getMessage());
+            } else if (isStale()) {
+                logger.error("Could not refresh the monitoring service types, serving stale ones loaded {} ms ago: {}",
+                        System.currentTimeMillis() - current.loadedAt, e.getMessage());
+            } else {
+                logger.warn("Could not refresh the monitoring service types, serving the ones loaded {} ms ago: {}",
+                        System.currentTimeMillis() - current.loadedAt, e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Returns the available service types.
+     *
+     * @return the service types
+     * @throws ResourceException if the service types have never been loaded
+     */
+    @Override
+    public List<ServiceType> getServiceTypes() {
+        return getSnapshot().serviceTypes;
+    }
+
+    /**
+     * Returns whether the given service type name is one of the available service types.
+     *
+     * @param name service type name
+     * @return true if the service type exists
+     * @throws ResourceException if the service types have never been loaded
+     */
+    @Override
+    public boolean contains(String name) {
+        return getSnapshot().names.contains(name);
+    }
+
+    /**
+     * Returns whether the service types have not been loaded for longer than the configured max age.
+     */
+    public boolean isStale() {
+        Snapshot current = snapshot;
+        return current == null || System.currentTimeMillis() - current.loadedAt > maxAge;
+    }
+
+    @Override
+    public Status getStatus() {
+        Snapshot current = snapshot;
+        return new Status(current != null ? current.serviceTypes.size() : 0,
+                current != null ? new Date(current.loadedAt) : null, isStale(), consecutiveFailures,
+                lastFailureAt > 0 ? new Date(lastFailureAt) : null, lastFailure);
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null && System.currentTimeMillis() - lastFailureAt > ON_DEMAND_RETRY_DELAY) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+            if (current == null) {
+                throw new ResourceException("Monitoring service types are currently unavailable",
+                        HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        }
+        return current;
+    }
+
+    static List<ServiceType> parseServiceTypes(JsonObject response) {
+        List<ServiceType> serviceTypes = new ArrayList<>();
+        if (response == null || !response.has("data") || !response.get("data").isJsonArray()) {
+            return serviceTypes;
+        }
+        for (JsonElement element : response.getAsJsonArray("data")) {
+            JsonObject serviceType = element.getAsJsonObject();
+            serviceTypes.add(new ServiceType(getString(serviceType, "date"), getString(serviceType, "name"),
+                    getString(serviceType, "title"), getString(serviceType, "description")));
+        }
+        return serviceTypes;
+    }
+
+    private static String getString(JsonObject object, String field) {
+        JsonElement element = object.get(field);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+
+    private static final class Snapshot {
+
+        private final List<ServiceType> serviceTypes;
+        private final Set<String> names;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Snapshot(List<ServiceType> serviceTypes) {
+            this.serviceTypes = Collections.unmodifiableList(serviceTypes);
+            Set<String> typeNames = new HashSet<>();
+            for (ServiceType serviceType : serviceTypes) {
+                typeNames.add(serviceType.getName());
+            }
+            this.names = Collections.unmodifiableSet(typeNames);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.resourcecatalogue.domain.ServiceBundle;
+import gr.uoa.di.madgik.resourcecatalogue.dto.MonitoringStatus;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
+import gr.uoa.di.madgik.resourcecatalogue.service.MonitoringStatusService;
+import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ArgoGrnetClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aggregates the ARGO GRNET monitoring statuses of the Services. Requests to ARGO run concurrently on virtual threads,
+ * bounded by a global concurrency limit, and the latest status of each Service is cached for a configurable time.
+ * The statuses of all the Services are served from a snapshot that is rebuilt on a configurable interval.
+ */
+@Profile("beyond")
+@Component
+public class MonitoringStatusAggregator implements MonitoringStatusService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonitoringStatusAggregator.class);
+
+    private final ArgoGrnetClient argoGrnetClient;
+    private final ServiceBundleService<ServiceBundle> serviceBundleService;
+    private final String monitoringStatus;
+    private final String monitoringAvailability;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Cache<String, List<MonitoringStatus>> latestStatuses;
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private volatile Map<String, String> statusValues = Collections.emptyMap();
+    private volatile boolean loaded;
+
+    public MonitoringStatusAggregator(ArgoGrnetClient argoGrnetClient,
+                                      @Lazy ServiceBundleService<ServiceBundle> serviceBundleService,
+                                      @Value("${argo.grnet.monitoring.status}") String monitoringStatus,
+                                      @Value("${argo.grnet.monitoring.availability}") String monitoringAvailability,
+                                      @Value("${catalogue.monitoring.max-concurrency:16}") int maxConcurrency,
+                                      @Value("${catalogue.monitoring.cache-ttl:300000}") long cacheTtl) {
+        this.argoGrnetClient = argoGrnetClient;
+        this.serviceBundleService = serviceBundleService;
+        this.monitoringStatus = monitoringStatus;
+        this.monitoringAvailability = monitoringAvailability;
+        this.permits = new Semaphore(maxConcurrency);
+        this.latestStatuses = CacheBuilder.newBuilder()
+                .expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the latest monitoring statuses of the given Service, from the cache if they were fetched recently.
+     *
+     * @param serviceId the Service id
+     * @return the statuses, or an empty list if the Service is not monitored
+     */
+    @Override
+    public List<MonitoringStatus> getStatuses(String serviceId) {
+        try {
+            return latestStatuses.get(serviceId, () -> fetchStatuses(monitoringStatus + serviceId));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof ResourceException) {
+                throw (ResourceException) e.getCause();
+            }
+            throw new ResourceException(e, HttpStatus.BAD_GATEWAY);
+        }
+    }
+
+    /**
+     * Returns the detailed monitoring statuses of the given Service. Detailed statuses are not cached.
+     *
+     * @param serviceId the Service id
+     * @return the statuses, or an empty list if the Service is not monitored
+     */
+    @Override
+    public List<MonitoringStatus> getDetailedStatuses(String serviceId) {
+        return fetchStatuses(monitoringStatus + serviceId + "?view=details");
+    }
+
+    /**
+     * Returns the monitoring statuses of the given Service in the given period.
+     *
+     * @param serviceId the Service id
+     * @param startTime period start, as an ISO-8601 date time
+     * @param endTime   period end, as an ISO-8601 date time
+     * @return the statuses, or an empty list if the Service is not monitored
+     */
+    @Override
+    public List<MonitoringStatus> getStatuses(String serviceId, String startTime, String endTime) {
+        return fetchStatuses(monitoringStatus + serviceId + "?start_time=" + startTime + "&end_time=" + endTime);
+    }
+
+    /**
+     * Returns the monitoring availabilities of the given Service in the given period.
+     *
+     * @param serviceId the Service id
+     * @param startTime period start
+     * @param endTime   period end
+     * @return the availabilities, or an empty list if the Service is not monitored
+     */
+    @Override
+    public List<MonitoringStatus> getAvailabilities(String serviceId, String startTime, String endTime) {
+        String url = monitoringAvailability + serviceId + "?start_time=" + startTime + "&end_time=" + endTime;
+        JsonArray results = getEndpointResults(request(url), "results");
+        return results != null ? createAvailabilities(results) : new ArrayList<>();
+    }
+
+    /**
+     * Returns the latest monitoring status value of every non-public Service, from the latest snapshot. Until the
+     * first snapshot is built, in the background, an empty map is returned.
+     *
+     * @return map of Service ids to their latest status value, or an empty string if it is unknown
+     */
+    @Override
+    public Map<String, String> getAllStatusValues() {
+        if (!loaded) {
+            warmUp();
+        }
+        return statusValues;
+    }
+
+    /**
+     * Builds the first snapshot in the background, unless it is already being built.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void warmUp() {
+        if (warming.compareAndSet(false, true)) {
+            executor.submit(() -> {
+                try {
+                    refresh();
+                } finally {
+                    warming.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot of the latest monitoring status value of every non-public Service, requesting the
+     * statuses that are not cached concurrently.
+     */
+    @Scheduled(initialDelayString = "${catalogue.monitoring.refresh-initial-delay:60000}",
+            fixedDelayString = "${catalogue.monitoring.refresh-interval:900000}")
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        Map<String, Future<String>> values = new LinkedHashMap<>();
+        try {
+            FacetFilter ff = new FacetFilter();
+            ff.addFilter("published", false);
+            serviceBundleService.stream(ff).forEach(serviceBundle ->
+                    values.computeIfAbsent(serviceBundle.getId(), id -> executor.submit(() -> getStatusValue(id))));
+        } catch (RuntimeException e) {
+            logger.warn("Could not retrieve the Services to refresh their monitoring statuses", e);
+            values.values().forEach(future -> future.cancel(true));
+            return;
+        }
+
+        Map<String, String> snapshot = new HashMap<>();
+        int failed = 0;
+        for (Map.Entry<String, Future<String>> value : values.entrySet()) {
+            try {
+                snapshot.put(value.getKey(), value.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                values.values().forEach(future -> future.cancel(true));
+                return;
+            } catch (ExecutionException e) {
+                failed++;
+                logger.debug("Could not get the monitoring status of '{}'", value.getKey(), e.getCause());
+                snapshot.put(value.getKey(), "");
+            }
+        }
+        statusValues = Collections.unmodifiableMap(snapshot);
+        loaded = true;
+        if (failed > 0) {
+            logger.warn("Could not get the monitoring status of {} out of {} Services", failed, snapshot.size());
+        }
+        logger.debug("Refreshed the monitoring status of {} Services in {} ms", snapshot.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private String getStatusValue(String serviceId) {
+        List<MonitoringStatus> statuses = getStatuses(serviceId);
+        return statuses.isEmpty() || statuses.get(0).getValue() == null ? "" : statuses.get(0).getValue();
+    }
+
+    private List<MonitoringStatus> fetchStatuses(String url) {
+        JsonArray statuses = getEndpointResults(request(url), "statuses");
+        return statuses != null ? createStatuses(statuses) : new ArrayList<>();
+    }
+
+    private JsonObject request(String url) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceException("ARGO request was interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        try {
+            return argoGrnetClient.get(url);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Returns the given array of the first endpoint of an ARGO response, or null if there is none.
+     */
+    static JsonArray getEndpointResults(JsonObject response, String field) {
+        if (response == null || !response.has("endpoints") || !response.get("endpoints").isJsonArray()) {
+            return null;
+        }
+        JsonArray endpoints = response.getAsJsonArray("endpoints");
+        if (endpoints.isEmpty() || !endpoints.get(0).isJsonObject()) {
+            return null;
+        }
+        JsonElement results = endpoints.get(0).getAsJsonObject().get(field);
+        return results != null && results.isJsonArray() ? results.getAsJsonArray() : null;
+    }
+
+    static List<MonitoringStatus> createStatuses(JsonArray results) {
+        List<MonitoringStatus> monitoringStatuses = new ArrayList<>();
+        for (JsonElement result : results) {
+            JsonObject status = result.getAsJsonObject();
+            monitoringStatuses.add(new MonitoringStatus(getString(status, "timestamp"), getString(status, "value")));
+        }
+        return monitoringStatuses;
+    }
+
+    static List<MonitoringStatus> createAvailabilities(JsonArray results) {
+        List<MonitoringStatus> monitoringStatuses = new ArrayList<>();
+        for (JsonElement result : results) {
+            JsonObject availability = result.getAsJsonObject();
+            monitoringStatuses.add(new MonitoringStatus(getString(availability, "date"),
+                    getString(availability, "availability"), getString(availability, "reliability"),
+                    getString(availability, "unknown"), getString(availability, "uptime"),
+                    getString(availability, "downtime")));
+        }
+        return monitoringStatuses;
+    }
+
+    private static String getString(JsonObject object, String field) {
+        JsonElement element = object.get(field);
+        return element == null || element.isJsonNull() ? null : element.getAsString();
+    }
+}
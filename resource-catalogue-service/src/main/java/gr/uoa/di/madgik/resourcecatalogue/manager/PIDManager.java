@@ -1,8 +1,7 @@
 package gr.uoa.di.madgik.resourcecatalogue.manager;
 
-import gr.uoa.di.madgik.registry.domain.Browsing;
-import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Bundle;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.resourcecatalogue.service.GenericResourceService;
 import gr.uoa.di.madgik.resourcecatalogue.service.PIDService;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ProviderResourcesCommonMethods;
@@ -23,13 +22,10 @@ public class PIDManager implements PIDService {
         String pid = prefix + "/" + suffix;
         String resourceType = commonMethods.determineResourceTypeFromPidPrefix(prefix);
         if (!resourceType.equals("no_resource_type")) {
-            FacetFilter ff = new FacetFilter();
-            ff.setQuantity(10000);
-            ff.setResourceType(resourceType);
-            ff.addFilter("resource_internal_id", pid);
-            Browsing<Bundle<?>> browsing = genericResourceService.getResults(ff);
-            if (!browsing.getResults().isEmpty()) {
-                return browsing.getResults().get(0);
+            try {
+                return genericResourceService.get(resourceType, pid);
+            } catch (ResourceNotFoundException e) {
+                return null;
             }
         }
         return null;
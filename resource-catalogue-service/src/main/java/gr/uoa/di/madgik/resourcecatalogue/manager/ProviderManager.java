@@ -12,6 +12,7 @@ import gr.uoa.di.madgik.resourcecatalogue.exception.ValidationException;
 import gr.uoa.di.madgik.resourcecatalogue.service.*;
 import gr.uoa.di.madgik.resourcecatalogue.utils.Auditable;
 import gr.uoa.di.madgik.resourcecatalogue.utils.AuthenticationInfo;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CascadeJob;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ObjectUtils;
 import gr.uoa.di.madgik.resourcecatalogue.utils.ProviderResourcesCommonMethods;
 import gr.uoa.di.madgik.resourcecatalogue.validators.FieldValidator;
@@ -41,10 +42,7 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     private final ServiceBundleService<ServiceBundle> serviceBundleService;
     private final TrainingResourceService trainingResourceService;
     private final InteroperabilityRecordService interoperabilityRecordService;
-    private final PublicServiceManager publicServiceManager;
     private final PublicProviderManager publicProviderManager;
-    private final PublicTrainingResourceManager publicTrainingResourceManager;
-    private final PublicInteroperabilityRecordManager publicInteroperabilityRecordManager;
     private final SecurityService securityService;
     private final FieldValidator fieldValidator;
     private final IdCreator idCreator;
@@ -55,6 +53,8 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     private final CatalogueService catalogueService;
     private final SynchronizerService<Provider> synchronizerService;
     private final ProviderResourcesCommonMethods commonMethods;
+    private final CascadeService cascadeService;
+    private final AuthoritiesMapper authoritiesMapper;
 
     @Value("${catalogue.id}")
     private String catalogueId;
@@ -68,12 +68,11 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
                            @Qualifier("providerSync") SynchronizerService<Provider> synchronizerService,
                            ProviderResourcesCommonMethods commonMethods,
                            CatalogueService catalogueService,
-                           @Lazy PublicServiceManager publicServiceManager,
                            @Lazy PublicProviderManager publicProviderManager,
                            @Lazy TrainingResourceService trainingResourceService,
                            @Lazy InteroperabilityRecordService interoperabilityRecordService,
-                           @Lazy PublicTrainingResourceManager publicTrainingResourceManager,
-                           @Lazy PublicInteroperabilityRecordManager publicInteroperabilityRecordManager) {
+                           @Lazy CascadeService cascadeService,
+                           @Lazy AuthoritiesMapper authoritiesMapper) {
         super(ProviderBundle.class);
         this.draftProviderService = draftProviderService;
         this.serviceBundleService = serviceBundleService;
@@ -87,12 +86,11 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
         this.synchronizerService = synchronizerService;
         this.commonMethods = commonMethods;
         this.catalogueService = catalogueService;
-        this.publicServiceManager = publicServiceManager;
         this.publicProviderManager = publicProviderManager;
         this.trainingResourceService = trainingResourceService;
         this.interoperabilityRecordService = interoperabilityRecordService;
-        this.publicTrainingResourceManager = publicTrainingResourceManager;
-        this.publicInteroperabilityRecordManager = publicInteroperabilityRecordManager;
+        this.cascadeService = cascadeService;
+        this.authoritiesMapper = authoritiesMapper;
     }
 
 
@@ -367,46 +365,17 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
         }
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         logger.trace("User is attempting to delete the Provider with id '{}'", provider.getId());
-        List<ServiceBundle> services = serviceBundleService.getResourceBundles(catalogueId, provider.getId(), authentication).getResults();
-        services.forEach(s -> {
-            if (!s.getMetadata().isPublished()) {
-                try {
-                    serviceBundleService.delete(s);
-                } catch (ResourceNotFoundException e) {
-                    logger.error(String.format("Error deleting Service with ID [%s]", s.getId()));
-                }
-            }
-        });
-        List<TrainingResourceBundle> trainingResources = trainingResourceService.getResourceBundles(catalogueId, provider.getId(), authentication).getResults();
-        trainingResources.forEach(s -> {
-            if (!s.getMetadata().isPublished()) {
-                try {
-                    trainingResourceService.delete(s);
-                } catch (ResourceNotFoundException e) {
-                    logger.error(String.format("Error deleting Training Resource with ID [%s]", s.getId()));
-                }
-            }
-        });
-        List<InteroperabilityRecordBundle> interoperabilityRecords = interoperabilityRecordService.getInteroperabilityRecordBundles(catalogueId, provider.getId(), authentication).getResults();
-        interoperabilityRecords.forEach(s -> {
-            if (!s.getMetadata().isPublished()) {
-                try {
-                    interoperabilityRecordService.delete(s);
-                } catch (ResourceNotFoundException e) {
-                    logger.error(String.format("Error deleting Interoperability Record with ID [%s]", s.getId()));
-                }
-            }
-        });
         logger.debug("Deleting Provider: {} and all his Resources", provider);
+        // the Provider is deleted after all its Resources, so that none of them is left without its Provider
+        cascadeService.submit(CascadeJob.Operation.DELETE, catalogueId, provider.getId(), authentication, () -> {
+            deleteBundle(provider);
+            logger.debug("Deleting Resource {}", provider);
 
-        deleteBundle(provider);
-        logger.debug("Deleting Resource {}", provider);
-
-        // TODO: move to aspect
-        registrationMailService.notifyProviderAdmins(provider);
-
-        synchronizerService.syncDelete(provider.getProvider());
+            // TODO: move to aspect
+            registrationMailService.notifyProviderAdmins(provider);
 
+            synchronizerService.syncDelete(provider.getProvider());
+        });
     }
 
     private void deleteBundle(ProviderBundle providerBundle) {
@@ -576,101 +545,13 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
     }
 
     public void activateProviderResources(String providerId, Boolean active, Authentication auth) {
-        List<ServiceBundle> services = serviceBundleService.getResourceBundles(providerId, auth);
-        List<TrainingResourceBundle> trainingResources = trainingResourceService.getResourceBundles(providerId, auth);
-        List<InteroperabilityRecordBundle> interoperabilityRecords = interoperabilityRecordService.getInteroperabilityRecordBundles(catalogueId, providerId, auth).getResults();
         if (active) {
             logger.info("Activating all Resources of the Provider with id: {}", providerId);
         } else {
             logger.info("Deactivating all Resources of the Provider with id: {}", providerId);
         }
-        activateProviderServices(services, active, auth);
-        activateProviderTrainingResources(trainingResources, active, auth);
-        activateProviderInteroperabilityRecords(interoperabilityRecords, active, auth);
-    }
-
-    private void activateProviderServices(List<ServiceBundle> services, Boolean active, Authentication auth) {
-        for (ServiceBundle service : services) {
-            if (service.getStatus().equals("approved resource")) {
-                ServiceBundle lowerLevelService = ObjectUtils.clone(service);
-                List<LoggingInfo> loggingInfoList = commonMethods.createActivationLoggingInfo(service, active, auth);
-
-                // update Service's fields
-                service.setLoggingInfo(loggingInfoList);
-                service.setLatestUpdateInfo(loggingInfoList.get(loggingInfoList.size() - 1));
-                service.setActive(active);
-
-                try {
-                    logger.debug("Setting Service '{}'-'{}' of the '{}' Catalogue to active: '{}'", service.getId(),
-                            service.getService().getName(), service.getService().getCatalogueId(), service.isActive());
-                    serviceBundleService.update(service, auth);
-                    // TODO: FIX ON ProviderManagementAspect
-                    publicServiceManager.update(service, auth);
-                } catch (ResourceNotFoundException e) {
-                    logger.error("Could not update Service '{}'-'{}' of the '{}' Catalogue", service.getId(),
-                            service.getService().getName(), service.getService().getCatalogueId());
-                }
-
-                // Activate/Deactivate Service's Extensions && Subprofiles
-                serviceBundleService.publishServiceRelatedResources(lowerLevelService.getId(),
-                        lowerLevelService.getService().getCatalogueId(), active, auth);
-            }
-        }
-    }
-
-    private void activateProviderTrainingResources(List<TrainingResourceBundle> trainingResources, Boolean active, Authentication auth) {
-        for (TrainingResourceBundle trainingResourceBundle : trainingResources) {
-            if (trainingResourceBundle.getStatus().equals("approved resource")) {
-                TrainingResourceBundle lowerLevelTrainingResource = ObjectUtils.clone(trainingResourceBundle);
-                List<LoggingInfo> loggingInfoList = commonMethods.createActivationLoggingInfo(trainingResourceBundle, active, auth);
-
-                // update Service's fields
-                trainingResourceBundle.setLoggingInfo(loggingInfoList);
-                trainingResourceBundle.setLatestUpdateInfo(loggingInfoList.get(loggingInfoList.size() - 1));
-                trainingResourceBundle.setActive(active);
-
-                try {
-                    logger.debug("Setting Training Resource '{}'-'{}' of the '{}' Catalogue to active: '{}'", trainingResourceBundle.getId(),
-                            trainingResourceBundle.getTrainingResource().getTitle(), trainingResourceBundle.getTrainingResource().getCatalogueId(),
-                            trainingResourceBundle.isActive());
-                    trainingResourceService.update(trainingResourceBundle, auth);
-                    // TODO: FIX ON ProviderManagementAspect
-                    publicTrainingResourceManager.update(trainingResourceBundle, auth);
-                } catch (ResourceNotFoundException e) {
-                    logger.error("Could not update Training Resource '{}'-'{}' of the '{}' Catalogue", trainingResourceBundle.getId(),
-                            trainingResourceBundle.getTrainingResource().getTitle(), trainingResourceBundle.getTrainingResource().getCatalogueId());
-                }
-
-                // Activate/Deactivate Training Resource's Extensions
-                trainingResourceService.publishTrainingResourceRelatedResources(lowerLevelTrainingResource.getId(),
-                        lowerLevelTrainingResource.getTrainingResource().getCatalogueId(), active, auth);
-            }
-        }
-    }
-
-    private void activateProviderInteroperabilityRecords(List<InteroperabilityRecordBundle> interoperabilityRecords, Boolean active, Authentication auth) {
-        for (InteroperabilityRecordBundle interoperabilityRecordBundle : interoperabilityRecords) {
-            if (interoperabilityRecordBundle.getStatus().equals("approved interoperability record")) {
-                List<LoggingInfo> loggingInfoList = commonMethods.createActivationLoggingInfo(interoperabilityRecordBundle, active, auth);
-
-                // update Service's fields
-                interoperabilityRecordBundle.setLoggingInfo(loggingInfoList);
-                interoperabilityRecordBundle.setLatestUpdateInfo(loggingInfoList.get(loggingInfoList.size() - 1));
-                interoperabilityRecordBundle.setActive(active);
-
-                try {
-                    logger.debug("Setting Interoperability Record '{}'-'{}' of the '{}' Catalogue to active: '{}'", interoperabilityRecordBundle.getId(),
-                            interoperabilityRecordBundle.getInteroperabilityRecord().getTitle(), interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId(),
-                            interoperabilityRecordBundle.isActive());
-                    interoperabilityRecordService.update(interoperabilityRecordBundle, auth);
-                    // TODO: FIX ON ProviderManagementAspect
-                    publicInteroperabilityRecordManager.update(interoperabilityRecordBundle, auth);
-                } catch (ResourceNotFoundException e) {
-                    logger.error("Could not update Interoperability Record '{}'-'{}' of the '{}' Catalogue", interoperabilityRecordBundle.getId(),
-                            interoperabilityRecordBundle.getInteroperabilityRecord().getTitle(), interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId());
-                }
-            }
-        }
+        cascadeService.submit(active ? CascadeJob.Operation.ACTIVATE : CascadeJob.Operation.DEACTIVATE, catalogueId,
+                providerId, auth);
     }
 
     @Override
@@ -723,7 +604,8 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
                 }
             }
             providerBundle.getProvider().setUsers(updatedUsers);
-            update(providerBundle, authentication);
+            // a self-invocation is not advised, so the authorities of the provider are updated here
+            authoritiesMapper.updateAuthorities(update(providerBundle, authentication));
         }
     }
 
@@ -959,25 +841,8 @@ public class ProviderManager extends ResourceManager<ProviderBundle> implements
         resourceService.updateResource(existingResource);
 
         // Suspend Provider's resources
-        List<ServiceBundle> services = serviceBundleService.getResourceBundles(catalogueId, providerId, auth).getResults();
-        List<TrainingResourceBundle> trainingResources = trainingResourceService.getResourceBundles(catalogueId, providerId, auth).getResults();
-        List<InteroperabilityRecordBundle> interoperabilityRecords = interoperabilityRecordService.getInteroperabilityRecordBundles(catalogueId, providerId, auth).getResults();
-
-        if (services != null && !services.isEmpty()) {
-            for (ServiceBundle serviceBundle : services) {
-                serviceBundleService.suspend(serviceBundle.getId(), suspend, auth);
-            }
-        }
-        if (trainingResources != null && !trainingResources.isEmpty()) {
-            for (TrainingResourceBundle trainingResourceBundle : trainingResources) {
-                trainingResourceService.suspend(trainingResourceBundle.getId(), suspend, auth);
-            }
-        }
-        if (interoperabilityRecords != null && !interoperabilityRecords.isEmpty()) {
-            for (InteroperabilityRecordBundle interoperabilityRecordBundle : interoperabilityRecords) {
-                interoperabilityRecordService.suspend(interoperabilityRecordBundle.getId(), suspend, auth);
-            }
-        }
+        cascadeService.submit(suspend ? CascadeJob.Operation.SUSPEND : CascadeJob.Operation.UNSUSPEND,
+                existingProvider.getProvider().getCatalogueId(), providerId, auth);
 
         return providerBundle;
     }
@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 
@@ -51,6 +52,7 @@ public class PublicConfigurationTemplateImplementationManager extends ResourceMa
     // TODO: Refactor id, resourceId, payload's interoperabilityRecordId creations when more Catalogues are supported
     // TODO: (need to have catalogueId in CTI model)
     @Override
+    @Transactional
     public ConfigurationTemplateInstanceBundle add(ConfigurationTemplateInstanceBundle configurationTemplateInstanceBundle, Authentication authentication) {
         String lowerLevelResourceId = configurationTemplateInstanceBundle.getId();
         Identifiers.createOriginalId(configurationTemplateInstanceBundle);
@@ -74,6 +76,7 @@ public class PublicConfigurationTemplateImplementationManager extends ResourceMa
     }
 
     @Override
+    @Transactional
     public ConfigurationTemplateInstanceBundle update(ConfigurationTemplateInstanceBundle configurationTemplateInstanceBundle, Authentication authentication) {
         ConfigurationTemplateInstanceBundle published = super.get(String.format("%s.%s", catalogueId, configurationTemplateInstanceBundle.getId()));
         ConfigurationTemplateInstanceBundle ret = super.get(String.format("%s.%s", catalogueId, configurationTemplateInstanceBundle.getId()));
@@ -95,6 +98,7 @@ public class PublicConfigurationTemplateImplementationManager extends ResourceMa
     }
 
     @Override
+    @Transactional
     public void delete(ConfigurationTemplateInstanceBundle configurationTemplateInstanceBundle) {
         try {
             ConfigurationTemplateInstanceBundle publicConfigurationTemplateInstanceBundle = get(String.format("%s.%s",
@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -77,6 +78,7 @@ public class PublicDatasourceManager extends AbstractPublicResourceManager<Datas
     }
 
     @Override
+    @Transactional
     public DatasourceBundle add(DatasourceBundle datasourceBundle, Authentication authentication) {
         String lowerLevelResourceId = datasourceBundle.getId();
         Identifiers.createOriginalId(datasourceBundle);
@@ -95,6 +97,7 @@ public class PublicDatasourceManager extends AbstractPublicResourceManager<Datas
     }
 
     @Override
+    @Transactional
     public DatasourceBundle update(DatasourceBundle datasourceBundle, Authentication authentication) {
         DatasourceBundle published = super.get(String.format("%s.%s", datasourceBundle.getDatasource().getCatalogueId(), datasourceBundle.getId()));
         DatasourceBundle ret = super.get(String.format("%s.%s", datasourceBundle.getDatasource().getCatalogueId(), datasourceBundle.getId()));
@@ -117,6 +120,7 @@ public class PublicDatasourceManager extends AbstractPublicResourceManager<Datas
     }
 
     @Override
+    @Transactional
     public void delete(DatasourceBundle datasourceBundle) {
         try {
             DatasourceBundle publicDatasourceBundle = get(String.format("%s.%s", datasourceBundle.getDatasource().getCatalogueId(), datasourceBundle.getId()));
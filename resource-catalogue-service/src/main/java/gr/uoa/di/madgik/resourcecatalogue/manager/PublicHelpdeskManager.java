@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -78,6 +79,7 @@ public class PublicHelpdeskManager extends AbstractPublicResourceManager<Helpdes
     }
 
     @Override
+    @Transactional
     public HelpdeskBundle add(HelpdeskBundle helpdeskBundle, Authentication authentication) {
         String lowerLevelResourceId = helpdeskBundle.getId();
         Identifiers.createOriginalId(helpdeskBundle);
@@ -96,6 +98,7 @@ public class PublicHelpdeskManager extends AbstractPublicResourceManager<Helpdes
     }
 
     @Override
+    @Transactional
     public HelpdeskBundle update(HelpdeskBundle helpdeskBundle, Authentication authentication) {
         HelpdeskBundle published = super.get(String.format("%s.%s", helpdeskBundle.getCatalogueId(), helpdeskBundle.getId()));
         HelpdeskBundle ret = super.get(String.format("%s.%s", helpdeskBundle.getCatalogueId(), helpdeskBundle.getId()));
@@ -118,6 +121,7 @@ public class PublicHelpdeskManager extends AbstractPublicResourceManager<Helpdes
     }
 
     @Override
+    @Transactional
     public void delete(HelpdeskBundle helpdeskBundle) {
         try {
             HelpdeskBundle publicHelpdeskBundle = get(String.format("%s.%s", helpdeskBundle.getCatalogueId(), helpdeskBundle.getId()));
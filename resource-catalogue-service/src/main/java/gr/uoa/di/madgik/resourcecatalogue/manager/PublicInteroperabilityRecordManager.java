@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -70,6 +71,7 @@ public class PublicInteroperabilityRecordManager extends ResourceManager<Interop
     }
 
     @Override
+    @Transactional
     public InteroperabilityRecordBundle add(InteroperabilityRecordBundle interoperabilityRecordBundle, Authentication authentication) {
         String lowerLevelResourceId = interoperabilityRecordBundle.getId();
         Identifiers.createOriginalId(interoperabilityRecordBundle);
@@ -106,6 +108,7 @@ public class PublicInteroperabilityRecordManager extends ResourceManager<Interop
     }
 
     @Override
+    @Transactional
     public InteroperabilityRecordBundle update(InteroperabilityRecordBundle interoperabilityRecordBundle, Authentication authentication) {
         InteroperabilityRecordBundle published = super.get(String.format("%s.%s", interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId(), interoperabilityRecordBundle.getId()));
         InteroperabilityRecordBundle ret = super.get(String.format("%s.%s", interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId(), interoperabilityRecordBundle.getId()));
@@ -131,6 +134,7 @@ public class PublicInteroperabilityRecordManager extends ResourceManager<Interop
     }
 
     @Override
+    @Transactional
     public void delete(InteroperabilityRecordBundle interoperabilityRecordBundle) {
         try {
             InteroperabilityRecordBundle publicInteroperabilityRecordBundle = get(String.format("%s.%s", interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId(), interoperabilityRecordBundle.getId()));
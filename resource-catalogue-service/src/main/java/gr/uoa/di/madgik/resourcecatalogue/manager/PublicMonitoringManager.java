@@ -17,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -78,6 +79,7 @@ public class PublicMonitoringManager extends AbstractPublicResourceManager<Monit
     }
 
     @Override
+    @Transactional
     public MonitoringBundle add(MonitoringBundle monitoringBundle, Authentication authentication) {
         String lowerLevelResourceId = monitoringBundle.getId();
         Identifiers.createOriginalId(monitoringBundle);
@@ -96,6 +98,7 @@ public class PublicMonitoringManager extends AbstractPublicResourceManager<Monit
     }
 
     @Override
+    @Transactional
     public MonitoringBundle update(MonitoringBundle monitoringBundle, Authentication authentication) {
         MonitoringBundle published = super.get(String.format("%s.%s", monitoringBundle.getCatalogueId(), monitoringBundle.getId()));
         MonitoringBundle ret = super.get(String.format("%s.%s", monitoringBundle.getCatalogueId(), monitoringBundle.getId()));
@@ -118,6 +121,7 @@ public class PublicMonitoringManager extends AbstractPublicResourceManager<Monit
     }
 
     @Override
+    @Transactional
     public void delete(MonitoringBundle monitoringBundle) {
         try {
             MonitoringBundle publicMonitoringBundle = get(String.format("%s.%s", monitoringBundle.getCatalogueId(), monitoringBundle.getId()));
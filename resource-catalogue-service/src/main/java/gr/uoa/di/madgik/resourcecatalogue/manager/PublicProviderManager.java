@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -74,6 +75,7 @@ public class PublicProviderManager extends ResourceManager<ProviderBundle> imple
     }
 
     @Override
+    @Transactional
     public ProviderBundle add(ProviderBundle providerBundle, Authentication authentication) {
         String lowerLevelProviderId = providerBundle.getId();
         Identifiers.createOriginalId(providerBundle);
@@ -104,6 +106,7 @@ public class PublicProviderManager extends ResourceManager<ProviderBundle> imple
     }
 
     @Override
+    @Transactional
     public ProviderBundle update(ProviderBundle providerBundle, Authentication authentication) {
         ProviderBundle published = super.get(String.format("%s.%s", providerBundle.getProvider().getCatalogueId(), providerBundle.getId()));
         ProviderBundle ret = super.get(String.format("%s.%s", providerBundle.getProvider().getCatalogueId(), providerBundle.getId()));
@@ -126,6 +129,7 @@ public class PublicProviderManager extends ResourceManager<ProviderBundle> imple
     }
 
     @Override
+    @Transactional
     public void delete(ProviderBundle providerBundle) {
         try {
             ProviderBundle publicProviderBundle = get(String.format("%s.%s", providerBundle.getProvider().getCatalogueId(), providerBundle.getId()));
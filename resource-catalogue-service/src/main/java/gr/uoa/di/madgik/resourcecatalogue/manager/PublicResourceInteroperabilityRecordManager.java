@@ -16,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -65,6 +66,7 @@ public class PublicResourceInteroperabilityRecordManager extends AbstractPublicR
     }
 
     @Override
+    @Transactional
     public ResourceInteroperabilityRecordBundle add(ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle, Authentication authentication) {
         String lowerLevelResourceId = resourceInteroperabilityRecordBundle.getId();
         Identifiers.createOriginalId(resourceInteroperabilityRecordBundle);
@@ -83,6 +85,7 @@ public class PublicResourceInteroperabilityRecordManager extends AbstractPublicR
     }
 
     @Override
+    @Transactional
     public ResourceInteroperabilityRecordBundle update(ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle, Authentication authentication) {
         ResourceInteroperabilityRecordBundle published = super.get(String.format("%s.%s", resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getCatalogueId(), resourceInteroperabilityRecordBundle.getId()));
         ResourceInteroperabilityRecordBundle ret = super.get(String.format("%s.%s", resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getCatalogueId(), resourceInteroperabilityRecordBundle.getId()));
@@ -105,6 +108,7 @@ public class PublicResourceInteroperabilityRecordManager extends AbstractPublicR
     }
 
     @Override
+    @Transactional
     public void delete(ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle) {
         try {
             ResourceInteroperabilityRecordBundle publicResourceInteroperabilityRecordBundle = get(String.format("%s.%s",
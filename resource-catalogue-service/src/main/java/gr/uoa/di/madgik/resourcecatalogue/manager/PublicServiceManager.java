@@ -19,6 +19,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -77,6 +78,7 @@ public class PublicServiceManager extends AbstractPublicResourceManager<ServiceB
     }
 
     @Override
+    @Transactional
     public ServiceBundle add(ServiceBundle serviceBundle, Authentication authentication) {
         String lowerLevelResourceId = serviceBundle.getId();
         Identifiers.createOriginalId(serviceBundle);
@@ -111,6 +113,7 @@ public class PublicServiceManager extends AbstractPublicResourceManager<ServiceB
     }
 
     @Override
+    @Transactional
     public ServiceBundle update(ServiceBundle serviceBundle, Authentication authentication) {
         ServiceBundle published = super.get(String.format("%s.%s", serviceBundle.getService().getCatalogueId(), serviceBundle.getId()));
         ServiceBundle ret = super.get(String.format("%s.%s", serviceBundle.getService().getCatalogueId(), serviceBundle.getId()));
@@ -136,6 +139,7 @@ public class PublicServiceManager extends AbstractPublicResourceManager<ServiceB
     }
 
     @Override
+    @Transactional
     public void delete(ServiceBundle serviceBundle) {
         try {
             ServiceBundle publicServiceBundle = get(String.format("%s.%s", serviceBundle.getService().getCatalogueId(), serviceBundle.getId()));
@@ -12,6 +12,9 @@ import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceAlreadyExistsExcepti
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
 import gr.uoa.di.madgik.resourcecatalogue.service.IdCreator;
 import gr.uoa.di.madgik.resourcecatalogue.service.ResourceService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BulkLookup;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ResourceCursor;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ResourceIdQuery;
 import gr.uoa.di.madgik.resourcecatalogue.validators.FieldValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,9 +24,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -89,6 +90,21 @@ public abstract class ResourceManager<T extends Identifiable> extends AbstractGe
         return browsing;
     }
 
+    @Override
+    public Stream<T> stream(FacetFilter filter) {
+        return ResourceCursor.stream(searchService, resourceType.getName(), filter).map(this::deserialize);
+    }
+
+    @Override
+    public Stream<T> stream(FacetFilter filter, String after) {
+        ResourceCursor cursor = new ResourceCursor(searchService, resourceType.getName(), ResourceCursor.toCql(filter),
+                ResourceCursor.DEFAULT_PAGE_SIZE);
+        if (after != null) {
+            cursor.after(whereID(after, true));
+        }
+        return ResourceCursor.stream(cursor).map(this::deserialize);
+    }
+
     @Override
     public Browsing<T> getMy(FacetFilter ff, Authentication auth) {
         return null;
@@ -158,7 +174,26 @@ public abstract class ResourceManager<T extends Identifiable> extends AbstractGe
 
     @Override
     public List<T> getSome(String... ids) {
-        return whereIDin(ids).stream().filter(Objects::nonNull).map(this::deserialize).collect(Collectors.toList());
+        Map<String, T> found = getBulk(Arrays.asList(ids)).getFound();
+        return Stream.of(ids).map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Finds the resources with the given ids, using one query per batch of ids.
+     *
+     * @param ids resource ids
+     * @return the resources found by id, and the ids that were not found
+     */
+    public BulkLookup<T> getBulk(Collection<String> ids) {
+        Map<String, T> found = new LinkedHashMap<>();
+        for (Resource resource : ResourceIdQuery.search(searchService, resourceType.getName(), ids)) {
+            T t = deserialize(resource);
+            found.putIfAbsent(t.getId(), t);
+        }
+        Set<String> missing = ids.stream()
+                .filter(id -> id != null && !id.isEmpty() && !found.containsKey(id))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return new BulkLookup<>(found, missing);
     }
 
     @Override
@@ -169,11 +204,12 @@ public abstract class ResourceManager<T extends Identifiable> extends AbstractGe
     @Override
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public List<T> delAll() {
-        FacetFilter facetFilter = new FacetFilter();
-        facetFilter.setQuantity(maxQuantity);
         logger.info("Deleting all Resources");
-        List<T> results = getAll(facetFilter, null).getResults();
-        results.forEach(this::delete);
+        List<T> results = new ArrayList<>();
+        stream(new FacetFilter()).forEach(resource -> {
+            delete(resource);
+            results.add(resource);
+        });
         return results;
     }
 
@@ -218,7 +254,11 @@ public abstract class ResourceManager<T extends Identifiable> extends AbstractGe
     }
 
     protected List<Resource> whereIDin(String... ids) {
-        return Stream.of(ids).map((String id) -> whereID(id, false)).collect(Collectors.toList());
+        Map<String, Resource> found = new HashMap<>();
+        for (Resource resource : ResourceIdQuery.search(searchService, resourceType.getName(), Arrays.asList(ids))) {
+            found.putIfAbsent(deserialize(resource).getId(), resource);
+        }
+        return Stream.of(ids).map(found::get).collect(Collectors.toList());
     }
 
     protected Resource whereID(String id, boolean throwOnNull) {
@@ -0,0 +1,785 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import gr.uoa.di.madgik.resourcecatalogue.dto.MapValues;
+import gr.uoa.di.madgik.resourcecatalogue.dto.PlaceCount;
+import gr.uoa.di.madgik.resourcecatalogue.dto.Value;
+import gr.uoa.di.madgik.resourcecatalogue.service.ProviderService;
+import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsCubeService;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService.Interval;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService.Vocabulary;
+import gr.uoa.di.madgik.resourcecatalogue.service.VocabularyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Statistics of the services, maintained incrementally as services, providers and events are written.
+ * <p>
+ * Services are indexed in memory by provider, place and vocabulary value, and providers by country. These indexes
+ * are loaded from the store on first use and reloaded on a configurable interval, so that each node picks up the
+ * changes made on the other nodes. The VISIT and ADD_TO_PROJECT events are summed per service and day in the
+ * {@link StatisticsEventStore}, which all the nodes share, and only these sums are kept. Queries read the matching
+ * cells and sums instead of scanning all the services or events, and {@link #check()} compares them with freshly
+ * computed ones.
+ * <p>
+ * There is no catalogue dimension: none of the statistics is filtered or grouped by catalogue.
+ */
+@Component
+public class StatisticsCube implements StatisticsCubeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsCube.class);
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final int MAX_DIFFERENCES = 100;
+    private static final String[] EXTRA_PLACES = {"OT", "EL", "UK"};
+
+    private final ServiceBundleService<ServiceBundle> serviceBundleService;
+    private final ProviderService providerService;
+    private final VocabularyService vocabularyService;
+    private final DefaultEventAnalytics eventAnalytics;
+    private final StatisticsEventStore eventStore;
+
+    private final Object lock = new Object();
+    private final Object rebuildLock = new Object();
+    private Cells cells; // null until first loaded
+    private List<Consumer<Cells>> pending; // changes made while the store is being read
+
+    public StatisticsCube(@Lazy ServiceBundleService<ServiceBundle> serviceBundleService,
+                          @Lazy ProviderService providerService,
+                          @Lazy VocabularyService vocabularyService,
+                          @Lazy DefaultEventAnalytics eventAnalytics,
+                          StatisticsEventStore eventStore) {
+        this.serviceBundleService = serviceBundleService;
+        this.providerService = providerService;
+        this.vocabularyService = vocabularyService;
+        this.eventAnalytics = eventAnalytics;
+        this.eventStore = eventStore;
+    }
+
+    /**
+     * Applies a written service or provider, or a new event, to the cube. Other resources are ignored. Updated
+     * events must be applied with {@link #replace(Event, Event)} instead.
+     *
+     * @param resource the resource that was written
+     */
+    public void update(Object resource) {
+        if (resource instanceof ServiceBundle serviceBundle && serviceBundle.getService() != null) {
+            ServiceFacts facts = ServiceFacts.of(serviceBundle);
+            apply(cells -> cells.putService(facts));
+        } else if (resource instanceof ProviderBundle providerBundle && providerBundle.getProvider() != null) {
+            String id = providerBundle.getId();
+            String country = providerBundle.getProvider().getLocation() != null
+                    ? providerBundle.getProvider().getLocation().getCountry() : null;
+            apply(cells -> cells.putProvider(id, country));
+        } else if (resource instanceof Event event) {
+            replace(null, event);
+        }
+    }
+
+    /**
+     * Removes a deleted service, provider or event from the cube. Other resources are ignored.
+     *
+     * @param resource the resource that was deleted
+     */
+    public void remove(Object resource) {
+        if (resource instanceof ServiceBundle serviceBundle) {
+            apply(cells -> cells.removeService(serviceBundle.getId()));
+        } else if (resource instanceof ProviderBundle providerBundle) {
+            apply(cells -> cells.removeProvider(providerBundle.getId()));
+        } else if (resource instanceof Event event) {
+            replace(event, null);
+        }
+    }
+
+    /**
+     * Replaces the contribution of an event to the daily counts of its service.
+     *
+     * @param stored  the event as it was stored before it was written, or null if it is new
+     * @param written the event as it was written, or null if it was deleted
+     */
+    public void replace(Event stored, Event written) {
+        if (stored != null) {
+            EventFact fact = EventFact.of(stored);
+            eventStore.add(fact.service, fact.day, fact.counts, -1);
+        }
+        if (written != null) {
+            EventFact fact = EventFact.of(written);
+            eventStore.add(fact.service, fact.day, fact.counts, 1);
+        }
+    }
+
+    /**
+     * Reloads the services and providers, so that the changes made on the other nodes are picked up. The event
+     * counts are shared and need no reloading.
+     */
+    @Scheduled(initialDelayString = "${catalogue.statistics.refresh-interval:300000}",
+            fixedDelayString = "${catalogue.statistics.refresh-interval:300000}")
+    public void refresh() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            Cells fresh = load();
+            synchronized (lock) {
+                cells = fresh;
+            }
+            logger.debug("Reloaded statistics of {} services and {} providers in {} ms", fresh.services.size(),
+                    fresh.providerCountries.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Recomputes the whole cube from the stored services, providers and events. Events written on other nodes
+     * while the events are read may be counted twice or not at all, which {@link #check()} reports.
+     */
+    @Override
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            refresh();
+            Map<String, NavigableMap<Long, DayCounts>> days = loadEventDays();
+            eventStore.replace(days);
+            logger.info("Rebuilt statistics of {} services and the events of {} services in {} ms",
+                    cells.services.size(), days.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    @Override
+    public List<String> check() {
+        synchronized (rebuildLock) {
+            Cells fresh = load();
+            Map<String, NavigableMap<Long, DayCounts>> days = loadEventDays();
+            List<String> differences = new ArrayList<>();
+            synchronized (lock) {
+                if (cells != null) {
+                    differences.addAll(fresh.differences(cells));
+                }
+            }
+            Cells.compare("service daily events", days, eventStore.getAll(), differences);
+            if (!differences.isEmpty()) {
+                logger.warn("Statistics are inconsistent with the store: {}", differences);
+            }
+            return differences;
+        }
+    }
+
+    // Queries
+
+    @Override
+    public Map<String, Integer> visits(String serviceId, Interval by) {
+        return visits(eventStore.getDays(List.of(serviceId)), by);
+    }
+
+    @Override
+    public Map<String, Integer> addToProject(String serviceId, Interval by) {
+        return addToProject(eventStore.getDays(List.of(serviceId)), by);
+    }
+
+    @Override
+    public Map<String, Integer> providerVisits(String providerId, Interval by) {
+        return visits(eventStore.getDays(servicesOf(providerId)), by);
+    }
+
+    @Override
+    public Map<String, Integer> providerAddToProject(String providerId, Interval by) {
+        return addToProject(eventStore.getDays(servicesOf(providerId)), by);
+    }
+
+    /**
+     * @return the share of the visits of the provider received by each of its services, by service name
+     */
+    @Override
+    public Map<String, Float> providerVisitation(String providerId) {
+        Map<String, String> names = read(cells -> {
+            Map<String, String> serviceNames = new HashMap<>();
+            for (String serviceId : cells.servicesByProvider.getOrDefault(providerId, Collections.emptySet())) {
+                serviceNames.put(serviceId, cells.services.get(serviceId).name);
+            }
+            return serviceNames;
+        });
+        Map<String, Long> totals = eventStore.getVisits(names.keySet());
+        Map<String, Long> counts = new HashMap<>();
+        long grandTotal = 0;
+        for (Map.Entry<String, String> service : names.entrySet()) {
+            long visits = totals.getOrDefault(service.getKey(), 0L);
+            counts.merge(service.getValue(), visits, Long::sum);
+            grandTotal += visits;
+        }
+        Map<String, Float> visitation = new HashMap<>();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            visitation.put(entry.getKey(), ((float) entry.getValue()) / grandTotal);
+        }
+        return visitation;
+    }
+
+    @Override
+    public List<PlaceCount> servicesPerPlace(String providerId) {
+        String[] world = vocabularyService.getRegion("WW");
+        String[] eu = vocabularyService.getRegion("EU");
+        return read(cells -> {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Map.Entry<String, Set<String>> entry : cells.placesOf(providerId).entrySet()) {
+                String place = entry.getKey();
+                String[] expanded = place.equalsIgnoreCase("WW") ? world
+                        : place.equalsIgnoreCase("EU") ? eu : new String[]{place};
+                for (String p : expanded) {
+                    counts.merge(p, entry.getValue().size(), Integer::sum);
+                }
+            }
+            List<PlaceCount> placeCounts = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                placeCounts.add(new PlaceCount(entry.getKey(), entry.getValue()));
+            }
+            return placeCounts;
+        });
+    }
+
+    @Override
+    public List<Value> servicesByPlace(String providerId, String place) {
+        Set<String> eu = new HashSet<>(Arrays.asList(vocabularyService.getRegion("EU")));
+        return read(cells -> {
+            Map<String, Set<String>> places = cells.placesOf(providerId);
+            Set<String> ids = new LinkedHashSet<>();
+            if (place == null || place.equalsIgnoreCase("WW")) {
+                places.values().forEach(ids::addAll);
+            } else {
+                ids.addAll(places.getOrDefault(place, Collections.emptySet()));
+                // if Place belongs to EU then search for EU as well
+                if (eu.contains(place) || place.equalsIgnoreCase("EU")) {
+                    ids.addAll(places.getOrDefault("EU", Collections.emptySet()));
+                }
+                // always search for WW (because every Place belongs to WW)
+                ids.addAll(places.getOrDefault("WW", Collections.emptySet()));
+            }
+            return cells.values(ids);
+        });
+    }
+
+    @Override
+    public List<MapValues> mapServicesToGeographicalAvailability(String providerId) {
+        String[] world = vocabularyService.getRegion("WW");
+        Set<String> eu = new HashSet<>(Arrays.asList(vocabularyService.getRegion("EU")));
+        Set<String> worldPlaces = new HashSet<>(Arrays.asList(world));
+        return read(cells -> {
+            Map<String, Set<String>> places = cells.placesOf(providerId);
+            List<MapValues> mapValuesList = new ArrayList<>();
+            for (String place : withExtraPlaces(world)) {
+                Set<String> ids = new LinkedHashSet<>(places.getOrDefault(place, Collections.emptySet()));
+                if (eu.contains(place)) {
+                    ids.addAll(places.getOrDefault("EU", Collections.emptySet()));
+                }
+                if (worldPlaces.contains(place)) {
+                    ids.addAll(places.getOrDefault("WW", Collections.emptySet()));
+                }
+                addIfNotEmpty(mapValuesList, place, cells.values(ids));
+            }
+            return mapValuesList;
+        });
+    }
+
+    @Override
+    public List<MapValues> mapServicesToProviderCountry() {
+        String[] world = vocabularyService.getRegion("WW");
+        Set<String> eu = new HashSet<>(Arrays.asList(vocabularyService.getRegion("EU")));
+        Set<String> worldPlaces = new HashSet<>(Arrays.asList(world));
+        return read(cells -> {
+            List<MapValues> mapValuesList = new ArrayList<>();
+            for (String country : withExtraPlaces(world)) {
+                Set<String> providers = new HashSet<>(cells.providersByCountry.getOrDefault(country, Collections.emptySet()));
+                if (eu.contains(country)) {
+                    providers.addAll(cells.providersByCountry.getOrDefault("EU", Collections.emptySet()));
+                }
+                if (worldPlaces.contains(country)) {
+                    providers.addAll(cells.providersByCountry.getOrDefault("WW", Collections.emptySet()));
+                }
+                Set<String> ids = new LinkedHashSet<>();
+                for (String provider : providers) {
+                    ids.addAll(cells.servicesByProvider.getOrDefault(provider, Collections.emptySet()));
+                }
+                addIfNotEmpty(mapValuesList, country, cells.values(ids));
+            }
+            return mapValuesList;
+        });
+    }
+
+    @Override
+    public List<MapValues> mapServicesToVocabulary(String providerId, Vocabulary vocabulary) {
+        return read(cells -> {
+            List<MapValues> mapValuesList = new ArrayList<>();
+            Map<String, Set<String>> values = cells.vocabularies
+                    .getOrDefault(Cells.key(providerId), Collections.emptyMap())
+                    .getOrDefault(vocabulary, Collections.emptyMap());
+            for (Map.Entry<String, Set<String>> entry : values.entrySet()) {
+                addIfNotEmpty(mapValuesList, entry.getKey(), cells.values(entry.getValue()));
+            }
+            return mapValuesList;
+        });
+    }
+
+    // Internals
+
+    private void apply(Consumer<Cells> change) {
+        synchronized (lock) {
+            if (cells != null) {
+                change.accept(cells);
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    private <R> R read(Function<Cells, R> query) {
+        synchronized (lock) {
+            if (cells != null) {
+                return query.apply(cells);
+            }
+        }
+        if (eventStore.isEmpty()) {
+            rebuild();
+        } else {
+            refresh();
+        }
+        synchronized (lock) {
+            return query.apply(cells);
+        }
+    }
+
+    private Set<String> servicesOf(String providerId) {
+        return read(cells -> new HashSet<>(cells.servicesByProvider.getOrDefault(providerId, Collections.emptySet())));
+    }
+
+    /**
+     * Sums the stored VISIT and ADD_TO_PROJECT events per service and day.
+     */
+    private Map<String, NavigableMap<Long, DayCounts>> loadEventDays() {
+        Map<String, NavigableMap<Long, DayCounts>> days = new HashMap<>();
+        eventAnalytics.forEachEvent(String.format("(type=\"%s\" OR type=\"%s\")",
+                        Event.UserActionType.VISIT.getKey(), Event.UserActionType.ADD_TO_PROJECT.getKey()),
+                event -> {
+                    EventFact fact = EventFact.of(event);
+                    if (fact.service == null || fact.counts.isEmpty()) {
+                        return;
+                    }
+                    NavigableMap<Long, DayCounts> serviceDays = days.computeIfAbsent(fact.service, k -> new TreeMap<>());
+                    DayCounts counts = serviceDays.computeIfAbsent(fact.day, k -> new DayCounts());
+                    counts.add(fact.counts, 1);
+                    if (counts.isEmpty()) {
+                        serviceDays.remove(fact.day);
+                    }
+                });
+        days.values().removeIf(Map::isEmpty);
+        return days;
+    }
+
+    /**
+     * Reads the services and providers into new cells. Changes applied meanwhile are replayed on them, since the store may have
+     * been read before they were written.
+     */
+    private Cells load() {
+        synchronized (lock) {
+            pending = new ArrayList<>();
+        }
+        try {
+            Cells fresh = new Cells();
+            providerService.stream(new FacetFilter()).forEach(providerBundle -> fresh.putProvider(providerBundle.getId(),
+                    providerBundle.getProvider().getLocation() != null ? providerBundle.getProvider().getLocation().getCountry() : null));
+            serviceBundleService.stream(new FacetFilter()).forEach(serviceBundle -> fresh.putService(ServiceFacts.of(serviceBundle)));
+            synchronized (lock) {
+                pending.forEach(change -> change.accept(fresh));
+                return fresh;
+            }
+        } finally {
+            synchronized (lock) {
+                pending = null;
+            }
+        }
+    }
+
+    private static List<String> withExtraPlaces(String[] world) {
+        List<String> places = new ArrayList<>(Arrays.asList(world));
+        for (String place : EXTRA_PLACES) {
+            if (!places.contains(place)) {
+                places.add(place);
+            }
+        }
+        return places;
+    }
+
+    private static void addIfNotEmpty(List<MapValues> mapValuesList, String key, List<Value> values) {
+        if (!values.isEmpty()) {
+            mapValuesList.add(new MapValues(key, values));
+        }
+    }
+
+    /**
+     * Sums the visits of every interval between the first and the last visited one.
+     */
+    static Map<String, Integer> visits(NavigableMap<Long, DayCounts> days, Interval by) {
+        Map<String, Integer> visits = new TreeMap<>();
+        for (Map.Entry<LocalDate, DayCounts> bucket : buckets(days, by).entrySet()) {
+            visits.put(format(bucket.getKey(), by), (int) bucket.getValue().visits);
+        }
+        return visits;
+    }
+
+    /**
+     * Counts, at the end of every interval, how many times the services were added to a project and not removed.
+     */
+    static Map<String, Integer> addToProject(NavigableMap<Long, DayCounts> days, Interval by) {
+        Map<String, Integer> added = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<LocalDate, DayCounts> bucket : buckets(days, by).entrySet()) {
+            total += bucket.getValue().added - bucket.getValue().removed;
+            added.put(format(bucket.getKey(), by), (int) Math.max(total, 0));
+        }
+        return added;
+    }
+
+    private static Map<LocalDate, DayCounts> buckets(NavigableMap<Long, DayCounts> days, Interval by) {
+        Map<LocalDate, DayCounts> buckets = new LinkedHashMap<>();
+        if (days == null || days.isEmpty()) {
+            return buckets;
+        }
+        LocalDate last = start(LocalDate.ofEpochDay(days.lastKey()), by);
+        for (LocalDate bucket = start(LocalDate.ofEpochDay(days.firstKey()), by); !bucket.isAfter(last); bucket = next(bucket, by)) {
+            buckets.put(bucket, new DayCounts());
+        }
+        for (Map.Entry<Long, DayCounts> day : days.entrySet()) {
+            buckets.get(start(LocalDate.ofEpochDay(day.getKey()), by)).add(day.getValue(), 1);
+        }
+        return buckets;
+    }
+
+    private static LocalDate start(LocalDate date, Interval by) {
+        return switch (by) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+            case YEAR -> date.withDayOfYear(1);
+        };
+    }
+
+    private static LocalDate next(LocalDate date, Interval by) {
+        return switch (by) {
+            case DAY -> date.plusDays(1);
+            case WEEK -> date.plusWeeks(1);
+            case MONTH -> date.plusMonths(1);
+            case YEAR -> date.plusYears(1);
+        };
+    }
+
+    private static String format(LocalDate date, Interval by) {
+        return switch (by) {
+            case DAY, WEEK -> date.toString();
+            case MONTH -> date.format(DateTimeFormatter.ofPattern("yyyy-MM"));
+            case YEAR -> date.format(DateTimeFormatter.ofPattern("yyyy"));
+        };
+    }
+
+    /**
+     * The cells of the cube. Not thread safe.
+     */
+    static final class Cells {
+
+        private static final String ALL = "";
+
+        final Map<String, ServiceFacts> services = new HashMap<>();
+        final Map<String, Set<String>> servicesByProvider = new HashMap<>();
+        final Map<String, String> providerCountries = new HashMap<>();
+        final Map<String, Set<String>> providersByCountry = new HashMap<>();
+        // provider id, or ALL, -> place -> active services
+        final Map<String, Map<String, Set<String>>> places = new HashMap<>();
+        // provider id, or ALL, -> vocabulary -> value -> active services
+        final Map<String, Map<Vocabulary, Map<String, Set<String>>>> vocabularies = new HashMap<>();
+
+        static String key(String providerId) {
+            return providerId == null ? ALL : providerId;
+        }
+
+        Map<String, Set<String>> placesOf(String providerId) {
+            return places.getOrDefault(key(providerId), Collections.emptyMap());
+        }
+
+        List<Value> values(Collection<String> serviceIds) {
+            List<Value> values = new ArrayList<>(serviceIds.size());
+            for (String id : serviceIds) {
+                values.add(new Value(id, services.get(id).name));
+            }
+            return values;
+        }
+
+        void putService(ServiceFacts facts) {
+            ServiceFacts old = services.put(facts.id, facts);
+            if (old != null) {
+                unindex(old);
+            }
+            index(facts);
+        }
+
+        void removeService(String id) {
+            ServiceFacts old = services.remove(id);
+            if (old != null) {
+                unindex(old);
+            }
+        }
+
+        private void index(ServiceFacts facts) {
+            if (facts.provider != null) {
+                servicesByProvider.computeIfAbsent(facts.provider, k -> new LinkedHashSet<>()).add(facts.id);
+            }
+            if (!facts.active) {
+                return;
+            }
+            for (String key : keys(facts)) {
+                Map<String, Set<String>> servicePlaces = places.computeIfAbsent(key, k -> new HashMap<>());
+                for (String place : facts.places) {
+                    servicePlaces.computeIfAbsent(place, k -> new LinkedHashSet<>()).add(facts.id);
+                }
+                Map<Vocabulary, Map<String, Set<String>>> serviceVocabularies =
+                        vocabularies.computeIfAbsent(key, k -> new EnumMap<>(Vocabulary.class));
+                for (Map.Entry<Vocabulary, List<String>> entry : facts.vocabularies.entrySet()) {
+                    Map<String, Set<String>> values = serviceVocabularies.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+                    for (String value : entry.getValue()) {
+                        values.computeIfAbsent(value, k -> new LinkedHashSet<>()).add(facts.id);
+                    }
+                }
+            }
+        }
+
+        private void unindex(ServiceFacts facts) {
+            if (facts.provider != null) {
+                removeFrom(servicesByProvider, facts.provider, facts.id);
+            }
+            if (!facts.active) {
+                return;
+            }
+            for (String key : keys(facts)) {
+                Map<String, Set<String>> servicePlaces = places.get(key);
+                if (servicePlaces != null) {
+                    for (String place : facts.places) {
+                        removeFrom(servicePlaces, place, facts.id);
+                    }
+                }
+                Map<Vocabulary, Map<String, Set<String>>> serviceVocabularies = vocabularies.get(key);
+                if (serviceVocabularies != null) {
+                    for (Map.Entry<Vocabulary, List<String>> entry : facts.vocabularies.entrySet()) {
+                        Map<String, Set<String>> values = serviceVocabularies.get(entry.getKey());
+                        if (values != null) {
+                            for (String value : entry.getValue()) {
+                                removeFrom(values, value, facts.id);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private static List<String> keys(ServiceFacts facts) {
+            return facts.provider == null ? List.of(ALL) : List.of(ALL, facts.provider);
+        }
+
+        void putProvider(String id, String country) {
+            String old = providerCountries.put(id, country);
+            if (old != null) {
+                removeFrom(providersByCountry, old, id);
+            }
+            if (country != null) {
+                providersByCountry.computeIfAbsent(country, k -> new HashSet<>()).add(id);
+            }
+        }
+
+        void removeProvider(String id) {
+            String old = providerCountries.remove(id);
+            if (old != null) {
+                removeFrom(providersByCountry, old, id);
+            }
+        }
+
+        private static void removeFrom(Map<String, Set<String>> index, String key, String id) {
+            Set<String> ids = index.get(key);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+
+        /**
+         * Compares the facts of these cells, taken as the expected ones, with the given cells. The indexes are
+         * derived from them and are not compared.
+         */
+        List<String> differences(Cells other) {
+            List<String> differences = new ArrayList<>();
+            compare("service", services, other.services, differences);
+            compare("provider country", providerCountries, other.providerCountries, differences);
+            return differences;
+        }
+
+        static <V> void compare(String name, Map<String, V> expected, Map<String, V> actual,
+                                        List<String> differences) {
+            Set<String> keys = new TreeSet<>(expected.keySet());
+            keys.addAll(actual.keySet());
+            for (String key : keys) {
+                if (differences.size() >= MAX_DIFFERENCES) {
+                    return;
+                }
+                if (!Objects.equals(expected.get(key), actual.get(key))) {
+                    differences.add(String.format("%s '%s': expected %s but was %s",
+                            name, key, expected.get(key), actual.get(key)));
+                }
+            }
+        }
+    }
+
+    /**
+     * The statistics dimensions of a service.
+     */
+    static final class ServiceFacts {
+
+        final String id;
+        final String name;
+        final String provider;
+        final boolean active;
+        final List<String> places;
+        final Map<Vocabulary, List<String>> vocabularies;
+
+        ServiceFacts(String id, String name, String provider, boolean active, List<String> places,
+                     Map<Vocabulary, List<String>> vocabularies) {
+            this.id = id;
+            this.name = name;
+            this.provider = provider;
+            this.active = active;
+            this.places = places;
+            this.vocabularies = vocabularies;
+        }
+
+        static ServiceFacts of(ServiceBundle serviceBundle) {
+            Service service = serviceBundle.getService();
+            Map<Vocabulary, List<String>> vocabularies = new EnumMap<>(Vocabulary.class);
+            vocabularies.put(Vocabulary.SUBCATEGORY, values(service.getCategories(), ServiceCategory::getSubcategory));
+            vocabularies.put(Vocabulary.SCIENTIFIC_SUBDOMAIN,
+                    values(service.getScientificDomains(), ServiceProviderDomain::getScientificSubdomain));
+            vocabularies.put(Vocabulary.TARGET_USERS, values(service.getTargetUsers(), Function.identity()));
+            vocabularies.put(Vocabulary.ACCESS_MODES, values(service.getAccessModes(), Function.identity()));
+            vocabularies.put(Vocabulary.ACCESS_TYPES, values(service.getAccessTypes(), Function.identity()));
+            vocabularies.put(Vocabulary.ORDER_TYPE, values(Collections.singletonList(service.getOrderType()), Function.identity()));
+            return new ServiceFacts(serviceBundle.getId(), service.getName(), service.getResourceOrganisation(),
+                    serviceBundle.isActive(), values(service.getGeographicalAvailabilities(), Function.identity()),
+                    vocabularies);
+        }
+
+        private static <T> List<String> values(List<T> items, Function<T, String> value) {
+            if (items == null) {
+                return Collections.emptyList();
+            }
+            Set<String> values = new LinkedHashSet<>();
+            for (T item : items) {
+                String v = item != null ? value.apply(item) : null;
+                if (v != null) {
+                    values.add(v);
+                }
+            }
+            return new ArrayList<>(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ServiceFacts that)) return false;
+            return active == that.active && Objects.equals(id, that.id) && Objects.equals(name, that.name)
+                    && Objects.equals(provider, that.provider) && Objects.equals(places, that.places)
+                    && Objects.equals(vocabularies, that.vocabularies);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name, provider, active, places, vocabularies);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{name=%s, provider=%s, active=%s, places=%s, vocabularies=%s}",
+                    name, provider, active, places, vocabularies);
+        }
+    }
+
+    /**
+     * The contribution of an event to the daily counts of its service.
+     */
+    static final class EventFact {
+
+        final String service;
+        final long day;
+        final DayCounts counts;
+
+        EventFact(String service, long day, DayCounts counts) {
+            this.service = service;
+            this.day = day;
+            this.counts = counts;
+        }
+
+        static EventFact of(Event event) {
+            DayCounts counts = new DayCounts();
+            int value = event.getValue() != null ? event.getValue().intValue() : 0;
+            if (Event.UserActionType.VISIT.getKey().equals(event.getType())) {
+                counts.visits = value;
+            } else if (Event.UserActionType.ADD_TO_PROJECT.getKey().equals(event.getType())) {
+                if (value == 1) {
+                    counts.added = 1;
+                } else if (value == 0) {
+                    counts.removed = 1;
+                }
+            }
+            return new EventFact(event.getService(), Math.floorDiv(event.getInstant(), DAY), counts);
+        }
+    }
+
+    /**
+     * Event counts of a service, or of a group of services.
+     */
+    static final class DayCounts {
+
+        long visits;
+        long added;
+        long removed;
+
+        void add(DayCounts other, int sign) {
+            visits += sign * other.visits;
+            added += sign * other.added;
+            removed += sign * other.removed;
+        }
+
+        boolean isEmpty() {
+            return visits == 0 && added == 0 && removed == 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DayCounts that)) return false;
+            return visits == that.visits && added == that.added && removed == that.removed;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(visits, added, removed);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{visits=%d, added=%d, removed=%d}", visits, added, removed);
+        }
+    }
+}
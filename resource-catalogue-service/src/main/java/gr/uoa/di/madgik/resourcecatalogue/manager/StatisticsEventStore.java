@@ -0,0 +1,173 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.resourcecatalogue.manager.StatisticsCube.DayCounts;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.util.*;
+
+/**
+ * The daily VISIT and ADD_TO_PROJECT counts of every service, stored in the 'statistics_event_days' table, so that
+ * they are shared by all the nodes and survive restarts. Events are added to, or subtracted from, the counts of
+ * their day as they are written, and only the counts are kept.
+ */
+@Component
+public class StatisticsEventStore {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS statistics_event_days (" +
+            "service_id VARCHAR(255) NOT NULL, " +
+            "event_day BIGINT NOT NULL, " +
+            "visits BIGINT NOT NULL, " +
+            "added BIGINT NOT NULL, " +
+            "removed BIGINT NOT NULL, " +
+            "PRIMARY KEY (service_id, event_day))";
+    // days whose events cancel out are left out
+    private static final String NOT_EMPTY = "HAVING sum(visits) <> 0 OR sum(added) <> 0 OR sum(removed) <> 0";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public StatisticsEventStore(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @PostConstruct
+    void createTable() {
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_TABLE);
+    }
+
+    /**
+     * Adds counts to the counts of a service on a day.
+     *
+     * @param serviceId the service id
+     * @param day       the epoch day
+     * @param counts    the counts to add
+     * @param sign      1 to add the counts, -1 to subtract them
+     */
+    void add(String serviceId, long day, DayCounts counts, int sign) {
+        if (serviceId == null || counts.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("serviceId", serviceId)
+                .addValue("day", day)
+                .addValue("visits", sign * counts.visits)
+                .addValue("added", sign * counts.added)
+                .addValue("removed", sign * counts.removed);
+        if (increment(params) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO statistics_event_days (service_id, event_day, visits, added, removed) " +
+                    "VALUES (:serviceId, :day, :visits, :added, :removed)", params);
+        } catch (DuplicateKeyException e) {
+            // inserted meanwhile by another node
+            increment(params);
+        }
+    }
+
+    private int increment(MapSqlParameterSource params) {
+        return jdbcTemplate.update("UPDATE statistics_event_days SET visits = visits + :visits, " +
+                "added = added + :added, removed = removed + :removed " +
+                "WHERE service_id = :serviceId AND event_day = :day", params);
+    }
+
+    /**
+     * Returns the counts of the given services summed per day.
+     *
+     * @param serviceIds the service ids
+     * @return the counts by epoch day
+     */
+    NavigableMap<Long, DayCounts> getDays(Collection<String> serviceIds) {
+        NavigableMap<Long, DayCounts> days = new TreeMap<>();
+        if (serviceIds.isEmpty()) {
+            return days;
+        }
+        jdbcTemplate.query("SELECT event_day, sum(visits) AS visits, sum(added) AS added, sum(removed) AS removed " +
+                "FROM statistics_event_days WHERE service_id IN (:serviceIds) GROUP BY event_day " + NOT_EMPTY,
+                new MapSqlParameterSource("serviceIds", new ArrayList<>(serviceIds)),
+                rs -> {
+                    days.put(rs.getLong("event_day"), counts(rs.getLong("visits"), rs.getLong("added"), rs.getLong("removed")));
+                });
+        return days;
+    }
+
+    /**
+     * Returns the total visits of the given services.
+     *
+     * @param serviceIds the service ids
+     * @return the visits by service id, for the services that have any events
+     */
+    Map<String, Long> getVisits(Collection<String> serviceIds) {
+        Map<String, Long> visits = new HashMap<>();
+        if (serviceIds.isEmpty()) {
+            return visits;
+        }
+        jdbcTemplate.query("SELECT service_id, sum(visits) AS visits FROM statistics_event_days " +
+                        "WHERE service_id IN (:serviceIds) GROUP BY service_id",
+                new MapSqlParameterSource("serviceIds", new ArrayList<>(serviceIds)),
+                rs -> {
+                    visits.put(rs.getString("service_id"), rs.getLong("visits"));
+                });
+        return visits;
+    }
+
+    /**
+     * Returns the counts of every service.
+     *
+     * @return the counts by service id and epoch day
+     */
+    Map<String, NavigableMap<Long, DayCounts>> getAll() {
+        Map<String, NavigableMap<Long, DayCounts>> all = new HashMap<>();
+        jdbcTemplate.query("SELECT service_id, event_day, sum(visits) AS visits, sum(added) AS added, " +
+                        "sum(removed) AS removed FROM statistics_event_days GROUP BY service_id, event_day " + NOT_EMPTY,
+                rs -> {
+                    all.computeIfAbsent(rs.getString("service_id"), k -> new TreeMap<>()).put(rs.getLong("event_day"),
+                            counts(rs.getLong("visits"), rs.getLong("added"), rs.getLong("removed")));
+                });
+        return all;
+    }
+
+    boolean isEmpty() {
+        Long count = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT count(*) FROM statistics_event_days", Long.class);
+        return count == null || count == 0;
+    }
+
+    /**
+     * Replaces all the counts with the given ones, in a single transaction.
+     *
+     * @param all the counts by service id and epoch day
+     */
+    void replace(Map<String, NavigableMap<Long, DayCounts>> all) {
+        List<MapSqlParameterSource> rows = new ArrayList<>();
+        for (Map.Entry<String, NavigableMap<Long, DayCounts>> service : all.entrySet()) {
+            for (Map.Entry<Long, DayCounts> day : service.getValue().entrySet()) {
+                rows.add(new MapSqlParameterSource("serviceId", service.getKey())
+                        .addValue("day", day.getKey())
+                        .addValue("visits", day.getValue().visits)
+                        .addValue("added", day.getValue().added)
+                        .addValue("removed", day.getValue().removed));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.getJdbcTemplate().update("DELETE FROM statistics_event_days");
+            jdbcTemplate.batchUpdate("INSERT INTO statistics_event_days (service_id, event_day, visits, added, removed) " +
+                    "VALUES (:serviceId, :day, :visits, :added, :removed)", rows.toArray(new MapSqlParameterSource[0]));
+        });
+    }
+
+    private static DayCounts counts(long visits, long added, long removed) {
+        DayCounts counts = new DayCounts();
+        counts.visits = visits;
+        counts.added = added;
+        counts.removed = removed;
+        return counts;
+    }
+}
@@ -3,13 +3,11 @@ package gr.uoa.di.madgik.resourcecatalogue.manager;
 import gr.uoa.di.madgik.registry.domain.Browsing;
 import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.registry.domain.Resource;
-import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Vocabulary;
 import gr.uoa.di.madgik.resourcecatalogue.dto.VocabularyTree;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceAlreadyExistsException;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
 import gr.uoa.di.madgik.resourcecatalogue.service.IdCreator;
-import gr.uoa.di.madgik.resourcecatalogue.service.SecurityService;
 import gr.uoa.di.madgik.resourcecatalogue.service.VocabularyService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +18,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,15 +27,18 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
 
     private final ProviderManager providerManager;
 
-    private final SecurityService securityService;
-
     private final IdCreator idCreator;
 
-    public VocabularyManager(@Lazy ProviderManager providerManager, @Lazy IdCreator idCreator, @Lazy SecurityService securityService) {
+    /**
+     * Immutable, indexed view of all Vocabularies. Readers never lock; writers replace the whole snapshot.
+     * The snapshot keeps its own copies of the Vocabularies and hands out copies of them, so callers cannot change it.
+     */
+    private volatile VocabularySnapshot snapshot;
+
+    public VocabularyManager(@Lazy ProviderManager providerManager, @Lazy IdCreator idCreator) {
         super(Vocabulary.class);
         this.providerManager = providerManager;
         this.idCreator = idCreator;
-        this.securityService = securityService;
     }
 
     @Override
@@ -56,17 +58,17 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
     }
 
     @Override
-    public String[] getRegion(String name) {
-        List<Vocabulary> allCountries = getByType(Vocabulary.Type.COUNTRY);
-        if (name.equals("WW")) {
-            return allCountries.stream().map(Vocabulary::getId).toArray(String[]::new);
-        } else {
-            return allCountries.stream()
-                    .filter(vocabulary -> vocabulary.getExtras().containsKey("region"))
-                    .filter(vocabulary -> vocabulary.getExtras().get("region").equals(name))
-                    .map(Vocabulary::getId)
-                    .toArray(String[]::new);
+    public Vocabulary get(String id) {
+        Vocabulary vocabulary = getSnapshot().byId.get(id);
+        if (vocabulary == null) {
+            return super.get(id);
         }
+        return copy(vocabulary);
+    }
+
+    @Override
+    public String[] getRegion(String name) {
+        return getSnapshot().byRegion.getOrDefault(name, new String[0]).clone();
     }
 
     @Override
@@ -90,42 +92,62 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
 
     @Override
     public List<Vocabulary> getByType(Vocabulary.Type type) {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        ff.addFilter("type", type.getKey());
-        List<Vocabulary> vocList = getAll(ff, null).getResults();
-        return vocList.stream().sorted(Comparator.comparing(Vocabulary::getId)).collect(Collectors.toList());
+        return copy(getSnapshot().byType.getOrDefault(type.getKey(), Collections.emptyList()));
     }
 
     @Override
     public Map<String, Vocabulary> getVocabulariesMap() {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        return getAll(ff, null)
-                .getResults()
-                .stream()
-                .collect(Collectors.toMap(Vocabulary::getId, v -> v));
+        Map<String, Vocabulary> vocabularies = new HashMap<>();
+        getSnapshot().byId.forEach((id, vocabulary) -> vocabularies.put(id, copy(vocabulary)));
+        return vocabularies;
+    }
+
+    @Override
+    public Map<String, List<Vocabulary>> getBy(String field) {
+        if ("parent_id".equals(field)) {
+            Map<String, List<Vocabulary>> vocabularies = new HashMap<>();
+            getSnapshot().byParent.forEach((parentId, children) -> vocabularies.put(parentId, copy(children)));
+            return vocabularies;
+        }
+        return super.getBy(field);
     }
 
     @Override
     public void addBulk(List<Vocabulary> vocabularies, Authentication auth) {
-        super.addBulk(vocabularies, auth);
+        List<Vocabulary> added = new ArrayList<>();
+        try {
+            for (Vocabulary vocabulary : vocabularies) {
+                store(vocabulary);
+                added.add(vocabulary);
+            }
+        } finally {
+            applyToSnapshot(current -> current.with(added));
+        }
     }
 
     @Override
     public void updateBulk(List<Vocabulary> vocabularies, Authentication auth) {
-        for (Vocabulary vocabulary : vocabularies) {
-            update(vocabulary, auth);
+        List<Vocabulary> updated = new ArrayList<>();
+        try {
+            for (Vocabulary vocabulary : vocabularies) {
+                replace(vocabulary);
+                updated.add(vocabulary);
+            }
+        } finally {
+            applyToSnapshot(current -> current.with(updated));
         }
     }
 
     @Override
     public void deleteAll(Authentication auth) {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        List<Vocabulary> allVocs = getAll(ff, auth).getResults();
-        for (Vocabulary vocabulary : allVocs) {
-            delete(vocabulary);
+        List<String> deleted = new ArrayList<>();
+        try {
+            stream(new FacetFilter()).forEach(vocabulary -> {
+                super.delete(vocabulary);
+                deleted.add(vocabulary.getId());
+            });
+        } finally {
+            applyToSnapshot(current -> current.without(deleted));
         }
     }
 
@@ -170,6 +192,68 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
 
     @Override
     public Vocabulary add(Vocabulary vocabulary, Authentication auth) {
+        store(vocabulary);
+        applyToSnapshot(current -> current.with(Collections.singletonList(vocabulary)));
+        return vocabulary;
+    }
+
+    @Override
+    public Vocabulary update(Vocabulary vocabulary, Authentication auth) {
+        replace(vocabulary);
+        applyToSnapshot(current -> current.with(Collections.singletonList(vocabulary)));
+        return vocabulary;
+    }
+
+    @Override
+    public void delete(Vocabulary vocabulary) {
+        super.delete(vocabulary);
+        applyToSnapshot(current -> current.without(Collections.singletonList(vocabulary.getId())));
+    }
+
+    /**
+     * Rebuilds the in-memory Vocabulary snapshot from the store. Also runs periodically, so that changes made by
+     * other instances of the catalogue are eventually picked up.
+     */
+    @Scheduled(initialDelayString = "${catalogue.vocabularies.refresh-interval:600000}",
+            fixedDelayString = "${catalogue.vocabularies.refresh-interval:600000}")
+    public synchronized void reloadSnapshot() {
+        long time = System.nanoTime();
+        snapshot = new VocabularySnapshot(stream(new FacetFilter()).collect(Collectors.toList()));
+        logger.debug("Vocabulary snapshot reload took {} ms", (System.nanoTime() - time) / 1000000);
+    }
+
+    private static Vocabulary copy(Vocabulary vocabulary) {
+        return new Vocabulary(vocabulary.getId(), vocabulary.getName(), vocabulary.getDescription(),
+                vocabulary.getParentId(), vocabulary.getType(),
+                vocabulary.getExtras() != null ? new HashMap<>(vocabulary.getExtras()) : null);
+    }
+
+    private static List<Vocabulary> copy(List<Vocabulary> vocabularies) {
+        List<Vocabulary> copies = new ArrayList<>(vocabularies.size());
+        for (Vocabulary vocabulary : vocabularies) {
+            copies.add(copy(vocabulary));
+        }
+        return copies;
+    }
+
+    private VocabularySnapshot getSnapshot() {
+        VocabularySnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reloadSnapshot();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private synchronized void applyToSnapshot(UnaryOperator<VocabularySnapshot> change) {
+        snapshot = change.apply(getSnapshot());
+    }
+
+    private void store(Vocabulary vocabulary) {
         if (vocabulary.getId() == null || "".equals(vocabulary.getId())) {
             String id = vocabulary.getName().toLowerCase();
             id = id.replace(" ", "_");
@@ -188,11 +272,9 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
         created.setResourceType(resourceType);
         resourceService.addResource(created);
         logger.debug("Adding Vocabulary {}", vocabulary);
-        return vocabulary;
     }
 
-    @Override
-    public Vocabulary update(Vocabulary vocabulary, Authentication auth) {
+    private void replace(Vocabulary vocabulary) {
         Resource existing = whereID(vocabulary.getId(), true);
         String serialized = serialize(vocabulary);
         serialized = serialized.replace(":tns", "");
@@ -201,7 +283,6 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
         existing.setResourceType(resourceType);
         resourceService.updateResource(existing);
         logger.debug("Updating Vocabulary {}", vocabulary);
-        return vocabulary;
     }
 
     //    @Scheduled(initialDelay = 0, fixedRate = 120000)
@@ -214,17 +295,13 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
             hostingLegalEntityNames.add(hostingLegalEntity.getName());
         }
         FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
         ff.addFilter("active", true);
         ff.addFilter("status", "approved provider");
         ff.addFilter("published", false);
-        List<ProviderBundle> allActiveAndApprovedProviders = providerManager.getAll(ff, securityService.getAdminAccess()).getResults();
-        List<String> providerNames = new ArrayList<>();
-        for (ProviderBundle providerBundle : allActiveAndApprovedProviders) {
-            if (providerBundle.getProvider().isLegalEntity()) {
-                providerNames.add(providerBundle.getProvider().getName());
-            }
-        }
+        List<String> providerNames = providerManager.stream(ff)
+                .filter(providerBundle -> providerBundle.getProvider().isLegalEntity())
+                .map(providerBundle -> providerBundle.getProvider().getName())
+                .collect(Collectors.toCollection(ArrayList::new));
         for (Iterator<String> it = providerNames.iterator(); it.hasNext(); ) {
             String providerName = it.next();
             for (String hleName : hostingLegalEntityNames) {
@@ -250,4 +327,65 @@ public class VocabularyManager extends ResourceManager<Vocabulary> implements Vo
         }
     }
 
+    /**
+     * Immutable set of Vocabulary indexes, built once per change and shared by all readers.
+     */
+    private static final class VocabularySnapshot {
+
+        private final Map<String, Vocabulary> byId;
+        private final Map<String, List<Vocabulary>> byType;
+        private final Map<String, List<Vocabulary>> byParent;
+        private final Map<String, String[]> byRegion;
+
+        private VocabularySnapshot(Collection<Vocabulary> vocabularies) {
+            Map<String, Vocabulary> ids = new HashMap<>();
+            Map<String, List<Vocabulary>> types = new HashMap<>();
+            Map<String, List<Vocabulary>> parents = new HashMap<>();
+            Map<String, List<String>> regions = new HashMap<>();
+            List<Vocabulary> sorted = vocabularies.stream()
+                    .filter(Objects::nonNull)
+                    .sorted(Comparator.comparing(Vocabulary::getId))
+                    .collect(Collectors.toList());
+            for (Vocabulary vocabulary : sorted) {
+                ids.put(vocabulary.getId(), vocabulary);
+                if (vocabulary.getType() != null) {
+                    types.computeIfAbsent(vocabulary.getType(), k -> new ArrayList<>()).add(vocabulary);
+                }
+                if (vocabulary.getParentId() != null) {
+                    parents.computeIfAbsent(vocabulary.getParentId(), k -> new ArrayList<>()).add(vocabulary);
+                }
+                if (Vocabulary.Type.COUNTRY.getKey().equals(vocabulary.getType())) {
+                    regions.computeIfAbsent("WW", k -> new ArrayList<>()).add(vocabulary.getId());
+                    if (vocabulary.getExtras() != null && vocabulary.getExtras().get("region") != null) {
+                        regions.computeIfAbsent(vocabulary.getExtras().get("region"), k -> new ArrayList<>())
+                                .add(vocabulary.getId());
+                    }
+                }
+            }
+            this.byId = Collections.unmodifiableMap(ids);
+            this.byType = unmodifiable(types);
+            this.byParent = unmodifiable(parents);
+            this.byRegion = Collections.unmodifiableMap(regions.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().toArray(new String[0]))));
+        }
+
+        private VocabularySnapshot with(Collection<Vocabulary> changed) {
+            Map<String, Vocabulary> vocabularies = new HashMap<>(byId);
+            for (Vocabulary vocabulary : changed) {
+                vocabularies.put(vocabulary.getId(), copy(vocabulary));
+            }
+            return new VocabularySnapshot(vocabularies.values());
+        }
+
+        private VocabularySnapshot without(Collection<String> ids) {
+            Map<String, Vocabulary> vocabularies = new HashMap<>(byId);
+            vocabularies.keySet().removeAll(ids);
+            return new VocabularySnapshot(vocabularies.values());
+        }
+
+        private static Map<String, List<Vocabulary>> unmodifiable(Map<String, List<Vocabulary>> map) {
+            return Collections.unmodifiableMap(map.entrySet().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, e -> Collections.unmodifiableList(e.getValue()))));
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager.aspects;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.CatalogueBundle;
+import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
+import gr.uoa.di.madgik.resourcecatalogue.service.AuthoritiesMapper;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BundleChangeEvent;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class AuthoritiesManagementAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthoritiesManagementAspect.class);
+
+    private final AuthoritiesMapper authoritiesMapper;
+
+    public AuthoritiesManagementAspect(@Lazy AuthoritiesMapper authoritiesMapper) {
+        this.authoritiesMapper = authoritiesMapper;
+    }
+
+    @AfterReturning(pointcut = "execution(* gr.uoa.di.madgik.resourcecatalogue.manager.ProviderManager.add(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.ProviderManager.update(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.DraftProviderManager.add(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.DraftProviderManager.update(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.DraftProviderManager.transformToNonDraft(..))",
+            returning = "providerBundle")
+    public void updateProviderAuthorities(final ProviderBundle providerBundle) {
+        logger.trace("Updating Authorities of Provider '{}'", providerBundle.getId());
+        authoritiesMapper.updateAuthorities(providerBundle);
+    }
+
+    @AfterReturning("execution(* gr.uoa.di.madgik.resourcecatalogue.manager.ProviderManager.delete(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.DraftProviderManager.delete(..))")
+    public void removeProviderAuthorities(JoinPoint joinPoint) {
+        ProviderBundle providerBundle = (ProviderBundle) joinPoint.getArgs()[0];
+        logger.trace("Removing Authorities of Provider '{}'", providerBundle.getId());
+        authoritiesMapper.removeAuthorities(providerBundle);
+    }
+
+    @AfterReturning(pointcut = "execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.add(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.update(..))",
+            returning = "catalogueBundle")
+    public void updateCatalogueAuthorities(final CatalogueBundle catalogueBundle) {
+        logger.trace("Updating Authorities of Catalogue '{}'", catalogueBundle.getId());
+        authoritiesMapper.updateAuthorities(catalogueBundle);
+    }
+
+    @AfterReturning("execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.delete(..))")
+    public void removeCatalogueAuthorities(JoinPoint joinPoint) {
+        CatalogueBundle catalogueBundle = (CatalogueBundle) joinPoint.getArgs()[0];
+        logger.trace("Removing Authorities of Catalogue '{}'", catalogueBundle.getId());
+        authoritiesMapper.removeAuthorities(catalogueBundle);
+    }
+
+    @EventListener
+    public void applyBundleChange(BundleChangeEvent event) {
+        if (event.getBundle() instanceof ProviderBundle providerBundle) {
+            if (event.isDeleted()) {
+                authoritiesMapper.removeAuthorities(providerBundle);
+            } else {
+                authoritiesMapper.updateAuthorities(providerBundle);
+            }
+        } else if (event.getBundle() instanceof CatalogueBundle catalogueBundle) {
+            if (event.isDeleted()) {
+                authoritiesMapper.removeAuthorities(catalogueBundle);
+            } else {
+                authoritiesMapper.updateAuthorities(catalogueBundle);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager.aspects;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.CatalogueBundle;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BundleChangeEvent;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CatalogueIdRegistry;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class CatalogueIdManagementAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogueIdManagementAspect.class);
+
+    private final CatalogueIdRegistry catalogueIdRegistry;
+
+    public CatalogueIdManagementAspect(@Lazy CatalogueIdRegistry catalogueIdRegistry) {
+        this.catalogueIdRegistry = catalogueIdRegistry;
+    }
+
+    @AfterReturning(pointcut = "execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.add(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.update(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.verify(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.publish(..))",
+            returning = "catalogueBundle")
+    public void updateCatalogueId(final CatalogueBundle catalogueBundle) {
+        logger.trace("Updating registered id of Catalogue '{}'", catalogueBundle.getId());
+        catalogueIdRegistry.update(catalogueBundle);
+    }
+
+    @AfterReturning("execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.delete(..)) " +
+            "&& args(catalogueBundle)")
+    public void removeCatalogueId(final CatalogueBundle catalogueBundle) {
+        logger.trace("Removing registered id of Catalogue '{}'", catalogueBundle.getId());
+        catalogueIdRegistry.remove(catalogueBundle.getId());
+    }
+
+    @EventListener
+    public void applyBundleChange(BundleChangeEvent event) {
+        if (event.getBundle() instanceof CatalogueBundle catalogueBundle) {
+            if (event.isDeleted()) {
+                catalogueIdRegistry.remove(catalogueBundle.getId());
+            } else {
+                catalogueIdRegistry.update(catalogueBundle);
+            }
+        }
+    }
+}
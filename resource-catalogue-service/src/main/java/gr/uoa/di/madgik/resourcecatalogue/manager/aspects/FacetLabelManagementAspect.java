@@ -0,0 +1,63 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager.aspects;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import gr.uoa.di.madgik.resourcecatalogue.utils.FacetLabelDictionary;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class FacetLabelManagementAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetLabelManagementAspect.class);
+
+    private final FacetLabelDictionary labelDictionary;
+
+    public FacetLabelManagementAspect(@Lazy FacetLabelDictionary labelDictionary) {
+        this.labelDictionary = labelDictionary;
+    }
+
+    @AfterReturning(pointcut = "execution(* gr.uoa.di.madgik.resourcecatalogue.manager.*Manager.add(..))" +
+            "|| execution(* gr.uoa.di.madgik.resourcecatalogue.manager.*Manager.update(..))",
+            returning = "resource")
+    public void updateLabel(final Object resource) {
+        String label = getLabel(resource);
+        if (label != null) {
+            String id = ((Identifiable) resource).getId();
+            logger.trace("Updating facet label of '{}'", id);
+            labelDictionary.putLabel(id, label);
+        }
+    }
+
+    @AfterReturning("execution(* gr.uoa.di.madgik.resourcecatalogue.manager.*Manager.delete(..))")
+    public void removeLabel(JoinPoint joinPoint) {
+        Object resource = joinPoint.getArgs().length > 0 ? joinPoint.getArgs()[0] : null;
+        if (getLabel(resource) != null) {
+            String id = ((Identifiable) resource).getId();
+            logger.trace("Removing facet label of '{}'", id);
+            labelDictionary.removeLabel(id);
+        }
+    }
+
+    private static String getLabel(Object resource) {
+        if (resource instanceof ProviderBundle) {
+            return ((ProviderBundle) resource).getProvider().getName();
+        } else if (resource instanceof ServiceBundle) {
+            return ((ServiceBundle) resource).getService().getName();
+        } else if (resource instanceof TrainingResourceBundle) {
+            return ((TrainingResourceBundle) resource).getTrainingResource().getTitle();
+        } else if (resource instanceof InteroperabilityRecordBundle) {
+            return ((InteroperabilityRecordBundle) resource).getInteroperabilityRecord().getTitle();
+        } else if (resource instanceof CatalogueBundle) {
+            return ((CatalogueBundle) resource).getCatalogue().getName();
+        } else if (resource instanceof Vocabulary) {
+            return ((Vocabulary) resource).getName();
+        }
+        return null;
+    }
+}
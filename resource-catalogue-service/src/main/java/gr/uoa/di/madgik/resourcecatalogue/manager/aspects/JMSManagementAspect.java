@@ -35,7 +35,7 @@ public class JMSManagementAspect {
         this.publicMonitoringManager = publicMonitoringManager;
     }
 
-    @Async
+    // catalogue messages are stored in the outbox synchronously, so that they keep the order of the changes
     @AfterReturning(pointcut = "(execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.add(..)))" +
             "|| (execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.verify(..)))",
             returning = "catalogueBundle")
@@ -45,7 +45,6 @@ public class JMSManagementAspect {
         }
     }
 
-    @Async
     @AfterReturning(pointcut = "(execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.update(..)))" +
             "|| (execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.update(..)))" +
             "|| (execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.publish(..)))" +
@@ -57,7 +56,6 @@ public class JMSManagementAspect {
         }
     }
 
-    @Async
     @After("execution(* gr.uoa.di.madgik.resourcecatalogue.manager.CatalogueManager.delete(..)))")
     public void sendJMSForCatalogueDeletion(JoinPoint joinPoint) {
         jmsService.convertAndSendTopic("catalogue.delete", joinPoint.getArgs()[0]);
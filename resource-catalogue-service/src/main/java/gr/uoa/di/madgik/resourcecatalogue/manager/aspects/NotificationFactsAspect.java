@@ -0,0 +1,53 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager.aspects;
+
+import gr.uoa.di.madgik.resourcecatalogue.utils.BundleChangeEvent;
+import gr.uoa.di.madgik.resourcecatalogue.utils.NotificationFactStore;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class NotificationFactsAspect {
+
+    private final NotificationFactStore notificationFactStore;
+
+    public NotificationFactsAspect(@Lazy NotificationFactStore notificationFactStore) {
+        this.notificationFactStore = notificationFactStore;
+    }
+
+    @Pointcut("target(gr.uoa.di.madgik.resourcecatalogue.manager.ProviderManager)" +
+            "|| target(gr.uoa.di.madgik.resourcecatalogue.manager.DraftProviderManager)" +
+            "|| target(gr.uoa.di.madgik.resourcecatalogue.manager.ServiceBundleManager)" +
+            "|| target(gr.uoa.di.madgik.resourcecatalogue.manager.DraftServiceManager)")
+    public void notifiedManagers() {
+    }
+
+    @AfterReturning(pointcut = "notifiedManagers() && (execution(* add*(..)) || execution(* update*(..))" +
+            "|| execution(* verify(..)) || execution(* suspend(..)) || execution(* audit(..))" +
+            "|| execution(* changeProvider(..)) || execution(* transformToNonDraft(..)) || execution(* set*(..)))",
+            returning = "resource")
+    public void recordFacts(final Object resource) {
+        notificationFactStore.record(resource);
+    }
+
+    @AfterReturning("notifiedManagers() && execution(* delete(..))")
+    public void removeFacts(JoinPoint joinPoint) {
+        if (joinPoint.getArgs().length > 0) {
+            notificationFactStore.remove(joinPoint.getArgs()[0]);
+        }
+    }
+
+    @EventListener
+    public void applyBundleChange(BundleChangeEvent event) {
+        if (event.isDeleted()) {
+            notificationFactStore.remove(event.getBundle());
+        } else {
+            notificationFactStore.record(event.getBundle());
+        }
+    }
+}
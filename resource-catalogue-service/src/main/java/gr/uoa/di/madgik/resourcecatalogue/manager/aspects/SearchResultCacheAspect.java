@@ -0,0 +1,74 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager.aspects;
+
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.resourcecatalogue.manager.GenericManager;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evicts the cached search results of {@link GenericManager} whenever a resource is written to the registry.
+ * Every write of {@code ResourceManager} and {@code GenericManager} ends up in the registry {@code ResourceService},
+ * so hooking there also covers the writes that managers perform on themselves.
+ * <p>
+ * A write becomes searchable only once the index is refreshed, so a search running in between may cache the old
+ * results again. The results are therefore evicted a second time, once the index has been refreshed.
+ */
+@Aspect
+@Component
+public class SearchResultCacheAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCacheAspect.class);
+
+    private final GenericManager genericManager;
+    private final long reinvalidateDelay;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    public SearchResultCacheAspect(@Lazy GenericManager genericManager,
+                                   @Value("${catalogue.search-cache.reinvalidate-delay:2000}") long reinvalidateDelay) {
+        this.genericManager = genericManager;
+        this.reinvalidateDelay = reinvalidateDelay;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @AfterReturning("execution(* gr.uoa.di.madgik.registry.service.ResourceService.addResource(..))" +
+            "|| execution(* gr.uoa.di.madgik.registry.service.ResourceService.updateResource(..))")
+    public void invalidateResourceType(JoinPoint joinPoint) {
+        String resourceTypeName = null;
+        if (joinPoint.getArgs().length > 0 && joinPoint.getArgs()[0] instanceof Resource) {
+            Resource resource = (Resource) joinPoint.getArgs()[0];
+            resourceTypeName = resource.getResourceType() != null
+                    ? resource.getResourceType().getName()
+                    : resource.getResourceTypeName();
+        }
+        logger.trace("Invalidating cached search results of '{}'", resourceTypeName);
+        invalidate(resourceTypeName);
+    }
+
+    @AfterReturning("execution(* gr.uoa.di.madgik.registry.service.ResourceService.deleteResource(..))")
+    public void invalidateAll() {
+        // only the id of the deleted resource is known
+        logger.trace("Invalidating all cached search results");
+        invalidate(null);
+    }
+
+    private void invalidate(String resourceTypeName) {
+        genericManager.invalidateResults(resourceTypeName);
+        scheduler.schedule(() -> genericManager.invalidateResults(resourceTypeName), reinvalidateDelay,
+                TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,89 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager.aspects;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.Event;
+import gr.uoa.di.madgik.resourcecatalogue.manager.EventManager;
+import gr.uoa.di.madgik.resourcecatalogue.manager.StatisticsCube;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BundleChangeEvent;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class StatisticsCubeManagementAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsCubeManagementAspect.class);
+
+    private final StatisticsCube statisticsCube;
+
+    public StatisticsCubeManagementAspect(@Lazy StatisticsCube statisticsCube) {
+        this.statisticsCube = statisticsCube;
+    }
+
+    @Pointcut("target(gr.uoa.di.madgik.resourcecatalogue.manager.ServiceBundleManager)" +
+            "|| target(gr.uoa.di.madgik.resourcecatalogue.manager.PublicServiceManager)" +
+            "|| target(gr.uoa.di.madgik.resourcecatalogue.manager.ProviderManager)" +
+            "|| target(gr.uoa.di.madgik.resourcecatalogue.manager.PublicProviderManager)")
+    public void statisticsManagers() {
+    }
+
+    @AfterReturning(pointcut = "statisticsManagers() && (execution(* add*(..)) || execution(* update*(..))" +
+            "|| execution(* verify(..)) || execution(* publish(..)) || execution(* suspend(..))" +
+            "|| execution(* audit(..)) || execution(* changeProvider(..)) || execution(* set*(..)))",
+            returning = "resource")
+    public void updateStatistics(final Object resource) {
+        statisticsCube.update(resource);
+    }
+
+    @AfterReturning("statisticsManagers() && execution(* delete(..))")
+    public void removeStatistics(JoinPoint joinPoint) {
+        if (joinPoint.getArgs().length > 0) {
+            statisticsCube.remove(joinPoint.getArgs()[0]);
+        }
+    }
+
+    @EventListener
+    public void applyBundleChange(BundleChangeEvent event) {
+        if (event.isDeleted()) {
+            statisticsCube.remove(event.getBundle());
+        } else {
+            statisticsCube.update(event.getBundle());
+        }
+    }
+
+    @AfterReturning(pointcut = "target(gr.uoa.di.madgik.resourcecatalogue.manager.EventManager)" +
+            "&& (execution(* add*(..)) || execution(* set*(..)))",
+            returning = "event")
+    public void addEventStatistics(final Object event) {
+        statisticsCube.update(event);
+    }
+
+    /**
+     * Replaces the contribution of an updated or deleted event with the one of its new version. The event is read
+     * from the store before it is written, since the given one may have been changed in place.
+     */
+    @Around("target(gr.uoa.di.madgik.resourcecatalogue.manager.EventManager)" +
+            "&& (execution(* update(..)) || execution(* delete(..)))")
+    public Object replaceEventStatistics(ProceedingJoinPoint joinPoint) throws Throwable {
+        Event stored = null;
+        if (joinPoint.getArgs().length > 0 && joinPoint.getArgs()[0] instanceof Event event && event.getId() != null) {
+            try {
+                stored = ((EventManager) joinPoint.getTarget()).get(event.getId());
+            } catch (RuntimeException e) {
+                logger.debug("Event '{}' is not stored", event.getId());
+            }
+        }
+        Object ret = joinPoint.proceed();
+        boolean deleted = joinPoint.getSignature().getName().equals("delete");
+        statisticsCube.replace(stored, !deleted && ret instanceof Event written ? written : null);
+        return ret;
+    }
+}
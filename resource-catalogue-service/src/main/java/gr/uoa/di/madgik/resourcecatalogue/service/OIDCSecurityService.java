@@ -130,19 +130,7 @@ public class OIDCSecurityService implements SecurityService {
         if (registeredProvider.getProvider().getUsers() == null) {
             return false;
         }
-        return registeredProvider.getProvider().getUsers()
-                .parallelStream()
-                .filter(Objects::nonNull)
-                .anyMatch(u -> {
-                    if (u.getId() != null) {
-                        if (u.getEmail() != null) {
-                            return u.getId().equals(user.getId())
-                                    || u.getEmail().equalsIgnoreCase(user.getEmail());
-                        }
-                        return u.getId().equals(user.getId());
-                    }
-                    return u.getEmail().equalsIgnoreCase(user.getEmail());
-                });
+        return containsUser(registeredProvider.getProvider().getUsers(), user);
     }
 
     @Override
@@ -180,19 +168,7 @@ public class OIDCSecurityService implements SecurityService {
         if (registeredCatalogue.getCatalogue().getUsers() == null) {
             return false;
         }
-        return registeredCatalogue.getCatalogue().getUsers()
-                .parallelStream()
-                .filter(Objects::nonNull)
-                .anyMatch(u -> {
-                    if (u.getId() != null) {
-                        if (u.getEmail() != null) {
-                            return u.getId().equals(user.getId())
-                                    || u.getEmail().equalsIgnoreCase(user.getEmail());
-                        }
-                        return u.getId().equals(user.getId());
-                    }
-                    return u.getEmail().equalsIgnoreCase(user.getEmail());
-                });
+        return containsUser(registeredCatalogue.getCatalogue().getUsers(), user);
     }
 
     @Override
@@ -302,6 +278,73 @@ public class OIDCSecurityService implements SecurityService {
                 .anyMatch(id -> userIsProviderAdmin(user, id, catalogue));
     }
 
+    @Override
+    public Set<String> getAdministeredProviderIds(Authentication auth, Collection<String> providerIds, String catalogueId) {
+        Set<String> ret = new HashSet<>();
+        if (auth == null || hasRole(auth, "ROLE_ANONYMOUS") || providerIds == null || providerIds.isEmpty()) {
+            return ret;
+        }
+        User user = User.of(auth);
+        Set<String> notFound = new HashSet<>(providerIds);
+
+        FacetFilter ff = new FacetFilter();
+        ff.setQuantity(notFound.size());
+        ff.addFilter("resource_internal_id", new ArrayList<>(notFound));
+        ff.addFilter("catalogue_id", catalogueId);
+        for (ProviderBundle providerBundle : providerManager.getAll(ff, adminAccess).getResults()) {
+            notFound.remove(providerBundle.getId());
+            if (providerBundle.getProvider().getUsers() != null && containsUser(providerBundle.getProvider().getUsers(), user)) {
+                ret.add(providerBundle.getId());
+            }
+        }
+
+        if (!notFound.isEmpty()) {
+            ff = new FacetFilter();
+            ff.setQuantity(notFound.size());
+            ff.addFilter("resource_internal_id", new ArrayList<>(notFound));
+            for (ProviderBundle providerBundle : pendingProviderManager.getAll(ff, adminAccess).getResults()) {
+                if (providerBundle.getProvider().getUsers() != null && containsUser(providerBundle.getProvider().getUsers(), user)) {
+                    ret.add(providerBundle.getId());
+                }
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public Set<String> getAdministeredCatalogueIds(Authentication auth, Collection<String> catalogueIds) {
+        Set<String> ret = new HashSet<>();
+        if (auth == null || hasRole(auth, "ROLE_ANONYMOUS") || catalogueIds == null || catalogueIds.isEmpty()) {
+            return ret;
+        }
+        User user = User.of(auth);
+        FacetFilter ff = new FacetFilter();
+        ff.setQuantity(catalogueIds.size());
+        ff.addFilter("resource_internal_id", new ArrayList<>(new HashSet<>(catalogueIds)));
+        for (CatalogueBundle catalogueBundle : catalogueManager.getAll(ff, adminAccess).getResults()) {
+            if (catalogueBundle.getCatalogue().getUsers() != null && containsUser(catalogueBundle.getCatalogue().getUsers(), user)) {
+                ret.add(catalogueBundle.getId());
+            }
+        }
+        return ret;
+    }
+
+    private static boolean containsUser(List<User> users, User user) {
+        return users
+                .stream()
+                .filter(Objects::nonNull)
+                .anyMatch(u -> {
+                    if (u.getId() != null) {
+                        if (u.getEmail() != null) {
+                            return u.getId().equals(user.getId())
+                                    || u.getEmail().equalsIgnoreCase(user.getEmail());
+                        }
+                        return u.getId().equals(user.getId());
+                    }
+                    return u.getEmail().equalsIgnoreCase(user.getEmail());
+                });
+    }
+
     @Override
     public boolean providerCanAddResources(Authentication auth, String resourceId, String catalogueId) {
         return true;
@@ -9,23 +9,26 @@ import gr.uoa.di.madgik.resourcecatalogue.domain.*;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.resourcecatalogue.exception.ValidationException;
 import gr.uoa.di.madgik.resourcecatalogue.manager.*;
+import gr.uoa.di.madgik.resourcecatalogue.utils.NotificationFactStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.mail.MessagingException;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Stream;
 
 @Component
@@ -35,11 +38,12 @@ public class RegistrationMailService {
     private final MailService mailService;
     private final Configuration cfg;
     private final ProviderManager providerManager;
-    private final DraftProviderManager pendingProviderManager;
     private final ServiceBundleManager serviceBundleManager;
     private final TrainingResourceManager trainingResourceManager;
-    private final DraftServiceManager pendingServiceManager;
     private final SecurityService securityService;
+    private final NotificationFactStore notificationFactStore;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
     // Properties
     private final String registrationEmail;
@@ -52,27 +56,23 @@ public class RegistrationMailService {
     private final boolean enableAdminNotifications;
     private final boolean enableProviderNotifications;
 
-    @Value("${elastic.index.max_result_window:10000}")
-    private int maxQuantity;
-
-
     @Autowired
     public RegistrationMailService(MailService mailService, Configuration cfg,
                                    ProviderManager providerManager,
-                                   @Lazy DraftProviderManager pendingProviderManager,
                                    ServiceBundleManager serviceBundleManager,
                                    TrainingResourceManager trainingResourceManager,
-                                   DraftServiceManager pendingServiceManager,
                                    SecurityService securityService,
-                                   ResourceCatalogueProperties properties) {
+                                   NotificationFactStore notificationFactStore,
+                                   ResourceCatalogueProperties properties,
+                                   @Value("${catalogue.notifications.parallelism:4}") int parallelism) {
         this.mailService = mailService;
         this.cfg = cfg;
         this.providerManager = providerManager;
-        this.pendingProviderManager = pendingProviderManager;
         this.serviceBundleManager = serviceBundleManager;
         this.trainingResourceManager = trainingResourceManager;
-        this.pendingServiceManager = pendingServiceManager;
         this.securityService = securityService;
+        this.notificationFactStore = notificationFactStore;
+        this.permits = new Semaphore(parallelism);
 
         // Init properties
         this.homepage = properties.getHomepage();
@@ -86,6 +86,11 @@ public class RegistrationMailService {
         this.enableProviderNotifications = properties.getEmailProperties().isProviderNotifications();
     }
 
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
     @Async
     public void sendProviderMails(ProviderBundle providerBundle, String afterReturningFrom) {
         Map<String, Object> root = getRootTemplate();
@@ -267,26 +272,28 @@ public class RegistrationMailService {
 
     @Scheduled(cron = "0 0 12 ? * 2/7") // At 12:00:00pm, every 7 days starting on Monday, every month
     public void sendEmailNotificationsToProviders() {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        ff.addFilter("published", false);
-        List<ProviderBundle> allProviders = providerManager.getAll(ff, securityService.getAdminAccess()).getResults();
+        String period = LocalDate.now().toString();
+        for (NotificationFactStore.PendingProvider pending : notificationFactStore.getPendingProviders()) {
+            if (NotificationFactStore.NO_TEMPLATE.equals(pending.getTemplateStatus())) {
+                submit(() -> remindProvider(pending.getId(), period));
+            }
+        }
+    }
 
+    void remindProvider(String providerId, String period) {
+        ProviderBundle providerBundle = providerManager.get(providerId);
+        if (!NotificationFactStore.NO_TEMPLATE.equals(providerBundle.getTemplateStatus())
+                || providerBundle.getProvider().getUsers() == null || providerBundle.getProvider().getUsers().isEmpty()) {
+            return;
+        }
+        String subject = String.format("[%s] Friendly reminder for your Provider [%s]", catalogueName, providerBundle.getProvider().getName());
         Map<String, Object> root = getRootTemplate();
-
-        for (ProviderBundle providerBundle : allProviders) {
-            if (providerBundle.getTemplateStatus().equals("no template status")) {
-                if (providerBundle.getProvider().getUsers() == null || providerBundle.getProvider().getUsers().isEmpty()) {
-                    continue;
-                }
-                String subject = String.format("[%s] Friendly reminder for your Provider [%s]", catalogueName, providerBundle.getProvider().getName());
-                root.put("providerBundle", providerBundle);
-                for (User user : providerBundle.getProvider().getUsers()) {
-                    root.put("user", user);
-                    String userRole = "provider";
-                    sendMailsFromTemplate("providerOnboarding.ftl", root, subject, user.getEmail(), userRole);
-                }
-            }
+        root.put("providerBundle", providerBundle);
+        for (User user : providerBundle.getProvider().getUsers()) {
+            Map<String, Object> userRoot = new HashMap<>(root);
+            userRoot.put("user", user);
+            deliver(new Delivery("providerOnboarding", period, providerId, "providerOnboarding.ftl", userRoot,
+                    subject, user.getEmail(), "provider"));
         }
     }
 
@@ -400,162 +407,161 @@ public class RegistrationMailService {
 
     @Scheduled(cron = "0 0 12 ? * 2/2") // At 12:00:00pm, every 2 days starting on Monday, every month
     public void sendEmailNotificationsToAdmins() {
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        ff.addFilter("published", false);
-        List<ProviderBundle> allProviders = providerManager.getAll(ff, securityService.getAdminAccess()).getResults();
+        Delivery digest = adminOnboardingDigest(LocalDate.now());
+        if (digest != null) {
+            submit(() -> deliver(digest));
+        }
+    }
 
+    Delivery adminOnboardingDigest(LocalDate today) {
         List<String> providersWaitingForInitialApproval = new ArrayList<>();
         List<String> providersWaitingForSTApproval = new ArrayList<>();
-        for (ProviderBundle providerBundle : allProviders) {
-            if (providerBundle.getStatus().equals("pending provider")) {
-                providersWaitingForInitialApproval.add(providerBundle.getProvider().getName());
+        for (NotificationFactStore.PendingProvider pending : notificationFactStore.getPendingProviders()) {
+            if (NotificationFactStore.PENDING_PROVIDER.equals(pending.getStatus())) {
+                providersWaitingForInitialApproval.add(pending.getName());
             }
-            if (providerBundle.getTemplateStatus().equals("pending template")) {
-                providersWaitingForSTApproval.add(providerBundle.getProvider().getName());
+            if (NotificationFactStore.PENDING_TEMPLATE.equals(pending.getTemplateStatus())) {
+                providersWaitingForSTApproval.add(pending.getName());
             }
         }
+        if (providersWaitingForInitialApproval.isEmpty() && providersWaitingForSTApproval.isEmpty()) {
+            return null;
+        }
 
         Map<String, Object> root = getRootTemplate();
         root.put("iaProviders", providersWaitingForInitialApproval);
         root.put("stProviders", providersWaitingForSTApproval);
 
         String subject = String.format("[%s] Some new Providers are pending for your approval", catalogueName);
-        if (!providersWaitingForInitialApproval.isEmpty() || !providersWaitingForSTApproval.isEmpty()) {
-            String userRole = "admin";
-            sendMailsFromTemplate("adminOnboardingDigest.ftl", root, subject, registrationEmail, userRole);
-        }
+        return new Delivery("adminOnboardingDigest", today.toString(), "", "adminOnboardingDigest.ftl", root,
+                subject, registrationEmail, "admin");
     }
 
     @Scheduled(cron = "0 0 12 ? * *") // At 12:00:00pm every day
-//    @Scheduled(fixedDelay = 1000)
     public void dailyNotificationsToAdmins() {
-        // Create timestamps for today and yesterday
-        LocalDate today = LocalDate.now();
-        LocalDate yesterday = LocalDate.now().minusDays(1);
-        Timestamp todayTimestamp = Timestamp.valueOf(today.atStartOfDay());
-        Timestamp yesterdayTimestamp = Timestamp.valueOf(yesterday.atStartOfDay());
-
-        List<String> newProviders = new ArrayList<>();
-        List<String> newServices = new ArrayList<>();
-        List<String> updatedProviders = new ArrayList<>();
-        List<String> updatedServices = new ArrayList<>();
-
-        // Fetch Services and Providers (including Drafts)
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-        ff.addFilter("published", false);
-        List<ProviderBundle> activeProviders = providerManager.getAll(ff, securityService.getAdminAccess()).getResults();
-        List<ProviderBundle> pendingProviders = pendingProviderManager.getAll(ff, securityService.getAdminAccess()).getResults();
-        List<ServiceBundle> activeServices = serviceBundleManager.getAll(ff, securityService.getAdminAccess()).getResults();
-        List<ServiceBundle> pendingServices = pendingServiceManager.getAll(ff, securityService.getAdminAccess()).getResults();
-        List<ProviderBundle> allProviders = Stream.concat(activeProviders.stream(), pendingProviders.stream()).collect(Collectors.toList());
-        List<ServiceBundle> allServices = Stream.concat(activeServices.stream(), pendingServices.stream()).collect(Collectors.toList());
-        List<Bundle> allResources = Stream.concat(allProviders.stream(), allServices.stream()).collect(Collectors.toList());
-
-        // New & Updated Providers, Resources
-        for (Bundle bundle : allResources) {
-            Timestamp modified;
-            Timestamp registered;
-            if (bundle.getMetadata() != null) {
-                if (bundle.getMetadata().getModifiedAt() == null || !bundle.getMetadata().getModifiedAt().matches("[0-9]+")) {
-                    modified = new Timestamp(Long.parseLong("0"));
-                } else {
-                    modified = new Timestamp(Long.parseLong(bundle.getMetadata().getModifiedAt()));
-                }
-                if (bundle.getMetadata().getRegisteredAt() == null || !bundle.getMetadata().getRegisteredAt().matches("[0-9]+")) {
-                    registered = new Timestamp(Long.parseLong("0"));
-                } else {
-                    registered = new Timestamp(Long.parseLong(bundle.getMetadata().getRegisteredAt()));
-                }
-            } else {
-                continue;
-            }
+        Delivery digest = adminDailyDigest(LocalDate.now());
+        submit(() -> deliver(digest));
+        notificationFactStore.purge();
+    }
 
-            if (modified.after(yesterdayTimestamp) && modified.before(todayTimestamp)) {
-                if (bundle.getId().contains("ser")) {
-                    updatedServices.add(bundle.getId());
-                } else {
-                    updatedProviders.add(bundle.getId());
-                }
-            }
-            if (registered.after(yesterdayTimestamp) && registered.before(todayTimestamp)) {
-                if (bundle.getId().contains("ser")) {
-                    newServices.add(bundle.getId());
-                } else {
-                    newProviders.add(bundle.getId());
-                }
+    Delivery adminDailyDigest(LocalDate today) {
+        // Changes of Services and Providers (including Drafts) recorded yesterday
+        LocalDate yesterday = today.minusDays(1);
+        List<NotificationFactStore.Change> changes = notificationFactStore.getChanges(
+                Timestamp.valueOf(yesterday.atStartOfDay()), Timestamp.valueOf(today.atStartOfDay()));
+
+        Set<String> newProviders = new LinkedHashSet<>();
+        Set<String> newServices = new LinkedHashSet<>();
+        Set<String> updatedProviders = new LinkedHashSet<>();
+        Set<String> updatedServices = new LinkedHashSet<>();
+        Map<String, List<LoggingInfo>> loggingInfoProviderMap = new LinkedHashMap<>();
+        Map<String, List<LoggingInfo>> loggingInfoServiceMap = new LinkedHashMap<>();
+        for (NotificationFactStore.Change change : changes) {
+            boolean provider = "provider".equals(change.getResourceType());
+            switch (change.getKind()) {
+                case REGISTERED -> (provider ? newProviders : newServices).add(change.getResourceId());
+                case UPDATED -> (provider ? updatedProviders : updatedServices).add(change.getResourceId());
+                case LOGGED -> (provider ? loggingInfoProviderMap : loggingInfoServiceMap)
+                        .computeIfAbsent(change.getResourceId(), id -> new ArrayList<>())
+                        .add(change.getLoggingInfo());
             }
         }
 
-        // Provider & Resource Activities
-        Map<String, List<LoggingInfo>> loggingInfoProviderMap = new HashMap<>();
-        Map<String, List<LoggingInfo>> loggingInfoServiceMap = new HashMap<>();
-        List<LoggingInfo> loggingInfoProviderList = new ArrayList<>();
-        List<LoggingInfo> loggingInfoServiceList = new ArrayList<>();
-        Timestamp timestamp;
-        for (ProviderBundle providerBundle : activeProviders) {
-            loggingInfoProviderList = new ArrayList<>();
-            boolean providerHasLoggingChanges = false;
-            if (providerBundle.getLoggingInfo() != null) {
-                List<LoggingInfo> providerLoggingInfo = providerBundle.getLoggingInfo();
-                for (int i = providerLoggingInfo.size() - 1; i >= 0; i--) {
-                    timestamp = new Timestamp(Long.parseLong(providerLoggingInfo.get(i).getDate()));
-                    if (timestamp.after(yesterdayTimestamp) && timestamp.before(todayTimestamp)) {
-                        loggingInfoProviderList.add(providerLoggingInfo.get(i));
-                        providerHasLoggingChanges = true;
-                    } else {
-                        break;
-                    }
-                }
-            } else {
-                continue;
-            }
-            if (providerHasLoggingChanges) {
-                loggingInfoProviderMap.put(providerBundle.getId(), loggingInfoProviderList);
-            }
+        Map<String, Object> root = getRootTemplate();
+        root.put("changes", !changes.isEmpty());
+        root.put("newProviders", new ArrayList<>(newProviders));
+        root.put("updatedProviders", new ArrayList<>(updatedProviders));
+        root.put("newServices", new ArrayList<>(newServices));
+        root.put("updatedServices", new ArrayList<>(updatedServices));
+        root.put("loggingInfoProviderMap", loggingInfoProviderMap);
+        root.put("loggingInfoServiceMap", loggingInfoServiceMap);
+
+        String subject = String.format("[%s] Daily Notification - Changes to Resources", catalogueName);
+        return new Delivery("adminDailyDigest", yesterday.toString(), "", "adminDailyDigest.ftl", root,
+                subject, registrationEmail, "admin");
+    }
+
+    /**
+     * Records the pending state of every internal provider again, which also covers the providers written before
+     * the notification facts were recorded, and forgets the providers that are no longer pending.
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${catalogue.notifications.reconcile-interval:86400000}")
+    public void reconcilePendingProviders() {
+        Date start = new Date();
+        FacetFilter ff = new FacetFilter();
+        ff.addFilter("published", false);
+        try (Stream<ProviderBundle> providers = providerManager.stream(ff)) {
+            providers.forEach(notificationFactStore::record);
         }
-        for (ServiceBundle serviceBundle : activeServices) {
-            loggingInfoServiceList = new ArrayList<>();
-            boolean serviceHasLoggingChanges = false;
-            if (serviceBundle.getLoggingInfo() != null) {
-                List<LoggingInfo> serviceLoggingInfo = serviceBundle.getLoggingInfo();
-                for (int i = serviceLoggingInfo.size() - 1; i >= 0; i--) {
-                    timestamp = new Timestamp(Long.parseLong(serviceLoggingInfo.get(i).getDate()));
-                    if (timestamp.after(yesterdayTimestamp) && timestamp.before(todayTimestamp)) {
-                        loggingInfoServiceList.add(serviceLoggingInfo.get(i));
-                        serviceHasLoggingChanges = true;
-                    }
-                    if (!serviceHasLoggingChanges) {
-                        break;
-                    }
-                }
-            } else {
-                continue;
+        int removed = notificationFactStore.removePendingNotRecordedSince(start);
+        logger.info("Reconciled the pending providers in {} ms, {} no longer pending",
+                System.currentTimeMillis() - start.getTime(), removed);
+    }
+
+    /**
+     * Runs a task on the notification workers, at most 'catalogue.notifications.parallelism' at a time.
+     */
+    private void submit(Runnable task) {
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
-            if (serviceHasLoggingChanges) {
-                loggingInfoServiceMap.put(serviceBundle.getId(), loggingInfoServiceList);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Could not send notification", e);
+            } finally {
+                permits.release();
             }
-        }
+        });
+    }
 
-        boolean changes = true;
-        if (newProviders.isEmpty() && updatedProviders.isEmpty() && newServices.isEmpty() && updatedServices.isEmpty()
-                && loggingInfoProviderList.isEmpty() && loggingInfoServiceList.isEmpty()) {
-            changes = false;
+    void deliver(Delivery delivery) {
+        if (delivery.recipient == null || delivery.recipient.isBlank()) {
+            logger.error("No recipient for digest '{}'", delivery.digest);
+            return;
         }
+        // the send log is kept only for the mails actually sent
+        boolean enabled = delivery.userRole.equals("admin") ? enableAdminNotifications : enableProviderNotifications;
+        if (enabled && !notificationFactStore.claim(delivery.digest, delivery.period, delivery.recipient, delivery.reference)) {
+            logger.debug("Digest '{}' of {} [{}] was already sent to '{}'", delivery.digest, delivery.period,
+                    delivery.reference, delivery.recipient);
+            return;
+        }
+        if (!sendMailsFromTemplate(delivery.templateName, delivery.root, delivery.subject,
+                Collections.singletonList(delivery.recipient), null, delivery.userRole) && enabled) {
+            notificationFactStore.release(delivery.digest, delivery.period, delivery.recipient, delivery.reference);
+        }
+    }
 
-        Map<String, Object> root = getRootTemplate();
-        root.put("changes", changes);
-        root.put("newProviders", newProviders);
-        root.put("updatedProviders", updatedProviders);
-        root.put("newServices", newServices);
-        root.put("updatedServices", updatedServices);
-        root.put("loggingInfoProviderMap", loggingInfoProviderMap);
-        root.put("loggingInfoServiceMap", loggingInfoServiceMap);
-
-        String subject = String.format("[%s] Daily Notification - Changes to Resources", catalogueName);
-        String userRole = "admin";
-        sendMailsFromTemplate("adminDailyDigest.ftl", root, subject, registrationEmail, userRole);
+    /**
+     * A digest for a single recipient, rendered when it is delivered.
+     */
+    static class Delivery {
+
+        final String digest;
+        final String period;
+        final String reference;
+        final String templateName;
+        final Map<String, Object> root;
+        final String subject;
+        final String recipient;
+        final String userRole;
+
+        Delivery(String digest, String period, String reference, String templateName, Map<String, Object> root,
+                 String subject, String recipient, String userRole) {
+            this.digest = digest;
+            this.period = period;
+            this.reference = reference;
+            this.templateName = templateName;
+            this.root = root;
+            this.subject = subject;
+            this.recipient = recipient;
+            this.userRole = userRole;
+        }
     }
 
     private void sendMailsFromTemplate(String templateName, Map<String, Object> root, String subject, String email, String userRole) {
@@ -570,10 +576,10 @@ public class RegistrationMailService {
         sendMailsFromTemplate(templateName, root, subject, emails, null, userRole);
     }
 
-    private void sendMailsFromTemplate(String templateName, Map<String, Object> root, String subject, List<String> to, List<String> cc, String userRole) {
+    private boolean sendMailsFromTemplate(String templateName, Map<String, Object> root, String subject, List<String> to, List<String> cc, String userRole) {
         if (to == null || to.isEmpty()) {
             logger.error("emails empty or null");
-            return;
+            return false;
         }
         try (StringWriter out = new StringWriter()) {
             Template temp = cfg.getTemplate(templateName);
@@ -591,7 +597,7 @@ public class RegistrationMailService {
                 mailService.sendMail(to, subject, mailBody);
             }
             logger.info("\nRecipients: {}\nCC: {}\nTitle: {}\nMail body: \n{}", String.join(", ", to), cc, subject, mailBody);
-
+            return true;
         } catch (IOException e) {
             logger.error("Error finding mail template '{}'", templateName, e);
         } catch (TemplateException e) {
@@ -599,6 +605,7 @@ public class RegistrationMailService {
         } catch (MessagingException e) {
             logger.error("Could not send mail", e);
         }
+        return false;
     }
 
     private String getProviderSubject(ProviderBundle providerBundle, Object serviceTemplate, String name) {
@@ -3,15 +3,44 @@ package gr.uoa.di.madgik.resourcecatalogue.service;
 import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.registry.domain.Paging;
 import gr.uoa.di.madgik.registry.service.SearchService;
-import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Creates the ids of the resources as '{prefix}/{6 alphanumeric characters}'. The characters encode a number drawn
+ * from blocks of {@value #BLOCK_SIZE} consecutive numbers, reserved through the 'resource_id_block_seq' PostgreSQL
+ * sequence, so every number is handed out once across all the nodes. Numbers are scattered over the whole id space
+ * with a bijective affine map, so that consecutive ids do not look alike. Each block is checked once against the
+ * existing ids of the resource type, which may have been created randomly in the past.
+ */
 @Service
 public class ResourceIdCreator implements IdCreator {
 
+    private static final Logger logger = LoggerFactory.getLogger(ResourceIdCreator.class);
+
+    static final int BLOCK_SIZE = 100;
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int ID_LENGTH = 6;
+    private static final long ID_SPACE = 56800235584L; // 62^6
+    // coprime to 62^6, so that the map below is a bijection of the id space
+    private static final long MULTIPLIER = 22695477L;
+    private static final long OFFSET = 9137545113L;
+
+    private static final String CREATE_SEQUENCE = "CREATE SEQUENCE IF NOT EXISTS resource_id_block_seq";
+    private static final String NEXT_BLOCK = "SELECT nextval('resource_id_block_seq')";
+
     private final SearchService searchService;
+    private final LongSupplier blockSequence;
+    private final Map<String, Deque<String>> availableIds = new HashMap<>();
 
     @Value("${prefix.services}")
     private String servicesPrefix;
@@ -40,18 +69,58 @@ public class ResourceIdCreator implements IdCreator {
     @Value("${prefix.vocabularyCurations}")
     private String vocabularyCurationsPrefix;
 
-    public ResourceIdCreator(SearchService searchService) {
+    @Autowired
+    public ResourceIdCreator(SearchService searchService, DataSource dataSource) {
+        this(searchService, blockSequence(new JdbcTemplate(dataSource)));
+    }
+
+    ResourceIdCreator(SearchService searchService, LongSupplier blockSequence) {
         this.searchService = searchService;
+        this.blockSequence = blockSequence;
+    }
+
+    private static LongSupplier blockSequence(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute(CREATE_SEQUENCE);
+        return () -> jdbcTemplate.queryForObject(NEXT_BLOCK, Long.class);
     }
 
     @Override
     public String generate(String resourceType) {
         String prefix = createPrefix(resourceType);
-        String id = prefix + "/" + randomGenerator();
-        while (searchIdExists(id, resourceType)) {
-            id = prefix + "/" + randomGenerator();
+        synchronized (availableIds) {
+            Deque<String> ids = availableIds.computeIfAbsent(resourceType, type -> new ArrayDeque<>());
+            while (ids.isEmpty()) {
+                ids.addAll(reserveBlock(prefix, resourceType));
+            }
+            return ids.poll();
         }
-        return id;
+    }
+
+    /**
+     * Reserves the next block of numbers and returns the ids they encode, except for the ones already in use.
+     */
+    private List<String> reserveBlock(String prefix, String resourceType) {
+        long block = blockSequence.getAsLong();
+        List<String> ids = new ArrayList<>(BLOCK_SIZE);
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            ids.add(prefix + "/" + encode((block * BLOCK_SIZE + i) % ID_SPACE));
+        }
+        if (searchIdsExist(ids, resourceType)) {
+            // rare: an id of the block was created randomly before the ids were reserved
+            ids.removeIf(id -> searchIdExists(id, resourceType));
+            logger.info("Skipped {} existing '{}' ids of block {}", BLOCK_SIZE - ids.size(), resourceType, block);
+        }
+        return ids;
+    }
+
+    static String encode(long number) {
+        long value = Math.floorMod(number * MULTIPLIER + OFFSET, ID_SPACE);
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (value % ALPHABET.length()));
+            value /= ALPHABET.length();
+        }
+        return new String(chars);
     }
 
     private String createPrefix(String resourceType) {
@@ -75,8 +144,12 @@ public class ResourceIdCreator implements IdCreator {
         };
     }
 
-    private String randomGenerator() {
-        return RandomStringUtils.randomAlphanumeric(6);
+    private boolean searchIdsExist(List<String> ids, String resourceType) {
+        FacetFilter ff = new FacetFilter();
+        ff.setResourceType(resourceType);
+        ff.addFilter("resource_internal_id", ids);
+        Paging<?> resources = searchService.search(ff);
+        return resources.getTotal() > 0;
     }
 
     public boolean searchIdExists(String id, String resourceType) {
@@ -1,11 +1,12 @@
 package gr.uoa.di.madgik.resourcecatalogue.service.sync;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Datasource;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Identifiable;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Provider;
 import gr.uoa.di.madgik.resourcecatalogue.domain.TrainingResource;
 import gr.uoa.di.madgik.resourcecatalogue.service.SynchronizerService;
-import org.javatuples.Pair;
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncOutboxEntry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,263 +15,333 @@ import org.springframework.http.*;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import javax.annotation.PostConstruct;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
+import javax.annotation.PreDestroy;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 
+/**
+ * Synchronizes resources with a remote host. Synchronizations that fail are stored in the {@link SyncOutbox} and
+ * retried periodically, a bounded number at a time.
+ */
 @Service
 public abstract class AbstractSyncService<T extends Identifiable> implements SynchronizerService<T> {
     private static final Logger logger = LoggerFactory.getLogger(AbstractSyncService.class);
-    private static boolean isInitialized = false;
 
     protected RestTemplate restTemplate;
+    private RestTemplate patchRestTemplate;
     protected boolean active = false;
     protected String host;
     protected String controller;
-    private String filename;
 
-    private BlockingQueue<Pair<T, String>> queue;
+    @Autowired
+    private SyncOutbox outbox;
+    @Autowired
+    private SyncTokenProvider tokenProvider;
+    @Value("${sync.retry.batch-size:200}")
+    private int retryBatchSize;
+    @Value("${sync.retry.max-concurrency:4}")
+    private int retryConcurrency;
+
+    private Semaphore retryPermits;
+    private final ExecutorService retryExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     protected abstract String getController();
 
     @Autowired
-    public AbstractSyncService(@Value("${sync.host:}") String host, @Value("${sync.token.filepath:}") String filename, @Value("${sync.enable}") boolean enabled) {
+    public AbstractSyncService(@Value("${sync.host:}") String host, @Value("${sync.enable}") boolean enabled) {
         this.host = host;
-        this.filename = filename;
         restTemplate = new RestTemplate();
 
         if (!"".equals(host) && enabled) {
             active = true;
         }
-        this.queue = new LinkedBlockingQueue<>();
     }
 
     @PostConstruct
     void init() {
         this.controller = getController();
-        if (!isInitialized) {
-            if ("".equals(filename)) {
-                logger.warn("'sync.token.filepath' value not set");
-            }
-            isInitialized = true;
-        }
+        this.retryPermits = new Semaphore(retryConcurrency);
     }
 
-    public BlockingQueue<Pair<T, String>> getQueue() {
-        return queue;
+    @PreDestroy
+    void shutdown() {
+        retryExecutor.shutdownNow();
     }
 
-    @Scheduled(initialDelay = 0, fixedRate = 300000) //run every 5 min
-    public void retrySync() {
-        int syncTries = 0;
+    /**
+     * The resource type of the synchronized resources, as stored in the {@link SyncOutbox}.
+     */
+    public String getResourceType() {
+        return controller.substring(1);
+    }
 
-        if (!queue.isEmpty()) {
-            logger.warn("There are {} resources waiting to be Synchronized!", queue.size());
+    @Scheduled(initialDelayString = "${sync.retry.interval:60000}", fixedDelayString = "${sync.retry.interval:60000}")
+    public void retrySync() {
+        if (!active) {
+            return;
+        }
+        List<SyncOutboxEntry> entries = outbox.getDue(getResourceType(), retryBatchSize);
+        if (entries.isEmpty()) {
+            return;
         }
+        logger.warn("There are {} '{}' resources waiting to be Synchronized! Retrying {} of them.",
+                outbox.count(getResourceType(), null), getResourceType(), entries.size());
 
+        List<Future<?>> retries = new ArrayList<>(entries.size());
         try {
-            while (!queue.isEmpty() && syncTries < 1) {
-                Pair<T, String> pair = queue.take();
-                logger.info("Attempting to perform '{}' operation for the {}:\n{}", pair.getValue1(), pair.getValue0().getClass(), pair.getValue0());
-                switch (pair.getValue1()) {
-                    case "add":
-                        syncAdd(pair.getValue0());
-                        break;
-                    case "update":
-                        syncUpdate(pair.getValue0());
-                        break;
-                    case "delete":
-                        syncDelete(pair.getValue0());
-                        break;
-                    case "verify":
-                        syncVerify(pair.getValue0());
-                        break;
-                    default:
-                        logger.warn("Unsupported action: {}", pair.getValue1());
-                }
-                syncTries++;
+            for (SyncOutboxEntry entry : entries) {
+                retryPermits.acquire();
+                retries.add(retryExecutor.submit(() -> {
+                    try {
+                        retry(entry);
+                    } finally {
+                        retryPermits.release();
+                    }
+                }));
+            }
+            for (Future<?> retry : retries) {
+                retry.get();
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Synchronization retry failed", e.getCause());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void retry(SyncOutboxEntry entry) {
+        T t;
+        try {
+            t = (T) outbox.readPayload(entry);
+        } catch (ClassNotFoundException | JsonProcessingException | ClassCastException e) {
+            logger.error("Could not read the stored {} with id '{}'", entry.getResourceType(), entry.getResourceId(), e);
+            outbox.failed(entry, e.getMessage());
+            return;
+        }
+        logger.info("Attempting to perform '{}' operation for the {} with id '{}' (attempt {})",
+                entry.getAction(), t.getClass().getSimpleName(), t.getId(), entry.getAttempts() + 1);
+        String error;
+        switch (entry.getAction()) {
+            case "add":
+                error = add(t);
+                break;
+            case "update":
+                error = update(t);
+                break;
+            case "delete":
+                error = delete(t);
+                break;
+            case "verify":
+                error = verify(t);
+                break;
+            default:
+                error = "Unsupported action: " + entry.getAction();
+                logger.warn(error);
+        }
+        if (error == null) {
+            outbox.succeeded(entry);
+        } else {
+            outbox.failed(entry, error);
         }
     }
 
     @Override
     public void syncAdd(T t) {
-        boolean retryKey = true;
         if (active) {
-            HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
-            logger.info("Posting resource with id: {} - Host: {}", t.getId(), host);
-            try {
-                URI uri = new URI(host + controller).normalize();
-                ResponseEntity<?> re = restTemplate.exchange(uri.normalize(), HttpMethod.POST, request, t.getClass());
-                if (re.getStatusCode() != HttpStatus.CREATED) {
-                    logger.error("Adding {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to post {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncAdd failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
-            }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "add"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
-            }
+            complete(t, "add", add(t));
         }
     }
 
     @Override
     public void syncUpdate(T t) {
-        boolean retryKey = true;
         if (active) {
-            HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
-            logger.info("Updating {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
-            try {
-                URI uri = new URI(host + controller).normalize();
-                ResponseEntity<?> re = restTemplate.exchange(uri.normalize().toString(), HttpMethod.PUT, request, t.getClass());
-                if (re.getStatusCode() != HttpStatus.OK) {
-                    logger.error("Updating {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to update {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncUpdate failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
-            }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "update"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
-            }
+            complete(t, "update", update(t));
         }
     }
 
     @Override
     public void syncDelete(T t) {
-        boolean retryKey = true;
         if (active) {
-            HttpEntity<T> request = new HttpEntity<>(createHeaders());
-            logger.info("Deleting {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
-            try {
-                URI uri = new URI(String.format("%s/%s/%s", host, controller, t.getId())).normalize();
-                ResponseEntity<?> re = restTemplate.exchange(uri.toString(), HttpMethod.DELETE, request, Void.class);
-                if (re.getStatusCode() != HttpStatus.NO_CONTENT) {
-                    logger.error("Deleting {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to delete {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncDelete failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
-            }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "delete"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
-            }
+            complete(t, "delete", delete(t));
         }
     }
 
     //TODO: syncVerify is never used - maybe delete it
     @Override
     public void syncVerify(T t) {
-        boolean retryKey = true;
         if (active) {
-            HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
-            URI uri;
-            logger.info("Verifying resource with id: {} - Host: {}", t.getId(), host);
-            try {
-                if (t instanceof Provider) {
-                    uri = new URI(host + controller + "/verifyProvider/" + t.getId() + "?active=true&status=approved%20provider").normalize();
-                } else if (t instanceof TrainingResource) {
-                    uri = new URI(host + controller + "/verifyTrainingResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
-                } else if (t instanceof Datasource) {
-                    uri = new URI(host + controller + "/verifyDatasource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
-                } else {
-                    uri = new URI(host + controller + "/verifyResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
-                }
-                HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
-                restTemplate.setRequestFactory(requestFactory);
-                ResponseEntity<?> re = restTemplate.exchange(uri.normalize(), HttpMethod.PATCH, request, t.getClass());
-                if (re.getStatusCode() != HttpStatus.OK) {
-                    logger.error("Verifying {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
-                            t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
-                } else {
-                    retryKey = false;
-                }
-            } catch (URISyntaxException e) {
-                logger.error("could not create URI for host: {}", host, e);
-            } catch (HttpServerErrorException e) {
-                logger.error("Failed to patch {} with id {} to host {}\nMessage: {}",
-                        t.getClass(), t.getId(), host, e.getResponseBodyAsString());
-            } catch (RuntimeException re) {
-                logger.error("syncVerify failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
-            }
-            if (retryKey) {
-                try {
-                    queue.add(Pair.with(t, "verify"));
-                } catch (IllegalStateException e) {
-                    logger.info("No space is currently available in the Queue");
-                }
+            complete(t, "verify", verify(t));
+        }
+    }
+
+    /**
+     * Stores a failed synchronization for retrying, or discards any pending synchronization of the resource if it
+     * was superseded by a successful one.
+     */
+    private void complete(T t, String action, String error) {
+        try {
+            if (error == null) {
+                outbox.remove(getResourceType(), t.getId());
+            } else {
+                outbox.enqueue(getResourceType(), t, action, error);
             }
+        } catch (RuntimeException e) {
+            logger.error("Could not update the synchronization outbox for the {} with id '{}'",
+                    getResourceType(), t.getId(), e);
         }
     }
 
-    protected HttpHeaders createHeaders() {
-        String token;
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+    /**
+     * @return null on success, otherwise the reason of the failure
+     */
+    private String add(T t) {
+        HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
+        logger.info("Posting resource with id: {} - Host: {}", t.getId(), host);
         try {
-            token = readFile(filename);
-            headers.add("Authorization", "Bearer " + token);
-        } catch (IOException e) {
-            logger.error("Could not read file '{}' containing the synchronization token", filename, e);
+            URI uri = new URI(host + controller).normalize();
+            ResponseEntity<?> re = restTemplate.exchange(uri.normalize(), HttpMethod.POST, request, t.getClass());
+            if (re.getStatusCode() != HttpStatus.CREATED) {
+                logger.error("Adding {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+                return "Returned code " + re.getStatusCodeValue();
+            }
+            return null;
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+            return e.getMessage();
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to post {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+            return e.getMessage();
+        } catch (RuntimeException re) {
+            logger.error("syncAdd failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+            return re.getMessage();
         }
+    }
 
-        return headers;
+    /**
+     * @return null on success, otherwise the reason of the failure
+     */
+    private String update(T t) {
+        HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
+        logger.info("Updating {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
+        try {
+            URI uri = new URI(host + controller).normalize();
+            ResponseEntity<?> re = restTemplate.exchange(uri.normalize().toString(), HttpMethod.PUT, request, t.getClass());
+            if (re.getStatusCode() != HttpStatus.OK) {
+                logger.error("Updating {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+                return "Returned code " + re.getStatusCodeValue();
+            }
+            return null;
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+            return e.getMessage();
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to update {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+            return e.getMessage();
+        } catch (RuntimeException re) {
+            logger.error("syncUpdate failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+            return re.getMessage();
+        }
     }
 
-    protected String readFile(String filename) throws IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            StringBuilder sb = new StringBuilder();
-            String line = br.readLine();
+    /**
+     * @return null on success, otherwise the reason of the failure
+     */
+    private String delete(T t) {
+        HttpEntity<T> request = new HttpEntity<>(createHeaders());
+        logger.info("Deleting {} with id: {} - Host: {}", t.getClass(), t.getId(), host);
+        try {
+            URI uri = new URI(String.format("%s/%s/%s", host, controller, t.getId())).normalize();
+            ResponseEntity<?> re = restTemplate.exchange(uri.toString(), HttpMethod.DELETE, request, Void.class);
+            if (re.getStatusCode() != HttpStatus.NO_CONTENT) {
+                logger.error("Deleting {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+                return "Returned code " + re.getStatusCodeValue();
+            }
+            return null;
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+            return e.getMessage();
+        } catch (HttpClientErrorException.NotFound e) {
+            // the remote host never received it, or it was already deleted
+            logger.info("{} with id '{}' does not exist on host '{}'", t.getClass(), t.getId(), host);
+            return null;
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to delete {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+            return e.getMessage();
+        } catch (RuntimeException re) {
+            logger.error("syncDelete failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+            return re.getMessage();
+        }
+    }
 
-            while (line != null) {
-                sb.append(line);
-                line = br.readLine();
+    /**
+     * @return null on success, otherwise the reason of the failure
+     */
+    private String verify(T t) {
+        HttpEntity<T> request = new HttpEntity<>(t, createHeaders());
+        URI uri;
+        logger.info("Verifying resource with id: {} - Host: {}", t.getId(), host);
+        try {
+            if (t instanceof Provider) {
+                uri = new URI(host + controller + "/verifyProvider/" + t.getId() + "?active=true&status=approved%20provider").normalize();
+            } else if (t instanceof TrainingResource) {
+                uri = new URI(host + controller + "/verifyTrainingResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
+            } else if (t instanceof Datasource) {
+                uri = new URI(host + controller + "/verifyDatasource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
+            } else {
+                uri = new URI(host + controller + "/verifyResource/" + t.getId() + "?active=true&status=approved%20resource").normalize();
+            }
+            ResponseEntity<?> re = getPatchRestTemplate().exchange(uri.normalize(), HttpMethod.PATCH, request, t.getClass());
+            if (re.getStatusCode() != HttpStatus.OK) {
+                logger.error("Verifying {} with id '{}' from host '{}' returned code '{}'\nResponse body:\n{}",
+                        t.getClass(), t.getId(), host, re.getStatusCodeValue(), re.getBody());
+                return "Returned code " + re.getStatusCodeValue();
             }
-            return sb.toString();
+            return null;
+        } catch (URISyntaxException e) {
+            logger.error("could not create URI for host: {}", host, e);
+            return e.getMessage();
+        } catch (HttpServerErrorException e) {
+            logger.error("Failed to patch {} with id {} to host {}\nMessage: {}",
+                    t.getClass(), t.getId(), host, e.getResponseBodyAsString());
+            return e.getMessage();
+        } catch (RuntimeException re) {
+            logger.error("syncVerify failed, check if token has expired!\n{}: {}", t.getClass(), t, re);
+            return re.getMessage();
         }
     }
+
+    /**
+     * The default request factory does not support PATCH requests.
+     */
+    private synchronized RestTemplate getPatchRestTemplate() {
+        if (patchRestTemplate == null) {
+            patchRestTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory());
+        }
+        return patchRestTemplate;
+    }
+
+    protected HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        String token = tokenProvider.getToken();
+        if (token != null) {
+            headers.add("Authorization", "Bearer " + token);
+        }
+        return headers;
+    }
 }
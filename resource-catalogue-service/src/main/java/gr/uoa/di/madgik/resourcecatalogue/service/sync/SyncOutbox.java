@@ -0,0 +1,367 @@
+package gr.uoa.di.madgik.resourcecatalogue.service.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Identifiable;
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncOutboxEntry;
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncOutboxService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Durable queue of the synchronizations that could not reach the remote host, stored in the 'sync_outbox' table.
+ * Only the latest synchronization of each resource is kept: a newer one supersedes the pending one and resets its
+ * attempts. Failed entries are retried with exponential backoff, until they reach the max number of attempts. After
+ * that, they are kept until they are replayed or deleted by an administrator. A due entry is claimed by a single
+ * node, which retries it within a lease.
+ * <p>
+ * Every change of an entry increases its version, and a retried entry is only completed if it was not changed
+ * while it was being retried.
+ */
+@Component
+public class SyncOutbox implements SyncOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncOutbox.class);
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS sync_outbox (" +
+            "resource_type VARCHAR(64) NOT NULL, " +
+            "resource_id VARCHAR(255) NOT NULL, " +
+            "action VARCHAR(16) NOT NULL, " +
+            "payload TEXT NOT NULL, " +
+            "payload_class VARCHAR(255) NOT NULL, " +
+            "attempts INTEGER NOT NULL, " +
+            "next_attempt TIMESTAMP NOT NULL, " +
+            "last_error TEXT, " +
+            "created TIMESTAMP NOT NULL, " +
+            "updated TIMESTAMP NOT NULL, " +
+            "version BIGINT NOT NULL, " +
+            "PRIMARY KEY (resource_type, resource_id))";
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS sync_outbox_next_attempt " +
+            "ON sync_outbox (resource_type, next_attempt)";
+
+    private static final RowMapper<SyncOutboxEntry> ROW_MAPPER = (rs, rowNum) -> {
+        SyncOutboxEntry entry = new SyncOutboxEntry();
+        entry.setResourceType(rs.getString("resource_type"));
+        entry.setResourceId(rs.getString("resource_id"));
+        entry.setAction(rs.getString("action"));
+        entry.setPayload(rs.getString("payload"));
+        entry.setPayloadClass(rs.getString("payload_class"));
+        entry.setAttempts(rs.getInt("attempts"));
+        entry.setNextAttempt(rs.getTimestamp("next_attempt"));
+        entry.setLastError(rs.getString("last_error"));
+        entry.setCreated(rs.getTimestamp("created"));
+        entry.setUpdated(rs.getTimestamp("updated"));
+        entry.setVersion(rs.getLong("version"));
+        return entry;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final boolean enabled;
+    private final long backoff;
+    private final long maxBackoff;
+    private final int maxAttempts;
+    private final long lease;
+
+    public SyncOutbox(DataSource dataSource,
+                      @Value("${sync.enable}") boolean enabled,
+                      @Value("${sync.retry.backoff:60000}") long backoff,
+                      @Value("${sync.retry.max-backoff:21600000}") long maxBackoff,
+                      @Value("${sync.retry.max-attempts:50}") int maxAttempts,
+                      @Value("${sync.retry.lease:600000}") long lease) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.enabled = enabled;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+    }
+
+    @PostConstruct
+    void createTable() {
+        if (enabled) {
+            jdbcTemplate.getJdbcTemplate().execute(CREATE_TABLE);
+            jdbcTemplate.getJdbcTemplate().execute(CREATE_INDEX);
+        }
+    }
+
+    /**
+     * Stores a synchronization that just failed, superseding any pending synchronization of the same resource.
+     *
+     * @param resourceType the resource type
+     * @param resource     the resource
+     * @param action       the synchronization action
+     * @param error        the reason of the failure
+     */
+    public void enqueue(String resourceType, Identifiable resource, String action, String error) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        MapSqlParameterSource params = key(resourceType, resource.getId());
+        try {
+            params.addValue("payload", objectMapper.writeValueAsString(resource))
+                    .addValue("payloadClass", resource.getClass().getName())
+                    .addValue("nextAttempt", new Timestamp(now + getBackoff(1)))
+                    .addValue("lastError", error)
+                    .addValue("now", new Timestamp(now));
+        } catch (JsonProcessingException e) {
+            logger.error("Could not store the '{}' synchronization of {} with id '{}'", action,
+                    resource.getClass().getSimpleName(), resource.getId(), e);
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> supersede(params, action));
+        } catch (DuplicateKeyException e) {
+            // inserted meanwhile by another node, so it is now locked and updated
+            transactionTemplate.executeWithoutResult(status -> supersede(params, action));
+        }
+    }
+
+    /**
+     * Replaces the pending synchronization of a resource, locking it until the transaction ends, or inserts it.
+     */
+    private void supersede(MapSqlParameterSource params, String action) {
+        List<String> pending = jdbcTemplate.queryForList("SELECT action FROM sync_outbox " +
+                "WHERE resource_type = :resourceType AND resource_id = :resourceId FOR UPDATE", params, String.class);
+        if (pending.isEmpty()) {
+            params.addValue("action", action);
+            jdbcTemplate.update("INSERT INTO sync_outbox (resource_type, resource_id, action, payload, " +
+                    "payload_class, attempts, next_attempt, last_error, created, updated, version) " +
+                    "VALUES (:resourceType, :resourceId, :action, :payload, :payloadClass, 1, :nextAttempt, " +
+                    ":lastError, :now, :now, 0)", params);
+        } else {
+            params.addValue("action", merge(pending.get(0), action));
+            jdbcTemplate.update("UPDATE sync_outbox SET action = :action, payload = :payload, " +
+                    "payload_class = :payloadClass, attempts = 1, next_attempt = :nextAttempt, " +
+                    "last_error = :lastError, updated = :now, version = version + 1 " +
+                    "WHERE resource_type = :resourceType AND resource_id = :resourceId", params);
+        }
+    }
+
+    /**
+     * Returns the action that replaces a pending one. A pending 'add' stays an 'add', since the remote host does
+     * not have the resource yet, while a pending 'delete' followed by an 'add' becomes an 'update'. A pending 'add'
+     * followed by a 'delete' stays a 'delete', since the 'add' may be reaching the remote host right now. A 'verify'
+     * does not replace a pending action, which carries the verified resource anyway.
+     *
+     * @param pending the pending action
+     * @param action  the new action
+     * @return the action to store
+     */
+    static String merge(String pending, String action) {
+        if ("verify".equals(action)) {
+            return pending;
+        }
+        if ("add".equals(pending) && "update".equals(action)) {
+            return "add";
+        }
+        if ("delete".equals(pending) && "add".equals(action)) {
+            return "update";
+        }
+        return action;
+    }
+
+    /**
+     * Discards the pending synchronization of a resource, after a newer one has reached the remote host.
+     */
+    public void remove(String resourceType, String resourceId) {
+        if (enabled) {
+            jdbcTemplate.update("DELETE FROM sync_outbox WHERE resource_type = :resourceType " +
+                    "AND resource_id = :resourceId", key(resourceType, resourceId));
+        }
+    }
+
+    /**
+     * Claims the entries of the given resource type that should be retried now. A claimed entry is not due again on
+     * any node until the lease ends, or until it is completed, superseded or replayed.
+     *
+     * @param resourceType the resource type
+     * @param limit        max number of entries
+     * @return the claimed entries, with the longest waiting first
+     */
+    public List<SyncOutboxEntry> getDue(String resourceType, int limit) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis();
+        MapSqlParameterSource params = new MapSqlParameterSource("resourceType", resourceType)
+                .addValue("now", new Timestamp(now))
+                .addValue("maxAttempts", maxAttempts)
+                .addValue("limit", limit);
+        List<SyncOutboxEntry> due = jdbcTemplate.query("SELECT * FROM sync_outbox WHERE resource_type = :resourceType " +
+                "AND next_attempt <= :now AND attempts < :maxAttempts ORDER BY next_attempt LIMIT :limit", params, ROW_MAPPER);
+        List<SyncOutboxEntry> claimed = new ArrayList<>(due.size());
+        Timestamp leaseEnd = new Timestamp(now + lease);
+        for (SyncOutboxEntry entry : due) {
+            // only one node can move the next attempt of a due entry past the lease
+            if (jdbcTemplate.update("UPDATE sync_outbox SET next_attempt = :leaseEnd " +
+                    "WHERE resource_type = :resourceType AND resource_id = :resourceId AND version = :version " +
+                    "AND next_attempt <= :now", versionedKey(entry)
+                    .addValue("leaseEnd", leaseEnd)
+                    .addValue("now", new Timestamp(now))) > 0) {
+                entry.setNextAttempt(leaseEnd);
+                claimed.add(entry);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Removes a retried entry, unless it was superseded while it was being retried. In that case, the entry that
+     * superseded it is adjusted to the resource that the remote host has now: a pending 'add' becomes an 'update'
+     * after an 'add' reached it, and a pending 'update' becomes an 'add' after a 'delete' reached it.
+     */
+    public void succeeded(SyncOutboxEntry entry) {
+        MapSqlParameterSource params = versionedKey(entry);
+        if (jdbcTemplate.update("DELETE FROM sync_outbox WHERE resource_type = :resourceType " +
+                "AND resource_id = :resourceId AND version = :version", params) > 0) {
+            return;
+        }
+        params.addValue("action", entry.getAction());
+        jdbcTemplate.update("UPDATE sync_outbox SET action = CASE " +
+                "WHEN :action = 'add' AND action = 'add' THEN 'update' " +
+                "WHEN :action = 'delete' AND action = 'update' THEN 'add' ELSE action END " +
+                "WHERE resource_type = :resourceType AND resource_id = :resourceId AND version > :version", params);
+    }
+
+    /**
+     * Schedules the next attempt of a retried entry, unless it was superseded while it was being retried.
+     */
+    public void failed(SyncOutboxEntry entry, String error) {
+        int attempts = entry.getAttempts() + 1;
+        long now = System.currentTimeMillis();
+        MapSqlParameterSource params = versionedKey(entry)
+                .addValue("attempts", attempts)
+                .addValue("nextAttempt", new Timestamp(now + getBackoff(attempts)))
+                .addValue("lastError", error)
+                .addValue("now", new Timestamp(now));
+        jdbcTemplate.update("UPDATE sync_outbox SET attempts = :attempts, next_attempt = :nextAttempt, " +
+                "last_error = :lastError, updated = :now WHERE resource_type = :resourceType " +
+                "AND resource_id = :resourceId AND version = :version", params);
+        if (attempts >= maxAttempts) {
+            logger.error("Giving up the '{}' synchronization of the {} with id '{}' after {} attempts: {}",
+                    entry.getAction(), entry.getResourceType(), entry.getResourceId(), attempts, error);
+        }
+    }
+
+    /**
+     * Deserializes the resource of an entry.
+     */
+    public Identifiable readPayload(SyncOutboxEntry entry) throws ClassNotFoundException, JsonProcessingException {
+        Class<?> clazz = Class.forName(entry.getPayloadClass());
+        if (!Identifiable.class.isAssignableFrom(clazz)) {
+            throw new ClassNotFoundException(String.format("'%s' is not a resource", entry.getPayloadClass()));
+        }
+        return (Identifiable) objectMapper.readValue(entry.getPayload(), clazz);
+    }
+
+    /**
+     * Returns the stored entries, optionally filtered by resource type and id.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param resourceId   the resource id, or null for all of them
+     * @param from         offset
+     * @param quantity     max number of entries
+     * @return the entries, with the oldest first
+     */
+    @Override
+    public List<SyncOutboxEntry> getEntries(String resourceType, String resourceId, int from, int quantity) {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        MapSqlParameterSource params = key(resourceType, resourceId)
+                .addValue("from", from)
+                .addValue("quantity", quantity);
+        return jdbcTemplate.query("SELECT * FROM sync_outbox" + where(resourceType, resourceId) +
+                " ORDER BY created LIMIT :quantity OFFSET :from", params, ROW_MAPPER);
+    }
+
+    @Override
+    public int count(String resourceType, String resourceId) {
+        if (!enabled) {
+            return 0;
+        }
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM sync_outbox" +
+                where(resourceType, resourceId), key(resourceType, resourceId), Integer.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Resets the attempts of the stored entries, so that they are retried on the next drain.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param resourceId   the resource id, or null for all of them
+     * @return the number of entries to be retried
+     */
+    @Override
+    public int replay(String resourceType, String resourceId) {
+        if (!enabled) {
+            return 0;
+        }
+        MapSqlParameterSource params = key(resourceType, resourceId)
+                .addValue("now", new Timestamp(System.currentTimeMillis()));
+        return jdbcTemplate.update("UPDATE sync_outbox SET attempts = 0, next_attempt = :now, updated = :now" +
+                where(resourceType, resourceId), params);
+    }
+
+    /**
+     * Deletes the stored entries, without synchronizing them.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param resourceId   the resource id, or null for all of them
+     * @return the number of deleted entries
+     */
+    @Override
+    public int delete(String resourceType, String resourceId) {
+        if (!enabled) {
+            return 0;
+        }
+        return jdbcTemplate.update("DELETE FROM sync_outbox" + where(resourceType, resourceId),
+                key(resourceType, resourceId));
+    }
+
+    long getBackoff(int attempts) {
+        return Math.min(maxBackoff, backoff << Math.min(attempts - 1, 30));
+    }
+
+    private static String where(String resourceType, String resourceId) {
+        if (resourceType == null && resourceId == null) {
+            return "";
+        }
+        if (resourceId == null) {
+            return " WHERE resource_type = :resourceType";
+        }
+        if (resourceType == null) {
+            return " WHERE resource_id = :resourceId";
+        }
+        return " WHERE resource_type = :resourceType AND resource_id = :resourceId";
+    }
+
+    private static MapSqlParameterSource key(String resourceType, String resourceId) {
+        return new MapSqlParameterSource("resourceType", resourceType).addValue("resourceId", resourceId);
+    }
+
+    private static MapSqlParameterSource versionedKey(SyncOutboxEntry entry) {
+        return key(entry.getResourceType(), entry.getResourceId()).addValue("version", entry.getVersion());
+    }
+}
@@ -0,0 +1,65 @@
+package gr.uoa.di.madgik.resourcecatalogue.service.sync;
+
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncTokenService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Provides the synchronization token, read from the 'sync.token.filepath' file. The token is cached and read again
+ * only when the file is modified, or when {@link #reload()} is called.
+ */
+@Component
+public class SyncTokenProvider implements SyncTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncTokenProvider.class);
+
+    private final String filename;
+    private volatile String token;
+    private volatile long lastModified = -1;
+
+    public SyncTokenProvider(@Value("${sync.token.filepath:}") String filename) {
+        this.filename = filename;
+        if ("".equals(filename)) {
+            logger.warn("'sync.token.filepath' value not set");
+        }
+    }
+
+    /**
+     * Returns the token, or null if it could not be read.
+     */
+    @Override
+    public String getToken() {
+        if (!"".equals(filename) && new File(filename).lastModified() != lastModified) {
+            reload();
+        }
+        return token;
+    }
+
+    /**
+     * Reads the token from the file again.
+     *
+     * @return true if the token was read
+     */
+    @Override
+    public synchronized boolean reload() {
+        File file = new File(filename);
+        long modified = file.lastModified();
+        try {
+            // line breaks are not part of the token
+            token = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).replaceAll("[\\r\\n]", "");
+            lastModified = modified;
+            return true;
+        } catch (IOException e) {
+            logger.error("Could not read file '{}' containing the synchronization token", filename, e);
+            lastModified = modified;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Client of the ARGO GRNET monitoring API. A single {@link HttpClient} is shared by all the requests, so that
+ * connections to ARGO are pooled and reused.
+ */
+@Component
+public class ArgoGrnetClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArgoGrnetClient.class);
+
+    private final String token;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public ArgoGrnetClient(@Value("${argo.grnet.monitoring.token}") String token,
+                           @Value("${catalogue.monitoring.timeout:10000}") long timeout) {
+        this.token = token;
+        this.timeout = Duration.ofMillis(timeout);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(this.timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * Requests the given ARGO url.
+     *
+     * @param url the url
+     * @return the json response, or null if ARGO responded with a client error (e.g. the resource is not monitored)
+     * @throws ResourceException if ARGO could not be reached or responded with a server error
+     */
+    public JsonObject get(String url) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeout)
+                    .header("accept", "application/json")
+                    .header("Content-Type", "application/json")
+                    .header("x-api-key", token)
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new ResourceException(String.format("Invalid ARGO url '%s'", url), HttpStatus.BAD_REQUEST);
+        }
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400 && response.statusCode() < 500) {
+                logger.debug("ARGO responded with {} to '{}'", response.statusCode(), url);
+                return null;
+            }
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                throw new ResourceException(String.format("ARGO responded with %s to '%s'", response.statusCode(), url),
+                        HttpStatus.BAD_GATEWAY);
+            }
+            JsonElement body = JsonParser.parseString(response.body());
+            return body.isJsonObject() ? body.getAsJsonObject() : null;
+        } catch (IOException | JsonParseException e) {
+            throw new ResourceException(String.format("Could not get '%s' from ARGO: %s", url, e.getMessage()),
+                    HttpStatus.BAD_GATEWAY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceException("ARGO request was interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
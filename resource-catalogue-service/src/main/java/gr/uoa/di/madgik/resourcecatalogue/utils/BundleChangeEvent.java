@@ -0,0 +1,34 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.Bundle;
+
+/**
+ * Published when a bundle is written to or deleted from the registry directly, without going through its manager,
+ * so that the in-memory indices kept by the manager aspects are updated as well.
+ */
+public class BundleChangeEvent {
+
+    private final Bundle<?> bundle;
+    private final boolean deleted;
+
+    private BundleChangeEvent(Bundle<?> bundle, boolean deleted) {
+        this.bundle = bundle;
+        this.deleted = deleted;
+    }
+
+    public static BundleChangeEvent written(Bundle<?> bundle) {
+        return new BundleChangeEvent(bundle, false);
+    }
+
+    public static BundleChangeEvent deleted(Bundle<?> bundle) {
+        return new BundleChangeEvent(bundle, true);
+    }
+
+    public Bundle<?> getBundle() {
+        return bundle;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
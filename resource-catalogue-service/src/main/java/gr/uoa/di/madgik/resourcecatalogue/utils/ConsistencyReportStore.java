@@ -0,0 +1,119 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * History of the internal to public consistency reports, stored in the 'consistency_report' table. Reports older
+ * than the configured number of days are deleted whenever a new one is stored.
+ */
+@Component
+public class ConsistencyReportStore implements ConsistencyReportService {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS consistency_report (" +
+            "id BIGSERIAL PRIMARY KEY, " +
+            "created TIMESTAMP NOT NULL, " +
+            "resource_type VARCHAR(64) NOT NULL, " +
+            "checked INTEGER NOT NULL, " +
+            "missing INTEGER NOT NULL, " +
+            "stale INTEGER NOT NULL, " +
+            "orphaned INTEGER NOT NULL, " +
+            "repaired INTEGER NOT NULL, " +
+            "logs TEXT NOT NULL)";
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS consistency_report_created " +
+            "ON consistency_report (created)";
+    private static final String LOG_SEPARATOR = "\n";
+
+    private static final RowMapper<ConsistencyReport> ROW_MAPPER = (rs, rowNum) -> {
+        ConsistencyReport report = new ConsistencyReport(rs.getString("resource_type"), rs.getTimestamp("created"));
+        report.setId(rs.getLong("id"));
+        report.setChecked(rs.getInt("checked"));
+        report.setMissing(rs.getInt("missing"));
+        report.setStale(rs.getInt("stale"));
+        report.setOrphaned(rs.getInt("orphaned"));
+        report.setRepaired(rs.getInt("repaired"));
+        String logs = rs.getString("logs");
+        report.setLogs(logs.isEmpty() ? Collections.emptyList() : Arrays.asList(logs.split(LOG_SEPARATOR)));
+        return report;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int historyDays;
+
+    public ConsistencyReportStore(DataSource dataSource,
+                                  @Value("${resource.consistency.history-days:90}") int historyDays) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.historyDays = historyDays;
+    }
+
+    @PostConstruct
+    void createTable() {
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_TABLE);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_INDEX);
+    }
+
+    /**
+     * Stores the reports of a consistency check and deletes the expired ones.
+     *
+     * @param reports the reports, one per resource type
+     */
+    public void save(List<ConsistencyReport> reports) {
+        for (ConsistencyReport report : reports) {
+            jdbcTemplate.update("INSERT INTO consistency_report (created, resource_type, checked, missing, stale, " +
+                            "orphaned, repaired, logs) VALUES (:created, :resourceType, :checked, :missing, :stale, " +
+                            ":orphaned, :repaired, :logs)",
+                    new MapSqlParameterSource()
+                            .addValue("created", new Timestamp(report.getCreated().getTime()))
+                            .addValue("resourceType", report.getResourceType())
+                            .addValue("checked", report.getChecked())
+                            .addValue("missing", report.getMissing())
+                            .addValue("stale", report.getStale())
+                            .addValue("orphaned", report.getOrphaned())
+                            .addValue("repaired", report.getRepaired())
+                            .addValue("logs", String.join(LOG_SEPARATOR, report.getLogs())));
+        }
+        jdbcTemplate.update("DELETE FROM consistency_report WHERE created < :expired",
+                new MapSqlParameterSource("expired",
+                        new Timestamp(System.currentTimeMillis() - historyDays * 24L * 60 * 60 * 1000)));
+    }
+
+    /**
+     * Returns the stored reports, latest first.
+     *
+     * @param resourceType the resource type, or null for all of them
+     * @param from         offset
+     * @param quantity     max number of reports
+     * @return the reports
+     */
+    @Override
+    public List<ConsistencyReport> getReports(String resourceType, int from, int quantity) {
+        return jdbcTemplate.query("SELECT * FROM consistency_report" + where(resourceType) +
+                        " ORDER BY created DESC, id DESC LIMIT :quantity OFFSET :from",
+                new MapSqlParameterSource()
+                        .addValue("resourceType", resourceType)
+                        .addValue("from", from)
+                        .addValue("quantity", quantity),
+                ROW_MAPPER);
+    }
+
+    @Override
+    public int count(String resourceType) {
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM consistency_report" + where(resourceType),
+                new MapSqlParameterSource("resourceType", resourceType), Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private static String where(String resourceType) {
+        return resourceType != null ? " WHERE resource_type = :resourceType" : "";
+    }
+}
@@ -0,0 +1,209 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import com.fasterxml.jackson.databind.type.MapType;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Structural deep copy of objects, with the same result as serializing them to json and reading them back with a
+ * default {@link ObjectMapper}. The properties of each class are resolved once, through the Jackson introspection,
+ * and then copied directly from getter to setter. Values that cannot be copied this way, e.g. declared as
+ * {@link Object} or as a supertype of their actual class, fall back to a round trip through a {@link TokenBuffer}.
+ */
+final class DeepCopier {
+
+    private static final Set<Class<?>> IMMUTABLE = Set.of(String.class, Boolean.class, Character.class, Byte.class,
+            Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class,
+            URL.class, URI.class, UUID.class);
+
+    private final ObjectMapper objectMapper;
+    private final Map<JavaType, BeanCopier> copiers = new ConcurrentHashMap<>();
+
+    DeepCopier(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T copy(T object) {
+        return (T) copy(object, objectMapper.constructType(object.getClass()));
+    }
+
+    private Object copy(Object value, JavaType type) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> raw = type.getRawClass();
+        if (type.isPrimitive() || type.isEnumType() || (raw == value.getClass() && IMMUTABLE.contains(raw))) {
+            return value;
+        }
+        if (raw == Date.class && value.getClass() == Date.class) {
+            return new Date(((Date) value).getTime());
+        }
+        if (type instanceof CollectionType && value instanceof Collection) {
+            Collection<Object> copy = newCollection(raw);
+            if (copy != null) {
+                for (Object element : (Collection<?>) value) {
+                    copy.add(copy(element, type.getContentType()));
+                }
+                return copy;
+            }
+        } else if (type instanceof MapType && value instanceof Map && type.getKeyType().getRawClass() == String.class) {
+            Map<Object, Object> copy = newMap(raw);
+            if (copy != null) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    copy.put(entry.getKey(), copy(entry.getValue(), type.getContentType()));
+                }
+                return copy;
+            }
+        } else if (raw == value.getClass() && !type.isContainerType()) {
+            BeanCopier copier = copiers.computeIfAbsent(type, this::createCopier);
+            if (copier != BeanCopier.UNSUPPORTED) {
+                return copier.copy(this, value);
+            }
+        }
+        return roundTrip(value, type);
+    }
+
+    private Object roundTrip(Object value, JavaType type) {
+        try {
+            TokenBuffer buffer = new TokenBuffer(objectMapper, false);
+            objectMapper.writeValue(buffer, value);
+            return objectMapper.readValue(buffer.asParser(), type);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Collection<Object> newCollection(Class<?> raw) {
+        if (raw == List.class || raw == Collection.class || raw == ArrayList.class) {
+            return new ArrayList<>();
+        }
+        if (raw == Set.class || raw == HashSet.class) {
+            return new HashSet<>();
+        }
+        if (raw == LinkedHashSet.class) {
+            return new LinkedHashSet<>();
+        }
+        return null;
+    }
+
+    private static Map<Object, Object> newMap(Class<?> raw) {
+        if (raw == Map.class || raw == LinkedHashMap.class) {
+            return new LinkedHashMap<>();
+        }
+        if (raw == HashMap.class) {
+            return new HashMap<>();
+        }
+        return null;
+    }
+
+    /**
+     * Resolves the properties of a class, or returns {@link BeanCopier#UNSUPPORTED} if Jackson would not read them
+     * back through plain setters or fields, e.g. because of custom (de)serializers, creators or any-setters.
+     */
+    private BeanCopier createCopier(JavaType type) {
+        Class<?> raw = type.getRawClass();
+        if (Modifier.isAbstract(raw.getModifiers()) || raw.isInterface() || raw.isArray()
+                || raw.getName().startsWith("java.") || raw.getName().startsWith("javax.")) {
+            return BeanCopier.UNSUPPORTED;
+        }
+        SerializationConfig serializationConfig = objectMapper.getSerializationConfig();
+        DeserializationConfig deserializationConfig = objectMapper.getDeserializationConfig();
+        AnnotationIntrospector introspector = serializationConfig.getAnnotationIntrospector();
+        BeanDescription serialization = serializationConfig.introspect(type);
+        BeanDescription deserialization = deserializationConfig.introspect(type);
+        if (deserialization.findDefaultConstructor() == null
+                || serialization.findJsonValueAccessor() != null
+                || serialization.findAnyGetter() != null
+                || deserialization.findAnySetterAccessor() != null
+                || introspector.findSerializer(serialization.getClassInfo()) != null
+                || introspector.findDeserializer(deserialization.getClassInfo()) != null
+                || introspector.findTypeResolver(serializationConfig, serialization.getClassInfo(), type) != null
+                || !deserialization.getConstructors().stream().allMatch(c -> c.getParameterCount() == 0
+                || introspector.findCreatorAnnotation(deserializationConfig, c) == null)
+                || !deserialization.getFactoryMethods().isEmpty()) {
+            return BeanCopier.UNSUPPORTED;
+        }
+
+        Map<String, BeanPropertyDefinition> mutators = new HashMap<>();
+        for (BeanPropertyDefinition property : deserialization.findProperties()) {
+            mutators.put(property.getName(), property);
+        }
+        List<Property> properties = new ArrayList<>();
+        for (BeanPropertyDefinition property : serialization.findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+            if (accessor == null) {
+                continue;
+            }
+            BeanPropertyDefinition target = mutators.get(property.getName());
+            AnnotatedMember mutator = target == null ? null : target.getSetter() != null ? target.getSetter()
+                    : target.getField();
+            if (mutator == null || introspector.findSerializer(accessor) != null
+                    || introspector.findDeserializer(mutator) != null) {
+                return BeanCopier.UNSUPPORTED;
+            }
+            accessor.fixAccess(true);
+            mutator.fixAccess(true);
+            JavaType mutatorType = target.getSetter() != null ? target.getSetter().getParameterType(0)
+                    : mutator.getType();
+            properties.add(new Property(accessor, mutator, mutatorType));
+        }
+        Constructor<?> constructor = deserialization.findDefaultConstructor().getAnnotated();
+        constructor.setAccessible(true);
+        return new BeanCopier(constructor, properties);
+    }
+
+    private static final class Property {
+
+        private final AnnotatedMember accessor;
+        private final AnnotatedMember mutator;
+        private final JavaType type;
+
+        private Property(AnnotatedMember accessor, AnnotatedMember mutator, JavaType type) {
+            this.accessor = accessor;
+            this.mutator = mutator;
+            this.type = type;
+        }
+    }
+
+    private static final class BeanCopier {
+
+        private static final BeanCopier UNSUPPORTED = new BeanCopier(null, List.of());
+
+        private final Constructor<?> constructor;
+        private final List<Property> properties;
+
+        private BeanCopier(Constructor<?> constructor, List<Property> properties) {
+            this.constructor = constructor;
+            this.properties = properties;
+        }
+
+        private Object copy(DeepCopier copier, Object value) {
+            try {
+                Object copy = constructor.newInstance();
+                // properties are set in the order they would be written to and read from json
+                for (Property property : properties) {
+                    property.mutator.setValue(copy, copier.copy(property.accessor.getValue(value),
+                            property.type));
+                }
+                return copy;
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
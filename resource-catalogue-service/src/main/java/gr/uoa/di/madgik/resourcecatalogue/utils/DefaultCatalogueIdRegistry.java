@@ -0,0 +1,107 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.resourcecatalogue.domain.CatalogueBundle;
+import gr.uoa.di.madgik.resourcecatalogue.service.CatalogueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Catalogue id registry loaded once, kept up to date by the Catalogue lifecycle hooks and fully rebuilt on a
+ * configurable interval, so that changes made by other instances are eventually picked up.
+ */
+@Component
+public class DefaultCatalogueIdRegistry implements CatalogueIdRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultCatalogueIdRegistry.class);
+    private static final String APPROVED = "approved catalogue";
+
+    private final CatalogueService catalogueService;
+    private volatile Set<String> catalogueIds;
+
+    DefaultCatalogueIdRegistry(@Lazy CatalogueService catalogueService) {
+        this.catalogueService = catalogueService;
+    }
+
+    @Override
+    public boolean hasCatalogueIdPrefix(String id) {
+        if (id == null) {
+            return false;
+        }
+        int separator = id.indexOf('.');
+        return getCatalogueIds().contains(separator < 0 ? id : id.substring(0, separator));
+    }
+
+    @Override
+    public void update(CatalogueBundle catalogueBundle) {
+        if (catalogueBundle == null || catalogueBundle.getCatalogue() == null) {
+            return;
+        }
+        if (APPROVED.equals(catalogueBundle.getStatus()) && catalogueBundle.isActive()) {
+            add(catalogueBundle.getId());
+        } else {
+            remove(catalogueBundle.getId());
+        }
+    }
+
+    @Override
+    public synchronized void remove(String catalogueId) {
+        if (catalogueId == null || catalogueIds == null || !catalogueIds.contains(catalogueId)) {
+            return;
+        }
+        Set<String> copy = new HashSet<>(catalogueIds);
+        copy.remove(catalogueId);
+        catalogueIds = Collections.unmodifiableSet(copy);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${catalogue.catalogue-ids.refresh-interval:600000}",
+            fixedDelayString = "${catalogue.catalogue-ids.refresh-interval:600000}")
+    public synchronized void refresh() {
+        try {
+            FacetFilter ff = new FacetFilter();
+            ff.addFilter("status", APPROVED);
+            ff.addFilter("active", true);
+            Set<String> ids = catalogueService.stream(ff)
+                    .map(CatalogueBundle::getId)
+                    .collect(Collectors.toSet());
+            catalogueIds = Collections.unmodifiableSet(ids);
+            logger.debug("Loaded {} catalogue ids", ids.size());
+        } catch (RuntimeException e) {
+            logger.warn("Could not load catalogue ids", e);
+            if (catalogueIds == null) {
+                throw e;
+            }
+        }
+    }
+
+    private synchronized void add(String catalogueId) {
+        if (catalogueId == null || catalogueIds == null || catalogueIds.contains(catalogueId)) {
+            return;
+        }
+        Set<String> copy = new HashSet<>(catalogueIds);
+        copy.add(catalogueId);
+        catalogueIds = Collections.unmodifiableSet(copy);
+    }
+
+    private Set<String> getCatalogueIds() {
+        Set<String> ret = catalogueIds;
+        if (ret == null) {
+            synchronized (this) {
+                if (catalogueIds == null) {
+                    refresh();
+                }
+                ret = catalogueIds;
+            }
+        }
+        return ret;
+    }
+}
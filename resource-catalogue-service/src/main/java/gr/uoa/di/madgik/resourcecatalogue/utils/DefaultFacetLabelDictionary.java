@@ -0,0 +1,96 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Vocabulary;
+import gr.uoa.di.madgik.resourcecatalogue.service.ProviderService;
+import gr.uoa.di.madgik.resourcecatalogue.service.VocabularyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Label dictionary built from the names of all Providers and Vocabularies. It is loaded once, kept up to date by the
+ * resource write hooks and fully rebuilt on a configurable interval.
+ */
+@Order(Ordered.LOWEST_PRECEDENCE)
+@Component
+public class DefaultFacetLabelDictionary implements FacetLabelDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultFacetLabelDictionary.class);
+    private final ProviderService providerService;
+    private final VocabularyService vocabularyService;
+    private volatile Map<String, String> labels;
+
+    DefaultFacetLabelDictionary(@Lazy ProviderService providerService,
+                                @Lazy VocabularyService vocabularyService) {
+        this.providerService = providerService;
+        this.vocabularyService = vocabularyService;
+    }
+
+    @Override
+    public String getLabel(String id) {
+        return getLabels().get(id);
+    }
+
+    @Override
+    public synchronized void putLabel(String id, String label) {
+        if (id == null || label == null || labels == null) {
+            return;
+        }
+        Map<String, String> copy = new HashMap<>(labels);
+        copy.put(id, label);
+        labels = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public synchronized void removeLabel(String id) {
+        if (id == null || labels == null || !labels.containsKey(id)) {
+            return;
+        }
+        Map<String, String> copy = new HashMap<>(labels);
+        copy.remove(id);
+        labels = Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${catalogue.facet-labels.refresh-interval:600000}",
+            fixedDelayString = "${catalogue.facet-labels.refresh-interval:600000}")
+    public synchronized void refresh() {
+        Map<String, String> idNameMap = new HashMap<>();
+        try {
+            for (Vocabulary vocabulary : vocabularyService.getVocabulariesMap().values()) {
+                idNameMap.put(vocabulary.getId(), vocabulary.getName());
+            }
+            providerService.stream(new FacetFilter()).forEach(providerBundle ->
+                    idNameMap.putIfAbsent(providerBundle.getId(), providerBundle.getProvider().getName()));
+            labels = Collections.unmodifiableMap(idNameMap);
+            logger.debug("Loaded {} facet labels", idNameMap.size());
+        } catch (RuntimeException e) {
+            logger.warn("Could not load facet labels", e);
+            if (labels == null) {
+                labels = Collections.emptyMap();
+            }
+        }
+    }
+
+    private Map<String, String> getLabels() {
+        Map<String, String> ret = labels;
+        if (ret == null) {
+            synchronized (this) {
+                if (labels == null) {
+                    refresh();
+                }
+                ret = labels;
+            }
+        }
+        return ret;
+    }
+}
@@ -1,11 +1,8 @@
 package gr.uoa.di.madgik.resourcecatalogue.utils;
 
 import gr.uoa.di.madgik.registry.domain.Facet;
-import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.registry.domain.Value;
-import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
 import gr.uoa.di.madgik.resourcecatalogue.domain.Vocabulary;
-import gr.uoa.di.madgik.resourcecatalogue.service.ProviderService;
 import gr.uoa.di.madgik.resourcecatalogue.service.VocabularyService;
 import org.apache.commons.collections.list.TreeList;
 import org.slf4j.Logger;
@@ -21,16 +18,13 @@ import java.util.*;
 public class DefaultFacetLabelService implements FacetLabelService {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultFacetLabelService.class);
-    private final ProviderService providerService;
     private final VocabularyService vocabularyService;
+    private final FacetLabelDictionary labelDictionary;
 
-    @org.springframework.beans.factory.annotation.Value("${elastic.index.max_result_window:10000}")
-    private int maxQuantity;
-
-    DefaultFacetLabelService(ProviderService providerService,
-                             VocabularyService vocabularyService) {
-        this.providerService = providerService;
+    DefaultFacetLabelService(VocabularyService vocabularyService,
+                             FacetLabelDictionary labelDictionary) {
         this.vocabularyService = vocabularyService;
+        this.labelDictionary = labelDictionary;
     }
 
     @Override
@@ -77,8 +71,8 @@ public class DefaultFacetLabelService implements FacetLabelService {
         }
     }
 
-    String getLabelElseKeepValue(String value, Map<String, String> labels) {
-        String ret = labels.get(value);
+    String getLabelElseKeepValue(String value) {
+        String ret = labelDictionary.getLabel(value);
         if (ret == null) {
             ret = toProperCase(toProperCase(value, "-", "-"), "_", " ");
         }
@@ -89,15 +83,6 @@ public class DefaultFacetLabelService implements FacetLabelService {
     @SuppressWarnings("unchecked")
     public List<Facet> createLabels(List<Facet> facets) {
         List<Facet> enrichedFacets = new TreeList(); // unchecked warning here
-        FacetFilter ff = new FacetFilter();
-        ff.setQuantity(maxQuantity);
-//        ff.addFilter("active", "true");
-        // TODO: get all final providers (after deduplication process)
-        List<ProviderBundle> allProviders = providerService.getAll(ff, null).getResults();
-        Map<String, String> providerNames = new TreeMap<>();
-        allProviders.forEach(p -> providerNames.putIfAbsent(p.getId(), p.getProvider().getName()));
-
-        Map<String, Vocabulary> allVocabularies = vocabularyService.getVocabulariesMap();
 
         Facet superCategories;
         Facet categories;
@@ -120,12 +105,13 @@ public class DefaultFacetLabelService implements FacetLabelService {
                 switch (facet.getField()) {
                     case "resource_providers":
                     case "resource_organisation":
-                        value.setLabel(providerNames.get(value.getValue()));
+                        value.setLabel(labelDictionary.getLabel(value.getValue()));
                         break;
 
                     default:
-                        if (allVocabularies.containsKey(value.getValue())) {
-                            value.setLabel(allVocabularies.get(value.getValue()).getName());
+                        String label = labelDictionary.getLabel(value.getValue());
+                        if (label != null) {
+                            value.setLabel(label);
                         } else {
                             //TODO: Find a better way to prettify Labels
                             try {
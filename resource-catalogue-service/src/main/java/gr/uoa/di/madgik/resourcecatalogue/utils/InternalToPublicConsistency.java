@@ -5,8 +5,6 @@ import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import gr.uoa.di.madgik.registry.domain.FacetFilter;
 import gr.uoa.di.madgik.resourcecatalogue.domain.*;
-import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
-import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceNotFoundException;
 import gr.uoa.di.madgik.resourcecatalogue.manager.*;
 import gr.uoa.di.madgik.resourcecatalogue.service.*;
 import org.slf4j.Logger;
@@ -16,21 +14,29 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.mail.MessagingException;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Component
-public class InternalToPublicConsistency {
+public class InternalToPublicConsistency implements ConsistencyService {
 
     private static final Logger logger = LoggerFactory.getLogger(InternalToPublicConsistency.class);
 
     private final ProviderService providerService;
-    private final ServiceBundleService serviceBundleService;
+    private final ServiceBundleService<ServiceBundle> serviceBundleService;
     private final TrainingResourceService trainingResourceService;
     private final InteroperabilityRecordService interoperabilityRecordService;
     private final ResourceInteroperabilityRecordService resourceInteroperabilityRecordService;
+    private final DatasourceService datasourceService;
 
 
     private final PublicProviderManager publicProviderManager;
@@ -38,10 +44,12 @@ public class InternalToPublicConsistency {
     private final PublicTrainingResourceManager publicTrainingResourceManager;
     private final PublicInteroperabilityRecordManager publicInteroperabilityRecordManager;
     private final PublicResourceInteroperabilityRecordManager publicResourceInteroperabilityRecordManager;
+    private final PublicDatasourceManager publicDatasourceManager;
 
-    private final SecurityService securityService;
     private final Configuration cfg;
     private final MailService mailService;
+    private final ConsistencyReportStore reportStore;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
 
     @Value("${catalogue.name:Resource Catalogue}")
@@ -52,115 +60,168 @@ public class InternalToPublicConsistency {
     private String consistencyEmail;
     @Value("${resource.consistency.cc}")
     private String consistencyCC;
+    @Value("${resource.consistency.repair:false}")
+    private boolean repairEnabled;
 
     public InternalToPublicConsistency(ProviderService providerService,
-                                       ServiceBundleService serviceBundleService,
+                                       ServiceBundleService<ServiceBundle> serviceBundleService,
                                        TrainingResourceService trainingResourceService,
                                        InteroperabilityRecordService interoperabilityRecordService,
                                        ResourceInteroperabilityRecordService resourceInteroperabilityRecordService,
+                                       DatasourceService datasourceService,
                                        PublicProviderManager publicProviderManager, PublicServiceManager publicServiceManager,
                                        PublicTrainingResourceManager publicTrainingResourceManager,
                                        PublicInteroperabilityRecordManager publicInteroperabilityRecordManager,
                                        PublicResourceInteroperabilityRecordManager publicResourceInteroperabilityRecordManager,
-                                       SecurityService securityService, Configuration cfg, MailService mailService) {
+                                       PublicDatasourceManager publicDatasourceManager,
+                                       Configuration cfg, MailService mailService,
+                                       ConsistencyReportStore reportStore) {
         this.providerService = providerService;
         this.serviceBundleService = serviceBundleService;
         this.trainingResourceService = trainingResourceService;
         this.interoperabilityRecordService = interoperabilityRecordService;
         this.resourceInteroperabilityRecordService = resourceInteroperabilityRecordService;
+        this.datasourceService = datasourceService;
         this.publicProviderManager = publicProviderManager;
         this.publicServiceManager = publicServiceManager;
         this.publicTrainingResourceManager = publicTrainingResourceManager;
         this.publicInteroperabilityRecordManager = publicInteroperabilityRecordManager;
         this.publicResourceInteroperabilityRecordManager = publicResourceInteroperabilityRecordManager;
-        this.securityService = securityService;
+        this.publicDatasourceManager = publicDatasourceManager;
         this.cfg = cfg;
         this.mailService = mailService;
+        this.reportStore = reportStore;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
     }
 
     @Scheduled(cron = "0 0 0 * * *") // At midnight every day
 //    @Scheduled(initialDelay = 0, fixedRate = 6000) // every 2 min
     protected void logInternalToPublicResourceConsistency() {
-        List<ProviderBundle> allInternalApprovedProviders = providerService.getAll(createFacetFilter("approved provider"), securityService.getAdminAccess()).getResults();
-        List<ServiceBundle> allInternalApprovedServices = serviceBundleService.getAll(createFacetFilter("approved resource"), securityService.getAdminAccess()).getResults();
-        List<TrainingResourceBundle> allInternalApprovedTR = trainingResourceService.getAll(createFacetFilter("approved resource"), securityService.getAdminAccess()).getResults();
-        List<InteroperabilityRecordBundle> allInternalApprovedIR = interoperabilityRecordService.getAll(createFacetFilter("approved interoperability record"), securityService.getAdminAccess()).getResults();
-        List<ResourceInteroperabilityRecordBundle> allInternalApprovedRIR = resourceInteroperabilityRecordService.getAll(createFacetFilter(null), securityService.getAdminAccess()).getResults();
-        //TODO: add Configuration Template
         List<String> logs = new ArrayList<>();
-
-        // check consistency for Providers
-        for (ProviderBundle providerBundle : allInternalApprovedProviders) {
-            String providerId = providerBundle.getId();
-            String publicProviderId = providerBundle.getProvider().getCatalogueId() + "." + providerId;
-            // try and get its Public instance
-            try {
-                publicProviderManager.get(publicProviderId);
-            } catch (ResourceException | ResourceNotFoundException e) {
-                logs.add(String.format("Provider with ID [%s] is missing its Public instance [%s]",
-                        providerId, publicProviderId));
-            }
+        for (ConsistencyReport report : checkConsistency()) {
+            logs.addAll(report.getLogs());
         }
+        sendConsistencyEmails(logs);
+    }
 
-        // check consistency for Services
-        for (ServiceBundle serviceBundle : allInternalApprovedServices) {
-            String serviceId = serviceBundle.getId();
-            String publicServiceId = serviceBundle.getService().getCatalogueId() + "." + serviceId;
-            // try and get its Public instance
-            try {
-                publicServiceManager.get(publicServiceId);
-            } catch (ResourceException | ResourceNotFoundException e) {
-                logs.add(String.format("Service with ID [%s] is missing its Public instance [%s]",
-                        serviceId, publicServiceId));
-            }
-        }
+    /**
+     * Compares the internal resources of every resource type with their public instances, in parallel, and stores
+     * the reports. Missing or stale public instances are repaired if 'resource.consistency.repair' is enabled.
+     *
+     * @return the reports, one per resource type
+     */
+    @Override
+    public List<ConsistencyReport> checkConsistency() {
+        //TODO: add Configuration Template
+        Date created = new Date();
+        List<CompletableFuture<ConsistencyReport>> checks = Arrays.asList(
+                check("Provider", "provider", created,
+                        () -> providerService.stream(createFacetFilter("approved provider")),
+                        publicProviderManager, bundle -> bundle.getProvider().getCatalogueId()),
+                check("Service", "service", created,
+                        () -> serviceBundleService.stream(createFacetFilter("approved resource")),
+                        publicServiceManager, bundle -> bundle.getService().getCatalogueId()),
+                check("Training Resource", "training_resource", created,
+                        () -> trainingResourceService.stream(createFacetFilter("approved resource")),
+                        publicTrainingResourceManager, bundle -> bundle.getTrainingResource().getCatalogueId()),
+                check("Interoperability Record", "interoperability_record", created,
+                        () -> interoperabilityRecordService.stream(createFacetFilter("approved interoperability record")),
+                        publicInteroperabilityRecordManager, bundle -> bundle.getInteroperabilityRecord().getCatalogueId()),
+                check("Resource Interoperability Record", "resource_interoperability_record", created,
+                        () -> resourceInteroperabilityRecordService.stream(createFacetFilter(null)),
+                        publicResourceInteroperabilityRecordManager,
+                        bundle -> bundle.getResourceInteroperabilityRecord().getCatalogueId()),
+                check("Datasource", "datasource", created,
+                        () -> datasourceService.stream(createFacetFilter("approved datasource")),
+                        publicDatasourceManager, bundle -> bundle.getDatasource().getCatalogueId()));
 
-        // check consistency for Training Resources
-        for (TrainingResourceBundle trainingResourceBundle : allInternalApprovedTR) {
-            String trainingResourceId = trainingResourceBundle.getId();
-            String publicTrainingResourceId = trainingResourceBundle.getTrainingResource().getCatalogueId() + "." + trainingResourceId;
-            // try and get its Public instance
-            try {
-                publicTrainingResourceManager.get(publicTrainingResourceId);
-            } catch (ResourceException | ResourceNotFoundException e) {
-                logs.add(String.format("Training Resource with ID [%s] is missing its Public instance [%s]",
-                        trainingResourceId, publicTrainingResourceId));
-            }
+        List<ConsistencyReport> reports = new ArrayList<>();
+        for (CompletableFuture<ConsistencyReport> check : checks) {
+            reports.add(check.join());
         }
-
-        // check consistency for Interoperability Records
-        for (InteroperabilityRecordBundle interoperabilityRecordBundle : allInternalApprovedIR) {
-            String interoperabilityRecordId = interoperabilityRecordBundle.getId();
-            String publicInteroperabilityRecordId = interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId() + "." + interoperabilityRecordId;
-            // try and get its Public instance
-            try {
-                publicInteroperabilityRecordManager.get(publicInteroperabilityRecordId);
-            } catch (ResourceException | ResourceNotFoundException e) {
-                logs.add(String.format("Interoperability Record with ID [%s] is missing its Public instance [%s]",
-                        interoperabilityRecordId, publicInteroperabilityRecordId));
-            }
+        try {
+            reportStore.save(reports);
+        } catch (RuntimeException e) {
+            logger.error("Could not store the consistency reports", e);
         }
+        return reports;
+    }
 
-        // check consistency for Resource Interoperability Records
-        for (ResourceInteroperabilityRecordBundle resourceInteroperabilityRecordBundle : allInternalApprovedRIR) {
-            String resourceInteroperabilityRecordId = resourceInteroperabilityRecordBundle.getId();
-            String publicResourceInteroperabilityRecordId = resourceInteroperabilityRecordBundle.getResourceInteroperabilityRecord().getCatalogueId() + "." + resourceInteroperabilityRecordId;
-            // try and get its Public instance
+    private <T extends Bundle<?>> CompletableFuture<ConsistencyReport> check(String name, String resourceType, Date created,
+                                                                              Supplier<Stream<T>> internalResources,
+                                                                              ResourceManager<T> publicManager,
+                                                                              Function<T, String> catalogueId) {
+        return CompletableFuture.supplyAsync(() -> {
+            ConsistencyReport report = new ConsistencyReport(resourceType, created);
             try {
-                publicResourceInteroperabilityRecordManager.get(publicResourceInteroperabilityRecordId);
-            } catch (ResourceException | ResourceNotFoundException e) {
-                logs.add(String.format("Resource Interoperability Record with ID [%s] is missing its Public instance [%s]",
-                        resourceInteroperabilityRecordId, publicResourceInteroperabilityRecordId));
+                // versions of all the public instances, removed as their internal resources are found
+                Map<String, String> publicVersions = new HashMap<>();
+                try (Stream<T> publicResources = publicManager.stream(createPublicFacetFilter())) {
+                    publicResources.forEach(bundle -> publicVersions.put(bundle.getId(), getVersion(bundle)));
+                }
+                try (Stream<T> internal = internalResources.get()) {
+                    internal.forEach(bundle -> {
+                        report.setChecked(report.getChecked() + 1);
+                        String id = bundle.getId();
+                        String publicId = catalogueId.apply(bundle) + "." + id;
+                        if (!publicVersions.containsKey(publicId)) {
+                            report.setMissing(report.getMissing() + 1);
+                            report.getLogs().add(String.format("%s with ID [%s] is missing its Public instance [%s]",
+                                    name, id, publicId));
+                            repair(report, () -> publicManager.add(ObjectUtils.clone(bundle), null));
+                        } else if (!Objects.equals(publicVersions.remove(publicId), getVersion(bundle))) {
+                            report.setStale(report.getStale() + 1);
+                            report.getLogs().add(String.format("%s with ID [%s] has a stale Public instance [%s]",
+                                    name, id, publicId));
+                            repair(report, () -> publicManager.update(ObjectUtils.clone(bundle), null));
+                        }
+                    });
+                }
+                report.setOrphaned(publicVersions.size());
+                for (String publicId : publicVersions.keySet()) {
+                    report.getLogs().add(String.format("Public %s [%s] has no approved internal instance",
+                            name, publicId));
+                }
+            } catch (RuntimeException e) {
+                logger.error("Could not check the consistency of '{}' resources", resourceType, e);
+                report.getLogs().add(String.format("Could not check the consistency of %s resources: %s",
+                        name, e.getMessage()));
             }
+            logger.info("Checked {} '{}' resources: {} missing, {} stale, {} orphaned and {} repaired public instances",
+                    report.getChecked(), resourceType, report.getMissing(), report.getStale(), report.getOrphaned(),
+                    report.getRepaired());
+            return report;
+        }, executor);
+    }
+
+    private void repair(ConsistencyReport report, Runnable repair) {
+        if (!repairEnabled) {
+            return;
         }
+        try {
+            repair.run();
+            report.setRepaired(report.getRepaired() + 1);
+        } catch (RuntimeException e) {
+            logger.warn("Could not repair public instance", e);
+        }
+    }
 
-        sendConsistencyEmails(logs);
+    private static String getVersion(Bundle<?> bundle) {
+        return bundle.getMetadata() != null ? bundle.getMetadata().getModifiedAt() : null;
+    }
 
+    protected FacetFilter createPublicFacetFilter() {
+        FacetFilter ff = new FacetFilter();
+        ff.addFilter("published", true);
+        return ff;
     }
 
     protected FacetFilter createFacetFilter(String status) {
         FacetFilter ff = new FacetFilter();
-        ff.setQuantity(10000);
         ff.addFilter("published", false);
         if (status != null) {
             ff.addFilter("status", status);
@@ -0,0 +1,251 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Catalogue migration jobs, stored in the 'migration_job' table, and their steps, stored in the 'migration_step'
+ * table. The status of every step is stored as soon as it is migrated, so that a job can be resumed from where it
+ * stopped.
+ * <p>
+ * The instance running a job renews its heartbeat while the job is active, and a job whose heartbeat stops is
+ * marked as failed by any instance. At most one job of each provider is active, which the 'active_key' column
+ * enforces: it is only set while the job is active, and unique.
+ */
+@Component
+public class MigrationJobStore {
+
+    private static final String CREATE_JOB_TABLE = "CREATE TABLE IF NOT EXISTS migration_job (" +
+            "id VARCHAR(64) PRIMARY KEY, " +
+            "provider_id VARCHAR(255) NOT NULL, " +
+            "catalogue_id VARCHAR(255) NOT NULL, " +
+            "new_catalogue_id VARCHAR(255) NOT NULL, " +
+            "dry_run BOOLEAN NOT NULL, " +
+            "requested_by VARCHAR(255), " +
+            "owner VARCHAR(64), " +
+            "heartbeat TIMESTAMP, " +
+            "active_key VARCHAR(512) UNIQUE, " +
+            "status VARCHAR(16) NOT NULL, " +
+            "created TIMESTAMP NOT NULL, " +
+            "completed TIMESTAMP, " +
+            "error TEXT)";
+    private static final String CREATE_STEP_TABLE = "CREATE TABLE IF NOT EXISTS migration_step (" +
+            "job_id VARCHAR(64) NOT NULL REFERENCES migration_job (id) ON DELETE CASCADE, " +
+            "seq INTEGER NOT NULL, " +
+            "resource_type VARCHAR(64) NOT NULL, " +
+            "old_id VARCHAR(255) NOT NULL, " +
+            "new_id VARCHAR(255) NOT NULL, " +
+            "status VARCHAR(16) NOT NULL, " +
+            "error TEXT, " +
+            "PRIMARY KEY (job_id, seq), " +
+            "UNIQUE (job_id, resource_type, old_id))";
+
+    private static final RowMapper<MigrationJob> JOB_ROW_MAPPER = (rs, rowNum) -> {
+        MigrationJob job = new MigrationJob(rs.getString("id"), rs.getString("provider_id"),
+                rs.getString("catalogue_id"), rs.getString("new_catalogue_id"), rs.getBoolean("dry_run"),
+                rs.getString("requested_by"));
+        job.setOwner(rs.getString("owner"));
+        job.setStatus(MigrationJob.Status.valueOf(rs.getString("status")));
+        job.setCreated(rs.getTimestamp("created"));
+        job.setCompleted(rs.getTimestamp("completed"));
+        job.setError(rs.getString("error"));
+        return job;
+    };
+
+    private static final RowMapper<MigrationStep> STEP_ROW_MAPPER = (rs, rowNum) -> {
+        MigrationStep step = new MigrationStep(rs.getString("resource_type"), rs.getString("old_id"),
+                rs.getString("new_id"));
+        step.setStatus(MigrationStep.Status.valueOf(rs.getString("status")));
+        step.setError(rs.getString("error"));
+        return step;
+    };
+
+    private static final List<String> ACTIVE = List.of(MigrationJob.Status.PENDING.name(),
+            MigrationJob.Status.RUNNING.name());
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public MigrationJobStore(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    void createTables() {
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_JOB_TABLE);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_STEP_TABLE);
+    }
+
+    /**
+     * Renews the heartbeat of the active jobs of an instance.
+     *
+     * @param owner the instance
+     */
+    public void heartbeat(String owner) {
+        jdbcTemplate.update("UPDATE migration_job SET heartbeat = :now WHERE owner = :owner AND status IN (:active)",
+                new MapSqlParameterSource("owner", owner)
+                        .addValue("now", new Timestamp(System.currentTimeMillis()))
+                        .addValue("active", ACTIVE));
+    }
+
+    /**
+     * Marks the active jobs whose heartbeat stopped, because their instance stopped, as failed, so that they can
+     * be retried.
+     *
+     * @param timeout ms since the last heartbeat after which a job is orphaned
+     * @return the number of jobs marked
+     */
+    public int failOrphaned(long timeout) {
+        long now = System.currentTimeMillis();
+        return jdbcTemplate.update("UPDATE migration_job SET status = :failed, completed = :completed, " +
+                        "error = :error, active_key = NULL WHERE status IN (:active) AND heartbeat < :before",
+                new MapSqlParameterSource()
+                        .addValue("failed", MigrationJob.Status.FAILED.name())
+                        .addValue("completed", new Timestamp(now))
+                        .addValue("error", "Interrupted because its instance stopped, retry the job to resume it")
+                        .addValue("active", ACTIVE)
+                        .addValue("before", new Timestamp(now - timeout)));
+    }
+
+    /**
+     * @param providerId  the provider id
+     * @param catalogueId the catalogue id
+     * @return the id of the active job of the provider, or null if there is none
+     */
+    public String getActiveJobId(String providerId, String catalogueId) {
+        List<String> ids = jdbcTemplate.queryForList("SELECT id FROM migration_job WHERE active_key = :activeKey",
+                new MapSqlParameterSource("activeKey", activeKey(providerId, catalogueId)), String.class);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Stores a new job along with its steps.
+     *
+     * @param job the job
+     * @throws org.springframework.dao.DuplicateKeyException if another job of the provider is active
+     */
+    public void save(MigrationJob job) {
+        jdbcTemplate.update("INSERT INTO migration_job (id, provider_id, catalogue_id, new_catalogue_id, dry_run, " +
+                        "requested_by, owner, heartbeat, active_key, status, created, completed, error) VALUES (:id, " +
+                        ":providerId, :catalogueId, :newCatalogueId, :dryRun, :requestedBy, :owner, :now, :activeKey, " +
+                        ":status, :created, :completed, :error)",
+                jobParameters(job)
+                        .addValue("providerId", job.getProviderId())
+                        .addValue("catalogueId", job.getCatalogueId())
+                        .addValue("newCatalogueId", job.getNewCatalogueId())
+                        .addValue("dryRun", job.isDryRun())
+                        .addValue("requestedBy", job.getRequestedBy())
+                        .addValue("created", new Timestamp(job.getCreated().getTime())));
+        List<MigrationStep> steps = job.getSteps();
+        MapSqlParameterSource[] batch = new MapSqlParameterSource[steps.size()];
+        for (int i = 0; i < steps.size(); i++) {
+            batch[i] = stepParameters(job.getId(), steps.get(i))
+                    .addValue("seq", i)
+                    .addValue("newId", steps.get(i).getNewId());
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO migration_step (job_id, seq, resource_type, old_id, new_id, " +
+                "status, error) VALUES (:jobId, :seq, :resourceType, :oldId, :newId, :status, :error)", batch);
+    }
+
+    /**
+     * Stores the status and the owner of a job. An active job is only updated by its owner, so that an instance
+     * whose job was taken over cannot change it.
+     *
+     * @param job the job
+     * @throws org.springframework.dao.DuplicateKeyException if the job is activated while another job of the
+     *                                                       provider is active
+     */
+    public void update(MigrationJob job) {
+        jdbcTemplate.update("UPDATE migration_job SET status = :status, completed = :completed, error = :error, " +
+                "owner = :owner, heartbeat = :now, active_key = :activeKey " +
+                "WHERE id = :id AND (owner = :owner OR status NOT IN (:active))", jobParameters(job)
+                .addValue("active", ACTIVE));
+    }
+
+    /**
+     * Stores the status of a step of a job.
+     *
+     * @param jobId the job id
+     * @param step  the step
+     */
+    public void update(String jobId, MigrationStep step) {
+        jdbcTemplate.update("UPDATE migration_step SET status = :status, error = :error " +
+                "WHERE job_id = :jobId AND resource_type = :resourceType AND old_id = :oldId", stepParameters(jobId, step));
+    }
+
+    /**
+     * @param id the job id
+     * @return the job with its steps, or null if it does not exist
+     */
+    public MigrationJob get(String id) {
+        List<MigrationJob> jobs = jdbcTemplate.query("SELECT * FROM migration_job WHERE id = :id",
+                new MapSqlParameterSource("id", id), JOB_ROW_MAPPER);
+        if (jobs.isEmpty()) {
+            return null;
+        }
+        MigrationJob job = jobs.get(0);
+        job.setSteps(getSteps(id));
+        return job;
+    }
+
+    /**
+     * Returns the stored jobs with their steps, latest first.
+     *
+     * @param from     offset
+     * @param quantity max number of jobs
+     * @return the jobs
+     */
+    public List<MigrationJob> getJobs(int from, int quantity) {
+        List<MigrationJob> jobs = jdbcTemplate.query("SELECT * FROM migration_job ORDER BY created DESC, id " +
+                        "LIMIT :quantity OFFSET :from",
+                new MapSqlParameterSource()
+                        .addValue("from", from)
+                        .addValue("quantity", quantity),
+                JOB_ROW_MAPPER);
+        for (MigrationJob job : jobs) {
+            job.setSteps(getSteps(job.getId()));
+        }
+        return jobs;
+    }
+
+    public int count() {
+        Integer count = jdbcTemplate.getJdbcTemplate().queryForObject("SELECT count(*) FROM migration_job", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private List<MigrationStep> getSteps(String jobId) {
+        return jdbcTemplate.query("SELECT * FROM migration_step WHERE job_id = :jobId ORDER BY seq",
+                new MapSqlParameterSource("jobId", jobId), STEP_ROW_MAPPER);
+    }
+
+    private static MapSqlParameterSource jobParameters(MigrationJob job) {
+        return new MapSqlParameterSource()
+                .addValue("id", job.getId())
+                .addValue("owner", job.getOwner())
+                .addValue("now", new Timestamp(System.currentTimeMillis()))
+                .addValue("activeKey", job.isActive() && !job.isDryRun()
+                        ? activeKey(job.getProviderId(), job.getCatalogueId()) : null)
+                .addValue("status", job.getStatus().name())
+                .addValue("completed", job.getCompleted() != null ? new Timestamp(job.getCompleted().getTime()) : null)
+                .addValue("error", job.getError());
+    }
+
+    private static String activeKey(String providerId, String catalogueId) {
+        return catalogueId + "/" + providerId;
+    }
+
+    private static MapSqlParameterSource stepParameters(String jobId, MigrationStep step) {
+        return new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("resourceType", step.getResourceType())
+                .addValue("oldId", step.getOldId())
+                .addValue("status", step.getStatus().name())
+                .addValue("error", step.getError());
+    }
+}
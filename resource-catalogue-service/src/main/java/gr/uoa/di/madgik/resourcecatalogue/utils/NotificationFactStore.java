@@ -0,0 +1,354 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The facts the scheduled notification digests are built from, recorded as internal providers and services are
+ * written: the providers waiting for an approval or a reminder ('notification_pending_provider'), the registrations,
+ * updates and logging entries of the last days ('notification_change'), and the digests already sent to each
+ * recipient ('notification_send_log').
+ */
+@Component
+public class NotificationFactStore {
+
+    public static final String PENDING_PROVIDER = "pending provider";
+    public static final String PENDING_TEMPLATE = "pending template";
+    public static final String NO_TEMPLATE = "no template status";
+
+    private static final Set<String> PENDING_TEMPLATE_STATUSES = Set.of(PENDING_TEMPLATE, NO_TEMPLATE);
+
+    private static final String CREATE_PENDING_TABLE = "CREATE TABLE IF NOT EXISTS notification_pending_provider (" +
+            "provider_id VARCHAR(255) PRIMARY KEY, " +
+            "name TEXT, " +
+            "status VARCHAR(64), " +
+            "template_status VARCHAR(64), " +
+            "updated TIMESTAMP NOT NULL)";
+    private static final String CREATE_CHANGE_TABLE = "CREATE TABLE IF NOT EXISTS notification_change (" +
+            "id BIGSERIAL PRIMARY KEY, " +
+            "resource_type VARCHAR(64) NOT NULL, " +
+            "resource_id VARCHAR(255) NOT NULL, " +
+            "kind VARCHAR(16) NOT NULL, " +
+            "occurred TIMESTAMP NOT NULL, " +
+            "type VARCHAR(64) NOT NULL DEFAULT '', " +
+            "action_type VARCHAR(64), " +
+            "user_role VARCHAR(64), " +
+            "user_email VARCHAR(255), " +
+            "UNIQUE (resource_type, resource_id, kind, occurred, type))";
+    private static final String CREATE_CHANGE_INDEX = "CREATE INDEX IF NOT EXISTS notification_change_occurred " +
+            "ON notification_change (occurred)";
+    private static final String CREATE_SEND_LOG_TABLE = "CREATE TABLE IF NOT EXISTS notification_send_log (" +
+            "digest VARCHAR(64) NOT NULL, " +
+            "period VARCHAR(32) NOT NULL, " +
+            "recipient VARCHAR(255) NOT NULL, " +
+            "reference VARCHAR(255) NOT NULL, " +
+            "sent TIMESTAMP NOT NULL, " +
+            "PRIMARY KEY (digest, period, recipient, reference))";
+
+    private static final RowMapper<PendingProvider> PENDING_ROW_MAPPER = (rs, rowNum) -> new PendingProvider(
+            rs.getString("provider_id"), rs.getString("name"), rs.getString("status"),
+            rs.getString("template_status"));
+
+    private static final RowMapper<Change> CHANGE_ROW_MAPPER = (rs, rowNum) -> {
+        Change change = new Change(rs.getString("resource_type"), rs.getString("resource_id"),
+                Change.Kind.valueOf(rs.getString("kind")), rs.getTimestamp("occurred"));
+        if (change.getKind() == Change.Kind.LOGGED) {
+            LoggingInfo loggingInfo = new LoggingInfo();
+            loggingInfo.setDate(String.valueOf(change.getOccurred().getTime()));
+            loggingInfo.setType(rs.getString("type"));
+            loggingInfo.setActionType(rs.getString("action_type"));
+            loggingInfo.setUserRole(rs.getString("user_role"));
+            loggingInfo.setUserEmail(rs.getString("user_email"));
+            change.setLoggingInfo(loggingInfo);
+        }
+        return change;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final long retention;
+
+    public NotificationFactStore(DataSource dataSource,
+                                 @Value("${catalogue.notifications.retention:604800000}") long retention) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.retention = retention;
+    }
+
+    @PostConstruct
+    void createTables() {
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_PENDING_TABLE);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_CHANGE_TABLE);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_CHANGE_INDEX);
+        jdbcTemplate.getJdbcTemplate().execute(CREATE_SEND_LOG_TABLE);
+    }
+
+    /**
+     * Records the facts of a written provider or service. Public copies and other resources are ignored.
+     *
+     * @param resource the resource that was written
+     */
+    public void record(Object resource) {
+        if (!(resource instanceof ProviderBundle) && !(resource instanceof ServiceBundle)) {
+            return;
+        }
+        Bundle<?> bundle = (Bundle<?>) resource;
+        if (bundle.getId() == null || bundle.getMetadata() == null || bundle.getMetadata().isPublished()) {
+            return;
+        }
+        String resourceType = resource instanceof ProviderBundle ? "provider" : "service";
+        if (resource instanceof ProviderBundle providerBundle && !providerBundle.isDraft()) {
+            recordPending(providerBundle);
+        }
+
+        long since = System.currentTimeMillis() - retention;
+        Long registered = millis(bundle.getMetadata().getRegisteredAt());
+        if (registered != null && registered >= since) {
+            addChange(resourceType, bundle.getId(), Change.Kind.REGISTERED, registered, null);
+        }
+        Long modified = millis(bundle.getMetadata().getModifiedAt());
+        if (modified != null && modified >= since) {
+            addChange(resourceType, bundle.getId(), Change.Kind.UPDATED, modified, null);
+        }
+        List<LoggingInfo> loggingInfo = bundle.getLoggingInfo();
+        if (loggingInfo != null) {
+            for (int i = loggingInfo.size() - 1; i >= 0; i--) {
+                Long date = millis(loggingInfo.get(i).getDate());
+                if (date == null || date < since) {
+                    break;
+                }
+                addChange(resourceType, bundle.getId(), Change.Kind.LOGGED, date, loggingInfo.get(i));
+            }
+        }
+    }
+
+    /**
+     * Forgets the pending state of a deleted provider. Its recorded changes are kept until they expire.
+     *
+     * @param resource the resource that was deleted
+     */
+    public void remove(Object resource) {
+        if (resource instanceof ProviderBundle providerBundle && !providerBundle.isDraft()
+                && (providerBundle.getMetadata() == null || !providerBundle.getMetadata().isPublished())) {
+            removePending(providerBundle.getId());
+        }
+    }
+
+    private void recordPending(ProviderBundle providerBundle) {
+        if (PENDING_PROVIDER.equals(providerBundle.getStatus())
+                || PENDING_TEMPLATE_STATUSES.contains(providerBundle.getTemplateStatus())) {
+            jdbcTemplate.update("INSERT INTO notification_pending_provider (provider_id, name, status, " +
+                            "template_status, updated) VALUES (:id, :name, :status, :templateStatus, :updated) " +
+                            "ON CONFLICT (provider_id) DO UPDATE SET name = EXCLUDED.name, status = EXCLUDED.status, " +
+                            "template_status = EXCLUDED.template_status, updated = EXCLUDED.updated",
+                    new MapSqlParameterSource()
+                            .addValue("id", providerBundle.getId())
+                            .addValue("name", providerBundle.getProvider() != null
+                                    ? providerBundle.getProvider().getName() : null)
+                            .addValue("status", providerBundle.getStatus())
+                            .addValue("templateStatus", providerBundle.getTemplateStatus())
+                            .addValue("updated", new Timestamp(System.currentTimeMillis())));
+        } else {
+            removePending(providerBundle.getId());
+        }
+    }
+
+    private void removePending(String providerId) {
+        jdbcTemplate.update("DELETE FROM notification_pending_provider WHERE provider_id = :id",
+                new MapSqlParameterSource("id", providerId));
+    }
+
+    /**
+     * Deletes the pending providers not recorded since the given date, i.e. the ones a full reconciliation no
+     * longer found pending.
+     *
+     * @param before the start of the reconciliation
+     * @return the number of providers deleted
+     */
+    public int removePendingNotRecordedSince(Date before) {
+        return jdbcTemplate.update("DELETE FROM notification_pending_provider WHERE updated < :before",
+                new MapSqlParameterSource("before", new Timestamp(before.getTime())));
+    }
+
+    /**
+     * Returns the providers waiting for an approval or for their first resource, ordered by name.
+     *
+     * @return the pending providers
+     */
+    public List<PendingProvider> getPendingProviders() {
+        return jdbcTemplate.query("SELECT * FROM notification_pending_provider ORDER BY name, provider_id",
+                PENDING_ROW_MAPPER);
+    }
+
+    private void addChange(String resourceType, String resourceId, Change.Kind kind, long occurred,
+                           LoggingInfo loggingInfo) {
+        jdbcTemplate.update("INSERT INTO notification_change (resource_type, resource_id, kind, occurred, type, " +
+                        "action_type, user_role, user_email) VALUES (:resourceType, :resourceId, :kind, :occurred, " +
+                        ":type, :actionType, :userRole, :userEmail) ON CONFLICT DO NOTHING",
+                new MapSqlParameterSource()
+                        .addValue("resourceType", resourceType)
+                        .addValue("resourceId", resourceId)
+                        .addValue("kind", kind.name())
+                        .addValue("occurred", new Timestamp(occurred))
+                        .addValue("type", loggingInfo != null && loggingInfo.getType() != null
+                                ? loggingInfo.getType() : "")
+                        .addValue("actionType", loggingInfo != null ? loggingInfo.getActionType() : null)
+                        .addValue("userRole", loggingInfo != null ? loggingInfo.getUserRole() : null)
+                        .addValue("userEmail", loggingInfo != null ? loggingInfo.getUserEmail() : null));
+    }
+
+    /**
+     * Returns the changes that occurred in [from, to), oldest first.
+     *
+     * @param from inclusive start
+     * @param to   exclusive end
+     * @return the changes
+     */
+    public List<Change> getChanges(Date from, Date to) {
+        return jdbcTemplate.query("SELECT * FROM notification_change WHERE occurred >= :from AND occurred < :to " +
+                        "ORDER BY occurred, id",
+                new MapSqlParameterSource()
+                        .addValue("from", new Timestamp(from.getTime()))
+                        .addValue("to", new Timestamp(to.getTime())),
+                CHANGE_ROW_MAPPER);
+    }
+
+    /**
+     * Marks a digest as sent to a recipient, unless it already was.
+     *
+     * @param digest    the digest
+     * @param period    the period the digest covers
+     * @param recipient the recipient's email
+     * @param reference what the digest is about, e.g. a provider ID, or an empty string
+     * @return true if the digest had not been sent to the recipient
+     */
+    public boolean claim(String digest, String period, String recipient, String reference) {
+        return jdbcTemplate.update("INSERT INTO notification_send_log (digest, period, recipient, reference, sent) " +
+                        "VALUES (:digest, :period, :recipient, :reference, :sent) ON CONFLICT DO NOTHING",
+                sendLogParameters(digest, period, recipient, reference)
+                        .addValue("sent", new Timestamp(System.currentTimeMillis()))) > 0;
+    }
+
+    /**
+     * Removes a claim whose mail could not be sent, so that the next run retries it.
+     */
+    public void release(String digest, String period, String recipient, String reference) {
+        jdbcTemplate.update("DELETE FROM notification_send_log WHERE digest = :digest AND period = :period " +
+                        "AND recipient = :recipient AND reference = :reference",
+                sendLogParameters(digest, period, recipient, reference));
+    }
+
+    /**
+     * Deletes the changes and the send log entries older than the retention.
+     */
+    public void purge() {
+        Timestamp expired = new Timestamp(System.currentTimeMillis() - retention);
+        jdbcTemplate.update("DELETE FROM notification_change WHERE occurred < :expired",
+                new MapSqlParameterSource("expired", expired));
+        jdbcTemplate.update("DELETE FROM notification_send_log WHERE sent < :expired",
+                new MapSqlParameterSource("expired", expired));
+    }
+
+    private static MapSqlParameterSource sendLogParameters(String digest, String period, String recipient,
+                                                           String reference) {
+        return new MapSqlParameterSource()
+                .addValue("digest", digest)
+                .addValue("period", period)
+                .addValue("recipient", recipient)
+                .addValue("reference", reference);
+    }
+
+    private static Long millis(String value) {
+        return value != null && value.matches("[0-9]+") ? Long.parseLong(value) : null;
+    }
+
+    /**
+     * A provider waiting for an approval or for its first resource.
+     */
+    public static class PendingProvider {
+
+        private final String id;
+        private final String name;
+        private final String status;
+        private final String templateStatus;
+
+        public PendingProvider(String id, String name, String status, String templateStatus) {
+            this.id = id;
+            this.name = name;
+            this.status = status;
+            this.templateStatus = templateStatus;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getTemplateStatus() {
+            return templateStatus;
+        }
+    }
+
+    /**
+     * A registration, an update or a logging entry of a provider or a service.
+     */
+    public static class Change {
+
+        public enum Kind {
+            REGISTERED, UPDATED, LOGGED
+        }
+
+        private final String resourceType;
+        private final String resourceId;
+        private final Kind kind;
+        private final Date occurred;
+        private LoggingInfo loggingInfo;
+
+        public Change(String resourceType, String resourceId, Kind kind, Date occurred) {
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+            this.kind = kind;
+            this.occurred = occurred;
+        }
+
+        public String getResourceType() {
+            return resourceType;
+        }
+
+        public String getResourceId() {
+            return resourceId;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public Date getOccurred() {
+            return occurred;
+        }
+
+        public LoggingInfo getLoggingInfo() {
+            return loggingInfo;
+        }
+
+        public void setLoggingInfo(LoggingInfo loggingInfo) {
+            this.loggingInfo = loggingInfo;
+        }
+    }
+}
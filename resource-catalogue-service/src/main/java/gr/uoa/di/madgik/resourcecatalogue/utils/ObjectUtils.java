@@ -1,6 +1,5 @@
 package gr.uoa.di.madgik.resourcecatalogue.utils;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,17 +12,14 @@ public class ObjectUtils {
     }
 
     private static final Logger logger = LoggerFactory.getLogger(ObjectUtils.class);
+    private static final DeepCopier copier = new DeepCopier(new ObjectMapper());
 
+    /**
+     * Creates a deep copy of the given object, equal to the one produced by serializing it to json and reading it
+     * back, without the intermediate text.
+     */
     public static <T> T clone(T object) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        T deepCopy = null;
-        try {
-            String json = objectMapper.writeValueAsString(object);
-            deepCopy = (T) objectMapper.readValue(json, object.getClass());
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
-        return deepCopy;
+        return copier.copy(object);
     }
 
     public static Object merge(Object existing, Object update) {
@@ -156,96 +156,53 @@ public class ProviderResourcesCommonMethods {
                 catalogueId = ((ResourceInteroperabilityRecordBundle) o).getResourceInteroperabilityRecord().getCatalogueId();
                 interoperabilityRecordIds = ((ResourceInteroperabilityRecordBundle) o).getResourceInteroperabilityRecord().getInteroperabilityRecordIds();
             }
-            if (resourceProviders != null && !resourceProviders.isEmpty() && resourceProviders.stream().anyMatch(Objects::nonNull)) {
-                for (String resourceProvider : resourceProviders) {
-                    if (resourceProvider != null && !resourceProvider.isEmpty()) {
-                        try {
-                            //FIXME: get(resourceTypeName, id) won't work as intended if there are 2 or more resources with the same ID
-                            ProviderBundle providerBundle = genericResourceService.get("provider", resourceProvider);
-                            if (!providerBundle.getMetadata().isPublished() && !providerBundle.getProvider().getCatalogueId().equals(catalogueId)) {
-                                throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'resourceProviders");
-                            }
-                        } catch (ResourceNotFoundException e) {
-                        }
-                    }
-                }
-            }
-            if (requiredResources != null && !requiredResources.isEmpty() && requiredResources.stream().anyMatch(Objects::nonNull)) {
-                for (String requiredResource : requiredResources) {
-                    if (requiredResource != null && !requiredResource.isEmpty()) {
-                        try {
-                            ServiceBundle serviceBundle = genericResourceService.get("service", requiredResource);
-                            if (!serviceBundle.getMetadata().isPublished() && !serviceBundle.getService().getCatalogueId().equals(catalogueId)) {
-                                throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'requiredResources");
-                            }
-                        } catch (ResourceNotFoundException j) {
-                            try {
-                                TrainingResourceBundle trainingResourceBundle = genericResourceService.get("training_resource", requiredResource);
-                                if (!trainingResourceBundle.getMetadata().isPublished() && !trainingResourceBundle.getTrainingResource().getCatalogueId().equals(catalogueId)) {
-                                    throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'requiredResources");
-                                }
-                            } catch (ResourceNotFoundException k) {
-                            }
-                        }
-                    }
-                }
-            }
-            if (relatedResources != null && !relatedResources.isEmpty() && relatedResources.stream().anyMatch(Objects::nonNull)) {
-                for (String relatedResource : relatedResources) {
-                    if (relatedResource != null && !relatedResource.isEmpty()) {
-                        try {
-                            ServiceBundle serviceBundle = genericResourceService.get("service", relatedResource);
-                            if (!serviceBundle.getMetadata().isPublished() && !serviceBundle.getService().getCatalogueId().equals(catalogueId)) {
-                                throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'relatedResources");
-                            }
-                        } catch (ResourceNotFoundException j) {
-                            try {
-                                TrainingResourceBundle trainingResourceBundle = genericResourceService.get("training_resource", relatedResource);
-                                if (!trainingResourceBundle.getMetadata().isPublished() && !trainingResourceBundle.getTrainingResource().getCatalogueId().equals(catalogueId)) {
-                                    throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'relatedResources");
-                                }
-                            } catch (ResourceNotFoundException k) {
-                            }
-                        }
-                    }
-                }
-            }
-            if (eoscRelatedServices != null && !eoscRelatedServices.isEmpty() && eoscRelatedServices.stream().anyMatch(Objects::nonNull)) {
-                for (String eoscRelatedService : eoscRelatedServices) {
-                    if (eoscRelatedService != null && !eoscRelatedService.isEmpty()) {
-                        try {
-                            ServiceBundle serviceBundle = genericResourceService.get("service", eoscRelatedService);
-                            if (!serviceBundle.getMetadata().isPublished() && !serviceBundle.getService().getCatalogueId().equals(catalogueId)) {
-                                throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'eoscRelatedServices");
-                            }
-                        } catch (ResourceNotFoundException j) {
-                            try {
-                                TrainingResourceBundle trainingResourceBundle = genericResourceService.get("training_resource", eoscRelatedService);
-                                if (!trainingResourceBundle.getMetadata().isPublished() && !trainingResourceBundle.getTrainingResource().getCatalogueId().equals(catalogueId)) {
-                                    throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'eoscRelatedServices");
-                                }
-                            } catch (ResourceNotFoundException k) {
-                            }
-                        }
-                    }
-                }
-            }
-            if (interoperabilityRecordIds != null && !interoperabilityRecordIds.isEmpty() && interoperabilityRecordIds.stream().anyMatch(Objects::nonNull)) {
-                for (String interoperabilityRecordId : interoperabilityRecordIds) {
-                    if (interoperabilityRecordId != null && !interoperabilityRecordId.isEmpty()) {
-                        try {
-                            InteroperabilityRecordBundle interoperabilityRecordBundle = genericResourceService.get("interoperability_record", interoperabilityRecordId);
-                            if (!interoperabilityRecordBundle.getMetadata().isPublished() && !interoperabilityRecordBundle.getInteroperabilityRecord().getCatalogueId().equals(catalogueId)) {
-                                throw new ValidationException("Cross Catalogue reference is prohibited. Found in field 'interoperabilityRecordIds");
-                            }
-                        } catch (ResourceNotFoundException e) {
-                        }
-                    }
-                }
+            //FIXME: lookups won't work as intended if there are 2 or more resources with the same ID
+            checkCrossCatalogueReferences(genericResourceService.getBulk(nonNull(resourceProviders), "provider"),
+                    resourceProviders, catalogueId, "resourceProviders");
+
+            // required, related and EOSC related resources can be either Services or Training Resources
+            List<String> resourceIds = new ArrayList<>(nonNull(requiredResources));
+            resourceIds.addAll(nonNull(relatedResources));
+            resourceIds.addAll(nonNull(eoscRelatedServices));
+            BulkLookup<Bundle<?>> resources = genericResourceService.getBulk(resourceIds, "service", "training_resource");
+            checkCrossCatalogueReferences(resources, requiredResources, catalogueId, "requiredResources");
+            checkCrossCatalogueReferences(resources, relatedResources, catalogueId, "relatedResources");
+            checkCrossCatalogueReferences(resources, eoscRelatedServices, catalogueId, "eoscRelatedServices");
+
+            checkCrossCatalogueReferences(
+                    genericResourceService.getBulk(nonNull(interoperabilityRecordIds), "interoperability_record"),
+                    interoperabilityRecordIds, catalogueId, "interoperabilityRecordIds");
+        }
+    }
+
+    private static List<String> nonNull(List<String> ids) {
+        return ids != null ? ids : Collections.emptyList();
+    }
+
+    private static void checkCrossCatalogueReferences(BulkLookup<? extends Bundle<?>> lookup, List<String> ids,
+                                                      String catalogueId, String field) {
+        for (String id : nonNull(ids)) {
+            Bundle<?> bundle = lookup.get(id);
+            if (bundle != null && !bundle.getMetadata().isPublished()
+                    && !getCatalogueId(bundle).equals(catalogueId)) {
+                throw new ValidationException(String.format("Cross Catalogue reference is prohibited. Found in field '%s", field));
             }
         }
     }
 
+    private static String getCatalogueId(Bundle<?> bundle) {
+        if (bundle instanceof ProviderBundle) {
+            return ((ProviderBundle) bundle).getProvider().getCatalogueId();
+        } else if (bundle instanceof ServiceBundle) {
+            return ((ServiceBundle) bundle).getService().getCatalogueId();
+        } else if (bundle instanceof TrainingResourceBundle) {
+            return ((TrainingResourceBundle) bundle).getTrainingResource().getCatalogueId();
+        } else if (bundle instanceof InteroperabilityRecordBundle) {
+            return ((InteroperabilityRecordBundle) bundle).getInteroperabilityRecord().getCatalogueId();
+        }
+        throw new IllegalArgumentException(String.format("Unexpected resource '%s'", bundle.getId()));
+    }
+
     public void suspendResource(Bundle<?> bundle, boolean suspend, Authentication auth) {
         if (bundle != null) {
             bundle.setSuspended(suspend);
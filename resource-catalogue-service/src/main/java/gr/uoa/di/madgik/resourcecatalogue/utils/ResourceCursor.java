@@ -0,0 +1,203 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over all the resources matching a query, fetching them lazily in pages ordered by creation date, and by
+ * 'resource_internal_id' for resources created at the same time. Each page starts from the creation date of the last
+ * resource seen, instead of an offset, so iterating is not limited by the max result window and is not affected by
+ * resources being deleted in the meantime. When a whole page shares the same creation date, the resources of that
+ * date are paged by their 'resource_internal_id' instead. Since the order is stable, an iteration can be resumed
+ * after the last resource it returned.
+ */
+public class ResourceCursor implements Iterator<Resource> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceCursor.class);
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SearchService searchService;
+    private final String resourceType;
+    private final String query;
+    private final int pageSize;
+
+    // the resources created before this date were returned
+    private long lastCreationDate = 0;
+    // the last 'resource_internal_id' seen, while paging through the resources of the last creation date by id
+    private String lastInternalId = null;
+    private Iterator<Resource> page = Collections.emptyIterator();
+    private boolean lastPage = false;
+
+    /**
+     * @param searchService the search service
+     * @param resourceType  resource type name
+     * @param query         cql query, or null for all the resources
+     * @param pageSize      number of resources fetched per page
+     */
+    public ResourceCursor(SearchService searchService, String resourceType, String query, int pageSize) {
+        this.searchService = searchService;
+        this.resourceType = resourceType;
+        this.query = query;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Streams all the resources of the given type matching the filters of the {@link FacetFilter}.
+     * Paging, ordering and browseBy of the filter are ignored.
+     */
+    public static Stream<Resource> stream(SearchService searchService, String resourceType, FacetFilter filter) {
+        return stream(new ResourceCursor(searchService, resourceType, toCql(filter), DEFAULT_PAGE_SIZE));
+    }
+
+    /**
+     * Starts the iteration after the given resource, as returned by a previous iteration of the same query.
+     *
+     * @param resource the last resource returned
+     * @return this cursor
+     */
+    public ResourceCursor after(Resource resource) {
+        lastCreationDate = resource.getCreationDate().getTime();
+        lastInternalId = internalId(resource);
+        return this;
+    }
+
+    public static Stream<Resource> stream(ResourceCursor cursor) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Creates a cql query matching the filters of the given {@link FacetFilter}. Values of the same filter are
+     * combined with OR, different filters with AND.
+     *
+     * @param filter the facet filter
+     * @return the query, or null if there are no filters
+     */
+    public static String toCql(FacetFilter filter) {
+        if (filter == null) {
+            return null;
+        }
+        if (filter.getKeyword() != null && !filter.getKeyword().trim().isEmpty()) {
+            throw new IllegalArgumentException("Keyword search cannot be streamed");
+        }
+        List<String> clauses = new ArrayList<>();
+        for (Map.Entry<String, List<Object>> entry : FacetFilterUtils.getFacetFilterFilters(filter).entrySet()) {
+            if (FacetFilterUtils.SEARCH_FIELDS.equals(entry.getKey()) || entry.getValue().isEmpty()) {
+                continue;
+            }
+            List<String> terms = new ArrayList<>();
+            for (Object value : entry.getValue()) {
+                terms.add(String.format("%s=%s", entry.getKey(), quote(String.valueOf(value))));
+            }
+            clauses.add(terms.size() > 1 ? String.format("(%s)", String.join(" OR ", terms)) : terms.get(0));
+        }
+        return clauses.isEmpty() ? null : String.join(" AND ", clauses);
+    }
+
+    /**
+     * Quotes a value of a cql query, escaping backslashes and double quotes.
+     */
+    public static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Returns the 'resource_internal_id' of a resource, i.e. the 'id' of its json payload, or of the object it wraps
+     * (e.g. the service of a service bundle).
+     */
+    static String internalId(Resource resource) {
+        try {
+            JsonNode payload = objectMapper.readTree(resource.getPayload());
+            if (payload.path("id").isTextual()) {
+                return payload.get("id").asText();
+            }
+            for (Iterator<JsonNode> it = payload.elements(); it.hasNext(); ) {
+                JsonNode field = it.next();
+                if (field.path("id").isTextual()) {
+                    return field.get("id").asText();
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Could not read the id of resource [{}]", resource.getId(), e);
+        }
+        return resource.getId();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !lastPage) {
+            page = fetchPage().iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public Resource next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    private List<Resource> fetchPage() {
+        if (lastInternalId != null) {
+            return fetchPageOfLastCreationDate();
+        }
+        String bound = String.format("creation_date >= %s", lastCreationDate);
+        List<Resource> results = searchService.cqlQuery(query == null ? bound : query + " AND " + bound,
+                resourceType, pageSize, 0, "creation_date", "ASC").getResults();
+        lastPage = results.size() < pageSize;
+        if (results.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long pageCreationDate = results.get(results.size() - 1).getCreationDate().getTime();
+        if (!lastPage && sameCreationDate(results)) {
+            // a whole page shares the same creation date, so it cannot be paged by date
+            logger.debug("More than {} '{}' resources created at {}, paging them by id", pageSize, resourceType,
+                    pageCreationDate);
+            lastCreationDate = pageCreationDate;
+            lastInternalId = "";
+            return Collections.emptyList();
+        }
+
+        List<Resource> resources = new ArrayList<>(results);
+        if (!lastPage) {
+            // the resources of the last creation date may continue in the next page, which starts from that date
+            resources.removeIf(resource -> resource.getCreationDate().getTime() == pageCreationDate);
+            lastCreationDate = pageCreationDate;
+        }
+        Map<Resource, String> internalIds = new IdentityHashMap<>();
+        resources.sort(Comparator.comparingLong((Resource resource) -> resource.getCreationDate().getTime())
+                .thenComparing(resource -> internalIds.computeIfAbsent(resource, ResourceCursor::internalId)));
+        return resources;
+    }
+
+    private List<Resource> fetchPageOfLastCreationDate() {
+        String bound = String.format("creation_date = %s AND resource_internal_id > %s", lastCreationDate,
+                quote(lastInternalId));
+        List<Resource> results = searchService.cqlQuery(query == null ? bound : query + " AND " + bound,
+                resourceType, pageSize, 0, "resource_internal_id", "ASC").getResults();
+        if (!results.isEmpty()) {
+            lastInternalId = internalId(results.get(results.size() - 1));
+        }
+        if (results.size() < pageSize) {
+            // all the resources of the creation date were seen, continue with the next one
+            lastCreationDate++;
+            lastInternalId = null;
+        }
+        return results;
+    }
+
+    private static boolean sameCreationDate(List<Resource> results) {
+        return results.get(0).getCreationDate().getTime() == results.get(results.size() - 1).getCreationDate().getTime();
+    }
+}
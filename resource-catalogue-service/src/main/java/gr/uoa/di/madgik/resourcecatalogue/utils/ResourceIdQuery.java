@@ -0,0 +1,58 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the resources of a resource type having any of the given ids, using one query per batch of ids instead of
+ * one query per id. The ids of a batch are given as a single 'resource_internal_id' filter, the same way the bulk
+ * lookups of the managers do.
+ */
+public class ResourceIdQuery {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceIdQuery.class);
+    public static final int BATCH_SIZE = 100;
+    // the same id may exist in more than one catalogue
+    private static final int MAX_RESULTS_PER_BATCH = BATCH_SIZE * 10;
+
+    private ResourceIdQuery() {
+    }
+
+    /**
+     * Returns the resources of the given type whose 'resource_internal_id' is one of the given ids, ordered by
+     * creation date within each batch. Null, empty and duplicate ids are ignored.
+     *
+     * @param searchService the search service
+     * @param resourceType  resource type name
+     * @param ids           resource ids
+     * @return the matching resources
+     */
+    public static List<Resource> search(SearchService searchService, String resourceType, Collection<String> ids) {
+        List<String> distinct = ids.stream()
+                .filter(id -> id != null && !id.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        List<Resource> resources = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+            List<String> batch = distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size()));
+            FacetFilter ff = new FacetFilter();
+            ff.setResourceType(resourceType);
+            ff.setQuantity(MAX_RESULTS_PER_BATCH);
+            ff.addFilter("resource_internal_id", new ArrayList<>(batch));
+            ff.addOrderBy("creation_date", "asc");
+            List<Resource> results = searchService.search(ff).getResults();
+            if (results.size() >= MAX_RESULTS_PER_BATCH) {
+                logger.warn("Lookup of {} '{}' ids was truncated to {} results", batch.size(), resourceType,
+                        MAX_RESULTS_PER_BATCH);
+            }
+            resources.addAll(results);
+        }
+        return resources;
+    }
+}
@@ -14,14 +14,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 @Service
 public class FieldValidator {
@@ -34,11 +32,17 @@ public class FieldValidator {
     private final TrainingResourceService trainingResourceService;
     private final CatalogueService catalogueService;
     private final InteroperabilityRecordService interoperabilityRecordService;
+    private final UrlReachabilityChecker urlReachabilityChecker;
 
     private static final String MANDATORY_FIELD = "Field '%s' is mandatory.";
     private static final String NULL_OBJECT = "Attempt to validate null object..";
+    private static final Pattern PHONE_PATTERN = Pattern.compile("^(((\\+)|(00))\\d{1,3}( )?)?((\\(\\d{3}\\))|\\d{3})[- .]?\\d{3}[- .]?\\d{4}$");
+    private static final Field BUNDLE_PAYLOAD = getPayloadField();
 
-    private Deque<String> validationLocation;
+    /**
+     * Validation plans per class, built once on first use. Plans are immutable, so they are shared between threads.
+     */
+    private final Map<Class<?>, List<FieldPlan>> plans = new ConcurrentHashMap<>();
 
     @Autowired
     public FieldValidator(VocabularyService vocabularyService,
@@ -46,160 +50,144 @@ public class FieldValidator {
                           @Lazy ServiceBundleService serviceBundleService,
                           @Lazy TrainingResourceService trainingResourceService,
                           @Lazy CatalogueService catalogueService,
-                          @Lazy InteroperabilityRecordService interoperabilityRecordService) {
+                          @Lazy InteroperabilityRecordService interoperabilityRecordService,
+                          UrlReachabilityChecker urlReachabilityChecker) {
         this.vocabularyService = vocabularyService;
         this.providerService = providerService;
         this.serviceBundleService = serviceBundleService;
         this.catalogueService = catalogueService;
         this.interoperabilityRecordService = interoperabilityRecordService;
         this.trainingResourceService = trainingResourceService;
+        this.urlReachabilityChecker = urlReachabilityChecker;
     }
 
-    private String getCurrentLocation() {
-        return validationLocation.stream().filter(Objects::nonNull).collect(Collectors.joining("->"));
+    private static Field getPayloadField() {
+        try {
+            Field payload = Bundle.class.getDeclaredField("payload");
+            payload.setAccessible(true);
+            return payload;
+        } catch (NoSuchFieldException e) {
+            logger.error("Could not find field 'payload'", e);
+            return null;
+        }
     }
 
     public void validate(Object o) throws IllegalAccessException {
-        validationLocation = new ArrayDeque<>();
-        validateFields(o);
-        if (o.getClass().getSuperclass() != null && (o.getClass().getSuperclass().getCanonicalName().contains("gr.uoa.di.madgik.resourcecatalogue.domain.Bundle"))) {
-            try {
-                Field payload = Bundle.class.getDeclaredField("payload");
-                payload.setAccessible(true);
-                o = payload.get(o);
-            } catch (NoSuchFieldException e) {
-                logger.error("Could not find field 'payload'", e);
-            }
-            validateFields(o);
+        // the state is kept per call, so that concurrent validations do not interfere with each other
+        ValidationContext context = new ValidationContext();
+        validateFields(o, context);
+        if (o.getClass().getSuperclass() != null && Bundle.class.equals(o.getClass().getSuperclass()) && BUNDLE_PAYLOAD != null) {
+            validateFields(BUNDLE_PAYLOAD.get(o), context);
         }
+        // URLs are checked all together, once the traversal is done
+        urlReachabilityChecker.check(context.urls);
     }
 
-    private void validateFields(Object o) throws IllegalAccessException {
+    private void validateFields(Object o, ValidationContext context) throws IllegalAccessException {
         if (o == null) {
             throw new ValidationException(NULL_OBJECT);
         }
 
-        // get declared fields of class
-        List<Field> declaredFields = new ArrayList<>(Arrays.asList(o.getClass().getDeclaredFields()));
-        if (o instanceof ServiceBundle) {
-            declaredFields.addAll(Arrays.asList(o.getClass().getSuperclass().getDeclaredFields()));
-        }
-        if (o instanceof TrainingResourceBundle) {
-            declaredFields.addAll(Arrays.asList(o.getClass().getSuperclass().getDeclaredFields()));
-        }
-        if (o instanceof InteroperabilityRecordBundle) {
-            declaredFields.addAll(Arrays.asList(o.getClass().getSuperclass().getDeclaredFields()));
-        }
-
-        // validate every field
-        for (Field field : declaredFields) {
-            validationLocation.addLast(field.getName());
-            validateField(field, o);
-            validationLocation.removeLast();
+        // validate every annotated field
+        for (FieldPlan plan : plans.computeIfAbsent(o.getClass(), FieldValidator::createPlan)) {
+            context.location.addLast(plan.name);
+            switch (plan.kind) {
+                case EMAIL:
+                    validateEmail(plan, o, context);
+                    break;
+                case PHONE:
+                    validatePhone(plan, o, context);
+                    break;
+                default:
+                    validateField(plan, o, context);
+            }
+            context.location.removeLast();
         }
     }
 
-    private void validateField(Field field, Object o) throws IllegalAccessException {
-        if (o == null) { // parent object here
-            throw new ValidationException(NULL_OBJECT);
-        }
-
-        // email validation
-        if (field.getAnnotation(EmailValidation.class) != null) {
-            validateEmail(field, o, field.getAnnotation(EmailValidation.class));
-            return;
-        }
-
-        // phone validation
-        if (field.getAnnotation(PhoneValidation.class) != null) {
-            validatePhone(field, o, field.getAnnotation(PhoneValidation.class));
-            return;
+    /**
+     * Resolves the fields of the given class along with their validation annotations. Fields without any validation
+     * annotation are left out, since there is nothing to check on them.
+     */
+    private static List<FieldPlan> createPlan(Class<?> clazz) {
+        // get declared fields of class
+        List<Field> declaredFields = new ArrayList<>(Arrays.asList(clazz.getDeclaredFields()));
+        if (ServiceBundle.class.isAssignableFrom(clazz)
+                || TrainingResourceBundle.class.isAssignableFrom(clazz)
+                || InteroperabilityRecordBundle.class.isAssignableFrom(clazz)) {
+            declaredFields.addAll(Arrays.asList(clazz.getSuperclass().getDeclaredFields()));
         }
 
-        // check if FieldValidation annotation exists
-        Annotation vocabularyValidation = field.getAnnotation(VocabularyValidation.class);
-        Annotation geoLocationVocValidation = field.getAnnotation(GeoLocationVocValidation.class);
-        Annotation annotation = field.getAnnotation(FieldValidation.class);
-        if (vocabularyValidation != null && annotation == null) {
-            annotation = vocabularyValidation.annotationType().getAnnotation(FieldValidation.class);
-        }
-        // region/countries validation
-        if (geoLocationVocValidation != null && annotation == null) {
-            annotation = geoLocationVocValidation.annotationType().getAnnotation(FieldValidation.class);
+        List<FieldPlan> plan = new ArrayList<>();
+        for (Field field : declaredFields) {
+            FieldPlan fieldPlan = FieldPlan.of(field);
+            if (fieldPlan != null) {
+                plan.add(fieldPlan);
+            }
         }
-
-        validateField(field, o, (FieldValidation) annotation);
+        return Collections.unmodifiableList(plan);
     }
 
-    private void validatePhone(Field field, Object o, PhoneValidation annotation) throws IllegalAccessException {
-        field.setAccessible(true);
-        o = field.get(o);
-        if (annotation.nullable() && (o == null || o.equals(""))) {
+    private void validatePhone(FieldPlan plan, Object o, ValidationContext context) throws IllegalAccessException {
+        o = plan.field.get(o);
+        if (plan.phoneValidation.nullable() && (o == null || o.equals(""))) {
             return;
         } else if (o == null) {
-            throw new ValidationException(String.format(MANDATORY_FIELD, getCurrentLocation()));
+            throw new ValidationException(String.format(MANDATORY_FIELD, context.getCurrentLocation()));
         }
-        Pattern phonePattern = Pattern.compile("^(((\\+)|(00))\\d{1,3}( )?)?((\\(\\d{3}\\))|\\d{3})[- .]?\\d{3}[- .]?\\d{4}$");
-        if (!phonePattern.matcher(o.toString()).matches()) {
-            throw new ValidationException(String.format("The phone you provided [%s] is not valid. Found in field [%s]", o, getCurrentLocation()));
+        if (!PHONE_PATTERN.matcher(o.toString()).matches()) {
+            throw new ValidationException(String.format("The phone you provided [%s] is not valid. Found in field [%s]", o, context.getCurrentLocation()));
         }
     }
 
-    private void validateEmail(Field field, Object o, EmailValidation annotation) throws IllegalAccessException {
-        field.setAccessible(true);
-        o = field.get(o);
-        if (annotation.nullable() && (o == null || o.equals(""))) {
+    private void validateEmail(FieldPlan plan, Object o, ValidationContext context) throws IllegalAccessException {
+        o = plan.field.get(o);
+        if (plan.emailValidation.nullable() && (o == null || o.equals(""))) {
             return;
         } else if (o == null) {
-            throw new ValidationException(String.format(MANDATORY_FIELD, getCurrentLocation()));
+            throw new ValidationException(String.format(MANDATORY_FIELD, context.getCurrentLocation()));
         }
         EmailValidator emailValidator = EmailValidator.getInstance();
         if (!emailValidator.isValid(o.toString())) {
-            throw new ValidationException(String.format("Email [%s] is not valid. Found in field [%s]", o, getCurrentLocation()));
+            throw new ValidationException(String.format("Email [%s] is not valid. Found in field [%s]", o, context.getCurrentLocation()));
         }
     }
 
-    private void validateField(Field field, Object o, FieldValidation annotation) throws IllegalAccessException {
-        if (o == null) {
-            throw new ValidationException(NULL_OBJECT);
-        }
-
-        if (annotation != null) {
-
-            field.setAccessible(true);
-
-            Object fieldValue = field.get(o);
-            Class clazz = null;
-            if (fieldValue != null) {
-                clazz = field.get(o).getClass();
-
-                if (Collection.class.isAssignableFrom(fieldValue.getClass())) {
-                    removeNullOrEmptyEntries((Collection) fieldValue);
-                    field.set(o, fieldValue);
-                } else if ((String.class.isAssignableFrom(fieldValue.getClass())
-                        || URL.class.isAssignableFrom(fieldValue.getClass()))
-                        && "".equals(fieldValue)) {
-                    fieldValue = null;
-                    field.set(o, fieldValue);
-                }
+    private void validateField(FieldPlan plan, Object o, ValidationContext context) throws IllegalAccessException {
+        Field field = plan.field;
+        FieldValidation annotation = plan.fieldValidation;
+
+        Object fieldValue = field.get(o);
+        Class clazz = null;
+        if (fieldValue != null) {
+            clazz = fieldValue.getClass();
+
+            if (Collection.class.isAssignableFrom(fieldValue.getClass())) {
+                removeNullOrEmptyEntries((Collection) fieldValue);
+                field.set(o, fieldValue);
+            } else if ((String.class.isAssignableFrom(fieldValue.getClass())
+                    || URL.class.isAssignableFrom(fieldValue.getClass()))
+                    && "".equals(fieldValue)) {
+                fieldValue = null;
+                field.set(o, fieldValue);
             }
+        }
 
-            if (!annotation.nullable() && isNullOrEmpty(fieldValue, clazz)) {
-                throw new ValidationException(String.format(MANDATORY_FIELD, getCurrentLocation()));
-            }
+        if (!annotation.nullable() && isNullOrEmpty(fieldValue, clazz)) {
+            throw new ValidationException(String.format(MANDATORY_FIELD, context.getCurrentLocation()));
+        }
 
-            validateMaxLength(field, fieldValue, annotation);
-            validateUrlValidity(field, fieldValue);
-            validateDuplicates(field, fieldValue);
-
-            if (annotation.containsId()) {
-                validateIds(field, fieldValue, annotation);
-            } else if (fieldValue != null && fieldValue.getClass().getCanonicalName().startsWith("gr.uoa.di.madgik.")) {
-                validateFields(fieldValue);
-            } else if (fieldValue != null && Collection.class.isAssignableFrom(fieldValue.getClass())) {
-                for (Object entry : ((Collection) fieldValue)) {
-                    validateFields(entry);
-                }
+        validateMaxLength(field, fieldValue, annotation);
+        validateUrlValidity(field, fieldValue, context);
+        validateDuplicates(field, fieldValue);
+
+        if (annotation.containsId()) {
+            validateIds(plan, fieldValue);
+        } else if (fieldValue != null && fieldValue.getClass().getCanonicalName().startsWith("gr.uoa.di.madgik.")) {
+            validateFields(fieldValue, context);
+        } else if (fieldValue != null && Collection.class.isAssignableFrom(fieldValue.getClass())) {
+            for (Object entry : ((Collection) fieldValue)) {
+                validateFields(entry, context);
             }
         }
     }
@@ -235,60 +223,32 @@ public class FieldValidator {
         }
     }
 
-    private void validateUrlValidity(Field field, Object o) {
+    private void validateUrlValidity(Field field, Object o, ValidationContext context) {
         if (o != null) {
             Class clazz = o.getClass();
             if (URL.class.equals(clazz)) {
-                URL url = (URL) o;
-                validateUrl(field, url);
+                context.urls.add(new UrlReachabilityChecker.Target(field.getName(), (URL) o));
             } else if (ArrayList.class.equals(clazz) && !((ArrayList) o).isEmpty() && URL.class.equals(((ArrayList) o).get(0).getClass())) {
                 for (int i = 0; i < ((ArrayList) o).size(); i++) {
-                    URL url = (URL) ((ArrayList) o).get(i);
-                    validateUrl(field, url);
+                    context.urls.add(new UrlReachabilityChecker.Target(field.getName(), (URL) ((ArrayList) o).get(i)));
                 }
             }
         }
     }
 
     public void validateUrl(Field field, URL urlForValidation) {
-        HttpsTrustManager.allowAllSSL();
-        HttpURLConnection huc;
-        int statusCode = 0;
-
-        try {
-            // replace spaces with %20
-            if (urlForValidation.toString().contains(" ")) {
-                urlForValidation = new URL(urlForValidation.toString().replaceAll("\\s", "%20"));
-            }
-
-            // open connection and get response code
-            huc = (HttpURLConnection) urlForValidation.openConnection();
-            assert huc != null;
-            huc.setRequestMethod("HEAD");
-            huc.setConnectTimeout(5000);
-            statusCode = huc.getResponseCode();
-        } catch (java.net.SocketTimeoutException e) {
-            throw new ValidationException("URI provided is not valid, or takes too long to load. Found in field " + field.getName());
-        } catch (IOException e) {
-            logger.trace(e.getMessage());
-        }
-
-//        if (statusCode != 200 && statusCode != 301 && statusCode != 302 && statusCode != 308
-//                && statusCode != 403 && statusCode != 405 && statusCode != 503) {
-//            if (field == null) {
-//                throw new ValidationException(String.format("The URL '%s' you provided is not valid.", urlForValidation));
-//            } else {
-//                throw new ValidationException(String.format("The URL '%s' you provided is not valid. Found in field '%s'", urlForValidation, field.getName()));
-//            }
-//        }
+        urlReachabilityChecker.checkNow(Collections.singletonList(
+                new UrlReachabilityChecker.Target(field != null ? field.getName() : null, urlForValidation)));
     }
 
     // TODO: find a better way to get resources by id
-    private void validateIds(Field field, Object o, FieldValidation annotation) {
+    private void validateIds(FieldPlan plan, Object o) {
+        Field field = plan.field;
+        FieldValidation annotation = plan.fieldValidation;
         if (o != null && annotation.containsId()) {
             if (Collection.class.isAssignableFrom(o.getClass())) {
                 for (Object entry : ((Collection) o)) {
-                    validateIds(field, entry, annotation);
+                    validateIds(plan, entry);
                 }
             } else if (String.class.equals(o.getClass())) {
                 try {
@@ -302,8 +262,8 @@ public class FieldValidator {
                         }
                     } else if (Vocabulary.class.equals(annotation.idClass())) {
                         Vocabulary voc = vocabularyService.get(o.toString());
-                        VocabularyValidation vocabularyValidation = field.getAnnotation(VocabularyValidation.class);
-                        GeoLocationVocValidation geoLocationVocValidation = field.getAnnotation(GeoLocationVocValidation.class);
+                        VocabularyValidation vocabularyValidation = plan.vocabularyValidation;
+                        GeoLocationVocValidation geoLocationVocValidation = plan.geoLocationVocValidation;
                         if (vocabularyValidation != null) {
                             if (voc == null || Vocabulary.Type.fromString(voc.getType()) != vocabularyValidation.type()) {
                                 throw new ValidationException(
@@ -379,7 +339,7 @@ public class FieldValidator {
 
     private void validateDuplicates(Field field, Object o) {
         Set<String> duplicateEntries = new HashSet<>();
-        String subField = field.toString().substring(field.toString().lastIndexOf(".") + 1);
+        String subField = field.getName();
         if (o != null) {
             Class clazz = o.getClass();
             if (ArrayList.class.equals(clazz)) {
@@ -391,4 +351,79 @@ public class FieldValidator {
             }
         }
     }
+
+    /**
+     * State of a single validation run.
+     */
+    private static final class ValidationContext {
+
+        private final Deque<String> location = new ArrayDeque<>();
+        private final List<UrlReachabilityChecker.Target> urls = new ArrayList<>();
+
+        private String getCurrentLocation() {
+            return String.join("->", location);
+        }
+    }
+
+    private enum ValidationKind {
+        EMAIL, PHONE, FIELD
+    }
+
+    /**
+     * Immutable validation plan of a single field: the accessible field along with its resolved annotations.
+     */
+    private static final class FieldPlan {
+
+        private final Field field;
+        private final String name;
+        private final ValidationKind kind;
+        private final EmailValidation emailValidation;
+        private final PhoneValidation phoneValidation;
+        private final FieldValidation fieldValidation;
+        private final VocabularyValidation vocabularyValidation;
+        private final GeoLocationVocValidation geoLocationVocValidation;
+
+        private FieldPlan(Field field, ValidationKind kind, EmailValidation emailValidation,
+                          PhoneValidation phoneValidation, FieldValidation fieldValidation) {
+            field.setAccessible(true);
+            this.field = field;
+            this.name = field.getName();
+            this.kind = kind;
+            this.emailValidation = emailValidation;
+            this.phoneValidation = phoneValidation;
+            this.fieldValidation = fieldValidation;
+            this.vocabularyValidation = field.getAnnotation(VocabularyValidation.class);
+            this.geoLocationVocValidation = field.getAnnotation(GeoLocationVocValidation.class);
+        }
+
+        private static FieldPlan of(Field field) {
+            // email validation
+            EmailValidation emailValidation = field.getAnnotation(EmailValidation.class);
+            if (emailValidation != null) {
+                return new FieldPlan(field, ValidationKind.EMAIL, emailValidation, null, null);
+            }
+
+            // phone validation
+            PhoneValidation phoneValidation = field.getAnnotation(PhoneValidation.class);
+            if (phoneValidation != null) {
+                return new FieldPlan(field, ValidationKind.PHONE, null, phoneValidation, null);
+            }
+
+            // check if FieldValidation annotation exists
+            Annotation vocabularyValidation = field.getAnnotation(VocabularyValidation.class);
+            Annotation geoLocationVocValidation = field.getAnnotation(GeoLocationVocValidation.class);
+            FieldValidation annotation = field.getAnnotation(FieldValidation.class);
+            if (vocabularyValidation != null && annotation == null) {
+                annotation = vocabularyValidation.annotationType().getAnnotation(FieldValidation.class);
+            }
+            // region/countries validation
+            if (geoLocationVocValidation != null && annotation == null) {
+                annotation = geoLocationVocValidation.annotationType().getAnnotation(FieldValidation.class);
+            }
+            if (annotation == null) {
+                return null;
+            }
+            return new FieldPlan(field, ValidationKind.FIELD, null, null, annotation);
+        }
+    }
 }
@@ -0,0 +1,258 @@
+package gr.uoa.di.madgik.resourcecatalogue.validators;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Checks the reachability of the URLs found in a resource. The URLs of a validation run are checked concurrently on
+ * virtual threads, bounded by a global concurrency limit, and the results are cached per normalized URL, in a cache
+ * bounded in size and time.
+ */
+@Component
+public class UrlReachabilityChecker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlReachabilityChecker.class);
+
+    public enum Mode {
+        /**
+         * Checks block the validation and a URL that takes too long to load fails it.
+         */
+        SYNC,
+        /**
+         * Checks run in the background after the validation and only a reachability report is logged.
+         */
+        ASYNC,
+        /**
+         * URLs are not checked at all.
+         */
+        OFF
+    }
+
+    private final Mode mode;
+    private final int timeout;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Cache<String, Reachability> cache;
+
+    public UrlReachabilityChecker(@Value("${catalogue.validation.url-check.mode:sync}") String mode,
+                                  @Value("${catalogue.validation.url-check.max-concurrency:16}") int maxConcurrency,
+                                  @Value("${catalogue.validation.url-check.timeout:5000}") int timeout,
+                                  @Value("${catalogue.validation.url-check.cache-ttl:3600000}") long cacheTtl,
+                                  @Value("${catalogue.validation.url-check.cache-size:10000}") long cacheSize) {
+        this.mode = Mode.valueOf(mode.toUpperCase());
+        this.permits = new Semaphore(maxConcurrency);
+        this.timeout = timeout;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS)
+                .build();
+        HttpsTrustManager.allowAllSSL();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Checks the given URLs according to the configured {@link Mode}.
+     *
+     * @param targets the URLs to check, along with the fields they were found in
+     * @throws ValidationException in {@link Mode#SYNC} mode, if a URL takes too long to load
+     */
+    public void check(List<Target> targets) {
+        if (targets.isEmpty() || mode == Mode.OFF) {
+            return;
+        }
+        if (mode == Mode.ASYNC) {
+            List<Target> copy = new ArrayList<>(targets);
+            executor.execute(() -> report(copy));
+        } else {
+            checkNow(targets);
+        }
+    }
+
+    /**
+     * Checks the given URLs concurrently and waits for all of them, regardless of the configured {@link Mode}.
+     *
+     * @param targets the URLs to check, along with the fields they were found in
+     * @throws ValidationException if a URL takes too long to load
+     */
+    public void checkNow(List<Target> targets) {
+        Map<Target, Future<Reachability>> results = submit(targets);
+        for (Map.Entry<Target, Future<Reachability>> result : results.entrySet()) {
+            if (await(result.getValue()).isTimedOut()) {
+                Target target = result.getKey();
+                throw new ValidationException(target.getField() == null
+                        ? String.format("URI '%s' provided is not valid, or takes too long to load.", target.getUrl())
+                        : "URI provided is not valid, or takes too long to load. Found in field " + target.getField());
+            }
+        }
+    }
+
+    /**
+     * Returns the cached reachability of the given URL, or null if it has not been checked recently.
+     */
+    public Reachability getReachability(URL url) {
+        return cache.getIfPresent(normalize(url));
+    }
+
+    private void report(List<Target> targets) {
+        Map<Target, Future<Reachability>> results = submit(targets);
+        List<String> unreachable = new ArrayList<>();
+        for (Map.Entry<Target, Future<Reachability>> result : results.entrySet()) {
+            Reachability reachability = await(result.getValue());
+            if (!reachability.isReachable()) {
+                unreachable.add(String.format("%s [%s]: %s", result.getKey().getField(), result.getKey().getUrl(),
+                        reachability.isTimedOut() ? "timed out" : reachability.getStatusCode()));
+            }
+        }
+        if (unreachable.isEmpty()) {
+            logger.debug("All {} checked URLs are reachable", results.size());
+        } else {
+            logger.warn("{} of {} checked URLs are not reachable: {}", unreachable.size(), results.size(), unreachable);
+        }
+    }
+
+    private Map<Target, Future<Reachability>> submit(List<Target> targets) {
+        // the same URL is only checked once per run
+        Map<String, Future<Reachability>> perUrl = new HashMap<>();
+        Map<Target, Future<Reachability>> results = new LinkedHashMap<>();
+        for (Target target : targets) {
+            String url = normalize(target.getUrl());
+            results.put(target, perUrl.computeIfAbsent(url, u -> executor.submit(() -> getOrCheck(u))));
+        }
+        return results;
+    }
+
+    private Reachability await(Future<Reachability> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValidationException("URL validation was interrupted");
+        } catch (ExecutionException e) {
+            logger.warn("Could not check URL", e.getCause());
+            return new Reachability(0, false);
+        }
+    }
+
+    private Reachability getOrCheck(String url) throws InterruptedException {
+        Reachability reachability = cache.getIfPresent(url);
+        if (reachability != null) {
+            return reachability;
+        }
+        permits.acquire();
+        try {
+            reachability = connect(url);
+        } finally {
+            permits.release();
+        }
+        // a timeout is usually transient, so the next validation checks the URL again
+        if (!reachability.isTimedOut()) {
+            cache.put(url, reachability);
+        }
+        return reachability;
+    }
+
+    private Reachability connect(String url) {
+        try {
+            HttpURLConnection huc = (HttpURLConnection) new URL(url).openConnection();
+            huc.setRequestMethod("HEAD");
+            huc.setConnectTimeout(timeout);
+            huc.setReadTimeout(timeout);
+            try {
+                return new Reachability(huc.getResponseCode(), false);
+            } finally {
+                huc.disconnect();
+            }
+        } catch (SocketTimeoutException e) {
+            return new Reachability(0, true);
+        } catch (IOException | ClassCastException e) {
+            logger.trace(e.getMessage());
+            return new Reachability(0, false);
+        }
+    }
+
+    /**
+     * Normalizes the given URL so that equivalent URLs share their cache entry: whitespace is encoded, scheme and
+     * host are lower-cased, default ports are dropped and fragments are ignored.
+     */
+    static String normalize(URL url) {
+        String value = url.toString().trim().replaceAll("\\s", "%20");
+        try {
+            URL parsed = new URL(value);
+            int port = parsed.getPort() == parsed.getDefaultPort() ? -1 : parsed.getPort();
+            return new URL(parsed.getProtocol().toLowerCase(), parsed.getHost().toLowerCase(), port,
+                    parsed.getFile()).toString();
+        } catch (MalformedURLException e) {
+            return value;
+        }
+    }
+
+    /**
+     * A URL to check, along with the field it was found in.
+     */
+    public static final class Target {
+
+        private final String field;
+        private final URL url;
+
+        public Target(String field, URL url) {
+            this.field = field;
+            this.url = url;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public URL getUrl() {
+            return url;
+        }
+    }
+
+    public static final class Reachability {
+
+        private final int statusCode;
+        private final boolean timedOut;
+
+        Reachability(int statusCode, boolean timedOut) {
+            this.statusCode = statusCode;
+            this.timedOut = timedOut;
+        }
+
+        /**
+         * The HTTP status code of the URL, or 0 if no response was received.
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public boolean isReachable() {
+            return statusCode > 0 && statusCode < 400;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Provider;
+import gr.uoa.di.madgik.resourcecatalogue.domain.ProviderBundle;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ExportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CSVManagerTests {
+
+    private final CSVManager csvManager = new CSVManager();
+
+    @Test
+    public void writesCsvRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = csvManager.writeProviders(Stream.of(provider("b", "Name, with comma"), provider("a", "Say \"hi\"")),
+                ExportFormat.CSV, out);
+
+        assertEquals(2, rows);
+        assertEquals("id,name\nb,\"Name, with comma\"\na,\"Say \"\"hi\"\"\"\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writesJsonLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = csvManager.writeProviders(Stream.of(provider("a", "A"), provider("b", "B")), ExportFormat.JSONL, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        ObjectMapper objectMapper = new ObjectMapper();
+        assertEquals("B", objectMapper.readValue(lines[1], ProviderBundle.class).getProvider().getName());
+    }
+
+    @Test
+    public void writesRowsBeforeTheStreamIsConsumed() throws Exception {
+        int total = 20000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long[] writtenBeforeLast = {0};
+        Stream<ProviderBundle> providers = IntStream.range(0, total)
+                .peek(i -> {
+                    if (i == total - 1) {
+                        writtenBeforeLast[0] = out.size();
+                    }
+                })
+                .mapToObj(i -> provider("provider-" + i, "Provider " + i));
+
+        assertEquals(total, csvManager.writeProviders(providers, ExportFormat.CSV, out));
+        assertTrue(writtenBeforeLast[0] > 0, "rows must reach the output while the stream is being consumed");
+    }
+
+    @Test
+    public void listsAreStillSortedById() {
+        String csv = csvManager.listProvidersToCSV(List.of(provider("b", "B"), provider("a", "A")));
+        assertEquals("id,name\na,A\nb,B\n", csv);
+    }
+
+    private static ProviderBundle provider(String id, String name) {
+        Provider provider = new Provider();
+        provider.setId(id);
+        provider.setName(name);
+        return new ProviderBundle(provider);
+    }
+}
@@ -0,0 +1,257 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.registry.service.ResourceService;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import gr.uoa.di.madgik.resourcecatalogue.service.RegistrationMailService;
+import gr.uoa.di.madgik.resourcecatalogue.service.SynchronizerService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.BundleChangeEvent;
+import gr.uoa.di.madgik.resourcecatalogue.utils.CascadeJob;
+import gr.uoa.di.madgik.resourcecatalogue.utils.JmsService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ProviderResourcesCommonMethods;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CascadeManagerTests {
+
+    private final Authentication auth = new JwtAuthenticationToken(Jwt.withTokenValue("token")
+            .header("alg", "none")
+            .claim("sub", "admin")
+            .claim("email", "admin@example.org")
+            .build());
+
+    // stored resources by type, and their bundles by id
+    private final Map<String, List<Resource>> stored = new HashMap<>();
+    private final Map<String, Bundle<?>> bundles = new HashMap<>();
+    private SearchService searchService;
+    private ResourceService resourceService;
+    private JmsService jmsService;
+    private ApplicationEventPublisher eventPublisher;
+    private SynchronizerService<Provider> providerSync;
+    private ServiceBundleManager serviceBundleManager;
+    private CascadeManager cascadeManager;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        searchService = mock(SearchService.class);
+        resourceService = mock(ResourceService.class);
+        jmsService = mock(JmsService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        providerSync = mock(SynchronizerService.class);
+        ProviderResourcesCommonMethods commonMethods = mock(ProviderResourcesCommonMethods.class);
+        doAnswer(invocation -> {
+            ((Bundle<?>) invocation.getArgument(0)).setSuspended(invocation.getArgument(1));
+            return null;
+        }).when(commonMethods).suspendResource(any(), anyBoolean(), any());
+        when(commonMethods.createActivationLoggingInfo(any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> new ArrayList<>(List.of(new LoggingInfo())));
+
+        serviceBundleManager = manager(ServiceBundleManager.class);
+        cascadeManager = new CascadeManager(manager(ProviderManager.class), serviceBundleManager,
+                manager(TrainingResourceManager.class), manager(InteroperabilityRecordManager.class),
+                manager(DatasourceManager.class), manager(HelpdeskManager.class), manager(MonitoringManager.class),
+                manager(ResourceInteroperabilityRecordManager.class), searchService, resourceService, commonMethods,
+                jmsService, eventPublisher, mock(RegistrationMailService.class), providerSync, mock(SynchronizerService.class),
+                mock(SynchronizerService.class), 2, 10);
+
+        when(searchService.cqlQuery(anyString(), anyString(), anyInt(), anyInt(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    List<Resource> results = stored.getOrDefault(invocation.<String>getArgument(1), new ArrayList<>());
+                    Paging<Resource> paging = mock(Paging.class);
+                    when(paging.getResults()).thenReturn(results);
+                    return paging;
+                });
+        when(resourceService.getResource(anyString())).thenAnswer(invocation -> stored.values().stream()
+                .flatMap(List::stream)
+                .filter(resource -> resource.getId().equals(invocation.getArgument(0)))
+                .findFirst()
+                .orElse(null));
+    }
+
+    @Test
+    public void suspendsTheResourcesOfAProviderAndSendsTheEventsOnceAllAreWritten() {
+        store("service", service("s1", "approved resource", false));
+        store("service", service("cat.s1", "approved resource", true));
+        store("helpdesk", helpdesk("h1", "s1", false));
+        store("helpdesk", helpdesk("cat.h1", "cat.s1", true));
+        store("helpdesk", helpdesk("h2", "s2", false));
+
+        CascadeJob job = new CascadeJob("job", CascadeJob.Operation.SUSPEND, "cat", "p", "admin@example.org");
+        cascadeManager.run(job, auth, null);
+
+        assertEquals(CascadeJob.Status.COMPLETED, job.getStatus());
+        assertEquals(4, job.getTotal());
+        assertEquals(4, job.getDone());
+        assertTrue(bundles.get("s1").isSuspended());
+        assertTrue(bundles.get("cat.h1").isSuspended());
+        assertFalse(bundles.get("h2").isSuspended());
+        verify(searchService).cqlQuery(contains("resource_organisation=\"cat.p\""), eq("service"), anyInt(), anyInt(),
+                anyString(), anyString());
+        verify(searchService, never()).cqlQuery(anyString(), eq("provider"), anyInt(), anyInt(), anyString(), anyString());
+
+        InOrder inOrder = inOrder(resourceService, jmsService);
+        inOrder.verify(resourceService, times(4)).updateResource(any());
+        inOrder.verify(jmsService).convertAndSendTopic(eq("service.update"), same(bundles.get("cat.s1")));
+        inOrder.verify(jmsService).convertAndSendTopic(eq("helpdesk.update"), same(bundles.get("cat.h1")));
+        verifyNoMoreInteractions(jmsService);
+        verify(eventPublisher, times(4)).publishEvent(any(BundleChangeEvent.class));
+    }
+
+    @Test
+    public void deletesTheSubResourcesFirstAndReportsTheResourcesNotDeleted() {
+        store("provider", provider("p", false));
+        store("provider", provider("cat.p", true));
+        store("service", service("s1", "approved resource", false));
+        store("helpdesk", helpdesk("h1", "s1", false));
+        doThrow(new IllegalStateException("unavailable")).when(resourceService).deleteResource("s1");
+
+        CascadeJob job = new CascadeJob("job", CascadeJob.Operation.DELETE, "cat", null, "admin@example.org");
+        cascadeManager.run(job, auth, null);
+
+        assertEquals(CascadeJob.Status.FAILED, job.getStatus());
+        assertEquals(3, job.getDone());
+        assertEquals(1, job.getFailed());
+        assertEquals("s1", job.getFailures().get(0).getResourceId());
+        assertEquals("unavailable", job.getFailures().get(0).getError());
+
+        InOrder inOrder = inOrder(resourceService);
+        inOrder.verify(resourceService).deleteResource("h1");
+        inOrder.verify(resourceService).deleteResource("s1");
+        inOrder.verify(resourceService).deleteResource("p");
+        verify(providerSync).syncDelete(((ProviderBundle) bundles.get("p")).getProvider());
+        verify(jmsService).convertAndSendTopic(eq("provider.delete"), same(bundles.get("cat.p")));
+        verifyNoMoreInteractions(jmsService);
+
+        // the resources that were deleted, including the public ones, are published for the in-memory indices
+        ArgumentCaptor<BundleChangeEvent> events = ArgumentCaptor.forClass(BundleChangeEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        assertTrue(events.getAllValues().stream().allMatch(BundleChangeEvent::isDeleted));
+        assertEquals(Set.of("h1", "p", "cat.p"), events.getAllValues().stream()
+                .map(event -> event.getBundle().getId()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void activatesOnlyTheApprovedResourcesAndTheirSubResources() {
+        store("service", service("s1", "approved resource", false));
+        store("service", service("s2", "pending resource", false));
+        store("helpdesk", helpdesk("h1", "s1", false));
+        store("helpdesk", helpdesk("h2", "s2", false));
+
+        CascadeJob job = new CascadeJob("job", CascadeJob.Operation.ACTIVATE, "cat", "p", "admin@example.org");
+        cascadeManager.run(job, auth, null);
+
+        assertEquals(CascadeJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getTotal());
+        assertTrue(bundles.get("s1").isActive());
+        assertTrue(bundles.get("h1").isActive());
+        assertFalse(bundles.get("s2").isActive());
+        assertFalse(bundles.get("h2").isActive());
+        verify(resourceService, times(2)).updateResource(any());
+        verifyNoInteractions(jmsService);
+    }
+
+    @Test
+    public void changesTheLatestVersionOfTheResourcesAndSkipsTheDeletedOnes() {
+        store("service", service("s1", "approved resource", false));
+        store("service", service("s2", "approved resource", false));
+        ServiceBundle updated = service("s1", "approved resource", false);
+        updated.getService().setName("updated after planning");
+        when(resourceService.getResource("s1")).thenAnswer(invocation -> {
+            bundles.put("s1", updated);
+            return stored.get("service").get(0);
+        });
+        when(resourceService.getResource("s2")).thenReturn(null);
+
+        CascadeJob job = new CascadeJob("job", CascadeJob.Operation.SUSPEND, "cat", "p", "admin@example.org");
+        cascadeManager.run(job, auth, null);
+
+        assertEquals(CascadeJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getDone());
+        assertTrue(updated.isSuspended());
+        verify(serviceBundleManager).serialize(same(updated));
+        verify(resourceService, times(1)).updateResource(any());
+    }
+
+    @Test
+    public void deletesTheProviderItselfOnlyAfterAllItsResources() {
+        store("service", service("s1", "approved resource", false));
+        store("service", service("s2", "approved resource", false));
+        Runnable deleteProvider = mock(Runnable.class);
+
+        CascadeJob job = new CascadeJob("job", CascadeJob.Operation.DELETE, "cat", "p", "admin@example.org");
+        cascadeManager.run(job, auth, deleteProvider);
+
+        assertEquals(CascadeJob.Status.COMPLETED, job.getStatus());
+        InOrder inOrder = inOrder(resourceService, deleteProvider);
+        inOrder.verify(resourceService, times(2)).deleteResource(anyString());
+        inOrder.verify(deleteProvider).run();
+
+        doThrow(new IllegalStateException("unavailable")).when(resourceService).deleteResource("s2");
+        Runnable keptProvider = mock(Runnable.class);
+        job = new CascadeJob("job", CascadeJob.Operation.DELETE, "cat", "p", "admin@example.org");
+        cascadeManager.run(job, auth, keptProvider);
+
+        assertEquals(CascadeJob.Status.FAILED, job.getStatus());
+        verifyNoInteractions(keptProvider);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T extends ResourceManager> T manager(Class<T> type) {
+        T manager = mock(type);
+        when(manager.deserialize(any(Resource.class)))
+                .thenAnswer(invocation -> bundles.get(invocation.<Resource>getArgument(0).getId()));
+        when(manager.serialize(any())).thenReturn("payload");
+        return manager;
+    }
+
+    private void store(String resourceType, Bundle<?> bundle) {
+        Resource resource = new Resource();
+        resource.setId(bundle.getId());
+        resource.setCreationDate(new Date(stored.values().stream().mapToInt(List::size).sum()));
+        stored.computeIfAbsent(resourceType, type -> new ArrayList<>()).add(resource);
+        bundles.put(bundle.getId(), bundle);
+    }
+
+    private static Metadata metadata(boolean published) {
+        Metadata metadata = new Metadata();
+        metadata.setPublished(published);
+        return metadata;
+    }
+
+    private static ProviderBundle provider(String id, boolean published) {
+        Provider provider = new Provider();
+        provider.setId(id);
+        return new ProviderBundle(provider, metadata(published));
+    }
+
+    private static ServiceBundle service(String id, String status, boolean published) {
+        Service service = new Service();
+        service.setId(id);
+        ServiceBundle serviceBundle = new ServiceBundle(service, metadata(published));
+        serviceBundle.setStatus(status);
+        return serviceBundle;
+    }
+
+    private static HelpdeskBundle helpdesk(String id, String serviceId, boolean published) {
+        Helpdesk helpdesk = new Helpdesk();
+        helpdesk.setId(id);
+        helpdesk.setServiceId(serviceId);
+        return new HelpdeskBundle(helpdesk, metadata(published));
+    }
+}
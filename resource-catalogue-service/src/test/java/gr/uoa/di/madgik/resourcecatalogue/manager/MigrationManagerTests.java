@@ -0,0 +1,177 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.registry.service.ResourceService;
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
+import gr.uoa.di.madgik.resourcecatalogue.service.AuthoritiesMapper;
+import gr.uoa.di.madgik.resourcecatalogue.service.SecurityService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.JmsService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationJob;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationJobStore;
+import gr.uoa.di.madgik.resourcecatalogue.utils.MigrationStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MigrationManagerTests {
+
+    private final Authentication auth = new JwtAuthenticationToken(Jwt.withTokenValue("token")
+            .header("alg", "none")
+            .claim("sub", "admin")
+            .claim("email", "admin@example.org")
+            .build());
+
+    private ServiceBundleManager serviceBundleManager;
+    private TrainingResourceManager trainingResourceManager;
+    private InteroperabilityRecordManager interoperabilityRecordManager;
+    private ProviderManager providerManager;
+    private ResourceService resourceService;
+    private JmsService jmsService;
+    private MigrationJobStore migrationJobStore;
+    private AuthoritiesMapper authoritiesMapper;
+    private MigrationManager migrationManager;
+
+    @BeforeEach
+    void setUp() {
+        serviceBundleManager = mock(ServiceBundleManager.class);
+        trainingResourceManager = mock(TrainingResourceManager.class);
+        interoperabilityRecordManager = mock(InteroperabilityRecordManager.class);
+        providerManager = mock(ProviderManager.class);
+        resourceService = mock(ResourceService.class);
+        jmsService = mock(JmsService.class);
+        migrationJobStore = mock(MigrationJobStore.class);
+        authoritiesMapper = mock(AuthoritiesMapper.class);
+        migrationManager = new MigrationManager(serviceBundleManager, mock(PublicServiceManager.class),
+                trainingResourceManager, mock(DatasourceManager.class), interoperabilityRecordManager,
+                mock(PublicTrainingResourceManager.class), providerManager, resourceService,
+                mock(ResourceInteroperabilityRecordManager.class), mock(PublicResourceInteroperabilityRecordManager.class),
+                mock(HelpdeskManager.class), mock(MonitoringManager.class), jmsService, mock(SecurityService.class),
+                migrationJobStore, authoritiesMapper, 2, 30000);
+
+        when(providerManager.get("cat", "p", auth)).thenReturn(provider("p"));
+        stubProvider("p");
+        stubProvider("cat.p");
+        when(serviceBundleManager.getResourceBundles("cat", "p", auth))
+                .thenReturn(paging(List.of(service("s1"), service("cat.s1"))));
+        stubService("s1");
+        stubService("cat.s1");
+        when(serviceBundleManager.serialize(any())).thenReturn("payload");
+        when(trainingResourceManager.getResourceBundles("cat", "p", auth)).thenReturn(paging(new ArrayList<>()));
+        when(interoperabilityRecordManager.getInteroperabilityRecordBundles("cat", "p", auth))
+                .thenReturn(paging(new ArrayList<>()));
+    }
+
+    @Test
+    public void dryRunReportsTheChangeSetWithoutMigrating() {
+        MigrationJob job = migrationManager.submit("p", "cat", "new", true, auth);
+
+        assertEquals(MigrationJob.Status.COMPLETED, job.getStatus());
+        assertEquals(List.of("provider:p->p", "provider:cat.p->new.p", "service:s1->s1", "service:cat.s1->new.s1"),
+                job.getSteps().stream().map(step -> step.getResourceType() + ":" + step.getOldId() + "->" + step.getNewId()).toList());
+        assertTrue(job.getSteps().stream().allMatch(step -> step.getStatus() == MigrationStep.Status.PENDING));
+        verify(migrationJobStore).save(job);
+        verifyNoInteractions(resourceService, jmsService);
+    }
+
+    @Test
+    public void retryResumesFromTheLastCheckpoint() throws Exception {
+        Resource publicService = serviceBundleManager.getResource("cat.s1", "cat");
+        when(serviceBundleManager.getResource("cat.s1", "cat"))
+                .thenThrow(new IllegalStateException("unavailable"))
+                .thenReturn(publicService);
+
+        assertThrows(ResourceException.class, () -> migrationManager.changeProviderCatalogue("p", "cat", "new", auth));
+        ArgumentCaptor<MigrationJob> saved = ArgumentCaptor.forClass(MigrationJob.class);
+        verify(migrationJobStore).save(saved.capture());
+        MigrationJob job = saved.getValue();
+        assertEquals(MigrationJob.Status.FAILED, job.getStatus());
+        assertEquals(3, job.getDone());
+        assertEquals(1, job.getFailed());
+        verify(resourceService, times(3)).updateResource(any());
+        verify(migrationJobStore, times(4)).update(eq(job.getId()), any(MigrationStep.class));
+
+        when(migrationJobStore.get(job.getId())).thenReturn(job);
+        migrationManager.retry(job.getId());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.isActive() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(MigrationJob.Status.COMPLETED, job.getStatus());
+        assertEquals(4, job.getDone());
+        verify(resourceService, times(4)).updateResource(any());
+        verify(providerManager, times(1)).getResource("p", "cat");
+        verify(jmsService, times(1)).convertAndSendTopic(eq("service.update"), any());
+    }
+
+    @Test
+    public void resourcesAlreadyInTheNewCatalogueAreNotMigratedAgain() {
+        when(providerManager.getResource("p", "cat")).thenReturn(null);
+        when(providerManager.getResource("p", "new")).thenReturn(new Resource());
+
+        ProviderBundle providerBundle = migrationManager.changeProviderCatalogue("p", "cat", "new", auth);
+
+        assertEquals("new", providerBundle.getProvider().getCatalogueId());
+        verify(resourceService, times(3)).updateResource(any());
+    }
+
+    @Test
+    public void authoritiesOfTheOldCatalogueAreRemoved() {
+        migrationManager.changeProviderCatalogue("p", "cat", "new", auth);
+
+        ArgumentCaptor<ProviderBundle> removed = ArgumentCaptor.forClass(ProviderBundle.class);
+        ArgumentCaptor<ProviderBundle> updated = ArgumentCaptor.forClass(ProviderBundle.class);
+        verify(authoritiesMapper, times(2)).removeAuthorities(removed.capture());
+        verify(authoritiesMapper, times(2)).updateAuthorities(updated.capture());
+        assertEquals(List.of("cat:p", "cat:cat.p"), removed.getAllValues().stream()
+                .map(bundle -> bundle.getProvider().getCatalogueId() + ":" + bundle.getId()).toList());
+        assertEquals(List.of("new:p", "new:new.p"), updated.getAllValues().stream()
+                .map(bundle -> bundle.getProvider().getCatalogueId() + ":" + bundle.getId()).toList());
+    }
+
+    private void stubProvider(String id) {
+        Resource resource = new Resource();
+        resource.setId(id);
+        when(providerManager.getResource(id, "cat")).thenReturn(resource);
+        when(providerManager.deserialize(resource)).thenAnswer(invocation -> provider(id));
+        when(providerManager.serialize(any())).thenReturn("payload");
+    }
+
+    private void stubService(String id) {
+        Resource resource = new Resource();
+        resource.setId(id);
+        when(serviceBundleManager.getResource(id, "cat")).thenReturn(resource);
+        when(serviceBundleManager.deserialize(resource)).thenAnswer(invocation -> service(id));
+    }
+
+    private static ProviderBundle provider(String id) {
+        Provider provider = new Provider();
+        provider.setId(id);
+        provider.setCatalogueId("cat");
+        return new ProviderBundle(provider);
+    }
+
+    private static ServiceBundle service(String id) {
+        Service service = new Service();
+        service.setId(id);
+        service.setCatalogueId("cat");
+        return new ServiceBundle(service);
+    }
+
+    private static <T> Paging<T> paging(List<T> results) {
+        return new Paging<>(results.size(), 0, results.size(), results, new ArrayList<>());
+    }
+}
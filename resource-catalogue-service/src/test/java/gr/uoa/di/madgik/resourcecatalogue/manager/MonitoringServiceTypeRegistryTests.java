@@ -0,0 +1,119 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ResourceException;
+import gr.uoa.di.madgik.resourcecatalogue.service.MonitoringServiceTypeService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ArgoGrnetClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonitoringServiceTypeRegistryTests {
+
+    private static final String SERVICE_TYPES = "{\"data\":[" +
+            "{\"date\":\"2024-01-01\",\"name\":\"eu.eosc.portal.services.url\",\"title\":\"Service URL\"," +
+            "\"description\":\"The url of the service\"}," +
+            "{\"date\":\"2024-01-01\",\"name\":\"web.check\",\"title\":\"Web check\",\"description\":null}]}";
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<String> body = new AtomicReference<>(SERVICE_TYPES);
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/service-types", exchange -> {
+            hits.incrementAndGet();
+            respond(exchange, status.get(), status.get() == 200 ? body.get() : "");
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private MonitoringServiceTypeRegistry registry(long maxAge) {
+        String url = String.format("http://localhost:%d/service-types", server.getAddress().getPort());
+        return new MonitoringServiceTypeRegistry(new ArgoGrnetClient("token", 2000), url, maxAge);
+    }
+
+    @Test
+    public void serviceTypesAreLoadedOnFirstLookup() {
+        MonitoringServiceTypeRegistry registry = registry(86400000);
+        assertEquals(0, hits.get());
+
+        assertEquals(2, registry.getServiceTypes().size());
+        assertEquals("Service URL", registry.getServiceTypes().get(0).getTitle());
+        assertNull(registry.getServiceTypes().get(1).getDescription());
+        assertTrue(registry.contains("web.check"));
+        assertFalse(registry.contains("unknown"));
+        assertEquals(1, hits.get());
+
+        MonitoringServiceTypeService.Status registryStatus = registry.getStatus();
+        assertEquals(2, registryStatus.getServiceTypes());
+        assertNotNull(registryStatus.getLoadedAt());
+        assertFalse(registryStatus.isStale());
+        assertEquals(0, registryStatus.getConsecutiveFailures());
+    }
+
+    @Test
+    public void loadedServiceTypesAreKeptWhenArgoFails() {
+        MonitoringServiceTypeRegistry registry = registry(-1);
+        assertTrue(registry.refresh());
+
+        status.set(500);
+        assertFalse(registry.refresh());
+        body.set("{\"data\":[]}");
+        status.set(200);
+        assertFalse(registry.refresh());
+
+        assertEquals(2, registry.getServiceTypes().size());
+        MonitoringServiceTypeService.Status registryStatus = registry.getStatus();
+        assertEquals(2, registryStatus.getConsecutiveFailures());
+        assertNotNull(registryStatus.getLastFailureAt());
+        assertNotNull(registryStatus.getLastFailure());
+        assertTrue(registryStatus.isStale());
+    }
+
+    @Test
+    public void lookupsDoNotRetryAFailedLoadRightAway() {
+        status.set(500);
+        MonitoringServiceTypeRegistry registry = registry(86400000);
+
+        ResourceException e = assertThrows(ResourceException.class, registry::getServiceTypes);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertThrows(ResourceException.class, () -> registry.contains("web.check"));
+        assertEquals(1, hits.get());
+
+        status.set(200);
+        assertTrue(registry.refresh());
+        assertTrue(registry.contains("web.check"));
+    }
+}
@@ -0,0 +1,169 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Service;
+import gr.uoa.di.madgik.resourcecatalogue.domain.ServiceBundle;
+import gr.uoa.di.madgik.resourcecatalogue.dto.MonitoringStatus;
+import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
+import gr.uoa.di.madgik.resourcecatalogue.utils.ArgoGrnetClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MonitoringStatusAggregatorTests {
+
+    private static final String STATUSES = "{\"endpoints\":[{\"name\":\"endpoint\",\"statuses\":[" +
+            "{\"timestamp\":\"2024-01-01T00:00:00Z\",\"value\":\"OK\"}," +
+            "{\"timestamp\":\"2024-01-01T01:00:00Z\",\"value\":\"CRITICAL\"}]}]}";
+    private static final String AVAILABILITIES = "{\"endpoints\":[{\"name\":\"endpoint\",\"results\":[" +
+            "{\"date\":\"2024-01-01\",\"availability\":\"99.5\",\"reliability\":\"100\",\"unknown\":\"0\"," +
+            "\"uptime\":\"1\",\"downtime\":\"0\"}]}]}";
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/status/", exchange -> {
+            hits.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            if (path.contains("unmonitored")) {
+                respond(exchange, 404, "{\"status\":{\"message\":\"Not Found\"}}");
+            } else if (path.contains("broken")) {
+                respond(exchange, 500, "");
+            } else {
+                respond(exchange, 200, STATUSES);
+            }
+        });
+        server.createContext("/availability/", exchange -> respond(exchange, 200, AVAILABILITIES));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        exchange.close();
+    }
+
+    private MonitoringStatusAggregator aggregator(ServiceBundleService<ServiceBundle> serviceBundleService,
+                                                  int maxConcurrency) {
+        String url = String.format("http://localhost:%d", server.getAddress().getPort());
+        return new MonitoringStatusAggregator(new ArgoGrnetClient("token", 2000), serviceBundleService,
+                url + "/status/", url + "/availability/", maxConcurrency, 60000);
+    }
+
+    private static ServiceBundle service(String id) {
+        ServiceBundle serviceBundle = new ServiceBundle(new Service());
+        serviceBundle.setId(id);
+        return serviceBundle;
+    }
+
+    @Test
+    public void statusesAreParsedAndCached() {
+        MonitoringStatusAggregator aggregator = aggregator(null, 4);
+
+        List<MonitoringStatus> statuses = aggregator.getStatuses("prefix/service");
+        assertEquals(2, statuses.size());
+        assertEquals("2024-01-01T00:00:00Z", statuses.get(0).getTimestamp());
+        assertEquals("OK", statuses.get(0).getValue());
+
+        aggregator.getStatuses("prefix/service");
+        assertEquals(1, hits.get());
+
+        assertTrue(aggregator.getStatuses("prefix/unmonitored").isEmpty());
+        assertEquals(2, hits.get());
+
+        List<MonitoringStatus> availabilities = aggregator.getAvailabilities("prefix/service", "2024-01-01", "2024-01-02");
+        assertEquals(1, availabilities.size());
+        assertEquals("99.5", availabilities.get(0).getAvailability());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void snapshotFansOutWithinTheConcurrencyLimit() {
+        ServiceBundleService<ServiceBundle> serviceBundleService = mock(ServiceBundleService.class);
+        when(serviceBundleService.stream(any())).thenAnswer(invocation -> Stream.concat(
+                IntStream.range(0, 20).mapToObj(i -> service("prefix/service" + i)),
+                Stream.of(service("prefix/unmonitored"), service("prefix/broken"))));
+        MonitoringStatusAggregator aggregator = aggregator(serviceBundleService, 3);
+
+        aggregator.refresh();
+        Map<String, String> values = aggregator.getAllStatusValues();
+        assertEquals(22, values.size());
+        assertEquals("OK", values.get("prefix/service0"));
+        assertEquals("", values.get("prefix/unmonitored"));
+        assertEquals("", values.get("prefix/broken"));
+        assertTrue(maxInFlight.get() <= 3);
+        assertTrue(maxInFlight.get() > 1);
+
+        // statuses cached by the previous snapshot are not requested again
+        int requests = hits.get();
+        aggregator.refresh();
+        assertEquals(requests + 1, hits.get());
+        assertEquals(values, aggregator.getAllStatusValues());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void firstReadServesAnEmptySnapshotWhileItIsBuilt() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ServiceBundleService<ServiceBundle> serviceBundleService = mock(ServiceBundleService.class);
+        when(serviceBundleService.stream(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Stream.of(service("prefix/service"));
+        });
+        MonitoringStatusAggregator aggregator = aggregator(serviceBundleService, 3);
+
+        assertTrue(aggregator.getAllStatusValues().isEmpty());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // the snapshot is being built in the background, reads are not blocked
+        assertTrue(aggregator.getAllStatusValues().isEmpty());
+
+        release.countDown();
+        // waits for the background refresh to finish
+        aggregator.refresh();
+        assertEquals(Map.of("prefix/service", "OK"), aggregator.getAllStatusValues());
+    }
+}
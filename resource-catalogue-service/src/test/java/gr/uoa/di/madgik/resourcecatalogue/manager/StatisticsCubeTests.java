@@ -0,0 +1,295 @@
+package gr.uoa.di.madgik.resourcecatalogue.manager;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import gr.uoa.di.madgik.resourcecatalogue.dto.MapValues;
+import gr.uoa.di.madgik.resourcecatalogue.dto.PlaceCount;
+import gr.uoa.di.madgik.resourcecatalogue.dto.Value;
+import gr.uoa.di.madgik.resourcecatalogue.service.ProviderService;
+import gr.uoa.di.madgik.resourcecatalogue.service.ServiceBundleService;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService.Interval;
+import gr.uoa.di.madgik.resourcecatalogue.service.StatisticsService.Vocabulary;
+import gr.uoa.di.madgik.resourcecatalogue.service.VocabularyService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class StatisticsCubeTests {
+
+    private static final String[] PLACES = {"GR", "FR", "US", "EU", "WW", "OT"};
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private final Map<String, ServiceBundle> services = new LinkedHashMap<>();
+    private final Map<String, ProviderBundle> providers = new LinkedHashMap<>();
+    private final Map<String, Event> events = new LinkedHashMap<>();
+
+    private ServiceBundleService<ServiceBundle> serviceBundleService;
+    private ProviderService providerService;
+    private VocabularyService vocabularyService;
+    private DefaultEventAnalytics eventAnalytics;
+    private StatisticsEventStore eventStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        serviceBundleService = mock(ServiceBundleService.class);
+        providerService = mock(ProviderService.class);
+        vocabularyService = mock(VocabularyService.class);
+        eventAnalytics = mock(DefaultEventAnalytics.class);
+        when(serviceBundleService.stream(any())).thenAnswer(invocation -> new ArrayList<>(services.values()).stream());
+        when(providerService.stream(any())).thenAnswer(invocation -> new ArrayList<>(providers.values()).stream());
+        doAnswer(invocation -> {
+            Consumer<Event> action = invocation.getArgument(1);
+            new ArrayList<>(events.values()).forEach(action);
+            return null;
+        }).when(eventAnalytics).forEachEvent(anyString(), any());
+        when(vocabularyService.getRegion("EU")).thenAnswer(invocation -> new String[]{"GR", "FR"});
+        when(vocabularyService.getRegion("WW")).thenAnswer(invocation -> new String[]{"GR", "FR", "US"});
+        eventStore = eventStore();
+    }
+
+    @Test
+    public void incrementalUpdatesMatchRebuild() {
+        for (int seed = 0; seed < 20; seed++) {
+            services.clear();
+            providers.clear();
+            events.clear();
+            eventStore = eventStore();
+            Random random = new Random(seed);
+            StatisticsCube cube = cube();
+            for (int i = 0; i < 30; i++) {
+                randomChange(random, cube);
+            }
+            cube.rebuild();
+            for (int i = 0; i < 500; i++) {
+                randomChange(random, cube);
+            }
+
+            assertEquals(Collections.emptyList(), cube.check(), "seed " + seed);
+            StatisticsCube rebuilt = new StatisticsCube(serviceBundleService, providerService, vocabularyService,
+                    eventAnalytics, eventStore());
+            rebuilt.rebuild();
+            for (String provider : Arrays.asList(null, "p0", "p1", "p2")) {
+                assertEquals(placeCounts(rebuilt.servicesPerPlace(provider)), placeCounts(cube.servicesPerPlace(provider)));
+                for (String place : Arrays.asList(null, "GR", "US", "EU", "WW")) {
+                    assertEquals(ids(rebuilt.servicesByPlace(provider, place)), ids(cube.servicesByPlace(provider, place)));
+                }
+                assertEquals(mapIds(rebuilt.mapServicesToGeographicalAvailability(provider)),
+                        mapIds(cube.mapServicesToGeographicalAvailability(provider)));
+                assertEquals(mapIds(rebuilt.mapServicesToVocabulary(provider, Vocabulary.SUBCATEGORY)),
+                        mapIds(cube.mapServicesToVocabulary(provider, Vocabulary.SUBCATEGORY)));
+                if (provider != null) {
+                    for (Interval by : Interval.values()) {
+                        assertEquals(rebuilt.providerVisits(provider, by), cube.providerVisits(provider, by));
+                        assertEquals(rebuilt.providerAddToProject(provider, by), cube.providerAddToProject(provider, by));
+                    }
+                }
+            }
+            assertEquals(mapIds(rebuilt.mapServicesToProviderCountry()), mapIds(cube.mapServicesToProviderCountry()));
+        }
+    }
+
+    @Test
+    public void checkReportsChangesMissedByTheCube() {
+        StatisticsCube cube = cube();
+        cube.rebuild();
+        putService("s0", "p0", true, "GR");
+
+        List<String> differences = cube.check();
+        assertEquals(1, differences.size());
+        assertTrue(differences.get(0).startsWith("service 's0'"));
+    }
+
+    @Test
+    public void addToProjectCarriesTotalsAcrossIntervals() {
+        StatisticsCube cube = cube();
+        cube.update(putService("s0", "p0", true, "GR"));
+        cube.update(putService("s1", "p0", true, "GR"));
+        cube.update(putEvent("e0", "s0", Event.UserActionType.ADD_TO_PROJECT, 1, "2024-01-05"));
+        cube.update(putEvent("e1", "s1", Event.UserActionType.ADD_TO_PROJECT, 1, "2024-03-03"));
+        cube.update(putEvent("e2", "s0", Event.UserActionType.ADD_TO_PROJECT, 0, "2024-03-04"));
+        cube.update(putEvent("e3", "s1", Event.UserActionType.VISIT, 7, "2024-03-04"));
+
+        assertEquals(Map.of("2024-01", 1, "2024-02", 1, "2024-03", 1), cube.providerAddToProject("p0", Interval.MONTH));
+        assertEquals(Map.of("2024-01", 1, "2024-02", 1, "2024-03", 0), cube.addToProject("s0", Interval.MONTH));
+        Map<String, Integer> weeklyVisits = cube.providerVisits("p0", Interval.WEEK);
+        assertEquals("2024-01-01", weeklyVisits.keySet().iterator().next());
+        assertEquals(7, weeklyVisits.get("2024-03-04"));
+        assertEquals(7, weeklyVisits.values().stream().mapToInt(Integer::intValue).sum());
+        assertEquals(Map.of("Service s0", 0f, "Service s1", 1f), cube.providerVisitation("p0"));
+
+        // moving a service moves its events to the new provider
+        cube.update(putService("s1", "p1", true, "GR"));
+        assertEquals(Map.of("2024-03-03", 0, "2024-03-04", 7), cube.providerVisits("p1", Interval.DAY));
+        assertTrue(cube.providerVisits("p0", Interval.DAY).values().stream().allMatch(visits -> visits == 0));
+    }
+
+    @Test
+    public void updatedAndDeletedEventsReplaceTheirCounts() {
+        StatisticsCube cube = cube();
+        cube.update(putService("s0", "p0", true, "GR"));
+        Event visit = putEvent("e0", "s0", Event.UserActionType.VISIT, 3, "2024-01-05");
+        cube.update(visit);
+        Event stored = copy(visit);
+
+        // the manager changes the event in place, so the stored version must be passed along
+        visit.setValue(5f);
+        visit.setInstant(visit.getInstant() + DAY);
+        cube.replace(stored, visit);
+        assertEquals(Map.of("2024-01-06", 5), cube.visits("s0", Interval.DAY));
+
+        cube.replace(copy(visit), null);
+        events.remove("e0");
+        assertEquals(Map.of(), cube.visits("s0", Interval.DAY));
+        assertEquals(Collections.emptyList(), cube.check());
+    }
+
+    @Test
+    public void cubesSharingTheStoreSeeTheEventsOfEachOther() {
+        StatisticsCube cube = cube();
+        StatisticsCube other = cube();
+        other.refresh();
+        cube.update(putService("s0", "p0", true, "GR"));
+        other.update(putEvent("e0", "s0", Event.UserActionType.VISIT, 2, "2024-01-05"));
+        cube.update(putEvent("e1", "s0", Event.UserActionType.VISIT, 4, "2024-01-05"));
+
+        assertEquals(Map.of("2024-01-05", 6), cube.visits("s0", Interval.DAY));
+        assertEquals(Map.of("2024-01-05", 6), other.visits("s0", Interval.DAY));
+        // the services written on one node reach the other once it refreshes
+        assertEquals(Map.of(), other.providerVisits("p0", Interval.MONTH));
+        other.refresh();
+        assertEquals(Map.of("2024-01", 6), other.providerVisits("p0", Interval.MONTH));
+    }
+
+    @Test
+    public void regionsAreExpandedToTheirCountries() {
+        StatisticsCube cube = cube();
+        cube.update(putService("s0", "p0", true, "EU"));
+        cube.update(putService("s1", "p0", true, "US"));
+        cube.update(putService("s2", "p1", true, "WW"));
+        cube.update(putService("s3", "p1", false, "GR"));
+
+        assertEquals(List.of("s0", "s2"), ids(cube.servicesByPlace(null, "GR")));
+        assertEquals(List.of("s1", "s2"), ids(cube.servicesByPlace(null, "US")));
+        assertEquals(List.of("s0", "s1"), ids(cube.servicesByPlace("p0", null)));
+        assertEquals(Map.of("GR", 2, "FR", 2, "US", 2), placeCounts(cube.servicesPerPlace(null)));
+        assertEquals(Map.of("GR", List.of("s2"), "FR", List.of("s2"), "US", List.of("s2")),
+                mapIds(cube.mapServicesToGeographicalAvailability("p1")));
+    }
+
+    private StatisticsCube cube() {
+        return new StatisticsCube(serviceBundleService, providerService, vocabularyService, eventAnalytics, eventStore);
+    }
+
+    private static StatisticsEventStore eventStore() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        StatisticsEventStore eventStore = new StatisticsEventStore(dataSource);
+        eventStore.createTable();
+        return eventStore;
+    }
+
+    private void randomChange(Random random, StatisticsCube cube) {
+        int operation = random.nextInt(8);
+        String serviceId = "s" + random.nextInt(12);
+        String providerId = "p" + random.nextInt(3);
+        String eventId = "e" + random.nextInt(60);
+        switch (operation) {
+            case 0, 1 -> cube.update(putService(serviceId, providerId, random.nextInt(4) > 0,
+                    PLACES[random.nextInt(PLACES.length)], PLACES[random.nextInt(PLACES.length)]));
+            case 2 -> {
+                if (services.containsKey(serviceId)) {
+                    cube.remove(services.remove(serviceId));
+                }
+            }
+            case 3 -> cube.update(putProvider(providerId, PLACES[random.nextInt(PLACES.length)]));
+            case 4 -> {
+                if (providers.containsKey(providerId)) {
+                    cube.remove(providers.remove(providerId));
+                }
+            }
+            case 5, 6 -> {
+                Event.UserActionType type = random.nextBoolean() ? Event.UserActionType.VISIT : Event.UserActionType.ADD_TO_PROJECT;
+                int value = type == Event.UserActionType.VISIT ? random.nextInt(5) : random.nextInt(2);
+                Event stored = events.get(eventId);
+                cube.replace(stored, putEvent(eventId, serviceId, type, value,
+                        LocalDate.of(2024, 1, 1).plusDays(random.nextInt(120)).toString()));
+            }
+            default -> {
+                if (events.containsKey(eventId)) {
+                    cube.remove(events.remove(eventId));
+                }
+            }
+        }
+    }
+
+    private ServiceBundle putService(String id, String provider, boolean active, String... places) {
+        Service service = new Service();
+        service.setId(id);
+        service.setName("Service " + id);
+        service.setResourceOrganisation(provider);
+        service.setGeographicalAvailabilities(new ArrayList<>(Arrays.asList(places)));
+        service.setCategories(List.of(new ServiceCategory("category", "subcategory-" + places[0])));
+        ServiceBundle serviceBundle = new ServiceBundle(service);
+        serviceBundle.setActive(active);
+        services.put(id, serviceBundle);
+        return serviceBundle;
+    }
+
+    private ProviderBundle putProvider(String id, String country) {
+        Provider provider = new Provider();
+        provider.setId(id);
+        ProviderLocation location = new ProviderLocation();
+        location.setCountry(country);
+        provider.setLocation(location);
+        ProviderBundle providerBundle = new ProviderBundle(provider);
+        providers.put(id, providerBundle);
+        return providerBundle;
+    }
+
+    private Event putEvent(String id, String service, Event.UserActionType type, float value, String date) {
+        Event event = new Event(type.getKey(), "user", service, value);
+        event.setId(id);
+        event.setInstant(LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + DAY / 2);
+        events.put(id, event);
+        return event;
+    }
+
+    private static Event copy(Event event) {
+        Event copy = new Event(event.getType(), event.getUser(), event.getService(), event.getValue());
+        copy.setId(event.getId());
+        copy.setInstant(event.getInstant());
+        return copy;
+    }
+
+    private static List<String> ids(List<Value> values) {
+        return values.stream().map(Value::getId).sorted().collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<String>> mapIds(List<MapValues> mapValues) {
+        Map<String, List<String>> ids = new HashMap<>();
+        for (MapValues<Value> entry : mapValues) {
+            ids.put(entry.getKey(), ids(entry.getValues()));
+        }
+        return ids;
+    }
+
+    private static Map<String, Integer> placeCounts(List<PlaceCount> placeCounts) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (PlaceCount placeCount : placeCounts) {
+            counts.put(placeCount.getPlace(), placeCount.getCount());
+        }
+        return counts;
+    }
+}
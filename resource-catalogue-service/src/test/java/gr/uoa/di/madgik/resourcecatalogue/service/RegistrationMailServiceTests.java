@@ -0,0 +1,112 @@
+package gr.uoa.di.madgik.resourcecatalogue.service;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import gr.uoa.di.madgik.resourcecatalogue.config.security.ResourceCatalogueProperties;
+import gr.uoa.di.madgik.resourcecatalogue.domain.LoggingInfo;
+import gr.uoa.di.madgik.resourcecatalogue.manager.ProviderManager;
+import gr.uoa.di.madgik.resourcecatalogue.manager.ServiceBundleManager;
+import gr.uoa.di.madgik.resourcecatalogue.manager.TrainingResourceManager;
+import gr.uoa.di.madgik.resourcecatalogue.utils.NotificationFactStore;
+import gr.uoa.di.madgik.resourcecatalogue.utils.NotificationFactStore.Change;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.MessagingException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RegistrationMailServiceTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+
+    private MailService mailService;
+    private NotificationFactStore notificationFactStore;
+    private RegistrationMailService registrationMailService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mailService = mock(MailService.class);
+        notificationFactStore = mock(NotificationFactStore.class);
+        Configuration cfg = mock(Configuration.class);
+        when(cfg.getTemplate(anyString())).thenReturn(mock(Template.class));
+        ResourceCatalogueProperties properties = mock(ResourceCatalogueProperties.class, RETURNS_DEEP_STUBS);
+        when(properties.getName()).thenReturn("Catalogue");
+        when(properties.getEmailProperties().getRegistrationEmails().getTo()).thenReturn("registry@example.org");
+        when(properties.getEmailProperties().isAdminNotifications()).thenReturn(true);
+
+        registrationMailService = new RegistrationMailService(mailService, cfg, mock(ProviderManager.class),
+                mock(ServiceBundleManager.class), mock(TrainingResourceManager.class), mock(SecurityService.class),
+                notificationFactStore, properties, 2);
+    }
+
+    @Test
+    public void buildsTheDailyDigestFromTheChangesRecordedYesterday() {
+        LoggingInfo audited = new LoggingInfo();
+        audited.setType("audited");
+        Change logged = change("service", "s1", Change.Kind.LOGGED);
+        logged.setLoggingInfo(audited);
+        when(notificationFactStore.getChanges(any(), any())).thenReturn(List.of(
+                change("provider", "p1", Change.Kind.REGISTERED),
+                change("provider", "p1", Change.Kind.UPDATED),
+                change("service", "s1", Change.Kind.UPDATED),
+                change("service", "s1", Change.Kind.UPDATED),
+                logged));
+
+        RegistrationMailService.Delivery digest = registrationMailService.adminDailyDigest(TODAY);
+
+        verify(notificationFactStore).getChanges(Timestamp.valueOf(TODAY.minusDays(1).atStartOfDay()),
+                Timestamp.valueOf(TODAY.atStartOfDay()));
+        assertEquals("2026-10-17", digest.period);
+        assertEquals("registry@example.org", digest.recipient);
+        assertEquals(true, digest.root.get("changes"));
+        assertEquals(List.of("p1"), digest.root.get("newProviders"));
+        assertEquals(List.of("p1"), digest.root.get("updatedProviders"));
+        assertEquals(List.of(), digest.root.get("newServices"));
+        assertEquals(List.of("s1"), digest.root.get("updatedServices"));
+        assertEquals(Map.of("s1", List.of(audited)), digest.root.get("loggingInfoServiceMap"));
+        assertEquals(Map.of(), digest.root.get("loggingInfoProviderMap"));
+    }
+
+    @Test
+    public void skipsTheOnboardingDigestWhenNoProviderIsPending() {
+        when(notificationFactStore.getPendingProviders()).thenReturn(List.of(
+                new NotificationFactStore.PendingProvider("p1", "Provider", "approved provider",
+                        NotificationFactStore.NO_TEMPLATE)));
+        assertNull(registrationMailService.adminOnboardingDigest(TODAY));
+
+        when(notificationFactStore.getPendingProviders()).thenReturn(List.of(
+                new NotificationFactStore.PendingProvider("p2", "Pending", NotificationFactStore.PENDING_PROVIDER,
+                        NotificationFactStore.NO_TEMPLATE)));
+        RegistrationMailService.Delivery digest = registrationMailService.adminOnboardingDigest(TODAY);
+        assertEquals(List.of("Pending"), digest.root.get("iaProviders"));
+        assertEquals(List.of(), digest.root.get("stProviders"));
+    }
+
+    @Test
+    public void sendsADigestOncePerRecipientAndRetriesTheOnesNotSent() throws MessagingException {
+        RegistrationMailService.Delivery digest = registrationMailService.adminDailyDigest(TODAY);
+        when(notificationFactStore.claim("adminDailyDigest", "2026-10-17", "registry@example.org", ""))
+                .thenReturn(true, false, true);
+
+        registrationMailService.deliver(digest);
+        registrationMailService.deliver(digest);
+        verify(mailService, times(1)).sendMail(eq(List.of("registry@example.org")), anyString(), anyString());
+        verify(notificationFactStore, never()).release(any(), any(), any(), any());
+
+        doThrow(new MessagingException("unavailable")).when(mailService).sendMail(anyList(), anyString(), anyString());
+        registrationMailService.deliver(digest);
+        verify(notificationFactStore).release("adminDailyDigest", "2026-10-17", "registry@example.org", "");
+    }
+
+    private static Change change(String resourceType, String resourceId, Change.Kind kind) {
+        return new Change(resourceType, resourceId, kind, new Date());
+    }
+}
@@ -1,67 +1,99 @@
-//package gr.uoa.di.madgik.resourcecatalogue.service;
-//
-//import org.junit.jupiter.api.Assertions;
-//import org.junit.jupiter.api.BeforeEach;
-//import org.junit.jupiter.api.Test;
-//
-//import java.util.Arrays;
-//import java.util.HashSet;
-//import java.util.List;
-//import java.util.Set;
-//
-//public class ResourceIdCreatorTests {
-//
-//    private List<String> resourceTypes;
-//
-//    @BeforeEach
-//    public void setUp() {
-//        resourceTypes = Arrays.asList(
-//                "catalogue",
-//                "configuration_template",
-//                "cti", //configuration_template_instance
-//                "datasource",
-//                "event",
-//                "helpdesk",
-//                "interoperability_record",
-//                "monitoring",
-//                "pro", //draft_provider
-//                "ser", //draft_service
-//                "provider",
-//                "rir", //resource_interoperability_record
-//                "service",
-//                "training_resource",
-//                "cur" //vocabulary_curation
-//        );
-//    }
-//
-//    @Test
-//    public void testRandomness() {
-//        ResourceIdCreator creator = new ResourceIdCreator();
-//        int to = 100000; //TODO: fails on 1 mil, probably change library
-//        for (String resourceType : resourceTypes) {
-//            Set<String> ids = new HashSet<>();
-//            for (int i = 0; i < to; i++) {
-//                ids.add(creator.generate(resourceType));
-//            }
-//            Assertions.assertEquals(to, ids.size());
-//        }
-//    }
-//
-//    @Test
-//    public void testPrefix() {
-//        ResourceIdCreator creator = new ResourceIdCreator();
-//        for (String resourceType : resourceTypes) {
-//            String id = creator.generate(resourceType);
-//            Assertions.assertEquals(resourceType.substring(0, 3), id.substring(0, 3));
-//        }
-//    }
-//
-//    @Test
-//    public void testIdLength() {
-//        ResourceIdCreator creator = new ResourceIdCreator();
-//        for (String resourceType : resourceTypes) {
-//            String id = creator.generate(resourceType);
-//            Assertions.assertEquals(10, id.length());
-//        }
-//    }
-//}
+package gr.uoa.di.madgik.resourcecatalogue.service;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ResourceIdCreatorTests {
+
+    private static final Pattern ID = Pattern.compile("non/[0-9A-Za-z]{6}");
+
+    @Test
+    public void generatesUniqueIdsAcrossThreadsAndNodes() throws Exception {
+        int threads = 16;
+        int idsPerThread = 5000;
+        // two nodes sharing the same block sequence
+        AtomicLong sequence = new AtomicLong();
+        List<ResourceIdCreator> nodes = Arrays.asList(
+                new ResourceIdCreator(searchService(Collections.emptySet()), sequence::incrementAndGet),
+                new ResourceIdCreator(searchService(Collections.emptySet()), sequence::incrementAndGet));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            ResourceIdCreator creator = nodes.get(t % nodes.size());
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<String> ids = new ArrayList<>(idsPerThread);
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids.add(creator.generate("event"));
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+        Set<String> unique = new HashSet<>();
+        int total = 0;
+        for (Future<List<String>> future : futures) {
+            for (String id : future.get(1, TimeUnit.MINUTES)) {
+                assertTrue(ID.matcher(id).matches(), id);
+                unique.add(id);
+                total++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(threads * idsPerThread, total);
+        assertEquals(total, unique.size());
+    }
+
+    @Test
+    public void skipsExistingIds() {
+        ResourceIdCreator probe = new ResourceIdCreator(searchService(Collections.emptySet()), () -> 1);
+        String existing = probe.generate("event");
+
+        SearchService searchService = searchService(Set.of(existing));
+        ResourceIdCreator creator = new ResourceIdCreator(searchService, new AtomicLong()::incrementAndGet);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < ResourceIdCreator.BLOCK_SIZE * 2; i++) {
+            ids.add(creator.generate("event"));
+        }
+
+        assertFalse(ids.contains(existing));
+        assertEquals(ResourceIdCreator.BLOCK_SIZE * 2, ids.size());
+    }
+
+    @Test
+    public void encodesEveryNumberDifferently() {
+        Set<String> encoded = new HashSet<>();
+        for (long number = 0; number < 100000; number++) {
+            assertTrue(encoded.add(ResourceIdCreator.encode(number)));
+        }
+        assertEquals(6, ResourceIdCreator.encode(56800235583L).length());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchService searchService(Set<String> existing) {
+        SearchService searchService = mock(SearchService.class);
+        when(searchService.search(any(FacetFilter.class))).thenAnswer(invocation -> {
+            FacetFilter ff = invocation.getArgument(0);
+            Object filter = ff.getFilter().get("resource_internal_id");
+            Collection<?> ids = filter instanceof Collection ? (Collection<?>) filter : Collections.singleton(filter);
+            Paging<?> paging = mock(Paging.class);
+            when(paging.getTotal()).thenReturn((int) ids.stream().filter(existing::contains).count());
+            return paging;
+        });
+        return searchService;
+    }
+}
@@ -0,0 +1,203 @@
+package gr.uoa.di.madgik.resourcecatalogue.service.sync;
+
+import gr.uoa.di.madgik.resourcecatalogue.domain.Provider;
+import gr.uoa.di.madgik.resourcecatalogue.utils.SyncOutboxEntry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyncOutboxTests {
+
+    private static final String TYPE = "provider";
+
+    private JdbcDataSource dataSource;
+    private SyncOutbox outbox;
+
+    @BeforeEach
+    public void createOutbox() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        // no backoff, so that the entries are due as soon as they are stored
+        outbox = outbox(0, 0, 3);
+    }
+
+    @Test
+    public void newerSynchronizationSupersedesThePendingOne() {
+        outbox.enqueue(TYPE, provider("p", "first"), "update", "down");
+        SyncOutboxEntry first = single();
+        outbox.failed(first, "still down");
+
+        outbox.enqueue(TYPE, provider("p", "second"), "update", "down again");
+
+        SyncOutboxEntry entry = single();
+        assertEquals("update", entry.getAction());
+        assertEquals(1, entry.getAttempts());
+        assertEquals("down again", entry.getLastError());
+        assertTrue(entry.getPayload().contains("second"));
+        assertEquals(first.getVersion() + 1, entry.getVersion());
+    }
+
+    @Test
+    public void pendingActionsAreMerged() {
+        assertEquals("add", SyncOutbox.merge("add", "update"));
+        assertEquals("delete", SyncOutbox.merge("add", "delete"));
+        assertEquals("update", SyncOutbox.merge("delete", "add"));
+        assertEquals("delete", SyncOutbox.merge("update", "delete"));
+        assertEquals("update", SyncOutbox.merge("update", "update"));
+        assertEquals("add", SyncOutbox.merge("add", "verify"));
+        assertEquals("delete", SyncOutbox.merge("delete", "verify"));
+        assertEquals("update", SyncOutbox.merge("update", "verify"));
+        assertEquals("update", SyncOutbox.merge("verify", "update"));
+
+        outbox.enqueue(TYPE, provider("p", "first"), "add", "down");
+        outbox.enqueue(TYPE, provider("p", "second"), "delete", "down");
+        assertEquals("delete", single().getAction());
+        outbox.enqueue(TYPE, provider("p", "third"), "add", "down");
+        assertEquals("update", single().getAction());
+
+        outbox.delete(TYPE, "p");
+        outbox.enqueue(TYPE, provider("p", "fourth"), "add", "down");
+        outbox.enqueue(TYPE, provider("p", "verified"), "verify", "down");
+        SyncOutboxEntry entry = single();
+        assertEquals("add", entry.getAction());
+        assertTrue(entry.getPayload().contains("verified"));
+    }
+
+    @Test
+    public void retriedEntryIsNotCompletedIfSupersededMeanwhile() {
+        outbox.enqueue(TYPE, provider("p", "first"), "update", "down");
+        SyncOutboxEntry retried = single();
+
+        outbox.enqueue(TYPE, provider("p", "second"), "update", "down");
+        outbox.failed(retried, "still down");
+        assertEquals(1, single().getAttempts());
+        outbox.succeeded(retried);
+        assertTrue(single().getPayload().contains("second"));
+
+        outbox.succeeded(single());
+        assertEquals(0, outbox.count(TYPE, null));
+    }
+
+    @Test
+    public void supersededEntryFollowsTheResourceOfTheRemoteHost() {
+        outbox.enqueue(TYPE, provider("p", "first"), "add", "down");
+        SyncOutboxEntry add = single();
+        // the 'add' reaches the remote host while an update is stored
+        outbox.enqueue(TYPE, provider("p", "second"), "update", "down");
+        assertEquals("add", single().getAction());
+        outbox.succeeded(add);
+        assertEquals("update", single().getAction());
+
+        outbox.delete(TYPE, "p");
+        outbox.enqueue(TYPE, provider("p", "third"), "delete", "down");
+        SyncOutboxEntry delete = single();
+        // the 'delete' reaches the remote host while an add is stored
+        outbox.enqueue(TYPE, provider("p", "fourth"), "add", "down");
+        assertEquals("update", single().getAction());
+        outbox.succeeded(delete);
+        assertEquals("add", single().getAction());
+    }
+
+    @Test
+    public void failedEntriesAreRetriedWithBackoffUntilTheMaxAttempts() {
+        SyncOutbox backingOff = outbox(1000, 5000, 3);
+        assertEquals(1000, backingOff.getBackoff(1));
+        assertEquals(2000, backingOff.getBackoff(2));
+        assertEquals(4000, backingOff.getBackoff(3));
+        assertEquals(5000, backingOff.getBackoff(4));
+        assertEquals(5000, backingOff.getBackoff(100));
+
+        backingOff.enqueue(TYPE, provider("p", "first"), "update", "down");
+        assertTrue(backingOff.getDue(TYPE, 10).isEmpty());
+
+        backingOff.failed(single(), "still down");
+        SyncOutboxEntry entry = single();
+        assertEquals(2, entry.getAttempts());
+        assertEquals("still down", entry.getLastError());
+        assertEquals(2000, entry.getNextAttempt().getTime() - entry.getUpdated().getTime());
+
+        backingOff.failed(entry, "given up");
+        assertEquals(3, single().getAttempts());
+        // kept, but no longer retried
+        assertTrue(outbox.getDue(TYPE, 10).isEmpty());
+        assertEquals(1, backingOff.replay(TYPE, "p"));
+        assertEquals(1, backingOff.getDue(TYPE, 10).size());
+    }
+
+    @Test
+    public void dueEntriesAreClaimedByASingleNode() {
+        SyncOutbox otherNode = outbox(0, 0, 3);
+        for (int i = 0; i < 3; i++) {
+            outbox.enqueue(TYPE, provider("p" + i, "first"), "update", "down");
+        }
+
+        List<SyncOutboxEntry> claimed = outbox.getDue(TYPE, 2);
+        assertEquals(2, claimed.size());
+        List<SyncOutboxEntry> claimedByOther = otherNode.getDue(TYPE, 10);
+        assertEquals(1, claimedByOther.size());
+        assertTrue(claimed.stream().noneMatch(entry ->
+                entry.getResourceId().equals(claimedByOther.get(0).getResourceId())));
+        assertTrue(outbox.getDue(TYPE, 10).isEmpty());
+        assertTrue(otherNode.getDue(TYPE, 10).isEmpty());
+
+        // claiming does not supersede the entry, so it can be completed
+        outbox.succeeded(claimed.get(0));
+        assertEquals(2, outbox.count(TYPE, null));
+        // a replayed entry is due again
+        outbox.replay(TYPE, claimed.get(1).getResourceId());
+        assertEquals(1, otherNode.getDue(TYPE, 10).size());
+    }
+
+    @Test
+    public void concurrentSynchronizationsKeepASingleEntry() throws Exception {
+        int threads = 4;
+        int perThread = 25;
+        outbox.enqueue(TYPE, provider("p", "first"), "update", "down");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        outbox.enqueue(TYPE, provider("p", thread + "-" + i), "update", "down");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, single().getVersion());
+    }
+
+    private SyncOutbox outbox(long backoff, long maxBackoff, int maxAttempts) {
+        SyncOutbox syncOutbox = new SyncOutbox(dataSource, true, backoff, maxBackoff, maxAttempts, 60000);
+        syncOutbox.createTable();
+        return syncOutbox;
+    }
+
+    private SyncOutboxEntry single() {
+        List<SyncOutboxEntry> entries = outbox.getEntries(TYPE, "p", 0, 10);
+        assertEquals(1, entries.size());
+        return entries.get(0);
+    }
+
+    private static Provider provider(String id, String name) {
+        Provider provider = new Provider();
+        provider.setId(id);
+        provider.setName(name);
+        return provider;
+    }
+}
@@ -0,0 +1,145 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.uoa.di.madgik.resourcecatalogue.domain.*;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.*;
+import java.net.URL;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeepCopierTests {
+
+    private static final int SAMPLES = 200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DeepCopier copier = new DeepCopier(objectMapper);
+
+    @Test
+    public void copiesEqualJsonRoundTrip() throws Exception {
+        List<Class<?>> classes = List.of(ServiceBundle.class, ProviderBundle.class, TrainingResourceBundle.class,
+                DatasourceBundle.class, CatalogueBundle.class, Service.class, Provider.class, TrainingResource.class,
+                Metadata.class, LoggingInfo.class);
+        for (Class<?> clazz : classes) {
+            for (int seed = 0; seed < SAMPLES; seed++) {
+                Object original = new Generator(new Random(seed)).bean(clazz, 0);
+                String before = objectMapper.writeValueAsString(original);
+
+                Object copy = copier.copy(original);
+                Object roundTrip = objectMapper.readValue(before, clazz);
+
+                assertNotSame(original, copy);
+                assertSame(clazz, copy.getClass());
+                assertEquals(objectMapper.writeValueAsString(roundTrip), objectMapper.writeValueAsString(copy),
+                        clazz.getSimpleName() + " with seed " + seed);
+                assertEquals(before, objectMapper.writeValueAsString(original), "original must not change");
+            }
+        }
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        ServiceBundle original = new ServiceBundle(new Service());
+        original.getService().setId("service");
+        original.getService().setTags(new ArrayList<>(List.of("a", "b")));
+        original.setMetadata(new Metadata());
+        original.getMetadata().setRegisteredBy("user");
+
+        ServiceBundle copy = copier.copy(original);
+        copy.getService().getTags().add("c");
+        copy.getMetadata().setRegisteredBy("other");
+
+        assertNotSame(original.getService(), copy.getService());
+        assertEquals(List.of("a", "b"), original.getService().getTags());
+        assertEquals("user", original.getMetadata().getRegisteredBy());
+        assertEquals("service", copy.getId());
+    }
+
+    /**
+     * Fills the writable properties of beans with random values, leaving some of them null.
+     */
+    private static class Generator {
+
+        private static final int MAX_DEPTH = 4;
+
+        private final Random random;
+
+        private Generator(Random random) {
+            this.random = random;
+        }
+
+        private Object bean(Class<?> clazz, int depth) throws Exception {
+            Constructor<?> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Object bean = constructor.newInstance();
+            for (Method method : clazz.getMethods()) {
+                if (method.getName().startsWith("set") && method.getParameterCount() == 1
+                        && !Modifier.isStatic(method.getModifiers())) {
+                    Object value = value(method.getGenericParameterTypes()[0], depth + 1);
+                    if (value != null || !method.getParameterTypes()[0].isPrimitive()) {
+                        method.invoke(bean, value);
+                    }
+                }
+            }
+            return bean;
+        }
+
+        private Object value(Type type, int depth) throws Exception {
+            Class<?> raw = type instanceof ParameterizedType ? (Class<?>) ((ParameterizedType) type).getRawType()
+                    : type instanceof Class ? (Class<?>) type : Object.class;
+            if (raw == boolean.class || raw == Boolean.class) {
+                return random.nextBoolean();
+            }
+            if (raw == int.class || raw == Integer.class) {
+                return random.nextInt();
+            }
+            if (raw == long.class || raw == Long.class) {
+                return random.nextLong();
+            }
+            if (raw == double.class || raw == Double.class) {
+                return random.nextDouble();
+            }
+            if (random.nextInt(5) == 0) {
+                return null;
+            }
+            if (raw == String.class || raw == Object.class) {
+                return "value-" + random.nextInt(1000);
+            }
+            if (raw == URL.class) {
+                return new URL("https://example.org/" + random.nextInt(1000));
+            }
+            if (raw == Date.class) {
+                return new Date(random.nextInt(Integer.MAX_VALUE) * 1000L);
+            }
+            if (raw.isEnum()) {
+                Object[] constants = raw.getEnumConstants();
+                return constants[random.nextInt(constants.length)];
+            }
+            if (List.class.isAssignableFrom(raw) || Set.class.isAssignableFrom(raw)) {
+                Collection<Object> values = List.class.isAssignableFrom(raw) ? new ArrayList<>() : new HashSet<>();
+                Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+                int size = depth > MAX_DEPTH ? 0 : random.nextInt(4);
+                for (int i = 0; i < size; i++) {
+                    values.add(value(element, depth + 1));
+                }
+                return values;
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                Type element = ((ParameterizedType) type).getActualTypeArguments()[1];
+                int size = depth > MAX_DEPTH ? 0 : random.nextInt(3);
+                for (int i = 0; i < size; i++) {
+                    values.put("key-" + i, value(element, depth + 1));
+                }
+                return values;
+            }
+            if (depth > MAX_DEPTH || raw.isInterface() || Modifier.isAbstract(raw.getModifiers())
+                    || raw.getName().startsWith("java")) {
+                return null;
+            }
+            return bean(raw, depth);
+        }
+    }
+}
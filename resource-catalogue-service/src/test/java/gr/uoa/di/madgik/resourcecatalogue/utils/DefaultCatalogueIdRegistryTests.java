@@ -0,0 +1,62 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.resourcecatalogue.domain.Catalogue;
+import gr.uoa.di.madgik.resourcecatalogue.domain.CatalogueBundle;
+import gr.uoa.di.madgik.resourcecatalogue.service.CatalogueService;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DefaultCatalogueIdRegistryTests {
+
+    @Test
+    public void matchesCatalogueIdPrefixes() {
+        CatalogueService catalogueService = mock(CatalogueService.class);
+        when(catalogueService.stream(any(FacetFilter.class)))
+                .thenAnswer(invocation -> Stream.of(catalogue("eosc", "approved catalogue", true)));
+        DefaultCatalogueIdRegistry registry = new DefaultCatalogueIdRegistry(catalogueService);
+
+        assertTrue(registry.hasCatalogueIdPrefix("eosc.provider.service"));
+        assertTrue(registry.hasCatalogueIdPrefix("eosc"));
+        assertFalse(registry.hasCatalogueIdPrefix("provider.service"));
+        assertFalse(registry.hasCatalogueIdPrefix("eosc-other.service"));
+        assertFalse(registry.hasCatalogueIdPrefix(null));
+        verify(catalogueService, times(1)).stream(any(FacetFilter.class));
+    }
+
+    @Test
+    public void followsCatalogueLifecycle() {
+        CatalogueService catalogueService = mock(CatalogueService.class);
+        when(catalogueService.stream(any(FacetFilter.class))).thenAnswer(invocation -> Stream.empty());
+        DefaultCatalogueIdRegistry registry = new DefaultCatalogueIdRegistry(catalogueService);
+        registry.refresh();
+
+        registry.update(catalogue("new", "pending catalogue", true));
+        assertFalse(registry.hasCatalogueIdPrefix("new.service"));
+
+        registry.update(catalogue("new", "approved catalogue", true));
+        assertTrue(registry.hasCatalogueIdPrefix("new.service"));
+
+        registry.update(catalogue("new", "approved catalogue", false));
+        assertFalse(registry.hasCatalogueIdPrefix("new.service"));
+
+        registry.update(catalogue("new", "approved catalogue", true));
+        registry.remove("new");
+        assertFalse(registry.hasCatalogueIdPrefix("new.service"));
+    }
+
+    private static CatalogueBundle catalogue(String id, String status, boolean active) {
+        Catalogue catalogue = new Catalogue();
+        catalogue.setId(id);
+        CatalogueBundle catalogueBundle = new CatalogueBundle(catalogue);
+        catalogueBundle.setStatus(status);
+        catalogueBundle.setActive(active);
+        return catalogueBundle;
+    }
+}
@@ -0,0 +1,101 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MigrationJobStoreTests {
+
+    private JdbcDataSource dataSource;
+    private MigrationJobStore store;
+
+    @BeforeEach
+    public void createStore() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        store = new MigrationJobStore(dataSource);
+        store.createTables();
+    }
+
+    @Test
+    public void onlyOneJobOfAProviderIsActive() {
+        MigrationJob running = job("p", "node-a");
+        store.save(running);
+        store.save(job("q", "node-a"));
+        assertThrows(DuplicateKeyException.class, () -> store.save(job("p", "node-b")));
+        assertEquals(running.getId(), store.getActiveJobId("p", "cat"));
+
+        running.setStatus(MigrationJob.Status.COMPLETED);
+        store.update(running);
+        assertNull(store.getActiveJobId("p", "cat"));
+        MigrationJob next = job("p", "node-b");
+        store.save(next);
+        assertEquals(next.getId(), store.getActiveJobId("p", "cat"));
+
+        // a dry run is never active
+        MigrationJob dryRun = new MigrationJob(UUID.randomUUID().toString(), "p", "cat", "new", true, "admin");
+        dryRun.setStatus(MigrationJob.Status.COMPLETED);
+        store.save(dryRun);
+    }
+
+    @Test
+    public void onlyTheJobsOfStoppedInstancesAreFailed() {
+        MigrationJob alive = job("p", "node-a");
+        MigrationJob orphaned = job("q", "node-b");
+        store.save(alive);
+        store.save(orphaned);
+        setHeartbeat(orphaned, System.currentTimeMillis() - 60000);
+        setHeartbeat(alive, System.currentTimeMillis() - 60000);
+        store.heartbeat("node-a");
+
+        assertEquals(1, store.failOrphaned(30000));
+        assertEquals(MigrationJob.Status.PENDING, store.get(alive.getId()).getStatus());
+        assertEquals(MigrationJob.Status.FAILED, store.get(orphaned.getId()).getStatus());
+        assertNull(store.getActiveJobId("q", "cat"));
+        assertEquals(0, store.failOrphaned(30000));
+    }
+
+    @Test
+    public void jobTakenOverIsNotChangedByItsFormerOwner() {
+        MigrationJob job = job("p", "node-a");
+        store.save(job);
+        setHeartbeat(job, System.currentTimeMillis() - 60000);
+        store.failOrphaned(30000);
+
+        MigrationJob retried = store.get(job.getId());
+        retried.setOwner("node-b");
+        retried.setStatus(MigrationJob.Status.RUNNING);
+        retried.setError(null);
+        store.update(retried);
+
+        // the former owner finishes late
+        job.setStatus(MigrationJob.Status.FAILED);
+        job.setError("Interrupted");
+        store.update(job);
+
+        MigrationJob stored = store.get(job.getId());
+        assertEquals("node-b", stored.getOwner());
+        assertEquals(MigrationJob.Status.RUNNING, stored.getStatus());
+        assertEquals(job.getId(), store.getActiveJobId("p", "cat"));
+    }
+
+    private static MigrationJob job(String providerId, String owner) {
+        MigrationJob job = new MigrationJob(UUID.randomUUID().toString(), providerId, "cat", "new", false, "admin");
+        job.setOwner(owner);
+        job.setSteps(List.of(new MigrationStep("provider", providerId, providerId)));
+        return job;
+    }
+
+    private void setHeartbeat(MigrationJob job, long heartbeat) {
+        new JdbcTemplate(dataSource).update("UPDATE migration_job SET heartbeat = ? WHERE id = ?",
+                new Timestamp(heartbeat), job.getId());
+    }
+}
@@ -0,0 +1,147 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResourceCursorTests {
+
+    private static final Pattern BOUND = Pattern.compile("creation_date >= (\\d+)");
+    private static final Pattern ID_BOUND =
+            Pattern.compile("creation_date = (\\d+) AND resource_internal_id > \"([^\"]*)\"");
+
+    @Test
+    public void streamsAllResourcesAcrossPages() {
+        // several resources share a creation date, so consecutive pages overlap
+        List<Resource> stored = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            stored.add(resource("r" + i, i / 3));
+        }
+        SearchService searchService = searchService(stored);
+
+        List<String> ids = ResourceCursor.stream(new ResourceCursor(searchService, "provider", null, 4))
+                .map(Resource::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(stored.stream()
+                .sorted(Comparator.comparing((Resource resource) -> resource.getCreationDate().getTime())
+                        .thenComparing(Resource::getId))
+                .map(Resource::getId)
+                .collect(Collectors.toList()), ids);
+    }
+
+    @Test
+    public void pagesCreationDatesLargerThanAPageById() {
+        List<Resource> stored = new ArrayList<>();
+        stored.add(resource("first", 0));
+        for (int i = 6; i >= 0; i--) {
+            stored.add(resource("same" + i, 1));
+        }
+        stored.add(resource("next", 2));
+        SearchService searchService = searchService(stored);
+
+        List<String> ids = ResourceCursor.stream(new ResourceCursor(searchService, "provider", null, 3))
+                .map(Resource::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("first", "same0", "same1", "same2", "same3", "same4", "same5", "same6", "next"),
+                ids);
+    }
+
+    @Test
+    public void resumesAfterTheLastResourceReturned() {
+        List<Resource> stored = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            stored.add(resource("r" + i, i / 5));
+        }
+        SearchService searchService = searchService(stored);
+        List<Resource> all = ResourceCursor.stream(new ResourceCursor(searchService, "provider", null, 3))
+                .collect(Collectors.toList());
+        assertEquals(12, all.size());
+
+        for (int i = 0; i < all.size(); i++) {
+            List<Resource> rest = ResourceCursor.stream(new ResourceCursor(searchService, "provider", null, 3)
+                    .after(all.get(i))).collect(Collectors.toList());
+            assertEquals(all.subList(i + 1, all.size()), rest, "resuming after " + all.get(i).getId());
+        }
+    }
+
+    @Test
+    public void readsTheInternalIdOfPayloads() {
+        Resource bundle = new Resource();
+        bundle.setPayload("{\"service\":{\"id\":\"s1\",\"name\":\"Service\"},\"metadata\":{\"published\":false}}");
+        assertEquals("s1", ResourceCursor.internalId(bundle));
+        assertEquals("e1", ResourceCursor.internalId(resource("e1", 0)));
+    }
+
+    @Test
+    public void quotesValues() {
+        assertEquals("\"a\\\\b\\\"c\"", ResourceCursor.quote("a\\b\"c"));
+    }
+
+    @Test
+    public void createsQueryFromFilters() {
+        assertNull(ResourceCursor.toCql(new FacetFilter()));
+
+        FacetFilter ff = new FacetFilter();
+        ff.addFilter("published", false);
+        assertEquals("published=\"false\"", ResourceCursor.toCql(ff));
+
+        ff = new FacetFilter();
+        ff.addFilter("status", Arrays.asList("approved provider", "pending provider"));
+        assertEquals("(status=\"approved provider\" OR status=\"pending provider\")", ResourceCursor.toCql(ff));
+
+        FacetFilter keywordFilter = new FacetFilter();
+        keywordFilter.setKeyword("search");
+        assertThrows(IllegalArgumentException.class, () -> ResourceCursor.toCql(keywordFilter));
+    }
+
+    private static Resource resource(String id, long creationDate) {
+        Resource resource = new Resource();
+        resource.setId(id);
+        resource.setPayload(String.format("{\"id\":\"%s\"}", id));
+        resource.setCreationDate(new Date(creationDate));
+        return resource;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchService searchService(List<Resource> stored) {
+        SearchService searchService = mock(SearchService.class);
+        when(searchService.cqlQuery(anyString(), anyString(), anyInt(), anyInt(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    int quantity = invocation.getArgument(2);
+                    Paging<Resource> paging = mock(Paging.class);
+                    Matcher idMatcher = ID_BOUND.matcher(invocation.getArgument(0));
+                    if (idMatcher.find()) {
+                        long creationDate = Long.parseLong(idMatcher.group(1));
+                        when(paging.getResults()).thenReturn(stored.stream()
+                                .filter(resource -> resource.getCreationDate().getTime() == creationDate)
+                                .filter(resource -> resource.getId().compareTo(idMatcher.group(2)) > 0)
+                                .sorted(Comparator.comparing(Resource::getId))
+                                .limit(quantity)
+                                .collect(Collectors.toList()));
+                        return paging;
+                    }
+                    Matcher matcher = BOUND.matcher(invocation.getArgument(0));
+                    long bound = matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+                    when(paging.getResults()).thenReturn(stored.stream()
+                            .filter(resource -> resource.getCreationDate().getTime() >= bound)
+                            .limit(quantity)
+                            .collect(Collectors.toList()));
+                    return paging;
+                });
+        return searchService;
+    }
+}
@@ -0,0 +1,63 @@
+package gr.uoa.di.madgik.resourcecatalogue.utils;
+
+import gr.uoa.di.madgik.registry.domain.FacetFilter;
+import gr.uoa.di.madgik.registry.domain.Paging;
+import gr.uoa.di.madgik.registry.domain.Resource;
+import gr.uoa.di.madgik.registry.service.SearchService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class ResourceIdQueryTests {
+
+    @Test
+    public void searchesIdsInBatches() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            ids.add("id" + i);
+        }
+        ids.add("id0");
+        ids.add(null);
+        ids.add("");
+        SearchService searchService = searchService(Set.of("id3", "id120", "id249"));
+
+        List<String> found = ResourceIdQuery.search(searchService, "service", ids).stream()
+                .map(Resource::getPayload)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList("id3", "id120", "id249"), found);
+        verify(searchService, times(3)).search(argThat(ff -> "service".equals(ff.getResourceType())));
+    }
+
+    @Test
+    public void skipsEmptyLookups() {
+        SearchService searchService = mock(SearchService.class);
+
+        assertEquals(Collections.emptyList(), ResourceIdQuery.search(searchService, "service", Collections.emptyList()));
+        verifyNoInteractions(searchService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchService searchService(Set<String> stored) {
+        SearchService searchService = mock(SearchService.class);
+        when(searchService.search(any(FacetFilter.class))).thenAnswer(invocation -> {
+            FacetFilter ff = invocation.getArgument(0);
+            List<Resource> results = new ArrayList<>();
+            for (Object id : (Collection<?>) ff.getFilter().get("resource_internal_id")) {
+                if (stored.contains(id)) {
+                    Resource resource = new Resource();
+                    resource.setPayload((String) id);
+                    results.add(resource);
+                }
+            }
+            Paging<Resource> paging = mock(Paging.class);
+            when(paging.getResults()).thenReturn(results);
+            return paging;
+        });
+        return searchService;
+    }
+}
@@ -0,0 +1,137 @@
+package gr.uoa.di.madgik.resourcecatalogue.validators;
+
+import com.sun.net.httpserver.HttpServer;
+import gr.uoa.di.madgik.resourcecatalogue.exception.ValidationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UrlReachabilityCheckerTests {
+
+    private HttpServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ok", exchange -> {
+            hits.incrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/blocked", exchange -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL(String.format("http://localhost:%d%s", server.getAddress().getPort(), path));
+    }
+
+    @Test
+    public void reachableUrlsAreCheckedOnceAndCached() throws IOException {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker("sync", 4, 500, 60000, 100);
+        checker.check(Arrays.asList(
+                new UrlReachabilityChecker.Target("webpage", url("/ok")),
+                new UrlReachabilityChecker.Target("helpdeskPage", url("/ok"))));
+        checker.check(Collections.singletonList(new UrlReachabilityChecker.Target("webpage", url("/ok"))));
+
+        assertEquals(1, hits.get());
+        assertTrue(checker.getReachability(url("/ok")).isReachable());
+    }
+
+    @Test
+    public void unreachableUrlsDoNotFailValidation() throws IOException {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker("sync", 4, 500, 60000, 100);
+        checker.check(Collections.singletonList(new UrlReachabilityChecker.Target("webpage", url("/missing"))));
+
+        assertEquals(404, checker.getReachability(url("/missing")).getStatusCode());
+    }
+
+    @Test
+    public void slowUrlsFailValidation() throws IOException {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker("sync", 4, 500, 60000, 100);
+        ValidationException e = assertThrows(ValidationException.class, () -> checker.check(
+                Arrays.asList(new UrlReachabilityChecker.Target("webpage", url("/ok")),
+                        new UrlReachabilityChecker.Target("helpdeskPage", url("/slow")))));
+        assertTrue(e.getMessage().contains("helpdeskPage"));
+    }
+
+    @Test
+    public void timeoutsAreNotCached() throws IOException {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker("sync", 4, 500, 60000, 100);
+        assertThrows(ValidationException.class, () -> checker.check(
+                Collections.singletonList(new UrlReachabilityChecker.Target("webpage", url("/slow")))));
+
+        assertNull(checker.getReachability(url("/slow")));
+    }
+
+    @Test
+    public void asyncModeDoesNotBlock() throws Exception {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker("async", 4, 5000, 60000, 100);
+        checker.check(Collections.singletonList(new UrlReachabilityChecker.Target("webpage", url("/blocked"))));
+
+        // the check returned while the URL is still being checked in the background
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        assertNull(checker.getReachability(url("/blocked")));
+        release.countDown();
+    }
+
+    @Test
+    public void cacheIsBoundedInSize() throws IOException {
+        UrlReachabilityChecker checker = new UrlReachabilityChecker("sync", 4, 500, 60000, 1);
+        checker.check(Collections.singletonList(new UrlReachabilityChecker.Target("webpage", url("/ok"))));
+        checker.check(Collections.singletonList(new UrlReachabilityChecker.Target("webpage", url("/missing"))));
+
+        assertNull(checker.getReachability(url("/ok")));
+        assertEquals(404, checker.getReachability(url("/missing")).getStatusCode());
+    }
+
+    @Test
+    public void equivalentUrlsShareTheirCacheEntry() throws IOException {
+        assertEquals(UrlReachabilityChecker.normalize(new URL("HTTP://Example.org:80/a b")),
+                UrlReachabilityChecker.normalize(new URL("http://example.org/a%20b")));
+    }
+}